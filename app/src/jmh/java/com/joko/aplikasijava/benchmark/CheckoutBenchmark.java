@@ -0,0 +1,67 @@
+package com.joko.aplikasijava.benchmark;
+
+import com.joko.aplikasijava.models.DetailTransaksi;
+import com.joko.aplikasijava.models.Produk;
+import com.joko.aplikasijava.models.Transaksi;
+import com.joko.aplikasijava.utils.StrukUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark jalur checkout: hitung ulang total, subtotal per baris dan cetak struk.
+ * Ukuran keranjang: 3 (belanja cepat), 15 (belanja biasa), 60 (belanja bulanan).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+    
+    @Param({"3", "15", "60"})
+    int jumlahItem;
+    
+    private Transaksi transaksi;
+    private List<DetailTransaksi> detailList;
+    
+    @Setup
+    public void siapkan() {
+        List<Produk> katalog = DataBenchmark.katalog(2_000);
+        transaksi = DataBenchmark.transaksi(katalog, jumlahItem);
+        detailList = transaksi.getDetailTransaksiList();
+    }
+    
+    @Benchmark
+    public BigDecimal recalculate() {
+        transaksi.recalculate();
+        return transaksi.getGrandTotal();
+    }
+    
+    @Benchmark
+    public void calculateSubtotal(Blackhole blackhole) {
+        for (DetailTransaksi detail : detailList) {
+            detail.calculateSubtotal();
+            blackhole.consume(detail.getSubtotal());
+        }
+    }
+    
+    @Benchmark
+    public String cetakStruk() {
+        return StrukUtils.cetakStruk(transaksi);
+    }
+}
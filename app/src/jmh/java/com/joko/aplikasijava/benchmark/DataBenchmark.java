@@ -0,0 +1,90 @@
+package com.joko.aplikasijava.benchmark;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.models.DetailTransaksi;
+import com.joko.aplikasijava.models.Pelanggan;
+import com.joko.aplikasijava.models.Pembayaran;
+import com.joko.aplikasijava.models.Produk;
+import com.joko.aplikasijava.models.Transaksi;
+import com.joko.aplikasijava.models.User;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Data sampel untuk benchmark: katalog produk dan transaksi dengan
+ * ukuran keranjang tertentu. Seed tetap agar hasil antar build sebanding.
+ */
+final class DataBenchmark {
+    
+    static final long SEED = 20240601L;
+    
+    private static final String[] MEREK = {
+        "Indomie", "Sedaap", "Aqua", "Teh Botol", "Ultra", "Frisian Flag", "Kapal Api", "Good Day",
+        "Sari Roti", "Chitato", "Oreo", "Pepsodent", "Lifebuoy", "Rinso", "Sunlight", "Bimoli"
+    };
+    private static final String[] VARIAN = {
+        "Goreng", "Kari Ayam", "Original", "Coklat", "Strawberry", "Pedas", "Jumbo", "Mini",
+        "Sachet", "Botol 600ml", "Kaleng", "Refill 800ml", "Pack 5", "Keju", "Vanila", "Lemon"
+    };
+    
+    private DataBenchmark() {}
+    
+    /**
+     * Katalog produk dengan kode PRD000001.., barcode 899xxxxxxxxxx dan harga bervariasi
+     */
+    static List<Produk> katalog(int jumlah) {
+        Random random = new Random(SEED);
+        List<Produk> produkList = new ArrayList<>(jumlah);
+        for (int i = 1; i <= jumlah; i++) {
+            String nama = MEREK[random.nextInt(MEREK.length)] + " " + VARIAN[random.nextInt(VARIAN.length)] + " " + i;
+            BigDecimal hargaJual = BigDecimal.valueOf(1_000 + random.nextInt(150) * 500L).setScale(2);
+            BigDecimal hargaBeli = hargaJual.multiply(new BigDecimal("0.80")).setScale(2);
+            Produk produk = new Produk(kode(i), nama, hargaBeli, hargaJual, 50 + random.nextInt(500), "PCS");
+            produk.setId((long) i);
+            produk.setBarcode(barcode(i));
+            produk.setTerjual(random.nextInt(10_000));
+            // Sekitar satu dari lima produk sedang promo
+            if (random.nextInt(5) == 0) {
+                produk.setDiskonPersen(BigDecimal.valueOf(5 + random.nextInt(4) * 5L));
+            }
+            produkList.add(produk);
+        }
+        return produkList;
+    }
+    
+    static String kode(int nomor) {
+        return String.format("PRD%06d", nomor);
+    }
+    
+    static String barcode(int nomor) {
+        return String.format("899%010d", nomor);
+    }
+    
+    /**
+     * Transaksi selesai dengan jumlahItem baris keranjang, pelanggan member dan pembayaran tunai
+     */
+    static Transaksi transaksi(List<Produk> katalog, int jumlahItem) {
+        Random random = new Random(SEED + jumlahItem);
+        User kasir = new User("kasir1", "-", "Kasir Satu", AppConfig.ROLE_KASIR);
+        Transaksi transaksi = new Transaksi("TRX202406010001", kasir);
+        
+        Pelanggan pelanggan = new Pelanggan("MBR0001", "Budi Santoso", "081234567890");
+        pelanggan.setPoin(1_250);
+        transaksi.setPelanggan(pelanggan);
+        transaksi.setDiskonPersen(new BigDecimal("5"));
+        
+        for (int i = 0; i < jumlahItem; i++) {
+            Produk produk = katalog.get(random.nextInt(katalog.size()));
+            transaksi.addDetail(new DetailTransaksi(produk, 1 + random.nextInt(4)));
+        }
+        
+        BigDecimal bayar = transaksi.getGrandTotal().setScale(-4, RoundingMode.UP);
+        transaksi.addPembayaran(new Pembayaran(AppConfig.PAYMENT_CASH, bayar));
+        transaksi.setPoinDidapat(transaksi.getGrandTotal().intValue() / 10_000);
+        return transaksi;
+    }
+}
@@ -0,0 +1,49 @@
+package com.joko.aplikasijava.benchmark;
+
+import com.joko.aplikasijava.utils.FormatUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark format Rupiah, dipanggil berkali-kali per baris struk dan laporan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatBenchmark {
+    
+    private static final int MASK = 1023;
+    
+    private final BigDecimal[] nominal = new BigDecimal[MASK + 1];
+    private int posisi;
+    
+    @Setup
+    public void siapkan() {
+        Random random = new Random(DataBenchmark.SEED);
+        for (int i = 0; i < nominal.length; i++) {
+            // Dari harga satuan ribuan sampai total harian puluhan juta
+            long sen = (long) Math.pow(10, 5 + random.nextInt(5)) + random.nextInt(1_000_000);
+            nominal[i] = BigDecimal.valueOf(sen, 2);
+        }
+    }
+    
+    @Benchmark
+    public String formatRupiah() {
+        return FormatUtils.formatRupiah(nominal[posisi++ & MASK]);
+    }
+}
@@ -0,0 +1,92 @@
+package com.joko.aplikasijava.benchmark;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.models.Produk;
+import com.joko.aplikasijava.services.ProdukIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark jalur pencarian produk saat scan di kasir (index memori):
+ * kode, barcode, kode yang tidak ada, dan autocomplete prefix nama.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProdukLookupBenchmark {
+    
+    private static final int MASK = 1023;
+    
+    @Param({"5000", "100000"})
+    int jumlahProduk;
+    
+    private final String[] kode = new String[MASK + 1];
+    private final String[] barcode = new String[MASK + 1];
+    private final String[] tidakAda = new String[MASK + 1];
+    private final String[] prefix = new String[MASK + 1];
+    private ProdukIndex index;
+    
+    @State(Scope.Thread)
+    public static class Posisi {
+        int nilai;
+        
+        int berikut() {
+            return nilai++ & MASK;
+        }
+    }
+    
+    @Setup
+    public void siapkan() {
+        List<Produk> katalog = DataBenchmark.katalog(jumlahProduk);
+        index = ProdukIndex.getInstance();
+        index.muat(katalog);
+        
+        Random random = new Random(DataBenchmark.SEED);
+        for (int i = 0; i <= MASK; i++) {
+            Produk produk = katalog.get(random.nextInt(katalog.size()));
+            kode[i] = produk.getKode();
+            barcode[i] = produk.getBarcode();
+            tidakAda[i] = DataBenchmark.kode(jumlahProduk + 1 + i);
+            // Kasir biasanya mengetik 3-5 huruf awal nama
+            String nama = produk.getNama();
+            prefix[i] = nama.substring(0, Math.min(nama.length(), 3 + random.nextInt(3)));
+        }
+    }
+    
+    @Benchmark
+    public Optional<Produk> cariKode(Posisi posisi) {
+        return index.cari(kode[posisi.berikut()]);
+    }
+    
+    @Benchmark
+    public Optional<Produk> cariBarcode(Posisi posisi) {
+        return index.cari(barcode[posisi.berikut()]);
+    }
+    
+    @Benchmark
+    public Optional<Produk> cariTidakAda(Posisi posisi) {
+        return index.cari(tidakAda[posisi.berikut()]);
+    }
+    
+    @Benchmark
+    public List<Produk> autocomplete(Posisi posisi) {
+        return index.autocomplete(prefix[posisi.berikut()], AppConfig.AUTOCOMPLETE_LIMIT);
+    }
+}
@@ -1,16 +1,35 @@
 package com.joko.aplikasijava;
 
 import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.config.DatabaseInitializer;
 import com.joko.aplikasijava.config.HibernateUtil;
+import com.joko.aplikasijava.jurnal.JurnalPenjualan;
+import com.joko.aplikasijava.jurnal.PemutarJurnal;
+import com.joko.aplikasijava.jurnal.PenulisPenjualan;
+import com.joko.aplikasijava.metrics.JfrRecorder;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.metrics.PrometheusExporter;
 import com.joko.aplikasijava.models.*;
+import com.joko.aplikasijava.server.KasirServer;
 import com.joko.aplikasijava.services.*;
 import com.joko.aplikasijava.utils.*;
+import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Aplikasi Sistem Kasir - KASIR PRO
@@ -30,6 +49,9 @@ public class App {
     private final LaporanService laporanService;
     
     private boolean running = true;
+    private JfrRecorder jfrRecorder;
+    private CompletableFuture<Void> siapLogin;
+    private CompletableFuture<Void> persiapan;
     
     public App() {
         this.authService = new AuthService();
@@ -40,33 +62,87 @@ public class App {
     }
     
     public static void main(String[] args) {
+        // Bootstrap Hibernate berjalan selagi service dibuat dan splash screen tampil
+        boolean migrasi = adaArgumen(args, "--migrate");
+        if (migrasi) {
+            System.setProperty("kasirpro.db.schema", "update");
+        } else if (!bukaJurnal()) {
+            return;
+        }
+        HibernateUtil.mulaiBootstrap();
         App app = new App();
+        PrometheusExporter exporter = null;
         
         try {
-            app.run();
+            if (migrasi) {
+                app.runMigrasi();
+                return;
+            }
+            if (adaArgumen(args, "--latih-cds")) {
+                app.runLatihanCds();
+                return;
+            }
+            if (adaArgumen(args, "--jfr")) {
+                app.jfrRecorder = new JfrRecorder(bacaPath(args, "--jfr-file", fileJfr("kasirpro")));
+                app.jfrRecorder.start();
+            }
+            if (adaArgumen(args, "--metrics")) {
+                exporter = new PrometheusExporter(bacaTeks(args, "--metrics-host", AppConfig.METRICS_HOST),
+                        bacaAngka(args, "--metrics-port", AppConfig.METRICS_PORT));
+                exporter.start();
+            }
+            if (adaArgumen(args, "--server")) {
+                app.runServer(bacaTeks(args, "--host", AppConfig.SERVER_HOST), bacaPort(args));
+            } else {
+                app.run();
+            }
         } catch (Exception e) {
             logger.error("Error aplikasi: {}", e.getMessage(), e);
             System.err.println("Terjadi kesalahan: " + e.getMessage());
         } finally {
+            if (exporter != null) {
+                exporter.stop();
+            }
+            if (app.jfrRecorder != null) {
+                app.jfrRecorder.stop();
+            }
+            PenulisPenjualan.getInstance().berhenti();
+            PemutarJurnal.getInstance().berhenti();
             HibernateUtil.shutdown();
         }
     }
     
+    /**
+     * Kunci jurnal penjualan sebelum apa pun berjalan, supaya proses kedua dengan
+     * direktori jurnal yang sama langsung berhenti
+     * @return false jika jurnal tidak bisa dibuka
+     */
+    private static boolean bukaJurnal() {
+        try {
+            JurnalPenjualan.getInstance();
+            return true;
+        } catch (ExceptionInInitializerError e) {
+            Throwable sebab = e.getCause() != null ? e.getCause() : e;
+            logger.error("Jurnal penjualan tidak bisa dibuka: {}", sebab.getMessage());
+            System.err.println("Terjadi kesalahan: " + sebab.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * Menjalankan aplikasi
      */
     public void run() {
+        // Database, admin default dan sample data disiapkan di background selagi splash dan login tampil
+        mulaiPersiapan();
         showSplashScreen();
         
-        // Inisialisasi admin default
-        authService.initDefaultAdmin();
-        initSampleData();
-        
         // Login
         if (!doLogin()) {
             System.out.println("Gagal login. Aplikasi ditutup.");
             return;
         }
+        tunggu(persiapan);
         
         // Main loop
         while (running) {
@@ -78,6 +154,162 @@ public class App {
         System.out.println("\nTerima kasih telah menggunakan " + AppConfig.APP_NAME);
     }
     
+    /**
+     * Menjalankan server checkout headless untuk terminal jaringan
+     */
+    public void runServer(String host, int port) throws InterruptedException {
+        mulaiPersiapan();
+        tunggu(persiapan);
+        
+        KasirServer server = new KasirServer(host, port, transaksiService, produkService, pelangganService);
+        server.start();
+        System.out.println(AppConfig.APP_NAME + " server berjalan di " + host + ":" + server.getPort()
+                + " (Ctrl+C untuk berhenti)");
+        
+        // Hentikan server lalu beri waktu main thread menutup Hibernate
+        Thread mainThread = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                mainThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "kasir-server-shutdown"));
+        
+        server.tunggu();
+    }
+    
+    /**
+     * Buat atau perbarui skema database (hbm2ddl update) lalu jalankan langkah migrasi lain
+     */
+    public void runMigrasi() {
+        System.out.println("Menjalankan migrasi database...");
+        HibernateUtil.getSessionFactory();
+        DatabaseInitializer.migrasi();
+        authService.initDefaultAdmin();
+        System.out.println("Migrasi database selesai.");
+    }
+    
+    /**
+     * Startup latihan untuk membuat arsip AppCDS (lihat task cdsArchive):
+     * jalur startup biasa, baca entity yang dipakai kasir dan render layar utama,
+     * tanpa menulis transaksi. Login memakai user fiktif dan memang diharapkan gagal
+     * (hanya memuat class jalur login), sehingga tidak ada sesi kasir yang dibuka.
+     */
+    public void runLatihanCds() {
+        mulaiPersiapan();
+        showSplashScreen();
+        tunggu(persiapan);
+        
+        // User tidak ada: login gagal dengan WARN "User tidak ditemukan", tidak ada penghitung gagal yang bertambah
+        authService.login("latihan-cds", "latihan-cds");
+        produkService.getAllProdukAktif();
+        produkService.getProdukStokRendah();
+        pelangganService.getAllMember();
+        transaksiService.getTransaksiHariIni();
+        tampilkanRingkasanPenjualan(laporanService.getRingkasanHariIni());
+        showDashboard();
+        System.out.println("Latihan CDS selesai.");
+    }
+    
+    /**
+     * Mulai persiapan setelah bootstrap Hibernate selesai, di dua thread paralel:
+     * admin default (cukup untuk login) serta sample data, index produk, pemutar jurnal
+     * dan penulis history stok (menulis history yang tertunda di jurnal)
+     */
+    private void mulaiPersiapan() {
+        CompletableFuture<SessionFactory> bootstrap = HibernateUtil.mulaiBootstrap();
+        siapLogin = bootstrap.thenRunAsync(this::siapkanLogin, threadPersiapan("kasirpro-persiapan-login"));
+        CompletableFuture<Void> data = bootstrap.thenRunAsync(() -> {
+            initSampleData();
+            produkService.muatIndexProduk();
+            PemutarJurnal.getInstance().mulai();
+            PenulisStokHistory.getInstance().mulai();
+        }, threadPersiapan("kasirpro-persiapan-data"));
+        persiapan = CompletableFuture.allOf(siapLogin, data);
+    }
+    
+    private static Executor threadPersiapan(String nama) {
+        return tugas -> Thread.ofPlatform().name(nama).daemon().start(tugas);
+    }
+    
+    private void siapkanLogin() {
+        DatabaseInitializer.inisialisasi();
+        authService.initDefaultAdmin();
+        
+        // Waktu sejak JVM start sampai aplikasi siap menerima login
+        long waktuSiap = ManagementFactory.getRuntimeMXBean().getUptime();
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.keterangan("kasirpro_startup_detik", "Waktu sejak JVM start per tahap startup");
+        metrics.gauge("kasirpro_startup_detik", () -> HibernateUtil.getDurasiBootstrapMs() / 1000.0,
+                "tahap", "session_factory");
+        metrics.gauge("kasirpro_startup_detik", () -> waktuSiap / 1000.0, "tahap", "siap_login");
+        if (waktuSiap > AppConfig.TARGET_SIAP_LOGIN_MS) {
+            logger.warn("Siap login dalam {} ms, melebihi target {} ms (bootstrap Hibernate {} ms)",
+                    waktuSiap, AppConfig.TARGET_SIAP_LOGIN_MS, HibernateUtil.getDurasiBootstrapMs());
+        } else {
+            logger.info("Siap login dalam {} ms (target {} ms, bootstrap Hibernate {} ms)",
+                    waktuSiap, AppConfig.TARGET_SIAP_LOGIN_MS, HibernateUtil.getDurasiBootstrapMs());
+        }
+    }
+    
+    /**
+     * Tunggu persiapan background selesai; kegagalan bootstrap diteruskan ke pemanggil
+     */
+    private static void tunggu(CompletableFuture<Void> tugas) {
+        try {
+            tugas.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+    
+    private static boolean adaArgumen(String[] args, String nama) {
+        for (String arg : args) {
+            if (arg.equals(nama)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int bacaPort(String[] args) {
+        return bacaAngka(args, "--port", AppConfig.SERVER_PORT);
+    }
+    
+    private static int bacaAngka(String[] args, String nama, int nilaiDefault) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(nama)) {
+                return Integer.parseInt(args[i + 1]);
+            }
+        }
+        return nilaiDefault;
+    }
+    
+    private static String bacaTeks(String[] args, String nama, String nilaiDefault) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(nama)) {
+                return args[i + 1];
+            }
+        }
+        return nilaiDefault;
+    }
+    
+    private static Path bacaPath(String[] args, String nama, Path nilaiDefault) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(nama)) {
+                return Paths.get(args[i + 1]);
+            }
+        }
+        return nilaiDefault;
+    }
+    
+    private static Path fileJfr(String prefix) {
+        String waktu = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return Paths.get(AppConfig.JFR_DIR, prefix + "-" + waktu + ".jfr");
+    }
+    
     /**
      * Tampilkan splash screen
      */
@@ -99,13 +331,6 @@ public class App {
         System.out.println("╚══════════════════════════════════════════════════════════╝");
         System.out.println();
         System.out.println("Menginisialisasi sistem...");
-        
-        // Simulasi loading
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
     }
     
     /**
@@ -119,6 +344,8 @@ public class App {
             String username = InputUtils.readString("Username: ");
             String password = InputUtils.readString("Password: ");
             
+            // Username dan password diketik selagi persiapan berjalan
+            tunggu(siapLogin);
             User user = authService.login(username, password);
             if (user != null) {
                 System.out.println("\n✓ Selamat datang, " + user.getNamaLengkap() + "!");
@@ -198,6 +425,7 @@ public class App {
             }
             case 8 -> menuGantiPassword();
             case 9 -> {
+                transaksiService.tutupSession(transaksiService.getTerminalId());
                 authService.logout();
                 System.out.println("Logout berhasil.");
                 if (!doLogin()) {
@@ -307,9 +535,12 @@ public class App {
     }
     
     private void tambahItemTransaksi() {
-        String kode = InputUtils.readString("Kode/Barcode produk (kosong untuk batal): ");
+        String kode = InputUtils.readString("Kode/Barcode/Nama produk (kosong untuk batal): ");
         if (kode.isEmpty()) return;
         
+        kode = pilihDariSaran(kode);
+        if (kode == null) return;
+        
         try {
             int qty = InputUtils.readInt("Qty: ", 1, 9999);
             transaksiService.tambahKeKeranjang(kode, qty);
@@ -320,6 +551,35 @@ public class App {
         }
     }
     
+    /**
+     * Jika input bukan kode yang persis, tampilkan saran produk berdasarkan awalan
+     * kode/nama dan minta kasir memilih. Mengembalikan kode produk, atau null jika batal.
+     */
+    private String pilihDariSaran(String input) {
+        if (produkService.isProdukTerindeks(input)) {
+            return input;
+        }
+        List<Produk> saran = produkService.autocompleteProduk(input);
+        boolean persis = saran.stream().anyMatch(p -> p.getKode().equalsIgnoreCase(input));
+        if (saran.isEmpty() || persis) {
+            return input;
+        }
+        
+        System.out.println("\nSaran produk:");
+        for (int i = 0; i < saran.size(); i++) {
+            Produk p = saran.get(i);
+            System.out.printf("[%d] %-8s %-30s %12s  stok %d%n", i + 1,
+                    p.getKode(),
+                    FormatUtils.truncate(p.getNama(), 30),
+                    FormatUtils.formatRupiah(p.getHargaJual()),
+                    p.getStok());
+        }
+        System.out.println("[0] Batal");
+        
+        int pilihan = InputUtils.readMenu("Pilih produk: ", saran.size());
+        return pilihan == 0 ? null : saran.get(pilihan - 1).getKode();
+    }
+    
     private void editQtyItem() {
         List<DetailTransaksi> keranjang = transaksiService.getKeranjang();
         if (keranjang.isEmpty()) {
@@ -463,28 +723,51 @@ public class App {
     }
     
     private void lihatSemuaProduk() {
-        List<Produk> produkList = produkService.getAllProdukAktif();
-        
-        System.out.println("\n═══════════════════════════════════════════════════════════════════════");
-        System.out.println("                           DAFTAR PRODUK");
-        System.out.println("═══════════════════════════════════════════════════════════════════════");
-        System.out.printf("%-8s %-30s %12s %8s %-10s%n", "Kode", "Nama", "Harga Jual", "Stok", "Satuan");
-        System.out.println("───────────────────────────────────────────────────────────────────────");
+        long total = produkService.countProdukAktif();
+        Long afterId = null;
+        int halaman = 1;
         
-        for (Produk p : produkList) {
-            String stokStatus = p.isLowStock() ? (p.isOutOfStock() ? "!!" : "!") : "";
-            System.out.printf("%-8s %-30s %12s %7d%s %-10s%n",
-                    p.getKode(),
-                    FormatUtils.truncate(p.getNama(), 30),
-                    FormatUtils.formatRupiah(p.getHargaJual()),
-                    p.getStok(),
-                    stokStatus,
-                    p.getSatuan());
+        while (true) {
+            List<Produk> produkList = produkService.getProdukAktifSetelah(afterId, AppConfig.DEFAULT_PAGE_SIZE);
+            
+            System.out.println("\n═══════════════════════════════════════════════════════════════════════");
+            System.out.println("                    DAFTAR PRODUK - Halaman " + halaman);
+            System.out.println("═══════════════════════════════════════════════════════════════════════");
+            System.out.printf("%-8s %-30s %12s %8s %-10s%n", "Kode", "Nama", "Harga Jual", "Stok", "Satuan");
+            System.out.println("───────────────────────────────────────────────────────────────────────");
+            
+            for (Produk p : produkList) {
+                String stokStatus = p.isLowStock() ? (p.isOutOfStock() ? "!!" : "!") : "";
+                System.out.printf("%-8s %-30s %12s %7d%s %-10s%n",
+                        p.getKode(),
+                        FormatUtils.truncate(p.getNama(), 30),
+                        FormatUtils.formatRupiah(p.getHargaJual()),
+                        p.getStok(),
+                        stokStatus,
+                        p.getSatuan());
+            }
+            
+            System.out.println("───────────────────────────────────────────────────────────────────────");
+            System.out.println("Total: " + total + " produk. (! = stok rendah, !! = habis)");
+            if (!lanjutHalaman(produkList.size())) {
+                break;
+            }
+            afterId = produkList.get(produkList.size() - 1).getId();
+            halaman++;
         }
-        
-        System.out.println("───────────────────────────────────────────────────────────────────────");
-        System.out.println("Total: " + produkList.size() + " produk. (! = stok rendah, !! = habis)");
-        InputUtils.pause();
+    }
+    
+    /**
+     * Tanya user apakah lanjut ke halaman berikutnya.
+     * Halaman yang tidak penuh berarti data sudah habis.
+     */
+    private boolean lanjutHalaman(int jumlahDitampilkan) {
+        if (jumlahDitampilkan < AppConfig.DEFAULT_PAGE_SIZE) {
+            InputUtils.pause();
+            return false;
+        }
+        String input = InputUtils.readString("[Enter] Halaman berikutnya  [0] Kembali: ");
+        return !input.equals("0");
     }
     
     private void cariProduk() {
@@ -549,15 +832,14 @@ public class App {
         System.out.println("\nKosongkan untuk tidak mengubah:");
         
         String newNama = InputUtils.readString("Nama baru: ");
-        if (!newNama.isEmpty()) produk.setNama(newNama);
-        
         String hargaBeliStr = InputUtils.readString("Harga beli baru: ");
-        if (!hargaBeliStr.isEmpty()) produk.setHargaBeli(new BigDecimal(hargaBeliStr));
-        
         String hargaJualStr = InputUtils.readString("Harga jual baru: ");
-        if (!hargaJualStr.isEmpty()) produk.setHargaJual(new BigDecimal(hargaJualStr));
         
         try {
+            // Produk dari service adalah salinan; perubahan baru berlaku setelah updateProduk berhasil
+            if (!newNama.isEmpty()) produk.setNama(newNama);
+            if (!hargaBeliStr.isEmpty()) produk.setHargaBeli(new BigDecimal(hargaBeliStr));
+            if (!hargaJualStr.isEmpty()) produk.setHargaJual(new BigDecimal(hargaJualStr));
             produkService.updateProduk(produk);
             System.out.println("✓ Produk berhasil diupdate!");
         } catch (Exception e) {
@@ -660,24 +942,36 @@ public class App {
     }
     
     private void lihatSemuaPelanggan() {
-        List<Pelanggan> pelangganList = pelangganService.getAllPelangganAktif();
-        
-        System.out.println("\n═══════════════════════════════════════════════════════════════════════");
-        System.out.printf("%-10s %-25s %-15s %-10s %10s%n", "Kode", "Nama", "No Telepon", "Tipe", "Poin");
-        System.out.println("───────────────────────────────────────────────────────────────────────");
+        Long afterId = null;
+        int halaman = 1;
+        int ditampilkan = 0;
         
-        for (Pelanggan p : pelangganList) {
-            System.out.printf("%-10s %-25s %-15s %-10s %10d%n",
-                    p.getKodeMember() != null ? p.getKodeMember() : "-",
-                    FormatUtils.truncate(p.getNama(), 25),
-                    p.getNoTelepon() != null ? p.getNoTelepon() : "-",
-                    p.getTipeMember(),
-                    p.getPoin());
+        while (true) {
+            List<Pelanggan> pelangganList = pelangganService.getPelangganAktifSetelah(afterId, AppConfig.DEFAULT_PAGE_SIZE);
+            ditampilkan += pelangganList.size();
+            
+            System.out.println("\n═══════════════════════════════════════════════════════════════════════");
+            System.out.println("Daftar Pelanggan - Halaman " + halaman);
+            System.out.printf("%-10s %-25s %-15s %-10s %10s%n", "Kode", "Nama", "No Telepon", "Tipe", "Poin");
+            System.out.println("───────────────────────────────────────────────────────────────────────");
+            
+            for (Pelanggan p : pelangganList) {
+                System.out.printf("%-10s %-25s %-15s %-10s %10d%n",
+                        p.getKodeMember() != null ? p.getKodeMember() : "-",
+                        FormatUtils.truncate(p.getNama(), 25),
+                        p.getNoTelepon() != null ? p.getNoTelepon() : "-",
+                        p.getTipeMember(),
+                        p.getPoin());
+            }
+            
+            System.out.println("───────────────────────────────────────────────────────────────────────");
+            System.out.println("Ditampilkan: " + ditampilkan + " pelanggan");
+            if (!lanjutHalaman(pelangganList.size())) {
+                break;
+            }
+            afterId = pelangganList.get(pelangganList.size() - 1).getId();
+            halaman++;
         }
-        
-        System.out.println("───────────────────────────────────────────────────────────────────────");
-        System.out.println("Total: " + pelangganList.size() + " pelanggan");
-        InputUtils.pause();
     }
     
     private void cariPelanggan() {
@@ -768,9 +1062,11 @@ public class App {
             System.out.println("[3] Laporan Penjualan Per Tanggal");
             System.out.println("[4] Produk Terlaris");
             System.out.println("[5] Laporan Stok");
+            System.out.println("[6] Export Transaksi (CSV)");
+            System.out.println("[7] Export Riwayat Stok (CSV)");
             System.out.println("[0] Kembali");
             
-            int choice = InputUtils.readMenu("Pilih: ", 5);
+            int choice = InputUtils.readMenu("Pilih: ", 7);
             
             switch (choice) {
                 case 1 -> showDashboard();
@@ -778,6 +1074,8 @@ public class App {
                 case 3 -> laporanPenjualanPerTanggal();
                 case 4 -> laporanProdukTerlaris();
                 case 5 -> laporanStok();
+                case 6 -> exportLaporan(true);
+                case 7 -> exportLaporan(false);
                 case 0 -> back = true;
             }
         }
@@ -834,9 +1132,13 @@ public class App {
         System.out.println("───────────────────────────────────────────────────────────");
         System.out.printf("Pembayaran Tunai    : %s%n", FormatUtils.formatRupiah(r.getTunai()));
         System.out.printf("Pembayaran Non-Tunai: %s%n", FormatUtils.formatRupiah(r.getNonTunai()));
+        for (Map.Entry<String, BigDecimal> entry : r.getTotalPerMetode().entrySet()) {
+            System.out.printf("  - %-17s: %s%n", entry.getKey(), FormatUtils.formatRupiah(entry.getValue()));
+        }
         System.out.println("───────────────────────────────────────────────────────────");
         System.out.printf("Transaksi Member    : %d%n", r.getTransaksiMember());
         System.out.printf("Transaksi Umum      : %d%n", r.getTransaksiUmum());
+        System.out.printf("Transaksi Dibatalkan: %d%n", r.getTransaksiDibatalkan());
         System.out.printf("Rata-rata/Transaksi : %s%n", FormatUtils.formatRupiah(r.getRataRataTransaksi()));
         System.out.println("═══════════════════════════════════════════════════════════");
         
@@ -885,32 +1187,64 @@ public class App {
         InputUtils.pause();
     }
     
+    private void exportLaporan(boolean transaksi) {
+        LocalDate mulai = InputUtils.readDate("Tanggal mulai", LocalDate.now().withDayOfMonth(1));
+        LocalDate selesai = InputUtils.readDate("Tanggal selesai", LocalDate.now());
+        String nama = (transaksi ? "transaksi_" : "stok_history_")
+                + mulai.format(DateTimeFormatter.BASIC_ISO_DATE) + "_"
+                + selesai.format(DateTimeFormatter.BASIC_ISO_DATE) + ".csv";
+        Path file = Paths.get(AppConfig.EXPORT_DIR, nama);
+        
+        try {
+            long jumlah = transaksi
+                    ? laporanService.exportTransaksiCsv(mulai, selesai, file)
+                    : laporanService.exportStokHistoryCsv(mulai, selesai, file);
+            System.out.println("✓ " + jumlah + " baris diexport ke " + file.toAbsolutePath());
+        } catch (Exception e) {
+            System.out.println("✗ Error: " + e.getMessage());
+        }
+        
+        InputUtils.pause();
+    }
+    
     // ==================== MENU RIWAYAT TRANSAKSI ====================
     
     private void menuRiwayatTransaksi() {
-        List<Transaksi> transaksiList = transaksiService.getTransaksiHariIni();
+        Transaksi terakhir = null;
+        int halaman = 1;
+        int choice;
         
-        System.out.println("\n═══════════════════════════════════════════════════════════════════════");
-        System.out.println("                    RIWAYAT TRANSAKSI HARI INI");
-        System.out.println("═══════════════════════════════════════════════════════════════════════");
-        System.out.printf("%-18s %-12s %-20s %15s %-10s%n", "No. Transaksi", "Waktu", "Kasir", "Total", "Status");
-        System.out.println("───────────────────────────────────────────────────────────────────────");
-        
-        for (Transaksi t : transaksiList) {
-            System.out.printf("%-18s %-12s %-20s %15s %-10s%n",
-                    t.getNomorTransaksi(),
-                    FormatUtils.formatWaktu(t.getTanggalTransaksi()),
-                    FormatUtils.truncate(t.getKasir().getNamaLengkap(), 20),
-                    FormatUtils.formatRupiah(t.getGrandTotal()),
-                    t.getStatus());
+        while (true) {
+            List<Transaksi> transaksiList = transaksiService.getRiwayatTransaksi(terakhir, AppConfig.DEFAULT_PAGE_SIZE);
+            
+            System.out.println("\n═══════════════════════════════════════════════════════════════════════");
+            System.out.println("                  RIWAYAT TRANSAKSI - Halaman " + halaman);
+            System.out.println("═══════════════════════════════════════════════════════════════════════");
+            System.out.printf("%-18s %-19s %-15s %15s %-10s%n", "No. Transaksi", "Waktu", "Kasir", "Total", "Status");
+            System.out.println("───────────────────────────────────────────────────────────────────────");
+            
+            for (Transaksi t : transaksiList) {
+                System.out.printf("%-18s %-19s %-15s %15s %-10s%n",
+                        t.getNomorTransaksi(),
+                        FormatUtils.formatDateTime(t.getTanggalTransaksi()),
+                        FormatUtils.truncate(t.getKasir().getNamaLengkap(), 15),
+                        FormatUtils.formatRupiah(t.getGrandTotal()),
+                        t.getStatus());
+            }
+            
+            System.out.println("───────────────────────────────────────────────────────────────────────");
+            
+            boolean adaBerikutnya = transaksiList.size() == AppConfig.DEFAULT_PAGE_SIZE;
+            System.out.println("\n[1] Lihat Detail Transaksi  [2] Cetak Ulang Struk"
+                    + (adaBerikutnya ? "  [3] Halaman Berikutnya" : "") + "  [0] Kembali");
+            choice = InputUtils.readMenu("Pilih: ", adaBerikutnya ? 3 : 2);
+            if (choice != 3) {
+                break;
+            }
+            terakhir = transaksiList.get(transaksiList.size() - 1);
+            halaman++;
         }
         
-        System.out.println("───────────────────────────────────────────────────────────────────────");
-        System.out.println("Total: " + transaksiList.size() + " transaksi");
-        
-        System.out.println("\n[1] Lihat Detail Transaksi  [2] Cetak Ulang Struk  [0] Kembali");
-        int choice = InputUtils.readMenu("Pilih: ", 2);
-        
         if (choice == 1 || choice == 2) {
             String nomorTrx = InputUtils.readString("No. Transaksi: ");
             var trxOpt = transaksiService.getTransaksiByNomor(nomorTrx);
@@ -1049,6 +1383,75 @@ public class App {
         System.out.println("PPN saat ini: " + (AppConfig.TAX_RATE * 100) + "%");
         System.out.println("Nama Toko: " + AppConfig.APP_NAME);
         System.out.println("\n(Pengaturan dapat diubah di AppConfig.java)");
+        System.out.println("\n1. Hitung Ulang Laporan Harian");
+        System.out.println("2. Lihat Metrik Performa");
+        System.out.println("3. Export Metrik (Prometheus)");
+        System.out.println("4. Reset Metrik");
+        System.out.println("5. Simpan Rekaman JFR");
+        System.out.println("0. Kembali");
+        
+        int choice = InputUtils.readMenu("Pilih menu: ", 5);
+        switch (choice) {
+            case 1 -> rebuildLaporanHarian();
+            case 2 -> lihatMetrik();
+            case 3 -> exportMetrik();
+            case 4 -> {
+                MetricsRegistry.getInstance().reset();
+                System.out.println("✓ Metrik direset");
+                InputUtils.pause();
+            }
+            case 5 -> simpanRekamanJfr();
+        }
+    }
+    
+    private void simpanRekamanJfr() {
+        if (jfrRecorder == null || !jfrRecorder.isAktif()) {
+            System.out.println("✗ Rekaman JFR tidak aktif (jalankan aplikasi dengan --jfr)");
+            InputUtils.pause();
+            return;
+        }
+        Path file = fileJfr("snapshot");
+        try {
+            jfrRecorder.simpan(file);
+            System.out.println("✓ Rekaman JFR disimpan ke " + file.toAbsolutePath());
+        } catch (Exception e) {
+            System.out.println("✗ Error: " + e.getMessage());
+        }
+        InputUtils.pause();
+    }
+    
+    private void lihatMetrik() {
+        System.out.println("\n========== METRIK PERFORMA ==========");
+        System.out.println(MetricsRegistry.getInstance().dump());
+        InputUtils.pause();
+    }
+    
+    private void exportMetrik() {
+        Path file = Paths.get(AppConfig.EXPORT_DIR, AppConfig.METRICS_FILE);
+        try {
+            MetricsRegistry.getInstance().tulisPrometheus(file);
+            System.out.println("✓ Metrik diexport ke " + file.toAbsolutePath());
+        } catch (Exception e) {
+            System.out.println("✗ Error: " + e.getMessage());
+        }
+        InputUtils.pause();
+    }
+    
+    private void rebuildLaporanHarian() {
+        LocalDate startDate = InputUtils.readDate("Dari tanggal", LocalDate.now().withDayOfMonth(1));
+        LocalDate endDate = InputUtils.readDate("Sampai tanggal", LocalDate.now());
+        if (endDate.isBefore(startDate)) {
+            System.out.println("✗ Tanggal akhir tidak boleh sebelum tanggal awal!");
+            InputUtils.pause();
+            return;
+        }
+        
+        try {
+            int jumlahHari = laporanService.rebuildLaporanHarian(startDate, endDate);
+            System.out.println("✓ Laporan harian berhasil dihitung ulang untuk " + jumlahHari + " hari");
+        } catch (Exception e) {
+            System.out.println("✗ Gagal: " + e.getMessage());
+        }
         InputUtils.pause();
     }
     
@@ -1147,7 +1550,7 @@ public class App {
             pelangganService.tambahPelanggan(new Pelanggan("Andi"));
             
             logger.info("Sample data berhasil diinisialisasi");
-            
+        
         } catch (Exception e) {
             logger.warn("Gagal menginisialisasi sample data: {}", e.getMessage());
         }
@@ -37,15 +37,60 @@ public class AppConfig {
     public static final int DEFAULT_PAGE_SIZE = 20;
     public static final int MAX_PAGE_SIZE = 100;
     
+    // Pengaturan Streaming & Export
+    public static final int STREAM_FETCH_SIZE = 500;
+    public static final String EXPORT_DIR = "export";
+    
+    // Pengaturan Pencarian
+    public static final int SEARCH_LIMIT = 50;
+    public static final int AUTOCOMPLETE_LIMIT = 10;
+    
     // Pengaturan Keamanan
     public static final int MIN_PASSWORD_LENGTH = 6;
     public static final int MAX_LOGIN_ATTEMPTS = 3;
     public static final int SESSION_TIMEOUT_MINUTES = 30;
     
+    // Target waktu sejak JVM start sampai siap login (dicatat saat startup)
+    public static final long TARGET_SIAP_LOGIN_MS = 3000;
+    
+    // Pengaturan Server Headless: alamat yang didengarkan (semua interface, untuk terminal di
+    // jaringan toko), port, dan panjang maksimal satu baris perintah dari terminal
+    public static final String SERVER_HOST = "0.0.0.0";
+    public static final int SERVER_PORT = 7070;
+    public static final int SERVER_MAKS_BARIS = 4096;
+    
+    // Jurnal penjualan offline (lihat JurnalPenjualan), bisa diganti dengan -Dkasirpro.jurnal.dir
+    public static final String JURNAL_DIR = "jurnal";
+    public static final long JURNAL_INTERVAL_MS = 5000;
+    
+    // Group commit penjualan (lihat PenulisPenjualan): maksimal penjualan per commit,
+    // waktu tunggu batch setelah penjualan pertama, dan kapasitas antrian checkout
+    public static final int GROUP_COMMIT_MAKS = 50;
+    public static final long GROUP_COMMIT_TUNGGU_MS = 5;
+    public static final int GROUP_COMMIT_ANTRIAN = 500;
+    
+    // Maksimal history stok inventori per commit (lihat PenulisStokHistory)
+    public static final int STOK_HISTORY_BATCH = 200;
+    
+    // Pengaturan Metrik: endpoint /metrics hanya untuk mesin lokal kecuali --metrics-host diisi
+    public static final String METRICS_HOST = "127.0.0.1";
+    public static final int METRICS_PORT = 9464;
+    public static final String METRICS_FILE = "kasirpro.prom";
+    public static final String JFR_DIR = "jfr";
+    
+    // Batas default per operasi (lihat statement-budget.properties)
+    public static final int STATEMENT_BUDGET = 20;
+    public static final long LATENCY_BUDGET_MS = 500;
+    
     // Format Nomor Transaksi
     public static final String TRANSACTION_PREFIX = "TRX";
     public static final String INVOICE_PREFIX = "INV";
     public static final String PURCHASE_PREFIX = "PO";
+    public static final int NOMOR_BLOCK_SIZE = 100;
+    // Nomor offline saat database tidak bisa dihubungi (lihat NomorLokal): rentang node n
+    // dimulai dari NOMOR_LOKAL_AWAL + n * NOMOR_LOKAL_PER_NODE, node diatur dengan -Dkasirpro.node (0-9)
+    public static final long NOMOR_LOKAL_AWAL = 900_000;
+    public static final long NOMOR_LOKAL_PER_NODE = 10_000;
     
     // User Roles
     public static final String ROLE_ADMIN = "ADMIN";
@@ -0,0 +1,145 @@
+package com.joko.aplikasijava.config;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persiapan database yang tidak bisa dilakukan oleh hbm2ddl.
+ * Langkah yang mengubah database dijalankan lewat --migrate (migrasi());
+ * saat aplikasi start cukup pemeriksaan ringan (inisialisasi()).
+ */
+public class DatabaseInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseInitializer.class);
+    
+    /**
+     * Tabel yang id-nya diambil dari sequence (nama sequence = tabel + "_seq")
+     */
+    private static final String[] TABEL_SEQUENCE = {
+        "transaksi", "detail_transaksi", "pembayaran", "stok_history",
+        "pembelian_supplier", "detail_pembelian"
+    };
+    
+    /**
+     * Kolom yang dicari lewat pencarian teks (tabel, kolom), diindex dengan GIN trigram
+     */
+    private static final String[][] KOLOM_TRIGRAM = {
+        {"produk", "nama"}, {"produk", "kode"}, {"produk", "barcode"},
+        {"pelanggan", "nama"}, {"pelanggan", "kode_member"}, {"pelanggan", "no_telepon"},
+        {"supplier", "nama"}, {"supplier", "kode"}, {"supplier", "no_telepon"}
+    };
+    
+    private static volatile boolean trigramTersedia = false;
+    
+    private DatabaseInitializer() {}
+    
+    /**
+     * Pemeriksaan saat aplikasi start, tanpa DDL
+     */
+    public static void inisialisasi() {
+        periksaPencarianTrigram();
+    }
+    
+    /**
+     * Langkah migrasi setelah hbm2ddl update: sinkronisasi sequence dan index trigram
+     */
+    public static void migrasi() {
+        sinkronkanSequence();
+        siapkanPencarianTrigram();
+    }
+    
+    /**
+     * Cek apakah semua index trigram sudah dibuat oleh migrasi
+     */
+    public static void periksaPencarianTrigram() {
+        List<String> namaIndex = new ArrayList<>();
+        for (String[] kolom : KOLOM_TRIGRAM) {
+            namaIndex.add(namaIndexTrigram(kolom));
+        }
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Number jumlah = (Number) session.createNativeQuery(
+                    "SELECT COUNT(*) FROM pg_indexes WHERE indexname IN (:nama)", Object.class)
+                    .setParameterList("nama", namaIndex)
+                    .getSingleResult();
+            trigramTersedia = jumlah.intValue() == KOLOM_TRIGRAM.length;
+        } catch (Exception e) {
+            trigramTersedia = false;
+            logger.warn("Gagal memeriksa index trigram: {}", e.getMessage());
+        }
+        if (!trigramTersedia) {
+            logger.warn("Index trigram belum lengkap, pencarian memakai LIKE (jalankan --migrate)");
+        }
+    }
+    
+    /**
+     * Apakah extension pg_trgm dan index trigram siap dipakai untuk pencarian
+     */
+    public static boolean isTrigramTersedia() {
+        return trigramTersedia;
+    }
+    
+    /**
+     * Aktifkan extension pg_trgm dan buat index GIN trigram untuk kolom pencarian.
+     * Jika user database tidak punya hak membuat extension, pencarian tetap
+     * berjalan dengan LIKE biasa.
+     */
+    public static void siapkanPencarianTrigram() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                session.createNativeMutationQuery("CREATE EXTENSION IF NOT EXISTS pg_trgm").executeUpdate();
+                for (String[] kolom : KOLOM_TRIGRAM) {
+                    String sql = "CREATE INDEX IF NOT EXISTS " + namaIndexTrigram(kolom) + " ON "
+                            + kolom[0] + " USING gin (lower(" + kolom[1] + ") gin_trgm_ops)";
+                    session.createNativeMutationQuery(sql).executeUpdate();
+                }
+                transaction.commit();
+                trigramTersedia = true;
+                logger.info("Index pencarian trigram siap");
+            } catch (Exception e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                trigramTersedia = false;
+                logger.warn("pg_trgm tidak tersedia, pencarian memakai LIKE: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private static String namaIndexTrigram(String[] kolom) {
+        return "idx_" + kolom[0] + "_" + kolom[1] + "_trgm";
+    }
+    
+    /**
+     * Majukan sequence id melewati MAX(id) yang sudah ada.
+     * Tabel lama memakai kolom IDENTITY; tanpa langkah ini sequence baru
+     * akan mulai dari 1 dan bertabrakan dengan data yang sudah tersimpan.
+     */
+    public static void sinkronkanSequence() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                for (String tabel : TABEL_SEQUENCE) {
+                    String sequence = tabel + "_seq";
+                    String sql = "SELECT setval('" + sequence + "', GREATEST("
+                            + "(SELECT COALESCE(MAX(id), 0) FROM " + tabel + "), "
+                            + "(SELECT last_value FROM " + sequence + ")))";
+                    Number nilai = (Number) session.createNativeQuery(sql, Object.class).getSingleResult();
+                    logger.debug("Sequence {} disinkronkan ke {}", sequence, nilai);
+                }
+                transaction.commit();
+                logger.info("Sequence id berhasil disinkronkan");
+            } catch (Exception e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("Gagal sinkronisasi sequence: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal sinkronisasi sequence: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -1,59 +1,210 @@
 package com.joko.aplikasijava.config;
 
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Hibernate Utility Class untuk mengelola SessionFactory
- * Menggunakan pattern Singleton untuk memastikan hanya ada satu instance SessionFactory
+ * Menggunakan pattern Singleton untuk memastikan hanya ada satu instance SessionFactory.
+ * SessionFactory dibangun di thread terpisah (mulaiBootstrap) supaya splash screen dan
+ * login bisa tampil selagi Hibernate dan pool koneksi disiapkan; getSessionFactory()
+ * menunggu bootstrap selesai.
+ *
+ * Skema database hanya divalidasi (hbm2ddl validate). Perubahan skema dijalankan
+ * lewat --migrate, atau -Dkasirpro.db.schema=update untuk database pengembangan.
  */
 public class HibernateUtil {
     private static final Logger logger = LoggerFactory.getLogger(HibernateUtil.class);
-    private static SessionFactory sessionFactory;
+    private static volatile SessionFactory sessionFactory;
     private static StandardServiceRegistry registry;
-
-    static {
+    private static CompletableFuture<SessionFactory> bootstrap;
+    private static volatile long durasiBootstrapMs;
+    private static final Deque<Runnable> sebelumShutdown = new ConcurrentLinkedDeque<>();
+    
+    /**
+     * Mulai membangun SessionFactory di background jika belum berjalan
+     * @return future yang selesai saat SessionFactory siap
+     */
+    public static synchronized CompletableFuture<SessionFactory> mulaiBootstrap() {
+        if (bootstrap == null) {
+            bootstrap = CompletableFuture.supplyAsync(HibernateUtil::bangun,
+                    tugas -> Thread.ofPlatform().name("hibernate-bootstrap").daemon().start(tugas));
+        }
+        return bootstrap;
+    }
+    
+    private static SessionFactory bangun() {
+        long mulai = System.nanoTime();
         try {
-            registry = new StandardServiceRegistryBuilder()
-                    .configure("hibernate.cfg.xml")
-                    .build();
+            StandardServiceRegistryBuilder builder = new StandardServiceRegistryBuilder()
+                    .configure("hibernate.cfg.xml");
             
-            sessionFactory = new MetadataSources(registry)
+            // File konfigurasi cache alternatif (ukuran, TTL per region)
+            String cacheConfig = System.getProperty("kasirpro.cache.config");
+            if (cacheConfig != null && !cacheConfig.isBlank()) {
+                builder.applySetting("hibernate.javax.cache.uri", cacheConfig);
+            }
+            
+            // Koneksi database alternatif (misalnya database uji beban)
+            terapkanProperty(builder, "kasirpro.db.url", "hibernate.connection.url");
+            terapkanProperty(builder, "kasirpro.db.username", "hibernate.connection.username");
+            terapkanProperty(builder, "kasirpro.db.password", "hibernate.connection.password");
+            
+            // Mode skema: validate (default), update (--migrate) atau none
+            terapkanProperty(builder, "kasirpro.db.schema", "hibernate.hbm2ddl.auto");
+            
+            StandardServiceRegistry baru = builder.build();
+            synchronized (HibernateUtil.class) {
+                registry = baru;
+            }
+            
+            SessionFactory factory = new MetadataSources(baru)
                     .buildMetadata()
                     .buildSessionFactory();
+            sessionFactory = factory;
+            daftarkanMetrikPool(baru);
             
-            logger.info("Hibernate SessionFactory berhasil diinisialisasi");
+            durasiBootstrapMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mulai);
+            logger.info("Hibernate SessionFactory berhasil diinisialisasi dalam {} ms", durasiBootstrapMs);
+            return factory;
         } catch (Exception e) {
             logger.error("Gagal membuat SessionFactory: " + e.getMessage(), e);
-            if (registry != null) {
-                StandardServiceRegistryBuilder.destroy(registry);
+            synchronized (HibernateUtil.class) {
+                if (registry != null) {
+                    StandardServiceRegistryBuilder.destroy(registry);
+                    registry = null;
+                }
             }
-            throw new ExceptionInInitializerError(e);
+            throw new RuntimeException("Gagal membuat SessionFactory: " + e.getMessage(), e);
         }
     }
-
+    
+    private static void terapkanProperty(StandardServiceRegistryBuilder builder, String systemProperty, String setting) {
+        String nilai = System.getProperty(systemProperty);
+        if (nilai != null && !nilai.isBlank()) {
+            builder.applySetting(setting, nilai);
+        }
+    }
+    
+    /**
+     * Gauge pool koneksi HikariCP untuk MetricsRegistry (dibaca saat ekspor)
+     */
+    private static void daftarkanMetrikPool(StandardServiceRegistry registry) {
+        ConnectionProvider provider = registry.getService(ConnectionProvider.class);
+        if (provider == null || !provider.isUnwrappableAs(HikariDataSource.class)) {
+            logger.warn("Connection provider bukan HikariCP, metrik pool tidak tersedia");
+            return;
+        }
+        HikariDataSource dataSource = provider.unwrap(HikariDataSource.class);
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        String pool = dataSource.getPoolName() != null ? dataSource.getPoolName() : "default";
+        metrics.keterangan("kasirpro_db_pool_koneksi", "Jumlah koneksi pool HikariCP per status");
+        metrics.gauge("kasirpro_db_pool_koneksi", () -> mxBean(dataSource).getActiveConnections(),
+                "pool", pool, "status", "aktif");
+        metrics.gauge("kasirpro_db_pool_koneksi", () -> mxBean(dataSource).getIdleConnections(),
+                "pool", pool, "status", "idle");
+        metrics.gauge("kasirpro_db_pool_koneksi", () -> mxBean(dataSource).getTotalConnections(),
+                "pool", pool, "status", "total");
+        metrics.keterangan("kasirpro_db_pool_menunggu", "Thread yang sedang menunggu koneksi dari pool");
+        metrics.gauge("kasirpro_db_pool_menunggu", () -> mxBean(dataSource).getThreadsAwaitingConnection(),
+                "pool", pool);
+        metrics.gauge("kasirpro_db_pool_maksimum", dataSource::getMaximumPoolSize, "pool", pool);
+    }
+    
+    private static HikariPoolMXBean mxBean(HikariDataSource dataSource) {
+        HikariPoolMXBean bean = dataSource.getHikariPoolMXBean();
+        if (bean == null) {
+            throw new IllegalStateException("Pool belum berjalan");
+        }
+        return bean;
+    }
+    
     /**
-     * Mendapatkan instance SessionFactory
+     * Mendapatkan instance SessionFactory, menunggu bootstrap jika belum selesai
      * @return SessionFactory instance
      */
     public static SessionFactory getSessionFactory() {
-        return sessionFactory;
+        SessionFactory factory = sessionFactory;
+        if (factory != null) {
+            return factory;
+        }
+        try {
+            return mulaiBootstrap().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
     }
-
+    
     /**
-     * Menutup SessionFactory dan membersihkan resources
+     * Lama bootstrap SessionFactory terakhir dalam milidetik (0 jika belum selesai)
+     */
+    public static long getDurasiBootstrapMs() {
+        return durasiBootstrapMs;
+    }
+    
+    /**
+     * Daftarkan tugas yang dijalankan di awal shutdown() selagi SessionFactory masih
+     * terbuka, misalnya menulis sisa antrian ke database. Tugas dijalankan terbalik
+     * dari urutan pendaftaran dan tetap terdaftar untuk shutdown berikutnya.
+     */
+    public static void sebelumShutdown(Runnable tugas) {
+        sebelumShutdown.addFirst(tugas);
+    }
+    
+    /**
+     * Menutup SessionFactory dan membersihkan resources.
+     * Tugas sebelumShutdown dijalankan lebih dulu, lalu bootstrap yang masih berjalan
+     * ditunggu; setelah ditutup, bootstrap bisa dimulai lagi.
      */
     public static void shutdown() {
-        if (sessionFactory != null && !sessionFactory.isClosed()) {
-            sessionFactory.close();
+        if (sessionFactory != null) {
+            for (Runnable tugas : sebelumShutdown) {
+                try {
+                    tugas.run();
+                } catch (RuntimeException e) {
+                    logger.error("Tugas sebelum shutdown gagal: {}", e.getMessage(), e);
+                }
+            }
+        }
+        CompletableFuture<SessionFactory> berjalan;
+        synchronized (HibernateUtil.class) {
+            berjalan = bootstrap;
+            bootstrap = null;
+        }
+        if (berjalan == null) {
+            return;
+        }
+        try {
+            berjalan.join();
+        } catch (CompletionException e) {
+            // Kegagalan bootstrap sudah dicatat, registry sudah dibersihkan
+        }
+        SessionFactory factory = sessionFactory;
+        sessionFactory = null;
+        if (factory != null && !factory.isClosed()) {
+            factory.close();
             logger.info("Hibernate SessionFactory ditutup");
         }
-        if (registry != null) {
-            StandardServiceRegistryBuilder.destroy(registry);
+        synchronized (HibernateUtil.class) {
+            if (registry != null) {
+                StandardServiceRegistryBuilder.destroy(registry);
+                registry = null;
+            }
         }
+        durasiBootstrapMs = 0;
     }
 }
@@ -0,0 +1,453 @@
+package com.joko.aplikasijava.jurnal;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.models.StokHistory;
+import com.joko.aplikasijava.models.Transaksi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Jurnal tulis-duluan (write-ahead) lokal untuk penjualan yang sudah dibayar.
+ * Checkout mencatat penjualan di sini dan menunggu fsync sebelum menyimpan ke
+ * PostgreSQL, sehingga penjualan tetap aman walaupun database tidak bisa dihubungi;
+ * PemutarJurnal menyimpan ulang penjualan yang tertunda setelah database kembali.
+ *
+ * File berisi deretan frame [panjang int][crc32 int][isi] yang hanya ditambah di
+ * ujung. Isi diawali jenis rekaman: PENJUALAN, lalu salah satu penanda SELESAI
+ * (sudah di database), BATAL (checkout gagal, pelanggan tidak membayar) atau
+ * DITOLAK (ditolak database saat diputar ulang, disalin ke file ditolak).
+ * Frame terpotong atau rusak di ujung file (crash saat menulis) dibuang saat dibuka.
+ * Rekaman STOK_HISTORY menyimpan history stok inventori yang belum tertulis saat
+ * aplikasi ditutup (lihat PenulisStokHistory), juga ditutup dengan SELESAI.
+ *
+ * fsync dikelompokkan: penulis yang datang selama satu fsync berjalan ikut
+ * tersinkron oleh fsync berikutnya, jadi banyak terminal berbagi satu fsync.
+ * File dikosongkan kembali jika tidak ada penjualan yang belum selesai.
+ *
+ * Saat dibuka file dikunci eksklusif (FileChannel.tryLock) selama jurnal terbuka.
+ * Proses kedua yang memakai direktori jurnal yang sama langsung gagal, supaya
+ * tidak ada dua proses yang memutar ulang penjualan yang sama atau memotong
+ * file saat proses lain masih menulis.
+ */
+public class JurnalPenjualan implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JurnalPenjualan.class);
+    
+    static final byte PENJUALAN = 1;
+    static final byte SELESAI = 2;
+    static final byte BATAL = 3;
+    static final byte DITOLAK = 4;
+    static final byte STOK_HISTORY = 5;
+    
+    private static final String FILE = "penjualan.jurnal";
+    private static final String FILE_DITOLAK = "penjualan-ditolak.jurnal";
+    private static final int HEADER = 8;
+    private static final int MAKS_ISI = 16 * 1024 * 1024;
+    // Ukuran minimal sebelum file yang sudah bersih dikosongkan
+    private static final long BATAS_PADAT = 1024 * 1024;
+    
+    private final Path file;
+    private final Path fileDitolak;
+    private final FileChannel channel;
+    // Bukan synchronized: checkout memanggil jurnal dari thread virtual
+    private final ReentrantLock tulisLock = new ReentrantLock();
+    private final ReentrantLock sinkronLock = new ReentrantLock();
+    private volatile long posisiTulis;
+    private volatile long posisiSinkron;
+    
+    // Penjualan yang sedang disimpan langsung oleh checkout
+    private final Map<String, byte[]> berjalan = new ConcurrentHashMap<>();
+    // Penjualan yang menunggu diputar ulang ke database, urut waktu checkout
+    private final Map<String, byte[]> tertunda = new LinkedHashMap<>();
+    // History stok yang menunggu ditulis PenulisStokHistory, dijaga lock tertunda
+    private final Map<String, byte[]> historyTertunda = new LinkedHashMap<>();
+    
+    private final LongAdder jumlahRekaman;
+    private final LongAdder jumlahFsync;
+    
+    public JurnalPenjualan(Path direktori) {
+        this.file = direktori.resolve(FILE);
+        this.fileDitolak = direktori.resolve(FILE_DITOLAK);
+        try {
+            Files.createDirectories(direktori);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            kunci();
+            muat();
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal membuka jurnal penjualan " + file + ": " + e.getMessage(), e);
+        }
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.jumlahRekaman = metrics.counter("kasirpro_jurnal_rekaman_total");
+        this.jumlahFsync = metrics.counter("kasirpro_jurnal_fsync_total");
+    }
+    
+    /**
+     * Jurnal default di direktori -Dkasirpro.jurnal.dir (default AppConfig.JURNAL_DIR)
+     */
+    public static JurnalPenjualan getInstance() {
+        return Holder.INSTANCE;
+    }
+    
+    /**
+     * Kunci file untuk proses ini; kunci lepas bersama channel saat close() atau proses mati
+     */
+    private void kunci() throws IOException {
+        FileLock kunci;
+        try {
+            kunci = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Sudah dikunci JurnalPenjualan lain di JVM ini
+            kunci = null;
+        }
+        if (kunci == null) {
+            channel.close();
+            throw new IllegalStateException("Jurnal penjualan " + file + " sedang dipakai proses lain");
+        }
+    }
+    
+    /**
+     * Baca ulang file setelah start: penjualan tanpa penanda menjadi tertunda,
+     * ekor file yang rusak dipotong
+     */
+    private void muat() throws IOException {
+        long ukuran = channel.size();
+        long posisi = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        CRC32 crc = new CRC32();
+        while (posisi + HEADER <= ukuran) {
+            header.clear();
+            bacaPenuh(header, posisi);
+            header.flip();
+            int panjang = header.getInt();
+            int checksum = header.getInt();
+            if (panjang <= 0 || panjang > MAKS_ISI || posisi + HEADER + panjang > ukuran) {
+                break;
+            }
+            ByteBuffer isi = ByteBuffer.allocate(panjang);
+            bacaPenuh(isi, posisi + HEADER);
+            crc.reset();
+            crc.update(isi.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            terapkan(isi.array());
+            posisi += HEADER + panjang;
+        }
+        if (posisi < ukuran) {
+            logger.warn("Membuang {} byte rusak di ujung jurnal {}", ukuran - posisi, file);
+            channel.truncate(posisi);
+            channel.force(false);
+        }
+        channel.position(posisi);
+        posisiTulis = posisi;
+        posisiSinkron = posisi;
+        if (!tertunda.isEmpty()) {
+            logger.warn("Jurnal {} berisi {} penjualan yang belum tersimpan di database", file, tertunda.size());
+        }
+        if (!historyTertunda.isEmpty()) {
+            logger.warn("Jurnal {} berisi {} rekaman history stok yang belum tersimpan di database",
+                    file, historyTertunda.size());
+        }
+    }
+    
+    private void bacaPenuh(ByteBuffer buffer, long posisi) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, posisi + buffer.position()) < 0) {
+                throw new IOException("Jurnal berakhir di tengah frame");
+            }
+        }
+    }
+    
+    private void terapkan(byte[] isi) {
+        String nomor = KodekPenjualan.nomorTransaksi(isi);
+        byte jenis = KodekPenjualan.jenis(isi);
+        if (jenis == PENJUALAN) {
+            tertunda.put(nomor, isi);
+        } else if (jenis == STOK_HISTORY) {
+            historyTertunda.put(nomor, isi);
+        } else {
+            tertunda.remove(nomor);
+            historyTertunda.remove(nomor);
+        }
+    }
+    
+    /**
+     * Catat penjualan yang sudah dibayar dan tunggu sampai tersimpan di disk
+     */
+    public void catat(Transaksi transaksi) {
+        byte[] isi = KodekPenjualan.tulisPenjualan(transaksi);
+        // Daftarkan dulu supaya file tidak dikosongkan selagi frame ditulis
+        berjalan.put(transaksi.getNomorTransaksi(), isi);
+        try {
+            tulis(isi, true);
+        } catch (RuntimeException e) {
+            berjalan.remove(transaksi.getNomorTransaksi());
+            throw e;
+        }
+    }
+    
+    /**
+     * Penjualan sudah tersimpan di database. Tidak perlu fsync: jika penanda
+     * hilang karena crash, pemutar ulang mendapati nomornya sudah ada.
+     */
+    public void selesai(String nomorTransaksi) {
+        tulis(KodekPenjualan.tulisPenanda(SELESAI, nomorTransaksi, null), false);
+        berjalan.remove(nomorTransaksi);
+        synchronized (tertunda) {
+            tertunda.remove(nomorTransaksi);
+        }
+        padatkanJikaBersih();
+    }
+    
+    /**
+     * Simpan history stok yang belum tertulis ke database dan tunggu sampai di disk
+     * @return kunci rekaman, untuk ditutup dengan selesaiStokHistory
+     */
+    public String tundaStokHistory(List<StokHistory> daftar) {
+        String kunci = "STOK-" + UUID.randomUUID();
+        byte[] isi = KodekPenjualan.tulisStokHistory(kunci, daftar);
+        // Daftarkan dulu supaya file tidak dikosongkan selagi frame ditulis
+        synchronized (tertunda) {
+            historyTertunda.put(kunci, isi);
+        }
+        try {
+            tulis(isi, true);
+        } catch (RuntimeException e) {
+            synchronized (tertunda) {
+                historyTertunda.remove(kunci);
+            }
+            throw e;
+        }
+        return kunci;
+    }
+    
+    /**
+     * History stok sudah tersimpan di database (atau ditolak dan dicatat di log)
+     */
+    public void selesaiStokHistory(String kunci) {
+        tulis(KodekPenjualan.tulisPenanda(SELESAI, kunci, null), true);
+        synchronized (tertunda) {
+            historyTertunda.remove(kunci);
+        }
+        padatkanJikaBersih();
+    }
+    
+    /**
+     * History stok yang tertunda per kunci rekaman, urut waktu disimpan.
+     * Setiap pemanggilan menghasilkan entity baru yang belum pernah di-persist.
+     */
+    public Map<String, List<StokHistory>> getStokHistoryTertunda() {
+        Map<String, byte[]> isi;
+        synchronized (tertunda) {
+            isi = new LinkedHashMap<>(historyTertunda);
+        }
+        Map<String, List<StokHistory>> hasil = new LinkedHashMap<>();
+        isi.forEach((kunci, rekaman) -> hasil.put(kunci, KodekPenjualan.bacaStokHistory(rekaman)));
+        return hasil;
+    }
+    
+    /**
+     * Checkout gagal sebelum penjualan tersimpan; penjualan tidak boleh diputar ulang
+     */
+    public void batal(String nomorTransaksi) {
+        tulis(KodekPenjualan.tulisPenanda(BATAL, nomorTransaksi, null), true);
+        berjalan.remove(nomorTransaksi);
+        padatkanJikaBersih();
+    }
+    
+    /**
+     * Database tidak bisa dihubungi: serahkan penjualan ke pemutar ulang
+     */
+    public void tunda(String nomorTransaksi) {
+        byte[] isi = berjalan.get(nomorTransaksi);
+        if (isi == null) {
+            throw new IllegalStateException("Penjualan " + nomorTransaksi + " tidak ada di jurnal");
+        }
+        synchronized (tertunda) {
+            tertunda.put(nomorTransaksi, isi);
+        }
+        berjalan.remove(nomorTransaksi);
+    }
+    
+    /**
+     * Penjualan ditolak database saat diputar ulang (misalnya stok sudah habis).
+     * Rekaman disalin ke file ditolak untuk diperiksa supervisor, lalu ditandai
+     * supaya tidak diputar ulang terus.
+     */
+    public void tolak(String nomorTransaksi, String alasan) {
+        byte[] isi;
+        synchronized (tertunda) {
+            isi = tertunda.get(nomorTransaksi);
+        }
+        if (isi == null) {
+            return;
+        }
+        try (FileChannel ditolak = FileChannel.open(fileDitolak, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ditolak.write(frame(isi));
+            ditolak.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal menulis jurnal penjualan ditolak: " + e.getMessage(), e);
+        }
+        tulis(KodekPenjualan.tulisPenanda(DITOLAK, nomorTransaksi, alasan), true);
+        synchronized (tertunda) {
+            tertunda.remove(nomorTransaksi);
+        }
+        padatkanJikaBersih();
+    }
+    
+    /**
+     * Salinan penjualan yang menunggu diputar ulang, urut waktu checkout.
+     * Setiap pemanggilan menghasilkan entity baru yang belum pernah di-persist.
+     */
+    public List<Transaksi> getTertunda() {
+        List<byte[]> isi;
+        synchronized (tertunda) {
+            isi = new ArrayList<>(tertunda.values());
+        }
+        List<Transaksi> hasil = new ArrayList<>(isi.size());
+        for (byte[] rekaman : isi) {
+            hasil.add(KodekPenjualan.bacaPenjualan(rekaman));
+        }
+        return hasil;
+    }
+    
+    public int getJumlahTertunda() {
+        synchronized (tertunda) {
+            return tertunda.size();
+        }
+    }
+    
+    private boolean adaTertunda() {
+        synchronized (tertunda) {
+            return !tertunda.isEmpty() || !historyTertunda.isEmpty();
+        }
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    public Path getFileDitolak() {
+        return fileDitolak;
+    }
+    
+    private void tulis(byte[] isi, boolean sinkron) {
+        ByteBuffer buffer = frame(isi);
+        long akhir;
+        tulisLock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            akhir = channel.position();
+            posisiTulis = akhir;
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal menulis jurnal penjualan: " + e.getMessage(), e);
+        } finally {
+            tulisLock.unlock();
+        }
+        jumlahRekaman.increment();
+        if (sinkron) {
+            sinkronSampai(akhir);
+        }
+    }
+    
+    /**
+     * fsync sampai posisi tertentu; satu fsync mencakup semua frame yang sudah
+     * ditulis saat fsync dimulai, jadi penulis yang menunggu lock biasanya
+     * sudah ikut tersinkron ketika mendapat giliran
+     */
+    private void sinkronSampai(long posisi) {
+        if (posisiSinkron >= posisi) {
+            return;
+        }
+        sinkronLock.lock();
+        try {
+            if (posisiSinkron >= posisi) {
+                return;
+            }
+            long target = posisiTulis;
+            channel.force(false);
+            posisiSinkron = target;
+            jumlahFsync.increment();
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal sinkronisasi jurnal penjualan: " + e.getMessage(), e);
+        } finally {
+            sinkronLock.unlock();
+        }
+    }
+    
+    private static ByteBuffer frame(byte[] isi) {
+        CRC32 crc = new CRC32();
+        crc.update(isi);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + isi.length);
+        buffer.putInt(isi.length).putInt((int) crc.getValue()).put(isi);
+        return buffer.flip();
+    }
+    
+    /**
+     * Kosongkan file jika semua penjualan sudah selesai, supaya jurnal tidak tumbuh terus
+     */
+    private void padatkanJikaBersih() {
+        if (posisiTulis < BATAS_PADAT || !berjalan.isEmpty() || adaTertunda()) {
+            return;
+        }
+        tulisLock.lock();
+        sinkronLock.lock();
+        try {
+            if (!berjalan.isEmpty() || adaTertunda()) {
+                return;
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+            posisiTulis = 0;
+            posisiSinkron = 0;
+            logger.debug("Jurnal {} dikosongkan", file);
+        } catch (IOException e) {
+            logger.warn("Gagal mengosongkan jurnal {}: {}", file, e.getMessage());
+        } finally {
+            sinkronLock.unlock();
+            tulisLock.unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        tulisLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+        } finally {
+            tulisLock.unlock();
+        }
+    }
+    
+    private static class Holder {
+        private static final JurnalPenjualan INSTANCE = new JurnalPenjualan(
+                Paths.get(System.getProperty("kasirpro.jurnal.dir", AppConfig.JURNAL_DIR)));
+    }
+}
@@ -0,0 +1,295 @@
+package com.joko.aplikasijava.jurnal;
+
+import com.joko.aplikasijava.models.DetailTransaksi;
+import com.joko.aplikasijava.models.Pelanggan;
+import com.joko.aplikasijava.models.Pembayaran;
+import com.joko.aplikasijava.models.Produk;
+import com.joko.aplikasijava.models.StokHistory;
+import com.joko.aplikasijava.models.Transaksi;
+import com.joko.aplikasijava.models.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Format biner isi rekaman jurnal. Setiap isi diawali jenis rekaman dan nomor
+ * transaksi; rekaman PENJUALAN menyimpan semua kolom yang dibutuhkan untuk
+ * menyimpan ulang transaksi beserta detail dan pembayarannya. Relasi (kasir,
+ * produk, pelanggan) disimpan sebagai id sehingga hasil baca berisi entity
+ * rujukan yang cukup untuk persist. Rekaman STOK_HISTORY memakai slot nomor
+ * transaksi sebagai kunci rekaman dan berisi history stok yang belum tertulis.
+ */
+final class KodekPenjualan {
+    
+    private static final byte VERSI = 1;
+    
+    private KodekPenjualan() {
+    }
+    
+    static byte[] tulisPenjualan(Transaksi t) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 + t.getDetailTransaksiList().size() * 96);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(JurnalPenjualan.PENJUALAN);
+            out.writeUTF(t.getNomorTransaksi());
+            out.writeByte(VERSI);
+            tulisTeks(out, t.getNomorInvoice());
+            tulisTeks(out, t.getTanggalTransaksi().toString());
+            out.writeLong(t.getKasir().getId());
+            Pelanggan pelanggan = t.getPelanggan();
+            out.writeLong(pelanggan != null && pelanggan.getId() != null ? pelanggan.getId() : -1);
+            tulisTeks(out, pelanggan != null ? pelanggan.getKodeMember() : null);
+            tulisTeks(out, pelanggan != null ? pelanggan.getNama() : null);
+            tulisAngka(out, t.getSubtotal());
+            tulisAngka(out, t.getDiskonPersen());
+            tulisAngka(out, t.getDiskonNominal());
+            tulisAngka(out, t.getPpnPersen());
+            tulisAngka(out, t.getPpnNominal());
+            tulisAngka(out, t.getServiceCharge());
+            tulisAngka(out, t.getGrandTotal());
+            tulisAngka(out, t.getTotalBayar());
+            tulisAngka(out, t.getKembalian());
+            out.writeInt(t.getTotalItem());
+            out.writeInt(t.getTotalQty());
+            out.writeInt(t.getPoinDigunakan() != null ? t.getPoinDigunakan() : 0);
+            out.writeInt(t.getPoinDidapat() != null ? t.getPoinDidapat() : 0);
+            out.writeUTF(t.getStatus());
+            tulisTeks(out, t.getCatatan());
+            tulisTeks(out, t.getNoMeja());
+            tulisTeks(out, t.getTipePesanan());
+            
+            out.writeInt(t.getDetailTransaksiList().size());
+            for (DetailTransaksi d : t.getDetailTransaksiList()) {
+                out.writeLong(d.getProduk().getId());
+                tulisTeks(out, d.getKodeProduk());
+                tulisTeks(out, d.getNamaProduk());
+                tulisTeks(out, d.getSatuan());
+                tulisAngka(out, d.getHargaSatuan());
+                tulisAngka(out, d.getHargaModal());
+                tulisAngka(out, d.getDiskonPersen());
+                tulisAngka(out, d.getDiskonNominal());
+                out.writeBoolean(Boolean.TRUE.equals(d.getPpn()));
+                out.writeInt(d.getQty());
+                tulisAngka(out, d.getSubtotal());
+                tulisTeks(out, d.getCatatan());
+            }
+            
+            out.writeInt(t.getPembayaranList().size());
+            for (Pembayaran p : t.getPembayaranList()) {
+                out.writeUTF(p.getMetodePembayaran());
+                tulisAngka(out, p.getJumlah());
+                tulisTeks(out, p.getNoReferensi());
+                tulisTeks(out, p.getNamaBank());
+                tulisTeks(out, p.getNoKartu());
+                tulisTeks(out, p.getNamaPemilik());
+                tulisTeks(out, p.getTanggalBayar() != null ? p.getTanggalBayar().toString() : null);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    static byte[] tulisStokHistory(String kunci, List<StokHistory> daftar) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + daftar.size() * 96);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(JurnalPenjualan.STOK_HISTORY);
+            out.writeUTF(kunci);
+            out.writeByte(VERSI);
+            out.writeInt(daftar.size());
+            for (StokHistory h : daftar) {
+                out.writeLong(h.getProduk().getId());
+                out.writeUTF(h.getTipe());
+                out.writeInt(h.getQty());
+                out.writeInt(h.getStokSebelum());
+                out.writeInt(h.getStokSesudah());
+                tulisTeks(out, h.getReferensiTipe());
+                out.writeLong(h.getReferensiId() != null ? h.getReferensiId() : -1);
+                tulisTeks(out, h.getReferensiNomor());
+                tulisTeks(out, h.getKeterangan());
+                out.writeLong(h.getUser() != null && h.getUser().getId() != null ? h.getUser().getId() : -1);
+                tulisTeks(out, h.getTanggal() != null ? h.getTanggal().toString() : null);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * Rekaman penanda (SELESAI, BATAL, DITOLAK) untuk satu nomor transaksi
+     */
+    static byte[] tulisPenanda(byte jenis, String nomorTransaksi, String keterangan) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(jenis);
+            out.writeUTF(nomorTransaksi);
+            tulisTeks(out, keterangan);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    static byte jenis(byte[] isi) {
+        return isi[0];
+    }
+    
+    static String nomorTransaksi(byte[] isi) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(isi, 1, isi.length - 1));
+            return in.readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    static Transaksi bacaPenjualan(byte[] isi) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(isi))) {
+            if (in.readByte() != JurnalPenjualan.PENJUALAN) {
+                throw new IllegalArgumentException("Bukan rekaman penjualan");
+            }
+            String nomorTransaksi = in.readUTF();
+            byte versi = in.readByte();
+            if (versi != VERSI) {
+                throw new IllegalArgumentException("Versi rekaman jurnal tidak dikenal: " + versi);
+            }
+            
+            Transaksi t = new Transaksi();
+            t.setNomorTransaksi(nomorTransaksi);
+            t.setNomorInvoice(bacaTeks(in));
+            t.setTanggalTransaksi(LocalDateTime.parse(bacaTeks(in)));
+            User kasir = new User();
+            kasir.setId(in.readLong());
+            t.setKasir(kasir);
+            long pelangganId = in.readLong();
+            String kodeMember = bacaTeks(in);
+            String namaPelanggan = bacaTeks(in);
+            if (pelangganId >= 0) {
+                Pelanggan pelanggan = new Pelanggan();
+                pelanggan.setId(pelangganId);
+                pelanggan.setKodeMember(kodeMember);
+                pelanggan.setNama(namaPelanggan);
+                t.setPelanggan(pelanggan);
+            }
+            t.setSubtotal(bacaAngka(in));
+            t.setDiskonPersen(bacaAngka(in));
+            t.setDiskonNominal(bacaAngka(in));
+            t.setPpnPersen(bacaAngka(in));
+            t.setPpnNominal(bacaAngka(in));
+            t.setServiceCharge(bacaAngka(in));
+            t.setGrandTotal(bacaAngka(in));
+            t.setTotalBayar(bacaAngka(in));
+            t.setKembalian(bacaAngka(in));
+            t.setTotalItem(in.readInt());
+            t.setTotalQty(in.readInt());
+            t.setPoinDigunakan(in.readInt());
+            t.setPoinDidapat(in.readInt());
+            t.setStatus(in.readUTF());
+            t.setCatatan(bacaTeks(in));
+            t.setNoMeja(bacaTeks(in));
+            t.setTipePesanan(bacaTeks(in));
+            
+            int jumlahDetail = in.readInt();
+            for (int i = 0; i < jumlahDetail; i++) {
+                Produk produk = new Produk();
+                produk.setId(in.readLong());
+                produk.setKode(bacaTeks(in));
+                produk.setNama(bacaTeks(in));
+                produk.setSatuan(bacaTeks(in));
+                produk.setHargaJual(bacaAngka(in));
+                produk.setHargaBeli(bacaAngka(in));
+                produk.setDiskonPersen(bacaAngka(in));
+                BigDecimal diskonNominal = bacaAngka(in);
+                produk.setPpn(in.readBoolean());
+                DetailTransaksi detail = new DetailTransaksi(produk, in.readInt());
+                detail.setDiskonNominal(diskonNominal);
+                detail.setSubtotal(bacaAngka(in));
+                detail.setCatatan(bacaTeks(in));
+                detail.setTransaksi(t);
+                t.getDetailTransaksiList().add(detail);
+            }
+            
+            int jumlahPembayaran = in.readInt();
+            for (int i = 0; i < jumlahPembayaran; i++) {
+                Pembayaran p = new Pembayaran(in.readUTF(), bacaAngka(in));
+                p.setNoReferensi(bacaTeks(in));
+                p.setNamaBank(bacaTeks(in));
+                p.setNoKartu(bacaTeks(in));
+                p.setNamaPemilik(bacaTeks(in));
+                String tanggalBayar = bacaTeks(in);
+                p.setTanggalBayar(tanggalBayar != null ? LocalDateTime.parse(tanggalBayar) : null);
+                p.setTransaksi(t);
+                t.getPembayaranList().add(p);
+            }
+            return t;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    static List<StokHistory> bacaStokHistory(byte[] isi) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(isi))) {
+            if (in.readByte() != JurnalPenjualan.STOK_HISTORY) {
+                throw new IllegalArgumentException("Bukan rekaman history stok");
+            }
+            in.readUTF();
+            byte versi = in.readByte();
+            if (versi != VERSI) {
+                throw new IllegalArgumentException("Versi rekaman jurnal tidak dikenal: " + versi);
+            }
+            
+            int jumlah = in.readInt();
+            List<StokHistory> daftar = new ArrayList<>(jumlah);
+            for (int i = 0; i < jumlah; i++) {
+                Produk produk = new Produk();
+                produk.setId(in.readLong());
+                StokHistory h = new StokHistory(produk, in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+                h.setReferensiTipe(bacaTeks(in));
+                long referensiId = in.readLong();
+                h.setReferensiId(referensiId >= 0 ? referensiId : null);
+                h.setReferensiNomor(bacaTeks(in));
+                h.setKeterangan(bacaTeks(in));
+                long userId = in.readLong();
+                if (userId >= 0) {
+                    User user = new User();
+                    user.setId(userId);
+                    h.setUser(user);
+                }
+                String tanggal = bacaTeks(in);
+                h.setTanggal(tanggal != null ? LocalDateTime.parse(tanggal) : null);
+                daftar.add(h);
+            }
+            return daftar;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void tulisTeks(DataOutputStream out, String teks) throws IOException {
+        out.writeBoolean(teks != null);
+        if (teks != null) {
+            out.writeUTF(teks);
+        }
+    }
+    
+    private static String bacaTeks(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private static void tulisAngka(DataOutputStream out, BigDecimal angka) throws IOException {
+        tulisTeks(out, angka != null ? angka.toPlainString() : null);
+    }
+    
+    private static BigDecimal bacaAngka(DataInputStream in) throws IOException {
+        String teks = bacaTeks(in);
+        return teks != null ? new BigDecimal(teks) : null;
+    }
+}
@@ -0,0 +1,217 @@
+package com.joko.aplikasijava.jurnal;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.metrics.MetrikOperasi;
+import com.joko.aplikasijava.models.Transaksi;
+import com.joko.aplikasijava.repositories.TransaksiRepository;
+import org.hibernate.exception.JDBCConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Memutar ulang penjualan tertunda dari JurnalPenjualan ke PostgreSQL di thread
+ * background. Pemutaran idempoten per nomor transaksi: penjualan yang ternyata
+ * sudah ada di database (misalnya commit berhasil tetapi penanda SELESAI hilang
+ * karena crash) hanya ditandai selesai.
+ *
+ * Juga menyimpan status ketersediaan database untuk checkout: setelah satu
+ * kegagalan koneksi, checkout langsung menulis ke jurnal tanpa menunggu timeout
+ * pool koneksi sampai pemutar berhasil menyimpan lagi.
+ */
+public class PemutarJurnal {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PemutarJurnal.class);
+    private static final MetrikOperasi metrik = MetricsRegistry.getInstance()
+            .operasi("kasirpro_jurnal", "komponen", "PemutarJurnal");
+    private static final PemutarJurnal INSTANCE = new PemutarJurnal(JurnalPenjualan.getInstance(), new TransaksiRepository());
+    
+    private final JurnalPenjualan jurnal;
+    private final TransaksiRepository transaksiRepository;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition adaTugas = lock.newCondition();
+    private volatile boolean databaseTersedia = true;
+    private Thread thread;
+    private volatile boolean berjalan;
+    
+    public PemutarJurnal(JurnalPenjualan jurnal, TransaksiRepository transaksiRepository) {
+        this.jurnal = jurnal;
+        this.transaksiRepository = transaksiRepository;
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.keterangan("kasirpro_jurnal_tertunda", "Penjualan di jurnal lokal yang belum tersimpan di database");
+        metrics.gauge("kasirpro_jurnal_tertunda", jurnal::getJumlahTertunda);
+        metrics.gauge("kasirpro_database_tersedia", () -> databaseTersedia ? 1 : 0);
+    }
+    
+    public static PemutarJurnal getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Mulai thread pemutar; penjualan sisa dari proses sebelumnya langsung diputar
+     */
+    public synchronized void mulai() {
+        if (thread != null) {
+            return;
+        }
+        berjalan = true;
+        thread = Thread.ofPlatform().name("jurnal-pemutar").daemon().start(this::loop);
+    }
+    
+    /**
+     * Hentikan thread pemutar. Penjualan yang masih tertunda tetap aman di jurnal
+     * dan diputar saat aplikasi dijalankan lagi.
+     */
+    public synchronized void berhenti() {
+        if (thread == null) {
+            return;
+        }
+        berjalan = false;
+        bangunkan();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        if (jurnal.getJumlahTertunda() > 0) {
+            logger.warn("{} penjualan masih tertunda di jurnal {}", jurnal.getJumlahTertunda(), jurnal.getFile());
+        }
+    }
+    
+    private void loop() {
+        while (berjalan) {
+            try {
+                putarSemua();
+            } catch (RuntimeException e) {
+                logger.error("Pemutar jurnal gagal: {}", e.getMessage(), e);
+            }
+            lock.lock();
+            try {
+                if (berjalan) {
+                    adaTugas.await(AppConfig.JURNAL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    private void bangunkan() {
+        lock.lock();
+        try {
+            adaTugas.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public boolean isDatabaseTersedia() {
+        return databaseTersedia;
+    }
+    
+    /**
+     * Checkout mendapati database tidak bisa dihubungi
+     */
+    public void tandaiOffline(Throwable sebab) {
+        if (databaseTersedia) {
+            databaseTersedia = false;
+            logger.warn("Database tidak dapat dihubungi ({}), penjualan disimpan di jurnal lokal {}",
+                    sebab.getMessage(), jurnal.getFile());
+        }
+    }
+    
+    /**
+     * Putar semua penjualan tertunda sampai habis atau database tidak bisa dihubungi
+     * @return jumlah penjualan yang tersimpan
+     */
+    public int putarSemua() {
+        List<Transaksi> tertunda = jurnal.getTertunda();
+        int tersimpan = 0;
+        for (Transaksi transaksi : tertunda) {
+            try {
+                if (putar(transaksi)) {
+                    tersimpan++;
+                }
+            } catch (RuntimeException e) {
+                if (isKoneksiGagal(e)) {
+                    tandaiOffline(e);
+                    return tersimpan;
+                }
+                throw e;
+            }
+        }
+        if (!databaseTersedia && jurnal.getJumlahTertunda() == 0) {
+            databaseTersedia = true;
+            logger.info("Database tersedia kembali, {} penjualan offline sudah tersimpan", tersimpan);
+        } else if (tersimpan > 0) {
+            logger.info("{} penjualan dari jurnal tersimpan ke database", tersimpan);
+        }
+        return tersimpan;
+    }
+    
+    /**
+     * Simpan satu penjualan dari jurnal jika nomornya belum ada di database
+     * @return true jika penjualan baru disimpan
+     */
+    private boolean putar(Transaksi transaksi) {
+        return metrik.ukur("putar", () -> {
+            String nomor = transaksi.getNomorTransaksi();
+            if (transaksiRepository.findByNomorTransaksi(nomor).isPresent()) {
+                jurnal.selesai(nomor);
+                return false;
+            }
+            try {
+                transaksiRepository.simpanPenjualan(transaksi);
+            } catch (RuntimeException e) {
+                if (isKoneksiGagal(e)) {
+                    throw e;
+                }
+                if (transaksiRepository.findByNomorTransaksi(nomor).isPresent()) {
+                    jurnal.selesai(nomor);
+                    return false;
+                }
+                logger.error("Penjualan {} dari jurnal ditolak database, disalin ke {}: {}",
+                        nomor, jurnal.getFileDitolak(), e.getMessage());
+                jurnal.tolak(nomor, e.getMessage());
+                MetricsRegistry.getInstance().counter("kasirpro_jurnal_ditolak_total").increment();
+                return false;
+            }
+            jurnal.selesai(nomor);
+            MetricsRegistry.getInstance().counter("kasirpro_jurnal_diputar_total").increment();
+            return true;
+        });
+    }
+    
+    /**
+     * Apakah kegagalan disebabkan koneksi ke database (bukan data atau aturan bisnis)
+     */
+    public static boolean isKoneksiGagal(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof JDBCConnectionException
+                    || t instanceof SQLTransientConnectionException
+                    || t instanceof SQLNonTransientConnectionException
+                    || t instanceof ConnectException) {
+                return true;
+            }
+            // 08xxx: koneksi gagal, 57P0x: server dimatikan atau belum siap menerima koneksi
+            if (t instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("57P0"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
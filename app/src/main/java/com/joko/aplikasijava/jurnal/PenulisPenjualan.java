@@ -0,0 +1,238 @@
+package com.joko.aplikasijava.jurnal;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.metrics.CakupanOperasi;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.metrics.MetrikOperasi;
+import com.joko.aplikasijava.models.Transaksi;
+import com.joko.aplikasijava.repositories.TransaksiRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Penulis penjualan dengan group commit. Checkout menyerahkan penjualan yang
+ * sudah tercatat di jurnal ke antrian terbatas lalu menunggu commit; satu thread
+ * penulis mengambil sampai AppConfig.GROUP_COMMIT_MAKS penjualan atau menunggu
+ * paling lama AppConfig.GROUP_COMMIT_TUNGGU_MS setelah penjualan pertama, lalu
+ * menyimpan semuanya dalam satu transaction database. Banyak terminal yang
+ * checkout bersamaan berbagi satu commit (dan satu fsync WAL PostgreSQL), satu
+ * UPDATE stok, satu UPDATE rollup harian dan JDBC batch untuk semua insert.
+ *
+ * Antrian penuh menahan checkout (back-pressure) sampai penulis mengejar.
+ * Jika batch gagal karena satu penjualan (misalnya stok habis), penjualan
+ * disimpan ulang satu per satu supaya hanya penjualan itu yang gagal.
+ * Kegagalan koneksi diteruskan ke semua pemanggil tanpa dicoba ulang.
+ *
+ * Statement SQL penulis juga dihitung ke operasi pemanggil yang menunggu di
+ * simpan() (bagian rata per penjualan dalam batch), sehingga budget
+ * TransaksiService.prosesPembayaran tetap mencakup insert penjualannya.
+ */
+public class PenulisPenjualan {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PenulisPenjualan.class);
+    private static final MetrikOperasi metrik = MetricsRegistry.getInstance()
+            .operasi("kasirpro_group_commit", "komponen", "PenulisPenjualan");
+    // -Dkasirpro.group-commit.maks=1 menyimpan setiap penjualan dalam commit sendiri
+    private static final PenulisPenjualan INSTANCE = new PenulisPenjualan(new TransaksiRepository(),
+            Integer.getInteger("kasirpro.group-commit.maks", AppConfig.GROUP_COMMIT_MAKS),
+            Long.getLong("kasirpro.group-commit.tunggu-ms", AppConfig.GROUP_COMMIT_TUNGGU_MS),
+            AppConfig.GROUP_COMMIT_ANTRIAN);
+    
+    private final TransaksiRepository transaksiRepository;
+    private final int maksBatch;
+    private final long tungguNanos;
+    private final BlockingQueue<Permintaan> antrian;
+    private final LongAdder jumlahBatch;
+    private final LongAdder jumlahPenjualan;
+    private Thread thread;
+    private volatile boolean berjalan;
+    
+    public PenulisPenjualan(TransaksiRepository transaksiRepository, int maksBatch, long tungguMs, int kapasitasAntrian) {
+        if (maksBatch < 1) {
+            throw new IllegalArgumentException("Ukuran batch minimal 1");
+        }
+        this.transaksiRepository = transaksiRepository;
+        this.maksBatch = maksBatch;
+        this.tungguNanos = TimeUnit.MILLISECONDS.toNanos(tungguMs);
+        this.antrian = new ArrayBlockingQueue<>(kapasitasAntrian);
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.keterangan("kasirpro_group_commit_antrian", "Penjualan yang menunggu ditulis penulis group commit");
+        metrics.gauge("kasirpro_group_commit_antrian", antrian::size);
+        this.jumlahBatch = metrics.counter("kasirpro_group_commit_batch_total");
+        this.jumlahPenjualan = metrics.counter("kasirpro_group_commit_penjualan_total");
+    }
+    
+    public static PenulisPenjualan getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Simpan penjualan lewat group commit dan tunggu sampai commit selesai
+     */
+    public Transaksi simpan(Transaksi transaksi) {
+        try {
+            return kirim(transaksi, CakupanOperasi.aktif()).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+    
+    /**
+     * Masukkan penjualan ke antrian; menunggu jika antrian penuh
+     * @return selesai setelah penjualan ter-commit di database
+     */
+    public CompletableFuture<Transaksi> kirim(Transaksi transaksi) {
+        return kirim(transaksi, null);
+    }
+    
+    private CompletableFuture<Transaksi> kirim(Transaksi transaksi, CakupanOperasi pemanggil) {
+        mulai();
+        Permintaan permintaan = new Permintaan(transaksi, pemanggil);
+        try {
+            antrian.put(permintaan);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Checkout dihentikan saat menunggu antrian penyimpanan", e);
+        }
+        return permintaan.hasil;
+    }
+    
+    /**
+     * Thread penulis dijalankan saat penjualan pertama masuk
+     */
+    public synchronized void mulai() {
+        if (thread != null) {
+            return;
+        }
+        berjalan = true;
+        thread = Thread.ofPlatform().name("penulis-penjualan").daemon().start(this::loop);
+    }
+    
+    /**
+     * Hentikan penulis setelah antrian habis ditulis
+     */
+    public synchronized void berhenti() {
+        if (thread == null) {
+            return;
+        }
+        berjalan = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+    
+    private void loop() {
+        List<Permintaan> batch = new ArrayList<>(maksBatch);
+        while (berjalan || !antrian.isEmpty()) {
+            try {
+                Permintaan pertama = antrian.poll(100, TimeUnit.MILLISECONDS);
+                if (pertama == null) {
+                    continue;
+                }
+                batch.add(pertama);
+                kumpulkan(batch);
+                tulis(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Penulis penjualan gagal: {}", e.getMessage(), e);
+                batch.forEach(p -> p.hasil.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    /**
+     * Ambil penjualan berikutnya sampai batch penuh atau waktu tunggu habis
+     */
+    private void kumpulkan(List<Permintaan> batch) throws InterruptedException {
+        long batas = System.nanoTime() + tungguNanos;
+        while (batch.size() < maksBatch) {
+            antrian.drainTo(batch, maksBatch - batch.size());
+            long sisa = batas - System.nanoTime();
+            if (batch.size() >= maksBatch || sisa <= 0) {
+                return;
+            }
+            Permintaan berikut = antrian.poll(sisa, TimeUnit.NANOSECONDS);
+            if (berikut == null) {
+                return;
+            }
+            batch.add(berikut);
+        }
+    }
+    
+    private void tulis(List<Permintaan> batch) {
+        List<Transaksi> daftar = new ArrayList<>(batch.size());
+        for (Permintaan p : batch) {
+            daftar.add(p.transaksi);
+        }
+        jumlahBatch.increment();
+        jumlahPenjualan.add(batch.size());
+        try {
+            metrik.jalankan("tulisBatch", () -> {
+                transaksiRepository.simpanPenjualanBatch(daftar);
+                teruskanStatement(batch);
+            });
+            batch.forEach(p -> p.hasil.complete(p.transaksi));
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1 || PemutarJurnal.isKoneksiGagal(e)) {
+                batch.forEach(p -> p.hasil.completeExceptionally(e));
+                return;
+            }
+            logger.warn("Batch {} penjualan gagal, disimpan ulang satu per satu: {}", batch.size(), e.getMessage());
+        }
+        for (Permintaan p : batch) {
+            try {
+                p.hasil.complete(metrik.ukur("tulisSatu", () -> {
+                    Transaksi saved = transaksiRepository.simpanPenjualan(p.transaksi);
+                    teruskanStatement(List.of(p));
+                    return saved;
+                }));
+            } catch (RuntimeException e) {
+                p.hasil.completeExceptionally(e);
+            }
+        }
+    }
+    
+    /**
+     * Hitung statement batch yang sudah ter-commit ke operasi setiap pemanggil
+     */
+    private static void teruskanStatement(List<Permintaan> batch) {
+        CakupanOperasi penulis = CakupanOperasi.aktif();
+        if (penulis == null) {
+            return;
+        }
+        for (Permintaan p : batch) {
+            if (p.pemanggil != null) {
+                p.pemanggil.tambahkan(penulis, batch.size());
+            }
+        }
+    }
+    
+    private static class Permintaan {
+        private final Transaksi transaksi;
+        // Operasi pemanggil yang menunggu hasil, null jika tidak ada
+        private final CakupanOperasi pemanggil;
+        private final CompletableFuture<Transaksi> hasil = new CompletableFuture<>();
+        
+        Permintaan(Transaksi transaksi, CakupanOperasi pemanggil) {
+            this.transaksi = transaksi;
+            this.pemanggil = pemanggil;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.joko.aplikasijava.loadtest;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.config.DatabaseInitializer;
+import com.joko.aplikasijava.config.HibernateUtil;
+import com.joko.aplikasijava.models.DetailTransaksi;
+import com.joko.aplikasijava.models.Pelanggan;
+import com.joko.aplikasijava.models.Produk;
+import com.joko.aplikasijava.models.User;
+import com.joko.aplikasijava.services.AuthService;
+import com.joko.aplikasijava.services.PelangganService;
+import com.joko.aplikasijava.services.ProdukService;
+import com.joko.aplikasijava.services.TransaksiService;
+import com.joko.aplikasijava.utils.LatencyHistogram;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Uji beban end-to-end: sejumlah kasir sintetis menjalankan
+ * mulaiTransaksiBaru -> tambahKeKeranjang x k -> setPelanggan -> prosesPembayaran
+ * secara bersamaan langsung terhadap database yang dikonfigurasi di hibernate.cfg.xml
+ * (atau -Dkasirpro.db.url). Gunakan database uji: generator membuat produk LTxxxxx
+ * dan member uji sendiri, mengatur ulang stoknya, dan menyimpan transaksi sungguhan.
+ *
+ * Opsi (semua opsional):
+ *   --kasir 20          jumlah kasir bersamaan
+ *   --transaksi 50      transaksi per kasir (diabaikan jika --durasi diisi)
+ *   --durasi 0          lama uji dalam detik
+ *   --item-min 1        ukuran keranjang minimum (baris)
+ *   --item-max 15       ukuran keranjang maksimum (baris)
+ *   --qty-max 3         qty maksimum per baris
+ *   --sku 500           jumlah SKU uji
+ *   --zipf 1.0          eksponen popularitas SKU (0 = seragam)
+ *   --member 0.3        rasio transaksi dengan member
+ *   --stok 100000       stok awal setiap SKU uji
+ *   --user admin --password admin123
+ */
+public class KasirLoadGenerator {
+    
+    private static final String PREFIX_KODE = "LT";
+    private static final String PREFIX_TELEPON = "0899";
+    private static final int JUMLAH_MEMBER = 200;
+    private static final String PESAN_STOK = "Stok tidak mencukupi";
+    
+    /**
+     * Langkah checkout yang diukur
+     */
+    public enum Langkah { MULAI, SCAN, PELANGGAN, BAYAR, CHECKOUT }
+    
+    private final Konfigurasi konfigurasi;
+    private final AuthService authService = new AuthService();
+    private final ProdukService produkService = new ProdukService();
+    private final PelangganService pelangganService = new PelangganService();
+    private final TransaksiService transaksiService = new TransaksiService();
+    
+    private final Map<Langkah, LatencyHistogram> latensi = new EnumMap<>(Langkah.class);
+    private final Map<Langkah, LongAdder> error = new EnumMap<>(Langkah.class);
+    private final Map<String, LongAdder> contohError = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> terjualPerProduk = new ConcurrentHashMap<>();
+    private final LongAdder berhasil = new LongAdder();
+    private final LongAdder stokHabis = new LongAdder();
+    private final LongAdder transaksiDenganMember = new LongAdder();
+    
+    private User kasir;
+    private List<Produk> sku;
+    private List<Long> memberIds;
+    
+    public KasirLoadGenerator(Konfigurasi konfigurasi) {
+        this.konfigurasi = konfigurasi;
+        for (Langkah langkah : Langkah.values()) {
+            latensi.put(langkah, new LatencyHistogram());
+            error.put(langkah, new LongAdder());
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Konfigurasi konfigurasi = Konfigurasi.dariArgumen(args);
+        try {
+            KasirLoadGenerator generator = new KasirLoadGenerator(konfigurasi);
+            generator.siapkan();
+            Hasil hasil = generator.jalankan();
+            System.out.println(hasil.laporan());
+        } finally {
+            HibernateUtil.shutdown();
+        }
+    }
+    
+    /**
+     * Siapkan database, kasir, SKU uji (stok diatur ulang) dan member uji
+     */
+    public void siapkan() {
+        DatabaseInitializer.inisialisasi();
+        authService.initDefaultAdmin();
+        kasir = authService.login(konfigurasi.username, konfigurasi.password);
+        if (kasir == null) {
+            throw new IllegalStateException("Login kasir uji gagal: " + konfigurasi.username);
+        }
+        
+        sku = new ArrayList<>(konfigurasi.jumlahSku);
+        for (int i = 1; i <= konfigurasi.jumlahSku; i++) {
+            sku.add(siapkanProduk(i));
+        }
+        produkService.muatIndexProduk();
+        
+        memberIds = new ArrayList<>(JUMLAH_MEMBER);
+        for (int i = 1; i <= JUMLAH_MEMBER; i++) {
+            String telepon = PREFIX_TELEPON + String.format("%08d", i);
+            Pelanggan member = pelangganService.getPelangganByNoTelepon(telepon)
+                    .orElseGet(() -> pelangganService.tambahMember("Member Uji " + telepon, telepon, null, null));
+            memberIds.add(member.getId());
+        }
+        System.out.printf("Siap: %d SKU uji (stok %d), %d member uji%n",
+                sku.size(), konfigurasi.stokAwal, memberIds.size());
+    }
+    
+    private Produk siapkanProduk(int nomor) {
+        String kode = PREFIX_KODE + String.format("%05d", nomor);
+        Optional<Produk> ada = produkService.getProdukByKodeOrBarcode(kode);
+        if (ada.isEmpty()) {
+            BigDecimal hargaJual = BigDecimal.valueOf(1_000L + (nomor % 50) * 500L);
+            Produk produk = new Produk(kode, "Produk Uji " + nomor, hargaJual.multiply(new BigDecimal("0.8")),
+                    hargaJual, konfigurasi.stokAwal, "PCS");
+            return produkService.tambahProduk(produk);
+        }
+        Produk produk = ada.get();
+        if (produk.getStok() != konfigurasi.stokAwal) {
+            produkService.adjustmentStok(produk.getId(), konfigurasi.stokAwal, "Reset stok uji beban", kasir);
+            produk.setStok(konfigurasi.stokAwal);
+        }
+        return produk;
+    }
+    
+    /**
+     * Jalankan seluruh kasir sampai jumlah transaksi atau durasi tercapai
+     */
+    public Hasil jalankan() {
+        ZipfGenerator zipf = new ZipfGenerator(sku.size(), konfigurasi.eksponenZipf);
+        long batasWaktu = konfigurasi.durasiDetik > 0
+                ? System.nanoTime() + konfigurasi.durasiDetik * 1_000_000_000L
+                : Long.MAX_VALUE;
+        
+        long mulai = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 1; i <= konfigurasi.jumlahKasir; i++) {
+                String terminalId = "SIM-" + i;
+                executor.execute(() -> jalankanKasir(terminalId, zipf, batasWaktu));
+            }
+        }
+        long durasiNanos = System.nanoTime() - mulai;
+        
+        return new Hasil(durasiNanos, periksaStok());
+    }
+    
+    private void jalankanKasir(String terminalId, ZipfGenerator zipf, long batasWaktu) {
+        Random random = ThreadLocalRandom.current();
+        int target = konfigurasi.durasiDetik > 0 ? Integer.MAX_VALUE : konfigurasi.transaksiPerKasir;
+        try {
+            for (int i = 0; i < target && System.nanoTime() < batasWaktu; i++) {
+                checkout(terminalId, zipf, random);
+            }
+        } finally {
+            transaksiService.tutupSession(terminalId);
+        }
+    }
+    
+    private void checkout(String terminalId, ZipfGenerator zipf, Random random) {
+        long awal = System.nanoTime();
+        
+        if (!langkah(Langkah.MULAI, () -> transaksiService.mulaiTransaksiBaru(terminalId, kasir))) {
+            return;
+        }
+        
+        int jumlahItem = konfigurasi.itemMin + random.nextInt(konfigurasi.itemMax - konfigurasi.itemMin + 1);
+        for (int i = 0; i < jumlahItem; i++) {
+            Produk produk = sku.get(zipf.berikut(random));
+            int qty = 1 + random.nextInt(konfigurasi.qtyMaks);
+            // Item yang gagal (misalnya stok habis) dilewati seperti di kasir sungguhan
+            langkah(Langkah.SCAN, () -> transaksiService.tambahKeKeranjang(terminalId, produk.getKode(), qty));
+        }
+        
+        if (random.nextDouble() < konfigurasi.rasioMember) {
+            Long memberId = memberIds.get(random.nextInt(memberIds.size()));
+            if (langkah(Langkah.PELANGGAN, () -> transaksiService.setPelanggan(terminalId, memberId))) {
+                transaksiDenganMember.increment();
+            }
+        }
+        
+        List<DetailTransaksi> keranjang = transaksiService.getKeranjang(terminalId);
+        if (keranjang.isEmpty()) {
+            transaksiService.batalkanTransaksiAktif(terminalId);
+            return;
+        }
+        
+        BigDecimal total = transaksiService.getTransaksiAktif(terminalId).getGrandTotal();
+        boolean lunas = langkah(Langkah.BAYAR,
+                () -> transaksiService.prosesPembayaran(terminalId, AppConfig.PAYMENT_CASH, total, null));
+        if (!lunas) {
+            transaksiService.batalkanTransaksiAktif(terminalId);
+            return;
+        }
+        
+        latensi.get(Langkah.CHECKOUT).rekam(System.nanoTime() - awal);
+        berhasil.increment();
+        for (DetailTransaksi detail : keranjang) {
+            terjualPerProduk.computeIfAbsent(detail.getProduk().getId(), id -> new LongAdder()).add(detail.getQty());
+        }
+    }
+    
+    /**
+     * Jalankan dan ukur satu langkah
+     * @return false jika langkah gagal (stok habis dihitung terpisah dari error)
+     */
+    private boolean langkah(Langkah langkah, Runnable aksi) {
+        long awal = System.nanoTime();
+        try {
+            aksi.run();
+            latensi.get(langkah).rekam(System.nanoTime() - awal);
+            return true;
+        } catch (RuntimeException e) {
+            String pesan = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (pesan.contains(PESAN_STOK)) {
+                stokHabis.increment();
+            } else {
+                error.get(langkah).increment();
+                String kunci = langkah + ": " + (pesan.length() > 120 ? pesan.substring(0, 120) : pesan);
+                contohError.computeIfAbsent(kunci, k -> new LongAdder()).increment();
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Bandingkan stok akhir di database dengan stok awal dikurangi penjualan yang berhasil
+     */
+    private PemeriksaanStok periksaStok() {
+        int oversell = 0;
+        int selisih = 0;
+        for (Produk produk : sku) {
+            int stokAkhir = produkService.getProdukById(produk.getId()).map(Produk::getStok).orElse(0);
+            LongAdder terjual = terjualPerProduk.get(produk.getId());
+            long harapan = konfigurasi.stokAwal - (terjual != null ? terjual.sum() : 0);
+            if (stokAkhir < 0) {
+                oversell++;
+            }
+            if (stokAkhir != harapan) {
+                selisih++;
+            }
+        }
+        return new PemeriksaanStok(oversell, selisih);
+    }
+    
+    /**
+     * Pengaturan uji beban
+     */
+    public static class Konfigurasi {
+        int jumlahKasir = 20;
+        int transaksiPerKasir = 50;
+        int durasiDetik = 0;
+        int itemMin = 1;
+        int itemMax = 15;
+        int qtyMaks = 3;
+        int jumlahSku = 500;
+        double eksponenZipf = 1.0;
+        double rasioMember = 0.3;
+        int stokAwal = 100_000;
+        String username = "admin";
+        String password = "admin123";
+        
+        public static Konfigurasi dariArgumen(String[] args) {
+            Konfigurasi k = new Konfigurasi();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String nilai = args[i + 1];
+                switch (args[i]) {
+                    case "--kasir" -> k.jumlahKasir = Integer.parseInt(nilai);
+                    case "--transaksi" -> k.transaksiPerKasir = Integer.parseInt(nilai);
+                    case "--durasi" -> k.durasiDetik = Integer.parseInt(nilai);
+                    case "--item-min" -> k.itemMin = Integer.parseInt(nilai);
+                    case "--item-max" -> k.itemMax = Integer.parseInt(nilai);
+                    case "--qty-max" -> k.qtyMaks = Integer.parseInt(nilai);
+                    case "--sku" -> k.jumlahSku = Integer.parseInt(nilai);
+                    case "--zipf" -> k.eksponenZipf = Double.parseDouble(nilai);
+                    case "--member" -> k.rasioMember = Double.parseDouble(nilai);
+                    case "--stok" -> k.stokAwal = Integer.parseInt(nilai);
+                    case "--user" -> k.username = nilai;
+                    case "--password" -> k.password = nilai;
+                    default -> throw new IllegalArgumentException("Opsi tidak dikenal: " + args[i]);
+                }
+            }
+            if (k.itemMin < 1 || k.itemMax < k.itemMin) {
+                throw new IllegalArgumentException("Ukuran keranjang tidak valid");
+            }
+            return k;
+        }
+    }
+    
+    /**
+     * Hasil pemeriksaan stok setelah uji
+     */
+    public static class PemeriksaanStok {
+        private final int oversell;
+        private final int selisih;
+        
+        PemeriksaanStok(int oversell, int selisih) {
+            this.oversell = oversell;
+            this.selisih = selisih;
+        }
+        
+        public int getOversell() { return oversell; }
+        public int getSelisih() { return selisih; }
+    }
+    
+    /**
+     * Ringkasan hasil uji beban
+     */
+    public class Hasil {
+        private final long durasiNanos;
+        private final PemeriksaanStok stok;
+        
+        Hasil(long durasiNanos, PemeriksaanStok stok) {
+            this.durasiNanos = durasiNanos;
+            this.stok = stok;
+        }
+        
+        public long getBerhasil() { return berhasil.sum(); }
+        public long getStokHabis() { return stokHabis.sum(); }
+        public PemeriksaanStok getStok() { return stok; }
+        public LatencyHistogram getLatensi(Langkah langkah) { return latensi.get(langkah); }
+        
+        public long getError() {
+            long total = 0;
+            for (LongAdder adder : error.values()) {
+                total += adder.sum();
+            }
+            return total;
+        }
+        
+        public double getTransaksiPerDetik() {
+            return durasiNanos > 0 ? berhasil.sum() * 1_000_000_000.0 / durasiNanos : 0;
+        }
+        
+        public String laporan() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%nUJI BEBAN: %d kasir, keranjang %d-%d item, %d SKU (zipf %.2f), member %.0f%%%n",
+                    konfigurasi.jumlahKasir, konfigurasi.itemMin, konfigurasi.itemMax, konfigurasi.jumlahSku,
+                    konfigurasi.eksponenZipf, konfigurasi.rasioMember * 100));
+            sb.append(String.format("Durasi %.2f s | Berhasil %d | Throughput %.1f trx/s | Dengan member %d%n",
+                    durasiNanos / 1e9, berhasil.sum(), getTransaksiPerDetik(), transaksiDenganMember.sum()));
+            sb.append(String.format("%-10s %10s %10s %10s %10s %10s %8s%n",
+                    "Langkah", "Jumlah", "p50 ms", "p95 ms", "p99 ms", "Maks ms", "Error"));
+            for (Langkah langkah : Langkah.values()) {
+                LatencyHistogram h = latensi.get(langkah);
+                sb.append(String.format("%-10s %10d %10.2f %10.2f %10.2f %10.2f %8d%n",
+                        langkah, h.getJumlah(), h.persentil(50) / 1e6, h.persentil(95) / 1e6,
+                        h.persentil(99) / 1e6, h.getMaks() / 1e6, error.get(langkah).sum()));
+            }
+            sb.append(String.format("Stok habis (ditolak): %d | Oversell: %d SKU | Selisih stok: %d SKU%n",
+                    stokHabis.sum(), stok.getOversell(), stok.getSelisih()));
+            contohError.entrySet().stream()
+                    .sorted(Comparator.comparing((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                    .limit(5)
+                    .forEach(e -> sb.append(String.format("  %6d x %s%n", e.getValue().sum(), e.getKey())));
+            return sb.toString();
+        }
+    }
+}
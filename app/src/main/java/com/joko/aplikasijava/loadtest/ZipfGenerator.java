@@ -0,0 +1,51 @@
+package com.joko.aplikasijava.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Pembangkit peringkat dengan distribusi Zipf: peringkat k (mulai 0) terpilih
+ * dengan peluang sebanding 1 / (k + 1)^eksponen. Dipakai untuk meniru popularitas
+ * SKU, di mana sedikit produk laris mendominasi penjualan.
+ * Tabel kumulatif dihitung sekali, pengambilan memakai binary search.
+ * Aman dipakai banyak thread (tidak ada state yang berubah).
+ */
+public class ZipfGenerator {
+    
+    private final double[] kumulatif;
+    
+    /**
+     * @param jumlah banyaknya peringkat
+     * @param eksponen 0 = seragam, sekitar 1 = pola belanja ritel pada umumnya
+     */
+    public ZipfGenerator(int jumlah, double eksponen) {
+        if (jumlah < 1) {
+            throw new IllegalArgumentException("Jumlah peringkat minimal 1");
+        }
+        if (eksponen < 0) {
+            throw new IllegalArgumentException("Eksponen tidak boleh negatif");
+        }
+        kumulatif = new double[jumlah];
+        double total = 0;
+        for (int k = 0; k < jumlah; k++) {
+            total += 1.0 / Math.pow(k + 1, eksponen);
+            kumulatif[k] = total;
+        }
+        for (int k = 0; k < jumlah; k++) {
+            kumulatif[k] /= total;
+        }
+    }
+    
+    /**
+     * Ambil satu peringkat (0 = paling populer)
+     */
+    public int berikut(Random random) {
+        int posisi = Arrays.binarySearch(kumulatif, random.nextDouble());
+        int peringkat = posisi >= 0 ? posisi : -posisi - 1;
+        return Math.min(peringkat, kumulatif.length - 1);
+    }
+    
+    public int getJumlah() {
+        return kumulatif.length;
+    }
+}
@@ -0,0 +1,117 @@
+package com.joko.aplikasijava.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Operasi logis yang sedang berjalan di thread ini, yaitu method service atau
+ * repository terluar yang diukur MetrikOperasi. Operasi bersarang (misalnya
+ * query repository di dalam method service) ikut dihitung ke operasi terluar,
+ * sehingga jumlah statement mencerminkan satu permintaan dari sisi pemanggil.
+ * Pekerjaan yang diserahkan ke thread lain (misalnya group commit penjualan)
+ * diteruskan kembali ke operasi pemanggil lewat aktif() dan tambahkan().
+ */
+public final class CakupanOperasi {
+    
+    private static final ThreadLocal<CakupanOperasi> AKTIF = new ThreadLocal<>();
+    private static final int MAKS_SQL_UNIK = 64;
+    
+    private final String nama;
+    private int jumlahStatement;
+    private Map<String, Integer> perSql;
+    
+    private CakupanOperasi(String nama) {
+        this.nama = nama;
+    }
+    
+    /**
+     * Buka operasi baru, atau null jika thread ini sudah berada di dalam operasi lain
+     */
+    static CakupanOperasi buka(String nama) {
+        if (AKTIF.get() != null) {
+            return null;
+        }
+        CakupanOperasi cakupan = new CakupanOperasi(nama);
+        AKTIF.set(cakupan);
+        return cakupan;
+    }
+    
+    /**
+     * Catat satu statement SQL ke operasi yang sedang berjalan
+     * @return false jika tidak ada operasi aktif di thread ini
+     */
+    static boolean catat(String sql) {
+        CakupanOperasi cakupan = AKTIF.get();
+        if (cakupan == null) {
+            return false;
+        }
+        cakupan.jumlahStatement++;
+        if (cakupan.perSql == null) {
+            cakupan.perSql = new HashMap<>();
+        }
+        if (cakupan.perSql.size() < MAKS_SQL_UNIK || cakupan.perSql.containsKey(sql)) {
+            cakupan.perSql.merge(sql, 1, Integer::sum);
+        }
+        return true;
+    }
+    
+    /**
+     * Operasi yang sedang berjalan di thread ini, atau null
+     */
+    public static CakupanOperasi aktif() {
+        return AKTIF.get();
+    }
+    
+    /**
+     * Hitung statement operasi lain yang dikerjakan atas nama operasi ini, dibagi
+     * rata (dibulatkan ke atas) jika operasi lain melayani beberapa pemanggil.
+     * Hanya boleh dipanggil selagi thread pemilik operasi ini menunggu hasilnya.
+     */
+    public void tambahkan(CakupanOperasi lain, int jumlahPemanggil) {
+        jumlahStatement += bagian(lain.jumlahStatement, jumlahPemanggil);
+        if (lain.perSql == null) {
+            return;
+        }
+        if (perSql == null) {
+            perSql = new HashMap<>();
+        }
+        for (Map.Entry<String, Integer> entry : lain.perSql.entrySet()) {
+            if (perSql.size() < MAKS_SQL_UNIK || perSql.containsKey(entry.getKey())) {
+                perSql.merge(entry.getKey(), bagian(entry.getValue(), jumlahPemanggil), Integer::sum);
+            }
+        }
+    }
+    
+    private static int bagian(int jumlah, int jumlahPemanggil) {
+        return (jumlah + jumlahPemanggil - 1) / jumlahPemanggil;
+    }
+    
+    void tutup() {
+        AKTIF.remove();
+    }
+    
+    String getNama() {
+        return nama;
+    }
+    
+    int getJumlahStatement() {
+        return jumlahStatement;
+    }
+    
+    /**
+     * Statement yang paling sering dijalankan, tanda N+1 jika jumlahnya besar
+     * @return "n x sql" atau string kosong jika belum ada statement
+     */
+    String getStatementTerbanyak() {
+        if (perSql == null) {
+            return "";
+        }
+        Map.Entry<String, Integer> terbanyak = null;
+        for (Map.Entry<String, Integer> entry : perSql.entrySet()) {
+            if (terbanyak == null || entry.getValue() > terbanyak.getValue()) {
+                terbanyak = entry;
+            }
+        }
+        return terbanyak.getValue() + "x " + terbanyak.getKey();
+    }
+}
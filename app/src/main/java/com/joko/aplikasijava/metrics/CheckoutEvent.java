@@ -0,0 +1,52 @@
+package com.joko.aplikasijava.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Event JFR untuk satu pembayaran (TransaksiService.prosesPembayaran),
+ * termasuk waktu menunggu kunci session terminal
+ */
+@Name("kasirpro.Checkout")
+@Label("Checkout")
+@Category({"KasirPro", "Transaksi"})
+@Description("Proses pembayaran dan penyimpanan transaksi penjualan")
+@StackTrace(false)
+public class CheckoutEvent extends Event {
+    
+    @Label("Terminal")
+    private String terminal;
+    
+    @Label("Nomor Transaksi")
+    private String nomorTransaksi;
+    
+    @Label("Metode Pembayaran")
+    private String metodePembayaran;
+    
+    @Label("Jumlah Item")
+    private int jumlahItem;
+    
+    @Label("Grand Total")
+    private double grandTotal;
+    
+    @Label("Tunggu Kunci")
+    @Description("Waktu menunggu kunci session terminal")
+    @Timespan(Timespan.NANOSECONDS)
+    private long tungguKunci;
+    
+    @Label("Berhasil")
+    private boolean berhasil;
+    
+    public void setTerminal(String terminal) { this.terminal = terminal; }
+    public void setNomorTransaksi(String nomorTransaksi) { this.nomorTransaksi = nomorTransaksi; }
+    public void setMetodePembayaran(String metodePembayaran) { this.metodePembayaran = metodePembayaran; }
+    public void setJumlahItem(int jumlahItem) { this.jumlahItem = jumlahItem; }
+    public void setGrandTotal(double grandTotal) { this.grandTotal = grandTotal; }
+    public void setTungguKunci(long tungguKunci) { this.tungguKunci = tungguKunci; }
+    public void setBerhasil(boolean berhasil) { this.berhasil = berhasil; }
+}
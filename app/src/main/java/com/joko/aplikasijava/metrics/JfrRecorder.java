@@ -0,0 +1,99 @@
+package com.joko.aplikasijava.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Rekaman Java Flight Recorder kontinu dengan profil "default" (overhead rendah)
+ * ditambah event KasirPro (Checkout, Repository, Laporan).
+ * Data disimpan ke disk dalam buffer bergulir dan ditulis ke file tujuan saat
+ * rekaman dihentikan atau JVM keluar; snapshot bisa diambil kapan saja lewat simpan().
+ */
+public class JfrRecorder {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JfrRecorder.class);
+    private static final Duration MAX_UMUR = Duration.ofHours(6);
+    private static final long MAX_UKURAN = 256L * 1024 * 1024;
+    
+    private final Path file;
+    private Recording recording;
+    
+    public JfrRecorder(Path file) {
+        this.file = file;
+    }
+    
+    /**
+     * Mulai rekaman
+     */
+    public synchronized void start() {
+        if (recording != null) {
+            return;
+        }
+        try {
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            Recording baru = new Recording(Configuration.getConfiguration("default"));
+            baru.setName("KasirPro");
+            baru.setToDisk(true);
+            baru.setMaxAge(MAX_UMUR);
+            baru.setMaxSize(MAX_UKURAN);
+            baru.setDestination(file);
+            baru.setDumpOnExit(true);
+            baru.enable(CheckoutEvent.class);
+            baru.enable(RepositoryEvent.class);
+            baru.enable(LaporanEvent.class);
+            baru.start();
+            recording = baru;
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Gagal memulai rekaman JFR: " + e.getMessage(), e);
+        }
+        logger.info("Rekaman JFR berjalan, ditulis ke {}", file.toAbsolutePath());
+    }
+    
+    /**
+     * Tulis isi rekaman sejauh ini ke file lain tanpa menghentikan rekaman
+     */
+    public synchronized void simpan(Path tujuan) {
+        if (recording == null) {
+            throw new IllegalStateException("Rekaman JFR tidak aktif");
+        }
+        try {
+            if (tujuan.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(tujuan.toAbsolutePath().getParent());
+            }
+            recording.dump(tujuan);
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal menyimpan rekaman JFR: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Hentikan rekaman dan tulis ke file tujuan
+     */
+    public synchronized void stop() {
+        if (recording == null) {
+            return;
+        }
+        recording.stop();
+        recording.close();
+        recording = null;
+        logger.info("Rekaman JFR disimpan ke {}", file.toAbsolutePath());
+    }
+    
+    public synchronized boolean isAktif() {
+        return recording != null;
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,38 @@
+package com.joko.aplikasijava.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Event JFR untuk pembuatan laporan di LaporanService
+ * (ringkasan, rebuild rollup, export CSV, dashboard)
+ */
+@Name("kasirpro.Laporan")
+@Label("Laporan")
+@Category({"KasirPro", "Laporan"})
+@Description("Pembuatan laporan atau export data")
+@StackTrace(false)
+public class LaporanEvent extends Event {
+    
+    @Label("Jenis")
+    private String jenis;
+    
+    @Label("Periode")
+    private String periode;
+    
+    @Label("Jumlah Baris")
+    @Description("Jumlah data yang diproses (transaksi, hari atau baris CSV)")
+    private long jumlahBaris;
+    
+    @Label("Berhasil")
+    private boolean berhasil;
+    
+    public void setJenis(String jenis) { this.jenis = jenis; }
+    public void setPeriode(String periode) { this.periode = periode; }
+    public void setJumlahBaris(long jumlahBaris) { this.jumlahBaris = jumlahBaris; }
+    public void setBerhasil(boolean berhasil) { this.berhasil = berhasil; }
+}
@@ -0,0 +1,238 @@
+package com.joko.aplikasijava.metrics;
+
+import com.joko.aplikasijava.utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry metrik dalam proses: counter (LongAdder), histogram latensi
+ * (LatencyHistogram, dalam nanodetik) dan gauge (dibaca saat ekspor).
+ * Pencatatan tidak memakai lock sehingga aman dipanggil dari jalur checkout.
+ *
+ * Setiap seri diidentifikasi nama metrik dan label, contoh
+ * kasirpro_repository_durasi_detik{entity="Produk",operasi="save"}.
+ * Hasilnya bisa ditampilkan sebagai tabel (dump) atau format teks Prometheus.
+ */
+public class MetricsRegistry {
+    
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    private static final double[] KUANTIL = {0.5, 0.9, 0.95, 0.99, 0.999};
+    
+    private final Map<String, String> bantuan = new ConcurrentHashMap<>();
+    private final Map<String, Seri<LongAdder>> counter = new ConcurrentSkipListMap<>();
+    private final Map<String, Seri<LatencyHistogram>> histogram = new ConcurrentSkipListMap<>();
+    private final Map<String, Seri<DoubleSupplier>> gauge = new ConcurrentSkipListMap<>();
+    
+    private MetricsRegistry() {
+    }
+    
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Keterangan metrik untuk baris # HELP Prometheus
+     */
+    public void keterangan(String nama, String teks) {
+        bantuan.put(nama, teks);
+    }
+    
+    /**
+     * Counter untuk seri tertentu, dibuat jika belum ada
+     * @param label pasangan nama dan nilai label, contoh "metode", "TUNAI"
+     */
+    public LongAdder counter(String nama, String... label) {
+        return counter.computeIfAbsent(kunci(nama, label), k -> new Seri<>(nama, label, new LongAdder())).nilai;
+    }
+    
+    /**
+     * Histogram latensi (nanodetik) untuk seri tertentu, dibuat jika belum ada
+     */
+    public LatencyHistogram histogram(String nama, String... label) {
+        return histogram.computeIfAbsent(kunci(nama, label), k -> new Seri<>(nama, label, new LatencyHistogram())).nilai;
+    }
+    
+    /**
+     * Daftarkan gauge yang nilainya dibaca saat ekspor. Pendaftaran ulang
+     * dengan nama dan label yang sama mengganti sumber nilai lama.
+     */
+    public void gauge(String nama, DoubleSupplier sumber, String... label) {
+        gauge.put(kunci(nama, label), new Seri<>(nama, label, sumber));
+    }
+    
+    /**
+     * Kelompok histogram per operasi dengan label tetap (misalnya satu repository)
+     */
+    public MetrikOperasi operasi(String prefix, String... label) {
+        return new MetrikOperasi(this, prefix, label);
+    }
+    
+    /**
+     * Kosongkan semua counter dan histogram (gauge tetap terdaftar)
+     */
+    public void reset() {
+        counter.values().forEach(s -> s.nilai.reset());
+        histogram.values().forEach(s -> s.nilai.reset());
+    }
+    
+    /**
+     * Ringkasan metrik dalam bentuk tabel teks untuk menu admin
+     * (histogram dan counter yang masih kosong tidak ditampilkan)
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%9s %9s %9s %9s %9s  %s%n",
+                "Jumlah", "p50 ms", "p95 ms", "p99 ms", "Maks ms", "HISTOGRAM"));
+        for (Seri<LatencyHistogram> seri : histogram.values()) {
+            LatencyHistogram h = seri.nilai;
+            if (h.getJumlah() == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.ROOT, "%9d %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    h.getJumlah(), h.persentil(50) / 1e6, h.persentil(95) / 1e6,
+                    h.persentil(99) / 1e6, h.getMaks() / 1e6, seri.id()));
+        }
+        sb.append(String.format(Locale.ROOT, "%n%9s  %s%n", "Nilai", "COUNTER"));
+        for (Seri<LongAdder> seri : counter.values()) {
+            long nilai = seri.nilai.sum();
+            if (nilai != 0) {
+                sb.append(String.format(Locale.ROOT, "%9d  %s%n", nilai, seri.id()));
+            }
+        }
+        sb.append(String.format(Locale.ROOT, "%n%9s  %s%n", "Nilai", "GAUGE"));
+        for (Seri<DoubleSupplier> seri : gauge.values()) {
+            sb.append(String.format(Locale.ROOT, "%9s  %s%n", angka(bacaGauge(seri.nilai)), seri.id()));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Semua metrik dalam format teks Prometheus (exposition format 0.0.4).
+     * Histogram diekspor sebagai summary dalam detik.
+     */
+    public String prometheus() {
+        StringBuilder sb = new StringBuilder();
+        String namaSebelum = null;
+        for (Seri<LongAdder> seri : counter.values()) {
+            namaSebelum = header(sb, seri.nama, "counter", namaSebelum);
+            sb.append(seri.id()).append(' ').append(seri.nilai.sum()).append('\n');
+        }
+        for (Seri<DoubleSupplier> seri : gauge.values()) {
+            namaSebelum = header(sb, seri.nama, "gauge", namaSebelum);
+            sb.append(seri.id()).append(' ').append(angka(bacaGauge(seri.nilai))).append('\n');
+        }
+        for (Seri<LatencyHistogram> seri : histogram.values()) {
+            namaSebelum = header(sb, seri.nama, "summary", namaSebelum);
+            LatencyHistogram h = seri.nilai;
+            for (double q : KUANTIL) {
+                sb.append(seri.nama).append('{').append(seri.label);
+                if (!seri.label.isEmpty()) {
+                    sb.append(',');
+                }
+                sb.append("quantile=\"").append(q).append("\"} ")
+                        .append(angka(h.persentil(q * 100) / 1e9)).append('\n');
+            }
+            sb.append(seri.id("_sum")).append(' ').append(angka(h.getTotal() / 1e9)).append('\n');
+            sb.append(seri.id("_count")).append(' ').append(h.getJumlah()).append('\n');
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Tulis format Prometheus ke file (misalnya untuk textfile collector node_exporter).
+     * Ditulis ke file sementara lalu di-rename agar pembaca tidak melihat file setengah jadi.
+     */
+    public void tulisPrometheus(Path file) throws IOException {
+        Path folder = file.toAbsolutePath().getParent();
+        if (folder != null) {
+            Files.createDirectories(folder);
+        }
+        Path sementara = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(sementara, StandardCharsets.UTF_8)) {
+            writer.write(prometheus());
+        }
+        Files.move(sementara, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private String header(StringBuilder sb, String nama, String tipe, String namaSebelum) {
+        if (!nama.equals(namaSebelum)) {
+            String teks = bantuan.get(nama);
+            if (teks != null) {
+                sb.append("# HELP ").append(nama).append(' ').append(teks).append('\n');
+            }
+            sb.append("# TYPE ").append(nama).append(' ').append(tipe).append('\n');
+        }
+        return nama;
+    }
+    
+    private static double bacaGauge(DoubleSupplier sumber) {
+        try {
+            return sumber.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+    
+    private static String angka(double nilai) {
+        if (Double.isNaN(nilai)) {
+            return "NaN";
+        }
+        if (nilai == Math.rint(nilai) && Math.abs(nilai) < 1e15) {
+            return String.valueOf((long) nilai);
+        }
+        return Double.toString(nilai);
+    }
+    
+    // Pemisah \0 menjaga semua seri dengan nama sama tetap berurutan di map
+    private static String kunci(String nama, String... label) {
+        return label.length == 0 ? nama : nama + '\0' + String.join("\0", label);
+    }
+    
+    private static String formatLabel(String[] label) {
+        if (label.length % 2 != 0) {
+            throw new IllegalArgumentException("Label harus berpasangan nama dan nilai");
+        }
+        List<String> pasangan = new ArrayList<>();
+        for (int i = 0; i < label.length; i += 2) {
+            String nilai = label[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            pasangan.add(label[i] + "=\"" + nilai + "\"");
+        }
+        return String.join(",", pasangan);
+    }
+    
+    /**
+     * Satu seri metrik (nama + label) beserta penyimpan nilainya
+     */
+    private static class Seri<T> {
+        private final String nama;
+        private final String label;
+        private final T nilai;
+        
+        Seri(String nama, String[] label, T nilai) {
+            this.nama = nama;
+            this.label = label.length == 0 ? "" : formatLabel(label);
+            this.nilai = nilai;
+        }
+        
+        String id() {
+            return id("");
+        }
+        
+        String id(String akhiran) {
+            return label.isEmpty() ? nama + akhiran : nama + akhiran + '{' + label + '}';
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.joko.aplikasijava.metrics;
+
+import com.joko.aplikasijava.utils.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Pengukur durasi per operasi untuk satu komponen (misalnya satu repository
+ * atau service). Setiap operasi punya histogram {prefix}_durasi_detik dan
+ * counter {prefix}_error_total dengan label komponen ditambah label operasi.
+ * Operasi terluar di sebuah thread juga menjadi satu operasi logis: statement SQL
+ * di dalamnya dihitung ke {prefix}_statement_total dan diperiksa StatementBudget.
+ * Seri dicache per nama operasi supaya jalur panas tidak membuat string baru.
+ */
+public class MetrikOperasi {
+    
+    private final MetricsRegistry registry;
+    private final String prefix;
+    private final String[] label;
+    private final Map<String, Pencatat> pencatat = new ConcurrentHashMap<>();
+    
+    MetrikOperasi(MetricsRegistry registry, String prefix, String... label) {
+        this.registry = registry;
+        this.prefix = prefix;
+        this.label = label;
+    }
+    
+    /**
+     * Jalankan operasi yang mengembalikan nilai dan catat durasinya
+     */
+    public <R> R ukur(String operasi, Supplier<R> aksi) {
+        Pencatat p = pencatat(operasi);
+        CakupanOperasi cakupan = CakupanOperasi.buka(p.nama);
+        long mulai = System.nanoTime();
+        boolean berhasil = false;
+        try {
+            R hasil = aksi.get();
+            berhasil = true;
+            return hasil;
+        } catch (RuntimeException | Error e) {
+            p.error.increment();
+            throw e;
+        } finally {
+            long durasi = System.nanoTime() - mulai;
+            p.durasi.rekam(durasi);
+            if (cakupan != null) {
+                cakupan.tutup();
+                p.statement.add(cakupan.getJumlahStatement());
+                if (berhasil) {
+                    StatementBudget.getInstance().periksa(cakupan, durasi);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Jalankan operasi tanpa nilai kembali dan catat durasinya
+     */
+    public void jalankan(String operasi, Runnable aksi) {
+        ukur(operasi, () -> {
+            aksi.run();
+            return null;
+        });
+    }
+    
+    /**
+     * Histogram durasi (nanodetik) sebuah operasi
+     */
+    public LatencyHistogram durasi(String operasi) {
+        return pencatat(operasi).durasi;
+    }
+    
+    private Pencatat pencatat(String operasi) {
+        Pencatat p = pencatat.get(operasi);
+        return p != null ? p : pencatat.computeIfAbsent(operasi, this::buatPencatat);
+    }
+    
+    private Pencatat buatPencatat(String operasi) {
+        String[] labelOperasi = Arrays.copyOf(label, label.length + 2);
+        labelOperasi[label.length] = "operasi";
+        labelOperasi[label.length + 1] = operasi;
+        String nama = (label.length >= 2 ? label[1] : prefix) + "." + operasi;
+        return new Pencatat(nama, registry.histogram(prefix + "_durasi_detik", labelOperasi),
+                registry.counter(prefix + "_error_total", labelOperasi),
+                registry.counter(prefix + "_statement_total", labelOperasi));
+    }
+    
+    private static class Pencatat {
+        private final String nama;
+        private final LatencyHistogram durasi;
+        private final LongAdder error;
+        private final LongAdder statement;
+        
+        Pencatat(String nama, LatencyHistogram durasi, LongAdder error, LongAdder statement) {
+            this.nama = nama;
+            this.durasi = durasi;
+            this.error = error;
+            this.statement = statement;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.joko.aplikasijava.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StatementInspector Hibernate yang menghitung setiap statement SQL ke
+ * operasi logis yang sedang berjalan (lihat CakupanOperasi). Termasuk select
+ * tersembunyi dari lazy loading dan native query. SQL tidak diubah.
+ * Didaftarkan lewat hibernate.session_factory.statement_inspector.
+ */
+public class PenghitungStatement implements StatementInspector {
+    
+    private static final LongAdder tanpaOperasi = MetricsRegistry.getInstance()
+            .counter("kasirpro_sql_tanpa_operasi_total");
+    
+    @Override
+    public String inspect(String sql) {
+        if (!CakupanOperasi.catat(sql)) {
+            tanpaOperasi.increment();
+        }
+        return sql;
+    }
+}
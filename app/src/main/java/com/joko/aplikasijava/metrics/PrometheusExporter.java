@@ -0,0 +1,101 @@
+package com.joko.aplikasijava.metrics;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Endpoint HTTP sederhana untuk di-scrape Prometheus.
+ * GET /metrics mengembalikan isi MetricsRegistry dalam format teks Prometheus.
+ * Default hanya mendengarkan di loopback (AppConfig.METRICS_HOST); isi metrik
+ * tidak diautentikasi, jadi alamat lain harus dipilih secara eksplisit.
+ */
+public class PrometheusExporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusExporter.class);
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private final String host;
+    private final int port;
+    private final MetricsRegistry registry;
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    public PrometheusExporter(int port) {
+        this(AppConfig.METRICS_HOST, port);
+    }
+    
+    /**
+     * @param host alamat yang didengarkan, misalnya 0.0.0.0 untuk semua interface
+     */
+    public PrometheusExporter(String host, int port) {
+        this(host, port, MetricsRegistry.getInstance());
+    }
+    
+    public PrometheusExporter(String host, int port, MetricsRegistry registry) {
+        this.host = host;
+        this.port = port;
+        this.registry = registry;
+    }
+    
+    /**
+     * Buka port dan mulai melayani /metrics
+     */
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal membuka port metrik " + host + ":" + port + ": " + e.getMessage(), e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::layani);
+        server.start();
+        logger.info("Endpoint metrik Prometheus berjalan di {}:{}", host, getPort());
+    }
+    
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdown();
+        server = null;
+        logger.info("Endpoint metrik Prometheus dihentikan");
+    }
+    
+    /**
+     * Port yang benar-benar dipakai (berguna jika dibuka dengan port 0)
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+    
+    private void layani(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] isi = registry.prometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, isi.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(isi);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.joko.aplikasijava.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Event JFR untuk satu query GenericRepository.
+ * Query lebih cepat dari threshold (default 1 ms) tidak dicatat supaya
+ * rekaman kontinu tetap ringan; threshold bisa diubah lewat file .jfc.
+ */
+@Name("kasirpro.Repository")
+@Label("Query Repository")
+@Category({"KasirPro", "Database"})
+@Description("Query database lewat GenericRepository")
+@Threshold("1 ms")
+@StackTrace(false)
+public class RepositoryEvent extends Event {
+    
+    @Label("Entity")
+    private String entity;
+    
+    @Label("Operasi")
+    private String operasi;
+    
+    @Label("Query")
+    @Description("HQL atau SQL yang dijalankan")
+    private String query;
+    
+    @Label("Jumlah Baris")
+    @Description("Baris hasil, baris yang diubah atau nilai count")
+    private long jumlahBaris;
+    
+    @Label("Berhasil")
+    private boolean berhasil;
+    
+    public void setEntity(String entity) { this.entity = entity; }
+    public void setOperasi(String operasi) { this.operasi = operasi; }
+    public void setQuery(String query) { this.query = query; }
+    public void setJumlahBaris(long jumlahBaris) { this.jumlahBaris = jumlahBaris; }
+    public void setBerhasil(boolean berhasil) { this.berhasil = berhasil; }
+}
@@ -0,0 +1,138 @@
+package com.joko.aplikasijava.metrics;
+
+import com.joko.aplikasijava.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batas jumlah statement SQL dan latensi per operasi logis.
+ * Batas dibaca dari statement-budget.properties di classpath dengan kunci
+ * "Komponen.operasi.statement" dan "Komponen.operasi.latensi-ms", contoh
+ * TransaksiService.prosesPembayaran.statement=12. Operasi tanpa batas khusus
+ * memakai default.statement dan default.latensi-ms (atau AppConfig).
+ *
+ * Operasi yang melewati batas dicatat sebagai WARN beserta statement yang paling
+ * sering berulang. Dalam mode ketat (-Dkasirpro.budget.ketat=true, dipakai test)
+ * pelanggaran batas statement melempar IllegalStateException supaya regresi N+1
+ * langsung gagal; pelanggaran latensi tetap hanya dicatat karena tidak deterministik.
+ */
+public class StatementBudget {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StatementBudget.class);
+    private static final StatementBudget INSTANCE = new StatementBudget();
+    private static final String FILE = "statement-budget.properties";
+    
+    private final Map<String, Batas> batasKhusus = new ConcurrentHashMap<>();
+    private volatile Batas batasDefault;
+    private volatile boolean ketat = Boolean.getBoolean("kasirpro.budget.ketat");
+    
+    private StatementBudget() {
+        batasDefault = new Batas(AppConfig.STATEMENT_BUDGET, AppConfig.LATENCY_BUDGET_MS);
+        muat();
+    }
+    
+    public static StatementBudget getInstance() {
+        return INSTANCE;
+    }
+    
+    private void muat() {
+        try (InputStream in = StatementBudget.class.getClassLoader().getResourceAsStream(FILE)) {
+            if (in == null) {
+                return;
+            }
+            Properties properties = new Properties();
+            properties.load(in);
+            for (String kunci : properties.stringPropertyNames()) {
+                String nilai = properties.getProperty(kunci).trim();
+                if (kunci.endsWith(".statement")) {
+                    String operasi = kunci.substring(0, kunci.length() - ".statement".length());
+                    Batas lama = batas(operasi);
+                    setBatas(operasi, Integer.parseInt(nilai), lama.latensiMs);
+                } else if (kunci.endsWith(".latensi-ms")) {
+                    String operasi = kunci.substring(0, kunci.length() - ".latensi-ms".length());
+                    Batas lama = batas(operasi);
+                    setBatas(operasi, lama.statement, Long.parseLong(nilai));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Gagal membaca {}: {}", FILE, e.getMessage());
+        }
+    }
+    
+    /**
+     * Ubah batas satu operasi, "default" untuk semua operasi tanpa batas khusus
+     */
+    public void setBatas(String operasi, int statement, long latensiMs) {
+        Batas batas = new Batas(statement, latensiMs);
+        if ("default".equals(operasi)) {
+            batasDefault = batas;
+        } else {
+            batasKhusus.put(operasi, batas);
+        }
+    }
+    
+    public void setKetat(boolean ketat) {
+        this.ketat = ketat;
+    }
+    
+    public boolean isKetat() {
+        return ketat;
+    }
+    
+    public int getBatasStatement(String operasi) {
+        return batas(operasi).statement;
+    }
+    
+    public long getBatasLatensiMs(String operasi) {
+        return batas(operasi).latensiMs;
+    }
+    
+    private Batas batas(String operasi) {
+        Batas batas = batasKhusus.get(operasi);
+        return batas != null ? batas : batasDefault;
+    }
+    
+    /**
+     * Periksa satu operasi yang sudah selesai
+     */
+    void periksa(CakupanOperasi cakupan, long durasiNanos) {
+        String operasi = cakupan.getNama();
+        Batas batas = batas(operasi);
+        long durasiMs = TimeUnit.NANOSECONDS.toMillis(durasiNanos);
+        
+        if (durasiMs > batas.latensiMs) {
+            MetricsRegistry.getInstance()
+                    .counter("kasirpro_budget_terlampaui_total", "operasi", operasi, "jenis", "latensi").increment();
+            logger.warn("Operasi lambat {}: {} ms (batas {} ms), {} statement",
+                    operasi, durasiMs, batas.latensiMs, cakupan.getJumlahStatement());
+        }
+        
+        if (cakupan.getJumlahStatement() > batas.statement) {
+            MetricsRegistry.getInstance()
+                    .counter("kasirpro_budget_terlampaui_total", "operasi", operasi, "jenis", "statement").increment();
+            String pesan = String.format("Operasi %s menjalankan %d statement SQL (batas %d), terbanyak: %s",
+                    operasi, cakupan.getJumlahStatement(), batas.statement, cakupan.getStatementTerbanyak());
+            logger.warn(pesan);
+            if (ketat) {
+                throw new IllegalStateException(pesan);
+            }
+        }
+    }
+    
+    private static class Batas {
+        private final int statement;
+        private final long latensiMs;
+        
+        Batas(int statement, long latensiMs) {
+            this.statement = statement;
+            this.latensiMs = latensiMs;
+        }
+    }
+}
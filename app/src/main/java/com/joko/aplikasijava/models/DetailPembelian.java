@@ -17,7 +17,8 @@ import java.util.Objects;
 public class DetailPembelian {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detail_pembelian_seq")
+    @SequenceGenerator(name = "detail_pembelian_seq", sequenceName = "detail_pembelian_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -18,7 +18,8 @@ import java.util.Objects;
 public class DetailTransaksi {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detail_transaksi_seq")
+    @SequenceGenerator(name = "detail_transaksi_seq", sequenceName = "detail_transaksi_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,6 +1,8 @@
 package com.joko.aplikasijava.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
@@ -13,6 +15,8 @@ import java.util.Objects;
  * Mendukung hierarki kategori dengan parent-child relationship
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "kategori")
 @Table(name = "kategori", indexes = {
     @Index(name = "idx_kategori_kode", columnList = "kode"),
     @Index(name = "idx_kategori_nama", columnList = "nama")
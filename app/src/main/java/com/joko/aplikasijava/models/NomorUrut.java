@@ -0,0 +1,69 @@
+package com.joko.aplikasijava.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Entity NomorUrut - Menyimpan counter nomor urut per kunci
+ * (misalnya TRX20240115, MBR, SUP) yang disewakan per blok ke terminal
+ */
+@Entity
+@Table(name = "nomor_urut")
+public class NomorUrut {
+    
+    @Id
+    @Column(name = "kunci", length = 50)
+    private String kunci;
+    
+    @Column(name = "nilai", nullable = false)
+    private Long nilai = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public NomorUrut() {}
+    
+    public NomorUrut(String kunci, Long nilai) {
+        this.kunci = kunci;
+        this.nilai = nilai;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getKunci() { return kunci; }
+    public void setKunci(String kunci) { this.kunci = kunci; }
+    
+    public Long getNilai() { return nilai; }
+    public void setNilai(Long nilai) { this.nilai = nilai; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NomorUrut that = (NomorUrut) o;
+        return Objects.equals(kunci, that.kunci);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(kunci);
+    }
+    
+    @Override
+    public String toString() {
+        return "NomorUrut{" +
+                "kunci='" + kunci + '\'' +
+                ", nilai=" + nilai +
+                '}';
+    }
+}
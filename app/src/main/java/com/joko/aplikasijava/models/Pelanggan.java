@@ -1,6 +1,8 @@
 package com.joko.aplikasijava.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -14,6 +16,8 @@ import java.util.Objects;
  * Termasuk informasi membership dan poin
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pelanggan")
 @Table(name = "pelanggan", indexes = {
     @Index(name = "idx_pelanggan_kode", columnList = "kode_member"),
     @Index(name = "idx_pelanggan_nama", columnList = "nama"),
@@ -18,7 +18,8 @@ import java.util.Objects;
 public class Pembayaran {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pembayaran_seq")
+    @SequenceGenerator(name = "pembayaran_seq", sequenceName = "pembayaran_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -21,7 +21,8 @@ import java.util.Objects;
 public class PembelianSupplier {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pembelian_supplier_seq")
+    @SequenceGenerator(name = "pembelian_supplier_seq", sequenceName = "pembelian_supplier_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Nomor PO tidak boleh kosong")
@@ -1,6 +1,8 @@
 package com.joko.aplikasijava.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,6 +13,8 @@ import java.util.Objects;
  * Termasuk informasi harga, stok, dan metadata produk
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produk")
 @Table(name = "produk", indexes = {
     @Index(name = "idx_produk_kode", columnList = "kode"),
     @Index(name = "idx_produk_barcode", columnList = "barcode"),
@@ -140,6 +144,70 @@ public class Produk {
         updatedAt = LocalDateTime.now();
     }
     
+    /**
+     * Salinan dangkal semua kolom (kategori dan supplier tetap referensi yang sama),
+     * untuk snapshot yang boleh diubah pemegangnya tanpa memengaruhi aslinya
+     */
+    public Produk salin() {
+        Produk salinan = new Produk();
+        salinan.id = id;
+        salinan.kode = kode;
+        salinan.barcode = barcode;
+        salinan.nama = nama;
+        salinan.deskripsi = deskripsi;
+        salinan.kategori = kategori;
+        salinan.supplier = supplier;
+        salinan.hargaBeli = hargaBeli;
+        salinan.hargaJual = hargaJual;
+        salinan.hargaGrosir = hargaGrosir;
+        salinan.minGrosir = minGrosir;
+        salinan.stok = stok;
+        salinan.stokMinimum = stokMinimum;
+        salinan.satuan = satuan;
+        salinan.berat = berat;
+        salinan.dimensi = dimensi;
+        salinan.gambar = gambar;
+        salinan.rak = rak;
+        salinan.tanggalKadaluarsa = tanggalKadaluarsa;
+        salinan.terjual = terjual;
+        salinan.diskonPersen = diskonPersen;
+        salinan.ppn = ppn;
+        salinan.aktif = aktif;
+        salinan.favorit = favorit;
+        salinan.createdAt = createdAt;
+        salinan.updatedAt = updatedAt;
+        salinan.createdBy = createdBy;
+        return salinan;
+    }
+    
+    /**
+     * Salin data master (semua kolom kecuali id, stok, terjual dan audit) dari produk lain.
+     * Stok dan terjual hanya diubah lewat UPDATE stok atomik.
+     */
+    public void salinDataDari(Produk lain) {
+        kode = lain.kode;
+        barcode = lain.barcode;
+        nama = lain.nama;
+        deskripsi = lain.deskripsi;
+        kategori = lain.kategori;
+        supplier = lain.supplier;
+        hargaBeli = lain.hargaBeli;
+        hargaJual = lain.hargaJual;
+        hargaGrosir = lain.hargaGrosir;
+        minGrosir = lain.minGrosir;
+        stokMinimum = lain.stokMinimum;
+        satuan = lain.satuan;
+        berat = lain.berat;
+        dimensi = lain.dimensi;
+        gambar = lain.gambar;
+        rak = lain.rak;
+        tanggalKadaluarsa = lain.tanggalKadaluarsa;
+        diskonPersen = lain.diskonPersen;
+        ppn = lain.ppn;
+        aktif = lain.aktif;
+        favorit = lain.favorit;
+    }
+    
     // Business methods
     public BigDecimal getHargaSetelahDiskon() {
         if (diskonPersen == null || diskonPersen.compareTo(BigDecimal.ZERO) == 0) {
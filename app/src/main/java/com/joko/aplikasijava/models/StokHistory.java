@@ -17,7 +17,8 @@ import java.util.Objects;
 public class StokHistory {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stok_history_seq")
+    @SequenceGenerator(name = "stok_history_seq", sequenceName = "stok_history_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,6 +1,8 @@
 package com.joko.aplikasijava.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -11,6 +13,8 @@ import java.util.Objects;
  * Entity Supplier - Menyimpan data supplier/pemasok
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "supplier")
 @Table(name = "supplier", indexes = {
     @Index(name = "idx_supplier_kode", columnList = "kode"),
     @Index(name = "idx_supplier_nama", columnList = "nama")
@@ -15,14 +15,15 @@ import java.util.Objects;
 @Entity
 @Table(name = "transaksi", indexes = {
     @Index(name = "idx_transaksi_nomor", columnList = "nomor_transaksi"),
-    @Index(name = "idx_transaksi_tanggal", columnList = "tanggal_transaksi"),
+    @Index(name = "idx_transaksi_tanggal_id", columnList = "tanggal_transaksi, id"),
     @Index(name = "idx_transaksi_kasir", columnList = "kasir_id"),
     @Index(name = "idx_transaksi_pelanggan", columnList = "pelanggan_id")
 })
 public class Transaksi {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaksi_seq")
+    @SequenceGenerator(name = "transaksi_seq", sequenceName = "transaksi_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Nomor transaksi tidak boleh kosong")
@@ -173,6 +174,14 @@ public class Transaksi {
             totalQty += detail.getQty();
         }
         
+        hitungTotal();
+    }
+    
+    /**
+     * Hitung diskon, PPN dan grand total dari subtotal yang sudah terisi
+     * (dipakai juga selama item masih di keranjang, sebelum masuk detail)
+     */
+    public void hitungTotal() {
         // Hitung diskon
         BigDecimal totalDiskon = diskonNominal;
         if (diskonPersen != null && diskonPersen.compareTo(BigDecimal.ZERO) > 0) {
@@ -0,0 +1,137 @@
+package com.joko.aplikasijava.repositories;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.jurnal.PemutarJurnal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * NomorAllocator yang menyewa blok nomor dari database (misalnya 100 nomor
+ * sekaligus) lalu membagikannya dari memori dengan AtomicLong.
+ * Database hanya disentuh sekali per blok, dan dua terminal tidak pernah
+ * mendapat nomor yang sama. Nomor yang belum terpakai saat aplikasi
+ * ditutup akan dilewati (nomor boleh berlubang, tidak boleh ganda).
+ *
+ * Jika database tidak bisa dihubungi saat blok baru dibutuhkan (hari berganti
+ * atau blok habis), blok disewa dari sumber cadangan (NomorLokal) dan database
+ * dicoba lagi saat blok cadangan itu habis.
+ */
+public class BlokNomorAllocator implements NomorAllocator {
+    
+    /**
+     * Sumber blok nomor
+     */
+    @FunctionalInterface
+    public interface SumberBlok {
+        /**
+         * @return nomor terakhir dari blok yang disewa
+         */
+        long sewa(String kunci, long nilaiAwal, int ukuranBlok);
+    }
+    
+    private static final Logger logger = LoggerFactory.getLogger(BlokNomorAllocator.class);
+    
+    private final SumberBlok sumberBlok;
+    private final SumberBlok cadangan;
+    private final int ukuranBlok;
+    private final Map<String, Blok> blokAktif = new ConcurrentHashMap<>();
+    // Bukan synchronized: penyewaan blok memanggil database dari thread virtual
+    private final ReentrantLock sewaLock = new ReentrantLock();
+    
+    public BlokNomorAllocator(SumberBlok sumberBlok, int ukuranBlok) {
+        this(sumberBlok, null, ukuranBlok);
+    }
+    
+    /**
+     * @param cadangan sumber blok saat sumberBlok gagal karena koneksi, atau null
+     */
+    public BlokNomorAllocator(SumberBlok sumberBlok, SumberBlok cadangan, int ukuranBlok) {
+        if (ukuranBlok < 1) {
+            throw new IllegalArgumentException("Ukuran blok minimal 1");
+        }
+        this.sumberBlok = sumberBlok;
+        this.cadangan = cadangan;
+        this.ukuranBlok = ukuranBlok;
+    }
+    
+    /**
+     * Allocator default yang memakai tabel nomor_urut
+     */
+    public static NomorAllocator getInstance() {
+        return Holder.INSTANCE;
+    }
+    
+    @Override
+    public long next(String kunci, LongSupplier nilaiTerakhir) {
+        while (true) {
+            Blok blok = blokAktif.get(kunci);
+            if (blok != null) {
+                long nomor = blok.ambil();
+                if (nomor > 0) {
+                    return nomor;
+                }
+            }
+            sewaLock.lock();
+            try {
+                // Terminal lain di JVM ini mungkin sudah menyewa blok baru
+                if (blokAktif.get(kunci) == blok) {
+                    long akhir = sewa(kunci, blok == null ? nilaiTerakhir : () -> 0);
+                    blokAktif.put(kunci, new Blok(akhir - ukuranBlok + 1, akhir));
+                }
+            } finally {
+                sewaLock.unlock();
+            }
+        }
+    }
+    
+    private long sewa(String kunci, LongSupplier nilaiTerakhir) {
+        try {
+            long nilaiAwal = nilaiTerakhir.getAsLong();
+            // Nomor offline bukan bagian dari counter database
+            if (nilaiAwal >= AppConfig.NOMOR_LOKAL_AWAL) {
+                nilaiAwal = 0;
+            }
+            return sumberBlok.sewa(kunci, nilaiAwal, ukuranBlok);
+        } catch (RuntimeException e) {
+            if (cadangan == null || !PemutarJurnal.isKoneksiGagal(e)) {
+                throw e;
+            }
+            logger.warn("Database tidak bisa dihubungi, nomor {} diambil dari blok offline: {}", kunci, e.getMessage());
+            return cadangan.sewa(kunci, 0, ukuranBlok);
+        }
+    }
+    
+    /**
+     * Rentang nomor yang sedang dibagikan dari memori
+     */
+    private static class Blok {
+        private final AtomicLong berikut;
+        private final long akhir;
+        
+        Blok(long awal, long akhir) {
+            this.berikut = new AtomicLong(awal);
+            this.akhir = akhir;
+        }
+        
+        /**
+         * @return nomor berikutnya, atau -1 jika blok sudah habis
+         */
+        long ambil() {
+            long nomor = berikut.getAndIncrement();
+            return nomor <= akhir ? nomor : -1;
+        }
+    }
+    
+    private static class Holder {
+        private static final NomorAllocator INSTANCE =
+                new BlokNomorAllocator(new NomorUrutRepository()::sewaBlok,
+                        (kunci, nilaiAwal, ukuran) -> NomorLokal.getInstance().sewa(kunci, nilaiAwal, ukuran),
+                        AppConfig.NOMOR_BLOCK_SIZE);
+    }
+}
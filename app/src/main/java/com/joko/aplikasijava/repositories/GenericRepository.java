@@ -1,16 +1,29 @@
 package com.joko.aplikasijava.repositories;
 
+import com.joko.aplikasijava.config.AppConfig;
 import com.joko.aplikasijava.config.HibernateUtil;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.metrics.MetrikOperasi;
+import com.joko.aplikasijava.metrics.RepositoryEvent;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Generic Repository untuk operasi CRUD dasar
@@ -21,91 +34,102 @@ import java.util.Optional;
 public abstract class GenericRepository<T, ID extends Serializable> {
     
     protected final Logger logger = LoggerFactory.getLogger(getClass());
-    protected final SessionFactory sessionFactory;
     protected final Class<T> entityClass;
     
+    // Durasi dan error per operasi, label entity = nama class entity
+    protected final MetrikOperasi metrik;
+    
     public GenericRepository(Class<T> entityClass) {
         this.entityClass = entityClass;
-        this.sessionFactory = HibernateUtil.getSessionFactory();
+        this.metrik = MetricsRegistry.getInstance()
+                .operasi("kasirpro_repository", "entity", entityClass.getSimpleName());
     }
     
     /**
      * Menyimpan entity baru
      */
     public T save(T entity) {
-        Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
-            transaction = session.beginTransaction();
-            session.persist(entity);
-            transaction.commit();
-            logger.debug("Saved entity: {}", entity);
-            return entity;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        return metrik.ukur("save", () -> {
+            Transaction transaction = null;
+            try (Session session = getSession()) {
+                transaction = session.beginTransaction();
+                session.persist(entity);
+                transaction.commit();
+                logger.debug("Saved entity: {}", entity);
+                return entity;
+            } catch (Exception e) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                logger.error("Error saving entity: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal menyimpan data: " + e.getMessage(), e);
             }
-            logger.error("Error saving entity: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal menyimpan data: " + e.getMessage(), e);
-        }
+        });
     }
     
     /**
      * Update entity yang sudah ada
      */
     public T update(T entity) {
-        Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
-            transaction = session.beginTransaction();
-            T mergedEntity = session.merge(entity);
-            transaction.commit();
-            logger.debug("Updated entity: {}", mergedEntity);
-            return mergedEntity;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        return metrik.ukur("update", () -> {
+            Transaction transaction = null;
+            try (Session session = getSession()) {
+                transaction = session.beginTransaction();
+                T mergedEntity = session.merge(entity);
+                transaction.commit();
+                logger.debug("Updated entity: {}", mergedEntity);
+                return mergedEntity;
+            } catch (Exception e) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                logger.error("Error updating entity: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal mengupdate data: " + e.getMessage(), e);
             }
-            logger.error("Error updating entity: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal mengupdate data: " + e.getMessage(), e);
-        }
+        });
     }
     
     /**
      * Simpan atau update entity
      */
     public T saveOrUpdate(T entity) {
-        Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
-            transaction = session.beginTransaction();
-            T mergedEntity = session.merge(entity);
-            transaction.commit();
-            return mergedEntity;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        return metrik.ukur("saveOrUpdate", () -> {
+            Transaction transaction = null;
+            try (Session session = getSession()) {
+                transaction = session.beginTransaction();
+                T mergedEntity = session.merge(entity);
+                transaction.commit();
+                return mergedEntity;
+            } catch (Exception e) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                logger.error("Error saving/updating entity: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal menyimpan/mengupdate data: " + e.getMessage(), e);
             }
-            logger.error("Error saving/updating entity: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal menyimpan/mengupdate data: " + e.getMessage(), e);
-        }
+        });
     }
     
     /**
      * Hapus entity
      */
     public void delete(T entity) {
-        Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
-            transaction = session.beginTransaction();
-            T mergedEntity = session.merge(entity);
-            session.remove(mergedEntity);
-            transaction.commit();
-            logger.debug("Deleted entity: {}", entity);
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        metrik.jalankan("delete", () -> {
+            Transaction transaction = null;
+            try (Session session = getSession()) {
+                transaction = session.beginTransaction();
+                T mergedEntity = session.merge(entity);
+                session.remove(mergedEntity);
+                transaction.commit();
+                logger.debug("Deleted entity: {}", entity);
+            } catch (Exception e) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                logger.error("Error deleting entity: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal menghapus data: " + e.getMessage(), e);
             }
-            logger.error("Error deleting entity: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal menghapus data: " + e.getMessage(), e);
-        }
+        });
     }
     
     /**
@@ -119,57 +143,104 @@ public abstract class GenericRepository<T, ID extends Serializable> {
      * Cari entity berdasarkan ID
      */
     public Optional<T> findById(ID id) {
-        try (Session session = sessionFactory.openSession()) {
-            T entity = session.get(entityClass, id);
-            return Optional.ofNullable(entity);
-        } catch (Exception e) {
-            logger.error("Error finding entity by id {}: {}", id, e.getMessage(), e);
-            throw new RuntimeException("Gagal mencari data: " + e.getMessage(), e);
-        }
+        return ukurQuery("findById", null, () -> {
+            try (Session session = getSession()) {
+                T entity = session.get(entityClass, id);
+                return Optional.ofNullable(entity);
+            } catch (Exception e) {
+                logger.error("Error finding entity by id {}: {}", id, e.getMessage(), e);
+                throw new RuntimeException("Gagal mencari data: " + e.getMessage(), e);
+            }
+        });
     }
     
     /**
      * Dapatkan semua entity
      */
     public List<T> findAll() {
-        try (Session session = sessionFactory.openSession()) {
-            String hql = "FROM " + entityClass.getSimpleName();
-            Query<T> query = session.createQuery(hql, entityClass);
-            return query.getResultList();
-        } catch (Exception e) {
-            logger.error("Error finding all entities: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal mengambil semua data: " + e.getMessage(), e);
-        }
+        String hql = "FROM " + entityClass.getSimpleName();
+        return ukurQuery("findAll", hql, () -> {
+            try (Session session = getSession()) {
+                Query<T> query = session.createQuery(hql, entityClass);
+                return query.getResultList();
+            } catch (Exception e) {
+                logger.error("Error finding all entities: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal mengambil semua data: " + e.getMessage(), e);
+            }
+        });
     }
     
     /**
-     * Dapatkan semua entity dengan pagination
+     * Dapatkan semua entity dengan pagination (urut id).
+     * Halaman yang dalam makin lambat karena offset tetap dibaca database,
+     * gunakan findAllAfter untuk menelusuri data besar.
      */
     public List<T> findAll(int page, int size) {
-        try (Session session = sessionFactory.openSession()) {
-            String hql = "FROM " + entityClass.getSimpleName();
-            Query<T> query = session.createQuery(hql, entityClass);
-            query.setFirstResult((page - 1) * size);
-            query.setMaxResults(size);
-            return query.getResultList();
-        } catch (Exception e) {
-            logger.error("Error finding entities with pagination: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal mengambil data: " + e.getMessage(), e);
+        String hql = "FROM " + entityClass.getSimpleName() + " e ORDER BY e.id";
+        return ukurQuery("findAllPage", hql, () -> {
+            try (Session session = getSession()) {
+                Query<T> query = session.createQuery(hql, entityClass);
+                query.setFirstResult((page - 1) * size);
+                query.setMaxResults(size);
+                return query.getResultList();
+            } catch (Exception e) {
+                logger.error("Error finding entities with pagination: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal mengambil data: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Dapatkan entity berikutnya setelah id tertentu (keyset pagination).
+     * Biaya setiap halaman sama karena langsung mencari lewat index primary key.
+     * @param afterId id terakhir dari halaman sebelumnya, null untuk halaman pertama
+     */
+    public List<T> findAllAfter(ID afterId, int size) {
+        return findAfter(null, afterId, size);
+    }
+    
+    /**
+     * Keyset pagination berdasarkan id dengan kondisi tambahan.
+     * Kondisi memakai alias "e", contoh: "e.aktif = true".
+     */
+    protected List<T> findAfter(String kondisi, ID afterId, int size, Object... params) {
+        StringBuilder hql = new StringBuilder("FROM ").append(entityClass.getSimpleName()).append(" e WHERE 1 = 1");
+        if (kondisi != null) {
+            hql.append(" AND (").append(kondisi).append(")");
+        }
+        Object[] semuaParams = params;
+        if (afterId != null) {
+            hql.append(" AND e.id > :afterId");
+            semuaParams = Arrays.copyOf(params, params.length + 2);
+            semuaParams[params.length] = "afterId";
+            semuaParams[params.length + 1] = afterId;
         }
+        hql.append(" ORDER BY e.id");
+        return executePageQuery(hql.toString(), size, semuaParams);
+    }
+    
+    /**
+     * Proses semua entity satu per satu tanpa memuat seluruh tabel ke memori
+     * @return jumlah entity yang diproses
+     */
+    public long forEach(Consumer<T> action) {
+        return scroll("FROM " + entityClass.getSimpleName() + " e ORDER BY e.id", action);
     }
     
     /**
      * Hitung total entity
      */
     public long count() {
-        try (Session session = sessionFactory.openSession()) {
-            String hql = "SELECT COUNT(e) FROM " + entityClass.getSimpleName() + " e";
-            Query<Long> query = session.createQuery(hql, Long.class);
-            return query.getSingleResult();
-        } catch (Exception e) {
-            logger.error("Error counting entities: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal menghitung data: " + e.getMessage(), e);
-        }
+        String hql = "SELECT COUNT(e) FROM " + entityClass.getSimpleName() + " e";
+        return ukurQuery("count", hql, () -> {
+            try (Session session = getSession()) {
+                Query<Long> query = session.createQuery(hql, Long.class);
+                return query.getSingleResult();
+            } catch (Exception e) {
+                logger.error("Error counting entities: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal menghitung data: " + e.getMessage(), e);
+            }
+        });
     }
     
     /**
@@ -183,63 +254,310 @@ public abstract class GenericRepository<T, ID extends Serializable> {
      * Execute query dengan parameter
      */
     protected List<T> executeQuery(String hql, Object... params) {
-        try (Session session = sessionFactory.openSession()) {
-            Query<T> query = session.createQuery(hql, entityClass);
-            for (int i = 0; i < params.length; i += 2) {
-                query.setParameter((String) params[i], params[i + 1]);
-            }
-            return query.getResultList();
-        } catch (Exception e) {
-            logger.error("Error executing query: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal menjalankan query: " + e.getMessage(), e);
-        }
+        return ukurQuery("executeQuery", hql, () -> {
+            try (Session session = getSession()) {
+                Query<T> query = session.createQuery(hql, entityClass);
+                for (int i = 0; i < params.length; i += 2) {
+                    query.setParameter((String) params[i], params[i + 1]);
+                }
+                return query.getResultList();
+            } catch (Exception e) {
+                logger.error("Error executing query: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal menjalankan query: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Execute query dengan batas jumlah hasil
+     */
+    protected List<T> executePageQuery(String hql, int size, Object... params) {
+        return ukurQuery("executePageQuery", hql, () -> {
+            try (Session session = getSession()) {
+                Query<T> query = session.createQuery(hql, entityClass);
+                for (int i = 0; i < params.length; i += 2) {
+                    query.setParameter((String) params[i], params[i + 1]);
+                }
+                query.setMaxResults(size);
+                return query.getResultList();
+            } catch (Exception e) {
+                logger.error("Error executing page query: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal mengambil data: " + e.getMessage(), e);
+            }
+        });
     }
     
     /**
      * Execute single result query
      */
     protected Optional<T> executeSingleQuery(String hql, Object... params) {
-        try (Session session = sessionFactory.openSession()) {
-            Query<T> query = session.createQuery(hql, entityClass);
-            for (int i = 0; i < params.length; i += 2) {
-                query.setParameter((String) params[i], params[i + 1]);
-            }
-            query.setMaxResults(1);
-            List<T> results = query.getResultList();
-            return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
-        } catch (Exception e) {
-            logger.error("Error executing single query: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal menjalankan query: " + e.getMessage(), e);
+        return ukurQuery("executeSingleQuery", hql, () -> {
+            try (Session session = getSession()) {
+                Query<T> query = session.createQuery(hql, entityClass);
+                for (int i = 0; i < params.length; i += 2) {
+                    query.setParameter((String) params[i], params[i + 1]);
+                }
+                query.setMaxResults(1);
+                List<T> results = query.getResultList();
+                return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+            } catch (Exception e) {
+                logger.error("Error executing single query: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal menjalankan query: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Execute query dengan query cache pada region tertentu.
+     * Hasil otomatis kadaluarsa saat tabel terkait diubah (lewat entity maupun bulk update).
+     */
+    protected List<T> executeCachedQuery(String region, String hql, Object... params) {
+        return ukurQuery("executeCachedQuery", hql, () -> {
+            try (Session session = getSession()) {
+                Query<T> query = session.createQuery(hql, entityClass);
+                for (int i = 0; i < params.length; i += 2) {
+                    query.setParameter((String) params[i], params[i + 1]);
+                }
+                query.setCacheable(true);
+                query.setCacheRegion(region);
+                return query.getResultList();
+            } catch (Exception e) {
+                logger.error("Error executing cached query: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal menjalankan query: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Execute single result query dengan query cache pada region tertentu
+     */
+    protected Optional<T> executeCachedSingleQuery(String region, String hql, Object... params) {
+        List<T> results = executeCachedQuery(region, hql, params);
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+    
+    /**
+     * Pencarian teks memakai index trigram (pg_trgm) pada entity aktif.
+     * Kolom pertama dicocokkan secara fuzzy (toleran salah ketik) dan dipakai untuk
+     * ranking kemiripan; semua kolom juga dicocokkan sebagai substring.
+     * Hasil yang sama persis dengan salah satu kolom selalu ditaruh paling atas.
+     */
+    protected List<T> cariTrigram(String tabel, String[] kolom, String keyword, int limit) {
+        String kw = keyword.toLowerCase().trim();
+        String pola = "%" + kw.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        String kolomUtama = "lower(e." + kolom[0] + ")";
+        
+        StringBuilder cocok = new StringBuilder(":kw <% ").append(kolomUtama);
+        StringBuilder persis = new StringBuilder();
+        for (String k : kolom) {
+            cocok.append(" OR lower(e.").append(k).append(") LIKE :pola");
+            persis.append(persis.length() == 0 ? "" : " OR ").append("lower(e.").append(k).append(") = :kw");
         }
+        String sql = "SELECT e.* FROM " + tabel + " e WHERE e.aktif = true AND (" + cocok + ") "
+                + "ORDER BY CASE WHEN " + persis + " THEN 0 ELSE 1 END, "
+                + "word_similarity(:kw, " + kolomUtama + ") DESC, e." + kolom[0] + " LIMIT :limit";
+        
+        return ukurQuery("cariTrigram", sql, () -> {
+            try (Session session = getSession()) {
+                return session.createNativeQuery(sql, entityClass)
+                        .setParameter("kw", kw)
+                        .setParameter("pola", pola)
+                        .setParameter("limit", limit)
+                        .getResultList();
+            } catch (Exception e) {
+                logger.error("Error searching {}: {}", tabel, e.getMessage(), e);
+                throw new RuntimeException("Gagal mencari data: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Execute query secara streaming dengan fetch size default
+     */
+    protected long scroll(String hql, Consumer<T> action, Object... params) {
+        return scroll(hql, AppConfig.STREAM_FETCH_SIZE, action, params);
+    }
+    
+    /**
+     * Execute query secara streaming: baris diambil dari database per fetchSize
+     * dan session dibersihkan setiap fetchSize entity, sehingga memori tetap
+     * terbatas berapapun jumlah datanya. Entity yang diberikan ke action hanya
+     * valid selama action berjalan.
+     * @return jumlah entity yang diproses
+     */
+    protected long scroll(String hql, int fetchSize, Consumer<T> action, Object... params) {
+        return ukurQuery("scroll", hql, () -> {
+            try (Session session = getSession()) {
+                // Driver PostgreSQL hanya memakai cursor (fetch size) di dalam transaksi
+                Transaction transaction = session.beginTransaction();
+                try {
+                    session.setDefaultReadOnly(true);
+                    session.setCacheMode(CacheMode.IGNORE);
+                    Query<T> query = session.createQuery(hql, entityClass);
+                    for (int i = 0; i < params.length; i += 2) {
+                        query.setParameter((String) params[i], params[i + 1]);
+                    }
+                    query.setFetchSize(fetchSize);
+                    
+                    long jumlah = 0;
+                    try (ScrollableResults<T> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                        while (results.next()) {
+                            action.accept(results.get());
+                            if (++jumlah % fetchSize == 0) {
+                                session.clear();
+                            }
+                        }
+                    }
+                    transaction.commit();
+                    return jumlah;
+                } catch (Exception e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+                    throw e;
+                }
+            } catch (Exception e) {
+                logger.error("Error scrolling query: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal membaca data: " + e.getMessage(), e);
+            }
+        });
     }
     
     /**
      * Execute update/delete query
      */
     protected int executeUpdate(String hql, Object... params) {
-        Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
-            transaction = session.beginTransaction();
-            var query = session.createMutationQuery(hql);
-            for (int i = 0; i < params.length; i += 2) {
-                query.setParameter((String) params[i], params[i + 1]);
-            }
-            int result = query.executeUpdate();
-            transaction.commit();
-            return result;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        return ukurQuery("executeUpdate", hql, () -> {
+            Transaction transaction = null;
+            try (Session session = getSession()) {
+                transaction = session.beginTransaction();
+                var query = session.createMutationQuery(hql);
+                for (int i = 0; i < params.length; i += 2) {
+                    query.setParameter((String) params[i], params[i + 1]);
+                }
+                int result = query.executeUpdate();
+                transaction.commit();
+                return result;
+            } catch (Exception e) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                logger.error("Error executing update: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal menjalankan update: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Buang entity dari second-level cache setelah diubah lewat native SQL
+     * (UPDATE ... RETURNING dibaca sebagai select, jadi tidak dibersihkan otomatis).
+     * Dibuang sekarang dan sekali lagi setelah transaksi selesai, supaya data lama
+     * yang dibaca session lain selama transaksi berjalan tidak tertinggal di cache.
+     * @param queryRegion region query cache yang ikut dibuang, boleh null
+     */
+    protected void evictCache(Session session, Collection<?> ids, String queryRegion) {
+        Runnable evict = () -> {
+            Cache cache = getSessionFactory().getCache();
+            for (Object id : ids) {
+                cache.evictEntityData(entityClass, id);
+            }
+            if (queryRegion != null) {
+                cache.evictQueryRegion(queryRegion);
+            }
+        };
+        evict.run();
+        session.unwrap(SessionImplementor.class).getActionQueue()
+                .registerProcess((success, s) -> evict.run());
+    }
+    
+    /**
+     * Cari nomor urut terakhir dari kode dengan prefix tertentu (format prefix + angka).
+     * Dipakai sebagai nilai awal counter NomorAllocator.
+     * @param hql query MAX dengan parameter :prefix
+     */
+    protected long cariNomorTerakhir(String hql, String prefix) {
+        return ukurQuery("cariNomorTerakhir", hql, () -> {
+            try (Session session = getSession()) {
+                var query = session.createQuery(hql, String.class);
+                query.setParameter("prefix", prefix + "%");
+                String lastKode = query.getSingleResult();
+                if (lastKode != null && lastKode.startsWith(prefix)) {
+                    try {
+                        return Long.parseLong(lastKode.substring(prefix.length()));
+                    } catch (NumberFormatException e) {
+                        // Use default
+                    }
+                }
+                return 0L;
+            }
+        });
+    }
+    
+    /**
+     * Jalankan query dengan metrik durasi dan event JFR (RepositoryEvent)
+     * @param query HQL/SQL yang dicatat di event, null untuk lookup by id
+     */
+    private <R> R ukurQuery(String operasi, String query, Supplier<R> aksi) {
+        RepositoryEvent event = new RepositoryEvent();
+        event.begin();
+        R hasil = null;
+        boolean berhasil = false;
+        try {
+            hasil = metrik.ukur(operasi, aksi);
+            berhasil = true;
+            return hasil;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.setEntity(entityClass.getSimpleName());
+                event.setOperasi(operasi);
+                event.setQuery(query);
+                event.setJumlahBaris(jumlahBaris(hasil));
+                event.setBerhasil(berhasil);
+                event.commit();
             }
-            logger.error("Error executing update: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal menjalankan update: " + e.getMessage(), e);
         }
     }
     
+    private static long jumlahBaris(Object hasil) {
+        if (hasil instanceof Collection<?> koleksi) {
+            return koleksi.size();
+        }
+        if (hasil instanceof Optional<?> opsional) {
+            return opsional.isPresent() ? 1 : 0;
+        }
+        if (hasil instanceof Number angka) {
+            return angka.longValue();
+        }
+        return 0;
+    }
+    
+    /**
+     * SessionFactory diambil saat dipakai, bukan saat repository dibuat,
+     * supaya service bisa dibuat selagi Hibernate masih bootstrap
+     */
+    protected SessionFactory getSessionFactory() {
+        return HibernateUtil.getSessionFactory();
+    }
+    
     /**
      * Get session for complex operations
      */
     protected Session getSession() {
-        return sessionFactory.openSession();
+        return getSessionFactory().openSession();
+    }
+    
+    /**
+     * Rollback transaksi yang gagal tanpa menutupi penyebab aslinya: jika koneksi
+     * sudah putus, kegagalan rollback hanya ditempelkan sebagai suppressed
+     */
+    protected void rollbackSetelah(Transaction transaction, Exception sebab) {
+        try {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+        } catch (RuntimeException e) {
+            sebab.addSuppressed(e);
+        }
     }
 }
@@ -9,6 +9,8 @@ import java.util.Optional;
  */
 public class KategoriRepository extends GenericRepository<Kategori, Long> {
     
+    private static final String QUERY_CACHE_REGION = "query.kategori";
+    
     public KategoriRepository() {
         super(Kategori.class);
     }
@@ -18,7 +20,7 @@ public class KategoriRepository extends GenericRepository<Kategori, Long> {
      */
     public Optional<Kategori> findByKode(String kode) {
         String hql = "FROM Kategori k WHERE k.kode = :kode";
-        return executeSingleQuery(hql, "kode", kode);
+        return executeCachedSingleQuery(QUERY_CACHE_REGION, hql, "kode", kode);
     }
     
     /**
@@ -34,7 +36,7 @@ public class KategoriRepository extends GenericRepository<Kategori, Long> {
      */
     public List<Kategori> findAllActive() {
         String hql = "FROM Kategori k WHERE k.aktif = true ORDER BY k.urutan, k.nama";
-        return executeQuery(hql);
+        return executeCachedQuery(QUERY_CACHE_REGION, hql);
     }
     
     /**
@@ -42,7 +44,7 @@ public class KategoriRepository extends GenericRepository<Kategori, Long> {
      */
     public List<Kategori> findParentCategories() {
         String hql = "FROM Kategori k WHERE k.parent IS NULL AND k.aktif = true ORDER BY k.urutan, k.nama";
-        return executeQuery(hql);
+        return executeCachedQuery(QUERY_CACHE_REGION, hql);
     }
     
     /**
@@ -50,7 +52,7 @@ public class KategoriRepository extends GenericRepository<Kategori, Long> {
      */
     public List<Kategori> findByParentId(Long parentId) {
         String hql = "FROM Kategori k WHERE k.parent.id = :parentId AND k.aktif = true ORDER BY k.urutan, k.nama";
-        return executeQuery(hql, "parentId", parentId);
+        return executeCachedQuery(QUERY_CACHE_REGION, hql, "parentId", parentId);
     }
     
     /**
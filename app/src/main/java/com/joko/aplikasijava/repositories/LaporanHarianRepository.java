@@ -0,0 +1,316 @@
+package com.joko.aplikasijava.repositories;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.models.DetailTransaksi;
+import com.joko.aplikasijava.models.LaporanHarian;
+import com.joko.aplikasijava.models.Pembayaran;
+import com.joko.aplikasijava.models.Transaksi;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Repository untuk entity LaporanHarian (rollup penjualan per hari).
+ * Baris hari berjalan diperbarui dengan UPDATE atomik di dalam transaksi
+ * checkout dan void, sehingga laporan cukup membaca satu baris per hari.
+ */
+public class LaporanHarianRepository extends GenericRepository<LaporanHarian, Long> {
+    
+    private static final String INSERT_KOSONG = "INSERT INTO laporan_harian (tanggal, jumlah_transaksi, "
+            + "jumlah_item_terjual, total_penjualan, total_diskon, total_ppn, total_bersih, tunai, debit, kredit, qris, "
+            + "transfer, total_modal, laba_kotor, jumlah_pembatalan, nilai_pembatalan, jumlah_retur, nilai_retur, "
+            + "pelanggan_baru, pelanggan_member, pelanggan_umum, saldo_awal, kas_masuk, kas_keluar, saldo_akhir, "
+            + "status, created_at, updated_at) ";
+    private static final String NILAI_KOSONG =
+            "0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 'OPEN', :sekarang, :sekarang";
+    
+    public LaporanHarianRepository() {
+        super(LaporanHarian.class);
+    }
+    
+    /**
+     * Cari laporan harian berdasarkan tanggal
+     */
+    public Optional<LaporanHarian> findByTanggal(LocalDate tanggal) {
+        String hql = "FROM LaporanHarian l WHERE l.tanggal = :tanggal";
+        return executeSingleQuery(hql, "tanggal", tanggal);
+    }
+    
+    /**
+     * Cari laporan harian dalam periode
+     */
+    public List<LaporanHarian> findByPeriode(LocalDate startDate, LocalDate endDate) {
+        String hql = "FROM LaporanHarian l WHERE l.tanggal >= :start AND l.tanggal <= :end ORDER BY l.tanggal";
+        return executeQuery(hql, "start", startDate, "end", endDate);
+    }
+    
+    /**
+     * Tambahkan penjualan ke rollup hari transaksi.
+     * Dijalankan di dalam session/transaksi checkout milik pemanggil.
+     */
+    public void catatPenjualan(Session session, Transaksi transaksi) {
+        ubahRollup(session, transaksi, 1);
+    }
+    
+    /**
+     * Tambahkan beberapa penjualan sekaligus: satu UPDATE rollup per hari transaksi.
+     * Dijalankan di dalam session/transaksi group commit milik pemanggil.
+     */
+    public void catatPenjualan(Session session, List<Transaksi> daftar) {
+        Map<LocalDate, Selisih> perTanggal = new TreeMap<>();
+        for (Transaksi transaksi : daftar) {
+            perTanggal.computeIfAbsent(transaksi.getTanggalTransaksi().toLocalDate(), t -> new Selisih())
+                    .tambah(transaksi, 1);
+        }
+        perTanggal.forEach((tanggal, selisih) -> terapkan(session, tanggal, selisih));
+    }
+    
+    /**
+     * Keluarkan penjualan yang di-void dari rollup hari transaksi dan catat pembatalannya.
+     * Dijalankan di dalam session/transaksi void milik pemanggil.
+     */
+    public void catatPembatalan(Session session, Transaksi transaksi) {
+        ubahRollup(session, transaksi, -1);
+    }
+    
+    /**
+     * Hitung ulang rollup satu hari dari data transaksi.
+     * Baris rollup dikunci lebih dulu, sehingga checkout yang berjalan bersamaan
+     * menunggu dan tidak ada penjualan yang terhitung dua kali atau terlewat.
+     */
+    public LaporanHarian rebuild(LocalDate tanggal, TransaksiRepository transaksiRepository) {
+        try (Session session = getSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                pastikanAda(session, tanggal);
+                LaporanHarian laporan = session.createQuery("FROM LaporanHarian l WHERE l.tanggal = :tanggal", LaporanHarian.class)
+                        .setParameter("tanggal", tanggal)
+                        .setLockMode("l", LockMode.PESSIMISTIC_WRITE)
+                        .getSingleResult();
+                
+                Map<String, TransaksiRepository.RingkasanStatus> perStatus =
+                        transaksiRepository.hitungRingkasanPerStatus(session, tanggal, tanggal);
+                Map<String, BigDecimal> perMetode = transaksiRepository.hitungPenerimaanPerMetode(
+                        session, tanggal, tanggal, AppConfig.STATUS_COMPLETED);
+                BigDecimal totalModal = transaksiRepository.hitungTotalModal(
+                        session, tanggal, tanggal, AppConfig.STATUS_COMPLETED);
+                
+                TransaksiRepository.RingkasanStatus selesai = perStatus.get(AppConfig.STATUS_COMPLETED);
+                TransaksiRepository.RingkasanStatus batal = perStatus.get(AppConfig.STATUS_CANCELLED);
+                
+                laporan.setJumlahTransaksi(selesai == null ? 0 : (int) selesai.getJumlahTransaksi());
+                laporan.setJumlahItemTerjual(selesai == null ? 0 : (int) selesai.getJumlahItem());
+                laporan.setTotalPenjualan(selesai == null ? BigDecimal.ZERO : selesai.getTotalPenjualan());
+                laporan.setTotalDiskon(selesai == null ? BigDecimal.ZERO : selesai.getTotalDiskon());
+                laporan.setTotalPpn(selesai == null ? BigDecimal.ZERO : selesai.getTotalPPN());
+                laporan.setTotalBersih(laporan.getTotalPenjualan().subtract(laporan.getTotalPpn()));
+                laporan.setPelangganMember(selesai == null ? 0 : (int) selesai.getTransaksiMember());
+                laporan.setPelangganUmum(laporan.getJumlahTransaksi() - laporan.getPelangganMember());
+                
+                laporan.setTunai(perMetode.getOrDefault(AppConfig.PAYMENT_CASH, BigDecimal.ZERO));
+                laporan.setDebit(perMetode.getOrDefault(AppConfig.PAYMENT_DEBIT, BigDecimal.ZERO));
+                laporan.setKredit(perMetode.getOrDefault(AppConfig.PAYMENT_CREDIT, BigDecimal.ZERO));
+                laporan.setQris(perMetode.getOrDefault(AppConfig.PAYMENT_QRIS, BigDecimal.ZERO));
+                laporan.setTransfer(perMetode.getOrDefault(AppConfig.PAYMENT_TRANSFER, BigDecimal.ZERO));
+                laporan.setKasMasuk(laporan.getTunai());
+                
+                laporan.setTotalModal(totalModal);
+                laporan.setJumlahPembatalan(batal == null ? 0 : (int) batal.getJumlahTransaksi());
+                laporan.setNilaiPembatalan(batal == null ? BigDecimal.ZERO : batal.getTotalPenjualan());
+                laporan.updateTotals();
+                
+                transaction.commit();
+                logger.info("Laporan harian {} dihitung ulang: {} transaksi", tanggal, laporan.getJumlahTransaksi());
+                return laporan;
+            } catch (Exception e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("Error rebuilding laporan harian {}: {}", tanggal, e.getMessage(), e);
+                throw new RuntimeException("Gagal menghitung ulang laporan harian: " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Buat baris rollup kosong untuk semua hari dalam periode yang belum punya rollup
+     * dan tidak punya transaksi, dengan satu INSERT ... SELECT generate_series.
+     * Hari yang punya transaksi dilewati dan tetap harus dihitung lewat rebuild().
+     * @return jumlah baris yang dibuat
+     */
+    public int buatKosongTanpaTransaksi(LocalDate startDate, LocalDate endDate) {
+        String sql = INSERT_KOSONG
+                + "SELECT CAST(d AS date), " + NILAI_KOSONG + " "
+                + "FROM generate_series(CAST(:start AS date), CAST(:end AS date), interval '1 day') d "
+                + "WHERE NOT EXISTS (SELECT 1 FROM transaksi t WHERE t.tanggal_transaksi >= d "
+                + "AND t.tanggal_transaksi < d + interval '1 day') "
+                + "ON CONFLICT (tanggal) DO NOTHING";
+        try (Session session = getSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                NativeQuery<?> query = mutasiLaporan(session, sql);
+                query.setParameter("start", startDate);
+                query.setParameter("end", endDate);
+                query.setParameter("sekarang", LocalDateTime.now());
+                int jumlah = query.executeUpdate();
+                transaction.commit();
+                return jumlah;
+            } catch (Exception e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("Error creating laporan harian kosong: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal membuat laporan harian kosong: " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Native INSERT/UPDATE yang hanya menyinkronkan entity LaporanHarian, agar flush
+     * dan invalidasi cache tidak mengenai region lain
+     */
+    private static NativeQuery<?> mutasiLaporan(Session session, String sql) {
+        NativeQuery<?> query = (NativeQuery<?>) session.createNativeMutationQuery(sql);
+        query.addSynchronizedEntityClass(LaporanHarian.class);
+        return query;
+    }
+    
+    /**
+     * Buat baris rollup kosong untuk tanggal jika belum ada (aman dijalankan bersamaan)
+     */
+    private void pastikanAda(Session session, LocalDate tanggal) {
+        String sql = INSERT_KOSONG + "VALUES (:tanggal, " + NILAI_KOSONG + ") ON CONFLICT (tanggal) DO NOTHING";
+        NativeQuery<?> query = mutasiLaporan(session, sql);
+        query.setParameter("tanggal", tanggal);
+        query.setParameter("sekarang", LocalDateTime.now());
+        query.executeUpdate();
+    }
+    
+    /**
+     * Tambah (arah 1) atau kurangi (arah -1) nilai transaksi pada baris rollup dengan satu UPDATE
+     */
+    private void ubahRollup(Session session, Transaksi transaksi, int arah) {
+        Selisih selisih = new Selisih();
+        selisih.tambah(transaksi, arah);
+        terapkan(session, transaksi.getTanggalTransaksi().toLocalDate(), selisih);
+    }
+    
+    private void terapkan(Session session, LocalDate tanggal, Selisih s) {
+        pastikanAda(session, tanggal);
+        
+        String hql = "UPDATE LaporanHarian l SET "
+                + "l.jumlahTransaksi = l.jumlahTransaksi + :trx, "
+                + "l.jumlahItemTerjual = l.jumlahItemTerjual + :item, "
+                + "l.totalPenjualan = l.totalPenjualan + :penjualan, "
+                + "l.totalDiskon = l.totalDiskon + :diskon, "
+                + "l.totalPpn = l.totalPpn + :ppn, "
+                + "l.totalBersih = l.totalBersih + :bersih, "
+                + "l.tunai = l.tunai + :tunai, "
+                + "l.debit = l.debit + :debit, "
+                + "l.kredit = l.kredit + :kredit, "
+                + "l.qris = l.qris + :qris, "
+                + "l.transfer = l.transfer + :transfer, "
+                + "l.totalModal = l.totalModal + :modal, "
+                + "l.labaKotor = l.labaKotor + :laba, "
+                + "l.pelangganMember = l.pelangganMember + :member, "
+                + "l.pelangganUmum = l.pelangganUmum + :umum, "
+                + "l.kasMasuk = l.kasMasuk + :tunai, "
+                + "l.saldoAkhir = l.saldoAkhir + :tunai, "
+                + "l.jumlahPembatalan = l.jumlahPembatalan + :batal, "
+                + "l.nilaiPembatalan = l.nilaiPembatalan + :nilaiBatal, "
+                + "l.updatedAt = :sekarang "
+                + "WHERE l.tanggal = :tanggal";
+        session.createMutationQuery(hql)
+                .setParameter("trx", s.trx)
+                .setParameter("item", s.item)
+                .setParameter("penjualan", s.penjualan)
+                .setParameter("diskon", s.diskon)
+                .setParameter("ppn", s.ppn)
+                .setParameter("bersih", s.bersih)
+                .setParameter("tunai", s.tunai)
+                .setParameter("debit", s.debit)
+                .setParameter("kredit", s.kredit)
+                .setParameter("qris", s.qris)
+                .setParameter("transfer", s.transfer)
+                .setParameter("modal", s.modal)
+                .setParameter("laba", s.bersih.subtract(s.modal))
+                .setParameter("member", s.member)
+                .setParameter("umum", s.umum)
+                .setParameter("batal", s.batal)
+                .setParameter("nilaiBatal", s.nilaiBatal)
+                .setParameter("sekarang", LocalDateTime.now())
+                .setParameter("tanggal", tanggal)
+                .executeUpdate();
+    }
+    
+    /**
+     * Jumlah perubahan rollup dari satu atau beberapa transaksi pada hari yang sama
+     */
+    private class Selisih {
+        private int trx;
+        private int item;
+        private int member;
+        private int umum;
+        private int batal;
+        private BigDecimal penjualan = BigDecimal.ZERO;
+        private BigDecimal diskon = BigDecimal.ZERO;
+        private BigDecimal ppn = BigDecimal.ZERO;
+        private BigDecimal bersih = BigDecimal.ZERO;
+        private BigDecimal tunai = BigDecimal.ZERO;
+        private BigDecimal debit = BigDecimal.ZERO;
+        private BigDecimal kredit = BigDecimal.ZERO;
+        private BigDecimal qris = BigDecimal.ZERO;
+        private BigDecimal transfer = BigDecimal.ZERO;
+        private BigDecimal modal = BigDecimal.ZERO;
+        private BigDecimal nilaiBatal = BigDecimal.ZERO;
+        
+        void tambah(Transaksi transaksi, int arah) {
+            BigDecimal faktor = new BigDecimal(arah);
+            
+            for (DetailTransaksi detail : transaksi.getDetailTransaksiList()) {
+                if (detail.getHargaModal() != null) {
+                    modal = modal.add(detail.getHargaModal().multiply(new BigDecimal(detail.getQty())).multiply(faktor));
+                }
+            }
+            
+            // Uang diterima per metode: pembayaran dikurangi kembalian (satu pembayaran per transaksi)
+            BigDecimal kembalian = transaksi.getKembalian() == null ? BigDecimal.ZERO : transaksi.getKembalian();
+            for (Pembayaran pembayaran : transaksi.getPembayaranList()) {
+                BigDecimal diterima = pembayaran.getJumlah().subtract(kembalian).multiply(faktor);
+                switch (pembayaran.getMetodePembayaran()) {
+                    case AppConfig.PAYMENT_CASH -> tunai = tunai.add(diterima);
+                    case AppConfig.PAYMENT_DEBIT -> debit = debit.add(diterima);
+                    case AppConfig.PAYMENT_CREDIT -> kredit = kredit.add(diterima);
+                    case AppConfig.PAYMENT_QRIS -> qris = qris.add(diterima);
+                    case AppConfig.PAYMENT_TRANSFER -> transfer = transfer.add(diterima);
+                    default -> logger.warn("Metode pembayaran {} tidak masuk rollup", pembayaran.getMetodePembayaran());
+                }
+            }
+            
+            BigDecimal grandTotal = transaksi.getGrandTotal();
+            BigDecimal ppnNominal = transaksi.getPpnNominal();
+            boolean pelangganMember = transaksi.getPelanggan() != null && transaksi.getPelanggan().isMember();
+            trx += arah;
+            item += arah * transaksi.getTotalQty();
+            penjualan = penjualan.add(grandTotal.multiply(faktor));
+            diskon = diskon.add(transaksi.getDiskonNominal().multiply(faktor));
+            ppn = ppn.add(ppnNominal.multiply(faktor));
+            bersih = bersih.add(grandTotal.subtract(ppnNominal).multiply(faktor));
+            member += pelangganMember ? arah : 0;
+            umum += pelangganMember ? 0 : arah;
+            if (arah < 0) {
+                batal++;
+                nilaiBatal = nilaiBatal.add(grandTotal);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.joko.aplikasijava.repositories;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Pembagi nomor urut (nomor transaksi, invoice, PO, kode member, kode supplier)
+ */
+public interface NomorAllocator {
+    
+    /**
+     * Ambil nomor berikutnya untuk kunci tertentu
+     * @param kunci counter yang dipakai, misalnya prefix + tanggal
+     * @param nilaiTerakhir nomor terakhir yang sudah terpakai, hanya dipanggil
+     *                      saat counter untuk kunci ini belum pernah dibuat
+     */
+    long next(String kunci, LongSupplier nilaiTerakhir);
+}
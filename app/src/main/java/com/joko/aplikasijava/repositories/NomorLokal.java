@@ -0,0 +1,110 @@
+package com.joko.aplikasijava.repositories;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.jurnal.JurnalPenjualan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sumber blok nomor cadangan untuk BlokNomorAllocator saat database tidak bisa
+ * dihubungi, supaya checkout offline tetap mendapat nomor transaksi dan invoice
+ * walaupun hari berganti atau blok dari database habis.
+ *
+ * Nomor diambil dari rentang milik node ini (AppConfig.NOMOR_LOKAL_AWAL +
+ * node * AppConfig.NOMOR_LOKAL_PER_NODE), sehingga tidak bertabrakan dengan
+ * counter nomor_urut maupun node lain. Nomor terakhir per kunci disimpan ke file
+ * di direktori jurnal (fsync sekali per blok) supaya tidak terulang setelah restart;
+ * direktori itu dikunci JurnalPenjualan sehingga hanya dipakai satu proses.
+ *
+ * Batas: setiap node punya NOMOR_LOKAL_PER_NODE nomor offline per kunci (per hari),
+ * dan dua node yang offline bersamaan harus memakai -Dkasirpro.node yang berbeda.
+ */
+public class NomorLokal implements BlokNomorAllocator.SumberBlok {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NomorLokal.class);
+    private static final String FILE = "nomor-lokal.properties";
+    
+    private final Path file;
+    private final long awal;
+    private final Properties terakhir = new Properties();
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    public NomorLokal(Path direktori, int node) {
+        if (node < 0 || node > 9) {
+            throw new IllegalArgumentException("Node harus 0-9");
+        }
+        this.file = direktori.resolve(FILE);
+        this.awal = AppConfig.NOMOR_LOKAL_AWAL + node * AppConfig.NOMOR_LOKAL_PER_NODE;
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                terakhir.load(in);
+            } catch (IOException e) {
+                throw new RuntimeException("Gagal membaca nomor lokal " + file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Nomor lokal di direktori jurnal default, node dari -Dkasirpro.node
+     */
+    public static NomorLokal getInstance() {
+        return Holder.INSTANCE;
+    }
+    
+    /**
+     * Sewa blok dari rentang node ini; nilaiAwal dari database diabaikan
+     */
+    @Override
+    public long sewa(String kunci, long nilaiAwal, int ukuranBlok) {
+        lock.lock();
+        try {
+            long akhir = Long.parseLong(terakhir.getProperty(kunci, String.valueOf(awal))) + ukuranBlok;
+            if (akhir > awal + AppConfig.NOMOR_LOKAL_PER_NODE) {
+                throw new IllegalStateException("Nomor offline untuk " + kunci + " sudah habis ("
+                        + AppConfig.NOMOR_LOKAL_PER_NODE + " per node)");
+            }
+            terakhir.setProperty(kunci, String.valueOf(akhir));
+            simpan();
+            logger.warn("Blok nomor offline {} disewa: {}-{}", kunci, akhir - ukuranBlok + 1, akhir);
+            return akhir;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Tulis ke file sementara, fsync, lalu ganti file lama sekaligus
+     */
+    private void simpan() {
+        Path sementara = file.resolveSibling(FILE + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(sementara, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream out = Channels.newOutputStream(channel)) {
+                terakhir.store(out, "Nomor offline terakhir per kunci");
+                channel.force(false);
+            }
+            Files.move(sementara, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal menyimpan nomor lokal " + file + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private static class Holder {
+        // Lewat JurnalPenjualan supaya direktorinya sudah dikunci proses ini
+        private static final NomorLokal INSTANCE = new NomorLokal(
+                JurnalPenjualan.getInstance().getFile().getParent(), Integer.getInteger("kasirpro.node", 0));
+    }
+}
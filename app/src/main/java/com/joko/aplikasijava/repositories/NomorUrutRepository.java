@@ -0,0 +1,49 @@
+package com.joko.aplikasijava.repositories;
+
+import com.joko.aplikasijava.models.NomorUrut;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository untuk entity NomorUrut
+ */
+public class NomorUrutRepository extends GenericRepository<NomorUrut, String> {
+    
+    public NomorUrutRepository() {
+        super(NomorUrut.class);
+    }
+    
+    /**
+     * Sewa satu blok nomor untuk kunci tertentu dengan satu upsert atomik.
+     * Jika kunci belum ada, counter dimulai dari nilaiAwal.
+     * @return nomor terakhir dari blok yang disewa
+     */
+    public long sewaBlok(String kunci, long nilaiAwal, int ukuranBlok) {
+        try (Session session = getSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                String sql = "INSERT INTO nomor_urut (kunci, nilai, updated_at) VALUES (:kunci, :nilaiAwal + :ukuran, :sekarang) "
+                        + "ON CONFLICT (kunci) DO UPDATE SET nilai = nomor_urut.nilai + :ukuran, updated_at = :sekarang "
+                        + "RETURNING nilai";
+                var query = session.createNativeQuery(sql, Long.class);
+                query.addSynchronizedEntityClass(NomorUrut.class);
+                query.setParameter("kunci", kunci);
+                query.setParameter("nilaiAwal", nilaiAwal);
+                query.setParameter("ukuran", (long) ukuranBlok);
+                query.setParameter("sekarang", LocalDateTime.now());
+                long akhir = query.getSingleResult();
+                transaction.commit();
+                logger.debug("Blok nomor {} disewa: {}-{}", kunci, akhir - ukuranBlok + 1, akhir);
+                return akhir;
+            } catch (Exception e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("Error leasing nomor block {}: {}", kunci, e.getMessage(), e);
+                throw new RuntimeException("Gagal mengambil nomor urut: " + e.getMessage(), e);
+            }
+        }
+    }
+}
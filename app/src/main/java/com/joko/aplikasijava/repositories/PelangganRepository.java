@@ -1,5 +1,7 @@
 package com.joko.aplikasijava.repositories;
 
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.config.DatabaseInitializer;
 import com.joko.aplikasijava.models.Pelanggan;
 import java.math.BigDecimal;
 import java.util.List;
@@ -10,6 +12,9 @@ import java.util.Optional;
  */
 public class PelangganRepository extends GenericRepository<Pelanggan, Long> {
     
+    private static final String[] KOLOM_PENCARIAN = {"nama", "kode_member", "no_telepon"};
+    private final NomorAllocator nomorAllocator = BlokNomorAllocator.getInstance();
+    
     public PelangganRepository() {
         super(Pelanggan.class);
     }
@@ -46,6 +51,13 @@ public class PelangganRepository extends GenericRepository<Pelanggan, Long> {
         return executeQuery(hql);
     }
     
+    /**
+     * Halaman pelanggan aktif berikutnya setelah id tertentu (keyset pagination)
+     */
+    public List<Pelanggan> findActiveAfter(Long afterId, int size) {
+        return findAfter("e.aktif = true", afterId, size);
+    }
+    
     /**
      * Cari pelanggan member (yang punya kode member)
      */
@@ -63,9 +75,12 @@ public class PelangganRepository extends GenericRepository<Pelanggan, Long> {
     }
     
     /**
-     * Cari pelanggan dengan keyword
+     * Cari pelanggan dengan keyword, diurutkan berdasarkan relevansi
      */
     public List<Pelanggan> searchByKeyword(String keyword) {
+        if (DatabaseInitializer.isTrigramTersedia()) {
+            return cariTrigram("pelanggan", KOLOM_PENCARIAN, keyword, AppConfig.SEARCH_LIMIT);
+        }
         String hql = "FROM Pelanggan p WHERE (LOWER(p.nama) LIKE :keyword OR LOWER(p.kodeMember) LIKE :keyword OR p.noTelepon LIKE :keyword) AND p.aktif = true ORDER BY p.nama";
         return executeQuery(hql, "keyword", "%" + keyword.toLowerCase() + "%");
     }
@@ -121,21 +136,9 @@ public class PelangganRepository extends GenericRepository<Pelanggan, Long> {
      * Generate kode member baru
      */
     public String generateKodeMember() {
-        try (var session = getSession()) {
-            String hql = "SELECT MAX(p.kodeMember) FROM Pelanggan p WHERE p.kodeMember LIKE 'MBR%'";
-            var query = session.createQuery(hql, String.class);
-            String lastKode = query.getSingleResult();
-            
-            int nextNumber = 1;
-            if (lastKode != null && lastKode.startsWith("MBR")) {
-                try {
-                    nextNumber = Integer.parseInt(lastKode.substring(3)) + 1;
-                } catch (NumberFormatException e) {
-                    // Use default
-                }
-            }
-            return String.format("MBR%06d", nextNumber);
-        }
+        long nomor = nomorAllocator.next("MBR",
+                () -> cariNomorTerakhir("SELECT MAX(p.kodeMember) FROM Pelanggan p WHERE p.kodeMember LIKE :prefix", "MBR"));
+        return String.format("MBR%06d", nomor);
     }
     
     /**
@@ -1,10 +1,18 @@
 package com.joko.aplikasijava.repositories;
 
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.config.DatabaseInitializer;
 import com.joko.aplikasijava.models.Produk;
+import jakarta.persistence.LockModeType;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -12,6 +20,13 @@ import java.util.Optional;
  */
 public class ProdukRepository extends GenericRepository<Produk, Long> {
     
+    private static final String QUERY_CACHE_REGION = "query.produk";
+    private static final String[] KOLOM_PENCARIAN = {"nama", "kode", "barcode"};
+    // Kunci baris produk berurutan id sebelum UPDATE batch, agar dua keranjang
+    // berisi produk yang sama dalam urutan berbeda tidak saling deadlock
+    private static final String KUNCI_URUT = "WITH v(id, qty) AS (VALUES %s), "
+            + "kunci AS (SELECT p.id FROM produk p JOIN v ON p.id = v.id ORDER BY p.id FOR UPDATE OF p) ";
+    
     public ProdukRepository() {
         super(Produk.class);
     }
@@ -21,7 +36,7 @@ public class ProdukRepository extends GenericRepository<Produk, Long> {
      */
     public Optional<Produk> findByKode(String kode) {
         String hql = "FROM Produk p WHERE p.kode = :kode";
-        return executeSingleQuery(hql, "kode", kode);
+        return executeCachedSingleQuery(QUERY_CACHE_REGION, hql, "kode", kode);
     }
     
     /**
@@ -29,7 +44,7 @@ public class ProdukRepository extends GenericRepository<Produk, Long> {
      */
     public Optional<Produk> findByBarcode(String barcode) {
         String hql = "FROM Produk p WHERE p.barcode = :barcode";
-        return executeSingleQuery(hql, "barcode", barcode);
+        return executeCachedSingleQuery(QUERY_CACHE_REGION, hql, "barcode", barcode);
     }
     
     /**
@@ -37,7 +52,14 @@ public class ProdukRepository extends GenericRepository<Produk, Long> {
      */
     public List<Produk> findAllActive() {
         String hql = "FROM Produk p WHERE p.aktif = true ORDER BY p.nama";
-        return executeQuery(hql);
+        return executeCachedQuery(QUERY_CACHE_REGION, hql);
+    }
+    
+    /**
+     * Halaman produk aktif berikutnya setelah id tertentu (keyset pagination)
+     */
+    public List<Produk> findActiveAfter(Long afterId, int size) {
+        return findAfter("e.aktif = true", afterId, size);
     }
     
     /**
@@ -45,7 +67,7 @@ public class ProdukRepository extends GenericRepository<Produk, Long> {
      */
     public List<Produk> findByKategori(Long kategoriId) {
         String hql = "FROM Produk p WHERE p.kategori.id = :kategoriId AND p.aktif = true ORDER BY p.nama";
-        return executeQuery(hql, "kategoriId", kategoriId);
+        return executeCachedQuery(QUERY_CACHE_REGION, hql, "kategoriId", kategoriId);
     }
     
     /**
@@ -77,13 +99,16 @@ public class ProdukRepository extends GenericRepository<Produk, Long> {
      */
     public List<Produk> findFavorites() {
         String hql = "FROM Produk p WHERE p.favorit = true AND p.aktif = true ORDER BY p.nama";
-        return executeQuery(hql);
+        return executeCachedQuery(QUERY_CACHE_REGION, hql);
     }
     
     /**
-     * Cari produk dengan keyword
+     * Cari produk dengan keyword, diurutkan berdasarkan relevansi
      */
     public List<Produk> searchByKeyword(String keyword) {
+        if (DatabaseInitializer.isTrigramTersedia()) {
+            return cariTrigram("produk", KOLOM_PENCARIAN, keyword, AppConfig.SEARCH_LIMIT);
+        }
         String hql = "FROM Produk p WHERE (LOWER(p.kode) LIKE :keyword OR LOWER(p.nama) LIKE :keyword OR LOWER(p.barcode) LIKE :keyword) AND p.aktif = true ORDER BY p.nama";
         return executeQuery(hql, "keyword", "%" + keyword.toLowerCase() + "%");
     }
@@ -111,6 +136,35 @@ public class ProdukRepository extends GenericRepository<Produk, Long> {
         return findByBarcode(barcode).isPresent();
     }
     
+    /**
+     * Ubah data master produk (nama, harga, kategori, status, ...) tanpa menimpa stok
+     * dan jumlah terjual. Baris dikunci lalu kolom lain disalin dari produk yang
+     * diberikan, sehingga pengurangan stok dari checkout yang berjalan bersamaan
+     * tidak tertimpa nilai stok lama milik pemanggil.
+     * @return produk tersimpan dengan stok terkini dari database
+     */
+    public Produk updateData(Produk produk) {
+        return metrik.ukur("updateData", () -> {
+            Transaction transaction = null;
+            try (Session session = getSession()) {
+                transaction = session.beginTransaction();
+                Produk tersimpan = session.find(Produk.class, produk.getId(), LockModeType.PESSIMISTIC_WRITE);
+                if (tersimpan == null) {
+                    throw new IllegalArgumentException("Produk tidak ditemukan");
+                }
+                tersimpan.salinDataDari(produk);
+                transaction.commit();
+                return tersimpan;
+            } catch (Exception e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("Error updating produk: {}", e.getMessage(), e);
+                throw new RuntimeException("Gagal mengupdate data: " + e.getMessage(), e);
+            }
+        });
+    }
+    
     /**
      * Update stok produk
      */
@@ -125,17 +179,156 @@ public class ProdukRepository extends GenericRepository<Produk, Long> {
     public boolean kurangiStok(Long produkId, int qty) {
         try (Session session = getSession()) {
             var transaction = session.beginTransaction();
-            Produk produk = session.get(Produk.class, produkId);
-            if (produk != null && produk.getStok() >= qty) {
-                produk.setStok(produk.getStok() - qty);
-                produk.setTerjual(produk.getTerjual() + qty);
-                session.merge(produk);
+            Map<Long, StokBerubah> hasil = kurangiStokBatch(session, Map.of(produkId, qty));
+            transaction.commit();
+            return hasil.containsKey(produkId);
+        }
+    }
+    
+    /**
+     * Kurangi stok beberapa produk sekaligus dengan satu UPDATE bersyarat.
+     * Baris hanya diubah jika stok masih mencukupi, sehingga penjualan dari
+     * beberapa terminal untuk produk yang sama tidak saling menimpa.
+     * Dijalankan di dalam session/transaksi milik pemanggil.
+     * @param qtyPerProduk qty yang dikurangi per produk id
+     * @return stok sebelum dan sesudah per produk id, hanya untuk produk yang berhasil dikurangi
+     */
+    public Map<Long, StokBerubah> kurangiStokBatch(Session session, Map<Long, Integer> qtyPerProduk) {
+        String sql = KUNCI_URUT + "UPDATE produk p SET stok = p.stok - v.qty, terjual = COALESCE(p.terjual, 0) + v.qty, updated_at = :sekarang "
+                + "FROM v JOIN kunci k ON k.id = v.id "
+                + "WHERE p.id = v.id AND p.stok >= v.qty "
+                + "RETURNING p.id, p.stok, p.terjual";
+        return ubahStokBatch(session, sql, qtyPerProduk, -1);
+    }
+    
+    /**
+     * Kembalikan stok beberapa produk sekaligus (misalnya saat void transaksi)
+     * dengan satu UPDATE atomik. Jumlah terjual ikut dikurangi.
+     * Dijalankan di dalam session/transaksi milik pemanggil.
+     * @return stok sebelum dan sesudah per produk id
+     */
+    public Map<Long, StokBerubah> tambahStokBatch(Session session, Map<Long, Integer> qtyPerProduk) {
+        String sql = KUNCI_URUT + "UPDATE produk p SET stok = p.stok + v.qty, terjual = COALESCE(p.terjual, 0) - v.qty, updated_at = :sekarang "
+                + "FROM v JOIN kunci k ON k.id = v.id "
+                + "WHERE p.id = v.id "
+                + "RETURNING p.id, p.stok, p.terjual";
+        return ubahStokBatch(session, sql, qtyPerProduk, 1);
+    }
+    
+    private Map<Long, StokBerubah> ubahStokBatch(Session session, String sqlTemplate, Map<Long, Integer> qtyPerProduk, int arah) {
+        Map<Long, StokBerubah> hasil = new LinkedHashMap<>();
+        if (qtyPerProduk.isEmpty()) {
+            return hasil;
+        }
+        
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < qtyPerProduk.size(); i++) {
+            if (i > 0) values.append(", ");
+            values.append("(:id").append(i).append(", :qty").append(i).append(")");
+        }
+        
+        var query = session.createNativeQuery(String.format(sqlTemplate, values), Object[].class);
+        query.addSynchronizedEntityClass(Produk.class);
+        query.setParameter("sekarang", LocalDateTime.now());
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : qtyPerProduk.entrySet()) {
+            query.setParameter("id" + i, entry.getKey());
+            query.setParameter("qty" + i, entry.getValue());
+            i++;
+        }
+        
+        for (Object[] row : query.getResultList()) {
+            Long id = ((Number) row[0]).longValue();
+            int stokSesudah = ((Number) row[1]).intValue();
+            int terjual = ((Number) row[2]).intValue();
+            hasil.put(id, new StokBerubah(stokSesudah - arah * qtyPerProduk.get(id), stokSesudah, terjual));
+        }
+        evictCache(session, hasil.keySet(), QUERY_CACHE_REGION);
+        return hasil;
+    }
+    
+    /**
+     * Stok masuk dari inventori dengan satu UPDATE atomik; jumlah terjual tidak berubah
+     * @return stok sebelum dan sesudah, atau null jika produk tidak ada
+     */
+    public StokBerubah stokMasuk(Long produkId, int qty) {
+        String sql = KUNCI_URUT + "UPDATE produk p SET stok = p.stok + v.qty, updated_at = :sekarang "
+                + "FROM v JOIN kunci k ON k.id = v.id "
+                + "WHERE p.id = v.id "
+                + "RETURNING p.id, p.stok, COALESCE(p.terjual, 0)";
+        return ubahStok("stokMasuk", sql, produkId, qty, 1);
+    }
+    
+    /**
+     * Stok keluar dari inventori dengan satu UPDATE bersyarat; jumlah terjual tidak berubah
+     * @return stok sebelum dan sesudah, atau null jika produk tidak ada atau stok tidak mencukupi
+     */
+    public StokBerubah stokKeluar(Long produkId, int qty) {
+        String sql = KUNCI_URUT + "UPDATE produk p SET stok = p.stok - v.qty, updated_at = :sekarang "
+                + "FROM v JOIN kunci k ON k.id = v.id "
+                + "WHERE p.id = v.id AND p.stok >= v.qty "
+                + "RETURNING p.id, p.stok, COALESCE(p.terjual, 0)";
+        return ubahStok("stokKeluar", sql, produkId, qty, -1);
+    }
+    
+    private StokBerubah ubahStok(String operasi, String sql, Long produkId, int qty, int arah) {
+        return metrik.ukur(operasi, () -> {
+            Transaction transaction = null;
+            try (Session session = getSession()) {
+                transaction = session.beginTransaction();
+                StokBerubah hasil = ubahStokBatch(session, sql, Map.of(produkId, qty), arah).get(produkId);
                 transaction.commit();
-                return true;
+                return hasil;
+            } catch (Exception e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("Error updating stok produk {}: {}", produkId, e.getMessage(), e);
+                throw new RuntimeException("Gagal mengubah stok: " + e.getMessage(), e);
             }
-            transaction.rollback();
-            return false;
-        }
+        });
+    }
+    
+    /**
+     * Samakan stok dengan hasil hitung fisik. Baris dikunci dulu (SELECT ... FOR UPDATE)
+     * sehingga stok sebelum adalah nilai terakhir setelah checkout yang sedang berjalan.
+     * @return stok sebelum dan sesudah, atau null jika produk tidak ada
+     */
+    public StokBerubah setStok(Long produkId, int stokBaru) {
+        return metrik.ukur("setStok", () -> {
+            Transaction transaction = null;
+            try (Session session = getSession()) {
+                transaction = session.beginTransaction();
+                var kunci = session.createNativeQuery(
+                        "SELECT p.stok, COALESCE(p.terjual, 0) FROM produk p WHERE p.id = :id FOR UPDATE", Object[].class);
+                kunci.addSynchronizedEntityClass(Produk.class);
+                kunci.setParameter("id", produkId);
+                List<Object[]> baris = kunci.getResultList();
+                if (baris.isEmpty()) {
+                    transaction.rollback();
+                    return null;
+                }
+                int stokSebelum = ((Number) baris.get(0)[0]).intValue();
+                int terjual = ((Number) baris.get(0)[1]).intValue();
+                
+                var update = (NativeQuery<?>) session.createNativeMutationQuery(
+                        "UPDATE produk SET stok = :stok, updated_at = :sekarang WHERE id = :id");
+                update.addSynchronizedEntityClass(Produk.class);
+                update.setParameter("stok", stokBaru);
+                update.setParameter("sekarang", LocalDateTime.now());
+                update.setParameter("id", produkId);
+                update.executeUpdate();
+                evictCache(session, List.of(produkId), QUERY_CACHE_REGION);
+                transaction.commit();
+                return new StokBerubah(stokSebelum, stokBaru, terjual);
+            } catch (Exception e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("Error adjusting stok produk {}: {}", produkId, e.getMessage(), e);
+                throw new RuntimeException("Gagal mengubah stok: " + e.getMessage(), e);
+            }
+        });
     }
     
     /**
@@ -172,4 +365,23 @@ public class ProdukRepository extends GenericRepository<Produk, Long> {
             return query.getSingleResult();
         }
     }
+    
+    /**
+     * Nilai stok sebelum dan sesudah hasil UPDATE bersyarat
+     */
+    public static class StokBerubah {
+        private final int stokSebelum;
+        private final int stokSesudah;
+        private final int terjual;
+        
+        public StokBerubah(int stokSebelum, int stokSesudah, int terjual) {
+            this.stokSebelum = stokSebelum;
+            this.stokSesudah = stokSesudah;
+            this.terjual = terjual;
+        }
+        
+        public int getStokSebelum() { return stokSebelum; }
+        public int getStokSesudah() { return stokSesudah; }
+        public int getTerjual() { return terjual; }
+    }
 }
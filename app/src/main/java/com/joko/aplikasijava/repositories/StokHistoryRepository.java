@@ -1,9 +1,13 @@
 package com.joko.aplikasijava.repositories;
 
 import com.joko.aplikasijava.models.StokHistory;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Repository untuk entity StokHistory
@@ -14,6 +18,28 @@ public class StokHistoryRepository extends GenericRepository<StokHistory, Long>
         super(StokHistory.class);
     }
     
+    /**
+     * Simpan beberapa history stok dalam satu session dan satu commit; insert
+     * dikirim sebagai JDBC batch. Jika gagal, id yang sempat diberikan dihapus
+     * lagi sehingga history dapat disimpan ulang.
+     */
+    public void simpanBatch(List<StokHistory> daftar) {
+        metrik.jalankan("simpanBatch", () -> {
+            try (Session session = getSession()) {
+                Transaction transaction = session.beginTransaction();
+                try {
+                    daftar.forEach(session::persist);
+                    transaction.commit();
+                    logger.debug("Saved {} history stok", daftar.size());
+                } catch (Exception e) {
+                    rollbackSetelah(transaction, e);
+                    daftar.forEach(history -> history.setId(null));
+                    throw new RuntimeException("Gagal menyimpan history stok: " + e.getMessage(), e);
+                }
+            }
+        });
+    }
+    
     /**
      * Cari history stok berdasarkan produk
      */
@@ -32,6 +58,16 @@ public class StokHistoryRepository extends GenericRepository<StokHistory, Long>
         return executeQuery(hql, "start", start, "end", end);
     }
     
+    /**
+     * Proses history stok dalam range tanggal secara streaming (urut tanggal)
+     * @return jumlah history yang diproses
+     */
+    public long scrollByDateRange(LocalDate startDate, LocalDate endDate, Consumer<StokHistory> action) {
+        String hql = "FROM StokHistory s JOIN FETCH s.produk LEFT JOIN FETCH s.user "
+                + "WHERE s.tanggal >= :start AND s.tanggal < :end ORDER BY s.tanggal, s.id";
+        return scroll(hql, action, "start", startDate.atStartOfDay(), "end", endDate.plusDays(1).atStartOfDay());
+    }
+    
     /**
      * Cari history stok berdasarkan tipe
      */
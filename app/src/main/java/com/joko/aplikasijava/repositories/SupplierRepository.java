@@ -1,6 +1,10 @@
 package com.joko.aplikasijava.repositories;
 
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.config.DatabaseInitializer;
 import com.joko.aplikasijava.models.Supplier;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,6 +13,9 @@ import java.util.Optional;
  */
 public class SupplierRepository extends GenericRepository<Supplier, Long> {
     
+    private static final String[] KOLOM_PENCARIAN = {"nama", "kode", "no_telepon"};
+    private final NomorAllocator nomorAllocator = BlokNomorAllocator.getInstance();
+    
     public SupplierRepository() {
         super(Supplier.class);
     }
@@ -30,9 +37,12 @@ public class SupplierRepository extends GenericRepository<Supplier, Long> {
     }
     
     /**
-     * Cari supplier dengan keyword
+     * Cari supplier dengan keyword, diurutkan berdasarkan relevansi
      */
     public List<Supplier> searchByKeyword(String keyword) {
+        if (DatabaseInitializer.isTrigramTersedia()) {
+            return cariTrigram("supplier", KOLOM_PENCARIAN, keyword, AppConfig.SEARCH_LIMIT);
+        }
         String hql = "FROM Supplier s WHERE (LOWER(s.kode) LIKE :keyword OR LOWER(s.nama) LIKE :keyword OR s.noTelepon LIKE :keyword) AND s.aktif = true ORDER BY s.nama";
         return executeQuery(hql, "keyword", "%" + keyword.toLowerCase() + "%");
     }
@@ -48,20 +58,18 @@ public class SupplierRepository extends GenericRepository<Supplier, Long> {
      * Generate kode supplier baru
      */
     public String generateKode() {
-        try (var session = getSession()) {
-            String hql = "SELECT MAX(s.kode) FROM Supplier s WHERE s.kode LIKE 'SUP%'";
-            var query = session.createQuery(hql, String.class);
-            String lastKode = query.getSingleResult();
-            
-            int nextNumber = 1;
-            if (lastKode != null && lastKode.startsWith("SUP")) {
-                try {
-                    nextNumber = Integer.parseInt(lastKode.substring(3)) + 1;
-                } catch (NumberFormatException e) {
-                    // Use default
-                }
-            }
-            return String.format("SUP%04d", nextNumber);
-        }
+        long nomor = nomorAllocator.next("SUP",
+                () -> cariNomorTerakhir("SELECT MAX(s.kode) FROM Supplier s WHERE s.kode LIKE :prefix", "SUP"));
+        return String.format("SUP%04d", nomor);
+    }
+    
+    /**
+     * Generate nomor purchase order (POyyyyMMddNNNN)
+     */
+    public String generateNomorPembelian() {
+        String prefix = AppConfig.PURCHASE_PREFIX + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        long nomor = nomorAllocator.next(prefix,
+                () -> cariNomorTerakhir("SELECT MAX(p.nomorPO) FROM PembelianSupplier p WHERE p.nomorPO LIKE :prefix", prefix));
+        return String.format("%s%04d", prefix, nomor);
     }
 }
@@ -1,21 +1,41 @@
 package com.joko.aplikasijava.repositories;
 
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.models.DetailTransaksi;
+import com.joko.aplikasijava.models.Pelanggan;
+import com.joko.aplikasijava.models.Produk;
+import com.joko.aplikasijava.models.StokHistory;
 import com.joko.aplikasijava.models.Transaksi;
+import com.joko.aplikasijava.models.User;
+import org.hibernate.LockMode;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Repository untuk entity Transaksi
  */
 public class TransaksiRepository extends GenericRepository<Transaksi, Long> {
     
+    private final ProdukRepository produkRepository;
+    private final LaporanHarianRepository laporanHarianRepository;
+    private final NomorAllocator nomorAllocator = BlokNomorAllocator.getInstance();
+    
     public TransaksiRepository() {
         super(Transaksi.class);
+        this.produkRepository = new ProdukRepository();
+        this.laporanHarianRepository = new LaporanHarianRepository();
     }
     
     /**
@@ -54,6 +74,32 @@ public class TransaksiRepository extends GenericRepository<Transaksi, Long> {
         return executeQuery(hql, "start", start, "end", end);
     }
     
+    /**
+     * Halaman riwayat transaksi terbaru sebelum cursor (tanggalTransaksi, id).
+     * Cursor null untuk halaman pertama; memakai index (tanggal_transaksi, id)
+     * sehingga halaman keberapapun sama cepatnya.
+     */
+    public List<Transaksi> findRiwayatSebelum(LocalDateTime tanggal, Long id, int size) {
+        if (tanggal == null || id == null) {
+            return executePageQuery("FROM Transaksi t JOIN FETCH t.kasir "
+                    + "ORDER BY t.tanggalTransaksi DESC, t.id DESC", size);
+        }
+        String hql = "FROM Transaksi t JOIN FETCH t.kasir "
+                + "WHERE (t.tanggalTransaksi, t.id) < (:tanggal, :id) "
+                + "ORDER BY t.tanggalTransaksi DESC, t.id DESC";
+        return executePageQuery(hql, size, "tanggal", tanggal, "id", id);
+    }
+    
+    /**
+     * Proses transaksi dalam range tanggal secara streaming (urut tanggal)
+     * @return jumlah transaksi yang diproses
+     */
+    public long scrollByDateRange(LocalDate startDate, LocalDate endDate, Consumer<Transaksi> action) {
+        String hql = "FROM Transaksi t JOIN FETCH t.kasir LEFT JOIN FETCH t.pelanggan "
+                + "WHERE t.tanggalTransaksi >= :start AND t.tanggalTransaksi < :end ORDER BY t.tanggalTransaksi, t.id";
+        return scroll(hql, action, "start", startDate.atStartOfDay(), "end", endDate.plusDays(1).atStartOfDay());
+    }
+    
     /**
      * Cari transaksi berdasarkan kasir
      */
@@ -103,30 +149,247 @@ public class TransaksiRepository extends GenericRepository<Transaksi, Long> {
     }
     
     /**
-     * Generate nomor transaksi baru
+     * Simpan transaksi penjualan beserta detail, pembayaran, mutasi stok,
+     * history stok dan poin pelanggan dalam satu session dan satu commit.
+     * Jika salah satu langkah gagal, seluruh penjualan di-rollback.
      */
-    public String generateNomorTransaksi() {
+    public Transaksi simpanPenjualan(Transaksi transaksi) {
         try (Session session = getSession()) {
-            LocalDate today = LocalDate.now();
-            String prefix = String.format("TRX%s", today.format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd")));
-            
-            String hql = "SELECT MAX(t.nomorTransaksi) FROM Transaksi t WHERE t.nomorTransaksi LIKE :prefix";
-            var query = session.createQuery(hql, String.class);
-            query.setParameter("prefix", prefix + "%");
-            String lastNo = query.getSingleResult();
-            
-            int nextNumber = 1;
-            if (lastNo != null && lastNo.startsWith(prefix)) {
-                try {
-                    nextNumber = Integer.parseInt(lastNo.substring(prefix.length())) + 1;
-                } catch (NumberFormatException e) {
-                    // Use default
+            Transaction transaction = session.beginTransaction();
+            try {
+                simpanPenjualan(session, transaksi);
+                transaction.commit();
+                logger.debug("Saved penjualan: {}", transaksi);
+                return transaksi;
+            } catch (Exception e) {
+                rollbackSetelah(transaction, e);
+                logger.error("Error saving penjualan {}: {}", transaksi.getNomorTransaksi(), e.getMessage(), e);
+                throw new RuntimeException("Gagal menyimpan transaksi: " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Simpan beberapa penjualan dalam satu session dan satu commit (group commit).
+     * Insert semua penjualan dikirim sebagai JDBC batch. Jika satu penjualan gagal, seluruh batch di-rollback dan id yang sempat
+     * diberikan dihapus lagi sehingga penjualan dapat disimpan ulang satu per satu.
+     */
+    public List<Transaksi> simpanPenjualanBatch(List<Transaksi> daftar) {
+        try (Session session = getSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                simpanPenjualan(session, daftar);
+                transaction.commit();
+                logger.debug("Saved {} penjualan dalam satu commit", daftar.size());
+                return daftar;
+            } catch (Exception e) {
+                rollbackSetelah(transaction, e);
+                for (Transaksi transaksi : daftar) {
+                    transaksi.setId(null);
+                    transaksi.getDetailTransaksiList().forEach(detail -> detail.setId(null));
+                    transaksi.getPembayaranList().forEach(pembayaran -> pembayaran.setId(null));
+                }
+                logger.warn("Batch {} penjualan gagal: {}", daftar.size(), e.getMessage());
+                throw new RuntimeException("Gagal menyimpan transaksi: " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Langkah penyimpanan satu penjualan di dalam transaction milik pemanggil
+     */
+    private void simpanPenjualan(Session session, Transaksi transaksi) {
+        // Detail dan pembayaran ikut tersimpan lewat cascade
+        session.persist(transaksi);
+        
+        // Kurangi stok semua baris keranjang dengan satu UPDATE bersyarat
+        Map<Long, Integer> qtyPerProduk = hitungQtyPerProduk(transaksi);
+        Map<Long, ProdukRepository.StokBerubah> stokBerubah = produkRepository.kurangiStokBatch(session, qtyPerProduk);
+        pastikanStokCukup(List.of(transaksi), stokBerubah);
+        
+        catatStokKeluar(session, transaksi, qtyPerProduk, stokBerubah);
+        
+        // Rollup laporan harian ikut dalam commit yang sama
+        laporanHarianRepository.catatPenjualan(session, transaksi);
+    }
+    
+    /**
+     * Langkah penyimpanan beberapa penjualan di dalam satu transaction: stok semua
+     * penjualan dikurangi dengan satu UPDATE bersyarat dan rollup dengan satu UPDATE
+     * per hari. Stok sebelum/sesudah tiap penjualan diturunkan dari hasil UPDATE
+     * gabungan mengikuti urutan batch.
+     */
+    private void simpanPenjualan(Session session, List<Transaksi> daftar) {
+        Map<Long, Integer> qtyGabungan = new LinkedHashMap<>();
+        for (Transaksi transaksi : daftar) {
+            session.persist(transaksi);
+            hitungQtyPerProduk(transaksi).forEach((id, qty) -> qtyGabungan.merge(id, qty, Integer::sum));
+        }
+        Map<Long, ProdukRepository.StokBerubah> stokGabungan = produkRepository.kurangiStokBatch(session, qtyGabungan);
+        pastikanStokCukup(daftar, stokGabungan);
+        
+        // Posisi stok dan terjual sebelum penjualan pertama di batch
+        Map<Long, int[]> posisi = new HashMap<>();
+        stokGabungan.forEach((id, stok) -> posisi.put(id,
+                new int[] { stok.getStokSebelum(), stok.getTerjual() - qtyGabungan.get(id) }));
+        
+        for (Transaksi transaksi : daftar) {
+            Map<Long, Integer> qtyPerProduk = hitungQtyPerProduk(transaksi);
+            Map<Long, ProdukRepository.StokBerubah> stokBerubah = new HashMap<>();
+            for (Map.Entry<Long, Integer> entry : qtyPerProduk.entrySet()) {
+                int[] p = posisi.get(entry.getKey());
+                p[0] -= entry.getValue();
+                p[1] += entry.getValue();
+                stokBerubah.put(entry.getKey(), new ProdukRepository.StokBerubah(p[0] + entry.getValue(), p[0], p[1]));
+            }
+            catatStokKeluar(session, transaksi, qtyPerProduk, stokBerubah);
+        }
+        
+        laporanHarianRepository.catatPenjualan(session, daftar);
+    }
+    
+    private Map<Long, Integer> hitungQtyPerProduk(Transaksi transaksi) {
+        Map<Long, Integer> qtyPerProduk = new LinkedHashMap<>();
+        for (DetailTransaksi detail : transaksi.getDetailTransaksiList()) {
+            qtyPerProduk.merge(detail.getProduk().getId(), detail.getQty(), Integer::sum);
+        }
+        return qtyPerProduk;
+    }
+    
+    private void pastikanStokCukup(List<Transaksi> daftar, Map<Long, ProdukRepository.StokBerubah> stokBerubah) {
+        Set<String> kurang = new LinkedHashSet<>();
+        for (Transaksi transaksi : daftar) {
+            for (DetailTransaksi detail : transaksi.getDetailTransaksiList()) {
+                if (!stokBerubah.containsKey(detail.getProduk().getId())) {
+                    kurang.add(detail.getKodeProduk());
                 }
             }
-            return String.format("%s%04d", prefix, nextNumber);
+        }
+        if (!kurang.isEmpty()) {
+            throw new IllegalStateException("Stok tidak mencukupi untuk produk " + String.join(", ", kurang));
         }
     }
     
+    /**
+     * History stok, data produk di keranjang dan poin pelanggan untuk satu penjualan
+     */
+    private void catatStokKeluar(Session session, Transaksi transaksi, Map<Long, Integer> qtyPerProduk,
+                                 Map<Long, ProdukRepository.StokBerubah> stokBerubah) {
+        // Catat history stok dengan nilai sebelum/sesudah dari database
+        for (Map.Entry<Long, Integer> entry : qtyPerProduk.entrySet()) {
+            ProdukRepository.StokBerubah stok = stokBerubah.get(entry.getKey());
+            StokHistory history = new StokHistory(session.getReference(Produk.class, entry.getKey()), "KELUAR",
+                    entry.getValue(), stok.getStokSebelum(), stok.getStokSesudah());
+            history.setReferensiTipe("TRANSAKSI");
+            history.setReferensiId(transaksi.getId());
+            history.setReferensiNomor(transaksi.getNomorTransaksi());
+            history.setKeterangan("Penjualan");
+            history.setUser(transaksi.getKasir());
+            session.persist(history);
+        }
+        
+        // Samakan data produk di keranjang dengan database
+        for (DetailTransaksi detail : transaksi.getDetailTransaksiList()) {
+            ProdukRepository.StokBerubah stok = stokBerubah.get(detail.getProduk().getId());
+            detail.getProduk().setStok(stok.getStokSesudah());
+            detail.getProduk().setTerjual(stok.getTerjual());
+        }
+        
+        // Update poin dan total belanja pelanggan member
+        if (transaksi.getPelanggan() != null && transaksi.getPelanggan().isMember()) {
+            Pelanggan pelanggan = session.get(Pelanggan.class, transaksi.getPelanggan().getId());
+            if (pelanggan != null) {
+                pelanggan.tambahPoin(transaksi.getPoinDidapat());
+                pelanggan.tambahTransaksi(transaksi.getGrandTotal());
+                transaksi.setPelanggan(pelanggan);
+            }
+        }
+    }
+    
+    /**
+     * Void transaksi yang sudah selesai dalam satu session dan satu commit:
+     * status transaksi, pengembalian stok, history stok, poin pelanggan dan rollup harian.
+     * @return stok sebelum dan sesudah per produk id yang dikembalikan
+     */
+    public Map<Long, ProdukRepository.StokBerubah> batalkanPenjualan(Long transaksiId, String alasan, User supervisor) {
+        try (Session session = getSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                // Kunci baris transaksi supaya void tidak berjalan dua kali
+                Transaksi transaksi = session.get(Transaksi.class, transaksiId, LockMode.PESSIMISTIC_WRITE);
+                if (transaksi == null) {
+                    throw new IllegalArgumentException("Transaksi tidak ditemukan");
+                }
+                if (!AppConfig.STATUS_COMPLETED.equals(transaksi.getStatus())) {
+                    throw new IllegalStateException("Hanya transaksi yang sudah selesai yang dapat di-void");
+                }
+                
+                Map<Long, Integer> qtyPerProduk = new LinkedHashMap<>();
+                for (DetailTransaksi detail : transaksi.getDetailTransaksiList()) {
+                    if (detail.getProduk() != null) {
+                        qtyPerProduk.merge(detail.getProduk().getId(), detail.getQty(), Integer::sum);
+                    }
+                }
+                Map<Long, ProdukRepository.StokBerubah> stokBerubah = produkRepository.tambahStokBatch(session, qtyPerProduk);
+                
+                for (Map.Entry<Long, ProdukRepository.StokBerubah> entry : stokBerubah.entrySet()) {
+                    ProdukRepository.StokBerubah stok = entry.getValue();
+                    StokHistory history = new StokHistory(session.getReference(Produk.class, entry.getKey()), "RETUR",
+                            qtyPerProduk.get(entry.getKey()), stok.getStokSebelum(), stok.getStokSesudah());
+                    history.setReferensiTipe("VOID_TRANSAKSI");
+                    history.setReferensiId(transaksi.getId());
+                    history.setReferensiNomor(transaksi.getNomorTransaksi());
+                    history.setKeterangan("Void transaksi: " + alasan);
+                    history.setUser(supervisor);
+                    session.persist(history);
+                }
+                
+                // Kurangi poin pelanggan jika ada
+                Pelanggan pelanggan = transaksi.getPelanggan();
+                if (pelanggan != null && transaksi.getPoinDidapat() != null && transaksi.getPoinDidapat() > 0) {
+                    pelanggan.kurangiPoin(transaksi.getPoinDidapat());
+                }
+                
+                transaksi.setStatus(AppConfig.STATUS_CANCELLED);
+                transaksi.setAlasanPembatalan(alasan);
+                transaksi.setDibatalkanOleh(supervisor.getId());
+                transaksi.setTanggalPembatalan(LocalDateTime.now());
+                
+                laporanHarianRepository.catatPembatalan(session, transaksi);
+                
+                transaction.commit();
+                logger.debug("Voided penjualan: {}", transaksi.getNomorTransaksi());
+                return stokBerubah;
+            } catch (Exception e) {
+                rollbackSetelah(transaction, e);
+                logger.error("Error voiding transaksi {}: {}", transaksiId, e.getMessage(), e);
+                throw new RuntimeException("Gagal membatalkan transaksi: " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Generate nomor transaksi baru
+     */
+    public String generateNomorTransaksi() {
+        return generateNomor(AppConfig.TRANSACTION_PREFIX,
+                "SELECT MAX(t.nomorTransaksi) FROM Transaksi t WHERE t.nomorTransaksi LIKE :prefix");
+    }
+    
+    /**
+     * Generate nomor invoice (INVyyyyMMddNNNN)
+     */
+    public String generateNomorInvoice() {
+        return generateNomor(AppConfig.INVOICE_PREFIX,
+                "SELECT MAX(t.nomorInvoice) FROM Transaksi t WHERE t.nomorInvoice LIKE :prefix");
+    }
+    
+    private String generateNomor(String prefixDasar, String hqlTerakhir) {
+        String prefix = prefixDasar + LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
+        long nomor = nomorAllocator.next(prefix, () -> cariNomorTerakhir(hqlTerakhir, prefix));
+        return String.format("%s%04d", prefix, nomor);
+    }
+    
     /**
      * Hitung total penjualan hari ini
      */
@@ -177,6 +440,72 @@ public class TransaksiRepository extends GenericRepository<Transaksi, Long> {
         }
     }
     
+    /**
+     * Ringkasan transaksi per status dalam periode, dihitung dengan satu query agregat
+     * di dalam session milik pemanggil
+     * @return ringkasan per status (SELESAI, DIBATALKAN, ...)
+     */
+    public Map<String, RingkasanStatus> hitungRingkasanPerStatus(Session session, LocalDate startDate, LocalDate endDate) {
+        String hql = "SELECT t.status, COUNT(t), COALESCE(SUM(t.grandTotal), 0), COALESCE(SUM(t.diskonNominal), 0), "
+                + "COALESCE(SUM(t.ppnNominal), 0), COALESCE(SUM(t.totalQty), 0), "
+                + "SUM(CASE WHEN p.kodeMember IS NOT NULL AND p.kodeMember <> '' THEN 1 ELSE 0 END) "
+                + "FROM Transaksi t LEFT JOIN t.pelanggan p "
+                + "WHERE t.tanggalTransaksi >= :start AND t.tanggalTransaksi < :end "
+                + "GROUP BY t.status";
+        var query = session.createQuery(hql, Object[].class);
+        query.setParameter("start", startDate.atStartOfDay());
+        query.setParameter("end", endDate.plusDays(1).atStartOfDay());
+        
+        Map<String, RingkasanStatus> hasil = new LinkedHashMap<>();
+        for (Object[] row : query.getResultList()) {
+            hasil.put((String) row[0], new RingkasanStatus(
+                    ((Number) row[1]).longValue(),
+                    (BigDecimal) row[2],
+                    (BigDecimal) row[3],
+                    (BigDecimal) row[4],
+                    ((Number) row[5]).longValue(),
+                    ((Number) row[6]).longValue()));
+        }
+        return hasil;
+    }
+    
+    /**
+     * Uang yang diterima per metode pembayaran (pembayaran dikurangi kembalian)
+     * dalam periode, di dalam session milik pemanggil.
+     * Checkout mencatat satu pembayaran per transaksi, jadi kembalian transaksi
+     * dikurangkan dari metode pembayarannya.
+     */
+    public Map<String, BigDecimal> hitungPenerimaanPerMetode(Session session, LocalDate startDate, LocalDate endDate, String status) {
+        String hql = "SELECT pb.metodePembayaran, COALESCE(SUM(pb.jumlah), 0) - COALESCE(SUM(t.kembalian), 0) "
+                + "FROM Pembayaran pb JOIN pb.transaksi t "
+                + "WHERE t.tanggalTransaksi >= :start AND t.tanggalTransaksi < :end AND t.status = :status "
+                + "GROUP BY pb.metodePembayaran";
+        var query = session.createQuery(hql, Object[].class);
+        query.setParameter("start", startDate.atStartOfDay());
+        query.setParameter("end", endDate.plusDays(1).atStartOfDay());
+        query.setParameter("status", status);
+        
+        Map<String, BigDecimal> hasil = new LinkedHashMap<>();
+        for (Object[] row : query.getResultList()) {
+            hasil.put((String) row[0], (BigDecimal) row[1]);
+        }
+        return hasil;
+    }
+    
+    /**
+     * Total modal (harga modal x qty) barang terjual dalam periode, di dalam session milik pemanggil
+     */
+    public BigDecimal hitungTotalModal(Session session, LocalDate startDate, LocalDate endDate, String status) {
+        String hql = "SELECT COALESCE(SUM(COALESCE(d.hargaModal, 0) * d.qty), 0) "
+                + "FROM DetailTransaksi d JOIN d.transaksi t "
+                + "WHERE t.tanggalTransaksi >= :start AND t.tanggalTransaksi < :end AND t.status = :status";
+        var query = session.createQuery(hql, BigDecimal.class);
+        query.setParameter("start", startDate.atStartOfDay());
+        query.setParameter("end", endDate.plusDays(1).atStartOfDay());
+        query.setParameter("status", status);
+        return query.getSingleResult();
+    }
+    
     /**
      * Batalkan transaksi
      */
@@ -206,4 +535,33 @@ public class TransaksiRepository extends GenericRepository<Transaksi, Long> {
             return query.getResultList();
         }
     }
+    
+    /**
+     * Agregat transaksi untuk satu status
+     */
+    public static class RingkasanStatus {
+        private final long jumlahTransaksi;
+        private final BigDecimal totalPenjualan;
+        private final BigDecimal totalDiskon;
+        private final BigDecimal totalPPN;
+        private final long jumlahItem;
+        private final long transaksiMember;
+        
+        public RingkasanStatus(long jumlahTransaksi, BigDecimal totalPenjualan, BigDecimal totalDiskon,
+                               BigDecimal totalPPN, long jumlahItem, long transaksiMember) {
+            this.jumlahTransaksi = jumlahTransaksi;
+            this.totalPenjualan = totalPenjualan;
+            this.totalDiskon = totalDiskon;
+            this.totalPPN = totalPPN;
+            this.jumlahItem = jumlahItem;
+            this.transaksiMember = transaksiMember;
+        }
+        
+        public long getJumlahTransaksi() { return jumlahTransaksi; }
+        public BigDecimal getTotalPenjualan() { return totalPenjualan; }
+        public BigDecimal getTotalDiskon() { return totalDiskon; }
+        public BigDecimal getTotalPPN() { return totalPPN; }
+        public long getJumlahItem() { return jumlahItem; }
+        public long getTransaksiMember() { return transaksiMember; }
+    }
 }
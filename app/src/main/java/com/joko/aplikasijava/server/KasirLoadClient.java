@@ -0,0 +1,250 @@
+package com.joko.aplikasijava.server;
+
+import com.joko.aplikasijava.config.AppConfig;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Klien beban sederhana untuk KasirServer. Menjalankan beberapa terminal
+ * tiruan (satu thread virtual dan satu koneksi per terminal) yang
+ * masing-masing mengulang MULAI, SCAN beberapa item dan BAYAR.
+ *
+ * Contoh: --host localhost --port 7070 --terminal 50 --transaksi 20 --item 3
+ * Opsi lain: --user, --password, --produk KODE1,KODE2 (default TERLARIS dari server)
+ */
+public class KasirLoadClient {
+    
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final int jumlahTerminal;
+    private final int transaksiPerTerminal;
+    private final int itemPerTransaksi;
+    private List<String> kodeProduk;
+    
+    private final LongAdder berhasil = new LongAdder();
+    private final LongAdder gagal = new LongAdder();
+    private final LongAdder totalLatensiNanos = new LongAdder();
+    private final AtomicLong maksLatensiNanos = new AtomicLong();
+    
+    public KasirLoadClient(String host, int port, String username, String password,
+                           int jumlahTerminal, int transaksiPerTerminal, int itemPerTransaksi,
+                           List<String> kodeProduk) {
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.jumlahTerminal = jumlahTerminal;
+        this.transaksiPerTerminal = transaksiPerTerminal;
+        this.itemPerTransaksi = itemPerTransaksi;
+        this.kodeProduk = kodeProduk;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String produk = opsi(args, "--produk", "");
+        KasirLoadClient client = new KasirLoadClient(
+                opsi(args, "--host", "localhost"),
+                Integer.parseInt(opsi(args, "--port", String.valueOf(AppConfig.SERVER_PORT))),
+                opsi(args, "--user", "admin"),
+                opsi(args, "--password", "admin123"),
+                Integer.parseInt(opsi(args, "--terminal", "10")),
+                Integer.parseInt(opsi(args, "--transaksi", "20")),
+                Integer.parseInt(opsi(args, "--item", "3")),
+                produk.isEmpty() ? null : Arrays.asList(produk.split(",")));
+        System.out.println(client.jalankan());
+    }
+    
+    /**
+     * Jalankan seluruh terminal dan tunggu sampai selesai
+     */
+    public Hasil jalankan() throws IOException {
+        if (kodeProduk == null || kodeProduk.isEmpty()) {
+            kodeProduk = ambilProdukTerlaris();
+        }
+        if (kodeProduk.isEmpty()) {
+            throw new IllegalStateException("Tidak ada produk untuk dipakai klien beban");
+        }
+        
+        long mulai = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 1; i <= jumlahTerminal; i++) {
+                String terminalId = "LOAD-" + i;
+                executor.execute(() -> jalankanTerminal(terminalId));
+            }
+        }
+        long durasiNanos = System.nanoTime() - mulai;
+        
+        long jumlahBerhasil = berhasil.sum();
+        return new Hasil(jumlahTerminal, jumlahBerhasil, gagal.sum(), durasiNanos,
+                jumlahBerhasil > 0 ? totalLatensiNanos.sum() / jumlahBerhasil : 0,
+                maksLatensiNanos.get());
+    }
+    
+    private List<String> ambilProdukTerlaris() throws IOException {
+        try (Koneksi koneksi = new Koneksi(host, port)) {
+            koneksi.wajibOk("LOGIN " + username + " " + password);
+            List<String> kode = new ArrayList<>();
+            for (String baris : koneksi.kirimDaftar("TERLARIS " + AppConfig.DEFAULT_PAGE_SIZE)) {
+                String[] kolom = baris.split("\t");
+                // Lewati produk yang stoknya sudah habis
+                if (kolom.length > 3 && Integer.parseInt(kolom[3]) > 0) {
+                    kode.add(kolom[0]);
+                }
+            }
+            return kode;
+        }
+    }
+    
+    private void jalankanTerminal(String terminalId) {
+        int dicoba = 0;
+        try (Koneksi koneksi = new Koneksi(host, port)) {
+            koneksi.wajibOk("LOGIN " + username + " " + password + " " + terminalId);
+            for (; dicoba < transaksiPerTerminal; dicoba++) {
+                long mulai = System.nanoTime();
+                try {
+                    checkout(koneksi);
+                    long latensi = System.nanoTime() - mulai;
+                    berhasil.increment();
+                    totalLatensiNanos.add(latensi);
+                    maksLatensiNanos.accumulateAndGet(latensi, Math::max);
+                } catch (IllegalStateException e) {
+                    gagal.increment();
+                    koneksi.kirim("BATAL");
+                }
+            }
+            koneksi.kirim("QUIT");
+        } catch (IOException | IllegalStateException e) {
+            // Sisa transaksi terminal ini tidak sempat dijalankan
+            gagal.add(transaksiPerTerminal - dicoba);
+            System.err.println("Terminal " + terminalId + " gagal: " + e.getMessage());
+        }
+    }
+    
+    private void checkout(Koneksi koneksi) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        koneksi.wajibOk("MULAI");
+        String total = "0";
+        for (int i = 0; i < itemPerTransaksi; i++) {
+            String kode = kodeProduk.get(random.nextInt(kodeProduk.size()));
+            String[] kolom = koneksi.wajibOk("SCAN " + kode + " 1").split("\t");
+            total = kolom[kolom.length - 1];
+        }
+        koneksi.wajibOk("BAYAR TUNAI " + total);
+    }
+    
+    private static String opsi(String[] args, String nama, String nilaiDefault) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(nama)) {
+                return args[i + 1];
+            }
+        }
+        return nilaiDefault;
+    }
+    
+    /**
+     * Satu koneksi terminal ke KasirServer
+     */
+    static class Koneksi implements Closeable {
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final BufferedWriter writer;
+        
+        Koneksi(String host, int port) throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+        
+        String kirim(String perintah) throws IOException {
+            writer.write(perintah);
+            writer.write('\n');
+            writer.flush();
+            String jawaban = reader.readLine();
+            if (jawaban == null) {
+                throw new IOException("Koneksi ditutup server");
+            }
+            return jawaban;
+        }
+        
+        /**
+         * Kirim perintah dan kembalikan data setelah "OK"
+         * @throws IllegalStateException jika server menjawab ERR
+         */
+        String wajibOk(String perintah) throws IOException {
+            String jawaban = kirim(perintah);
+            if (!jawaban.startsWith("OK")) {
+                throw new IllegalStateException(perintah.split(" ")[0] + ": " + jawaban);
+            }
+            return jawaban.length() > 3 ? jawaban.substring(3) : "";
+        }
+        
+        List<String> kirimDaftar(String perintah) throws IOException {
+            int jumlah = Integer.parseInt(wajibOk(perintah).trim());
+            List<String> baris = new ArrayList<>(jumlah);
+            for (int i = 0; i < jumlah; i++) {
+                baris.add(reader.readLine());
+            }
+            return baris;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+    
+    /**
+     * Ringkasan hasil uji beban
+     */
+    public static class Hasil {
+        private final int jumlahTerminal;
+        private final long berhasil;
+        private final long gagal;
+        private final long durasiNanos;
+        private final long rataLatensiNanos;
+        private final long maksLatensiNanos;
+        
+        Hasil(int jumlahTerminal, long berhasil, long gagal, long durasiNanos,
+              long rataLatensiNanos, long maksLatensiNanos) {
+            this.jumlahTerminal = jumlahTerminal;
+            this.berhasil = berhasil;
+            this.gagal = gagal;
+            this.durasiNanos = durasiNanos;
+            this.rataLatensiNanos = rataLatensiNanos;
+            this.maksLatensiNanos = maksLatensiNanos;
+        }
+        
+        public long getBerhasil() { return berhasil; }
+        public long getGagal() { return gagal; }
+        public long getDurasiNanos() { return durasiNanos; }
+        
+        public double getTransaksiPerDetik() {
+            return durasiNanos > 0 ? berhasil * 1_000_000_000.0 / durasiNanos : 0;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Terminal: %d | Berhasil: %d | Gagal: %d | Durasi: %.2f s | "
+                            + "Throughput: %.1f trx/s | Latensi rata-rata: %.2f ms | Maks: %.2f ms",
+                    jumlahTerminal, berhasil, gagal, durasiNanos / 1e9, getTransaksiPerDetik(),
+                    rataLatensiNanos / 1e6, maksLatensiNanos / 1e6);
+        }
+    }
+}
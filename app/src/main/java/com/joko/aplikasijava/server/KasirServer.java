@@ -0,0 +1,228 @@
+package com.joko.aplikasijava.server;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.models.User;
+import com.joko.aplikasijava.services.CheckoutSessionRegistry;
+import com.joko.aplikasijava.services.PelangganService;
+import com.joko.aplikasijava.services.ProdukService;
+import com.joko.aplikasijava.services.TransaksiService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server checkout tanpa tampilan (headless) untuk terminal kasir tipis.
+ * Setiap koneksi dilayani satu thread virtual, jadi satu mesin back-office
+ * bisa melayani banyak terminal sekaligus tanpa pool thread besar.
+ *
+ * Protokol berbasis baris teks UTF-8. Setiap permintaan satu baris
+ * "PERINTAH arg1 arg2 ..." dan dijawab "OK data" atau "ERR pesan".
+ * Kolom data dipisah tab. Jawaban berupa daftar diawali "OK n"
+ * lalu diikuti n baris data. Daftar perintah ada di KoneksiKasir.
+ *
+ * Setiap terminal dipegang satu kasir dan satu koneksi. Kasir lain yang login
+ * ke terminal yang masih dipakai (atau keranjangnya ditinggal) ditolak, kecuali
+ * meminta AMBIL; kasir yang sama boleh menyambung ulang dari koneksi baru.
+ */
+public class KasirServer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KasirServer.class);
+    
+    private final String host;
+    private final int port;
+    private final TransaksiService transaksiService;
+    private final ProdukService produkService;
+    private final PelangganService pelangganService;
+    private final AtomicLong nomorKoneksi = new AtomicLong();
+    private final CountDownLatch berhenti = new CountDownLatch(1);
+    private final ConcurrentHashMap<String, Pemegang> pemegangTerminal = new ConcurrentHashMap<>();
+    
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+    private volatile boolean running;
+    
+    public KasirServer(int port, TransaksiService transaksiService,
+                       ProdukService produkService, PelangganService pelangganService) {
+        this(AppConfig.SERVER_HOST, port, transaksiService, produkService, pelangganService);
+    }
+    
+    /**
+     * @param host alamat yang didengarkan, misalnya 127.0.0.1 jika terminal berjalan di mesin yang sama
+     */
+    public KasirServer(String host, int port, TransaksiService transaksiService,
+                       ProdukService produkService, PelangganService pelangganService) {
+        this.host = host;
+        this.port = port;
+        this.transaksiService = transaksiService;
+        this.produkService = produkService;
+        this.pelangganService = pelangganService;
+    }
+    
+    /**
+     * Buka port dan mulai menerima koneksi di thread terpisah
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(host, port));
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal membuka port " + host + ":" + port + ": " + e.getMessage(), e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        running = true;
+        Thread.ofPlatform().name("kasir-server-acceptor").start(this::terimaKoneksi);
+        logger.info("Server kasir berjalan di {}:{}", host, getPort());
+    }
+    
+    /**
+     * Tutup port dan tunggu koneksi yang sedang berjalan selesai
+     */
+    public void stop() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                logger.warn("Gagal menutup server socket: {}", e.getMessage());
+            }
+        }
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Masih ada koneksi yang belum selesai saat server dihentikan");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Server kasir dihentikan");
+        berhenti.countDown();
+    }
+    
+    /**
+     * Blok sampai server dihentikan
+     */
+    public void tunggu() throws InterruptedException {
+        berhenti.await();
+    }
+    
+    /**
+     * Port yang benar-benar dipakai (berguna jika dibuka dengan port 0)
+     */
+    public int getPort() {
+        ServerSocket socket = serverSocket;
+        return socket != null ? socket.getLocalPort() : port;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Pasang terminal ke koneksi dan kasir yang login. Terminal yang masih dipegang
+     * kasir lain (koneksinya masih tersambung atau keranjangnya masih ada) ditolak
+     * kecuali ambilAlih. Koneksi lain yang sebelumnya memegang terminal diputus.
+     * @return kasir sebelumnya jika berbeda dari kasir ini (keranjangnya harus ditutup), atau null
+     * @throws IllegalStateException jika terminal dipakai kasir lain dan tidak diambil alih
+     */
+    User pegangTerminal(String terminalId, KoneksiKasir koneksi, User kasir, boolean ambilAlih) {
+        Pemegang[] lama = new Pemegang[1];
+        pemegangTerminal.compute(terminalId, (id, pemegang) -> {
+            if (pemegang != null && !Objects.equals(pemegang.kasir.getId(), kasir.getId()) && !ambilAlih
+                    && (pemegang.koneksi != null || CheckoutSessionRegistry.getInstance().cari(id).isPresent())) {
+                throw new IllegalStateException("Terminal " + id + " sedang dipakai " + pemegang.kasir.getNamaLengkap()
+                        + ", login dengan AMBIL untuk mengambil alih");
+            }
+            lama[0] = pemegang;
+            return new Pemegang(kasir, koneksi);
+        });
+        Pemegang sebelumnya = lama[0];
+        if (sebelumnya == null) {
+            return null;
+        }
+        if (sebelumnya.koneksi != null && sebelumnya.koneksi != koneksi) {
+            logger.warn("Terminal {} diambil alih oleh {}, koneksi lama diputus", terminalId, kasir.getUsername());
+            sebelumnya.koneksi.putuskan();
+        }
+        return Objects.equals(sebelumnya.kasir.getId(), kasir.getId()) ? null : sebelumnya.kasir;
+    }
+    
+    /**
+     * Lepas terminal saat koneksi pindah terminal atau putus
+     * @param simpanKeranjang true jika keranjang ditinggal untuk disambung ulang kasir yang sama
+     * @return false jika terminal sudah dipegang koneksi lain
+     */
+    boolean lepasTerminal(String terminalId, KoneksiKasir koneksi, boolean simpanKeranjang) {
+        boolean[] dipegang = new boolean[1];
+        pemegangTerminal.computeIfPresent(terminalId, (id, pemegang) -> {
+            if (pemegang.koneksi != koneksi) {
+                return pemegang;
+            }
+            dipegang[0] = true;
+            return simpanKeranjang ? new Pemegang(pemegang.kasir, null) : null;
+        });
+        return dipegang[0];
+    }
+    
+    /**
+     * Cek koneksi masih memegang terminal (belum diambil alih koneksi lain)
+     */
+    boolean isPemegang(String terminalId, KoneksiKasir koneksi) {
+        Pemegang pemegang = pemegangTerminal.get(terminalId);
+        return pemegang != null && pemegang.koneksi == koneksi;
+    }
+    
+    private void terimaKoneksi() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                String terminalDefault = "NET-" + nomorKoneksi.incrementAndGet();
+                try {
+                    executor.execute(new KoneksiKasir(this, socket, terminalDefault,
+                            transaksiService, produkService, pelangganService));
+                } catch (RejectedExecutionException e) {
+                    // Server sedang berhenti
+                    socket.close();
+                }
+            } catch (SocketException e) {
+                if (running) {
+                    logger.error("Error menerima koneksi: {}", e.getMessage(), e);
+                }
+            } catch (IOException e) {
+                logger.error("Error menerima koneksi: {}", e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Kasir yang memegang terminal dan koneksinya (null jika koneksi putus dan keranjang ditinggal)
+     */
+    private static final class Pemegang {
+        final User kasir;
+        final KoneksiKasir koneksi;
+        
+        Pemegang(User kasir, KoneksiKasir koneksi) {
+            this.kasir = kasir;
+            this.koneksi = koneksi;
+        }
+    }
+}
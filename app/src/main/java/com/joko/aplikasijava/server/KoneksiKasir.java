@@ -0,0 +1,394 @@
+package com.joko.aplikasijava.server;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.models.DetailTransaksi;
+import com.joko.aplikasijava.models.Pelanggan;
+import com.joko.aplikasijava.models.Produk;
+import com.joko.aplikasijava.models.Transaksi;
+import com.joko.aplikasijava.models.User;
+import com.joko.aplikasijava.services.AuthService;
+import com.joko.aplikasijava.services.PelangganService;
+import com.joko.aplikasijava.services.ProdukService;
+import com.joko.aplikasijava.services.TransaksiService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Melayani satu koneksi terminal pada KasirServer.
+ *
+ * Perintah (selain PING, LOGIN dan QUIT wajib login lebih dulu):
+ *   PING                           -> OK PONG
+ *   LOGIN user password [terminal [AMBIL]] -> OK terminal, nama kasir
+ *   MULAI                          -> OK nomor transaksi
+ *   SCAN kode|barcode [qty]        -> OK kode, nama, qty, subtotal, grand total
+ *   QTY no qty / HAPUS no          -> OK grand total (no mulai dari 1)
+ *   MEMBER kode|telepon            -> OK kode member, nama, tipe member, grand total
+ *   DISKON persen                  -> OK grand total
+ *   KERANJANG                      -> OK n, lalu n baris item
+ *   BAYAR metode jumlah [ref]      -> OK nomor transaksi, grand total, kembalian
+ *   BATAL                          -> OK
+ *   PRODUK kode|barcode            -> OK kode, nama, harga, stok
+ *   CARI / SARAN kata kunci        -> OK n, lalu n baris produk
+ *   TERLARIS [n]                   -> OK n, lalu n baris produk
+ *   PELANGGAN kata kunci           -> OK n, lalu n baris pelanggan
+ *   QUIT                           -> OK BYE
+ *
+ * Jika LOGIN menyebut terminal, keranjang tetap disimpan saat koneksi putus
+ * sehingga kasir yang sama bisa menyambung ulang. Tanpa nama terminal, session
+ * ditutup bersama koneksinya. Terminal yang dipegang kasir lain hanya bisa
+ * dipakai dengan AMBIL: keranjang kasir sebelumnya dibatalkan dan koneksinya diputus.
+ *
+ * Baris yang lebih panjang dari AppConfig.SERVER_MAKS_BARIS dijawab ERR lalu
+ * koneksi ditutup, sehingga terminal tidak bisa menghabiskan memori server.
+ */
+class KoneksiKasir implements Runnable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KoneksiKasir.class);
+    
+    private final KasirServer server;
+    private final Socket socket;
+    private final TransaksiService transaksiService;
+    private final ProdukService produkService;
+    private final PelangganService pelangganService;
+    private final AuthService authService = new AuthService();
+    
+    private String terminalId;
+    private boolean terminalTetap;
+    private User kasir;
+    private volatile boolean aktif = true;
+    
+    KoneksiKasir(KasirServer server, Socket socket, String terminalDefault, TransaksiService transaksiService,
+                 ProdukService produkService, PelangganService pelangganService) {
+        this.server = server;
+        this.socket = socket;
+        this.terminalId = terminalDefault;
+        this.transaksiService = transaksiService;
+        this.produkService = produkService;
+        this.pelangganService = pelangganService;
+    }
+    
+    @Override
+    public void run() {
+        logger.info("Koneksi terminal dari {}", socket.getRemoteSocketAddress());
+        try (Socket s = socket;
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter writer = new BufferedWriter(
+                     new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setSoTimeout((int) TimeUnit.MINUTES.toMillis(AppConfig.SESSION_TIMEOUT_MINUTES));
+            s.setTcpNoDelay(true);
+            
+            String baris;
+            while (aktif && (baris = bacaBaris(reader)) != null) {
+                if (baris.length() > AppConfig.SERVER_MAKS_BARIS) {
+                    logger.warn("Koneksi terminal {} ditutup: baris melebihi {} karakter", terminalId, AppConfig.SERVER_MAKS_BARIS);
+                    writer.write(err("Baris melebihi " + AppConfig.SERVER_MAKS_BARIS + " karakter").get(0));
+                    writer.write('\n');
+                    writer.flush();
+                    break;
+                }
+                if (baris.isBlank()) {
+                    continue;
+                }
+                for (String jawaban : proses(baris)) {
+                    writer.write(jawaban);
+                    writer.write('\n');
+                }
+                writer.flush();
+            }
+        } catch (SocketTimeoutException e) {
+            logger.info("Koneksi terminal {} ditutup karena idle", terminalId);
+        } catch (IOException e) {
+            if (aktif) {
+                logger.warn("Koneksi terminal {} terputus: {}", terminalId, e.getMessage());
+            }
+        } finally {
+            // Terminal yang sudah diambil alih koneksi lain tidak disentuh
+            if (kasir != null && server.lepasTerminal(terminalId, this, terminalTetap) && !terminalTetap) {
+                transaksiService.tutupSession(terminalId);
+            }
+        }
+    }
+    
+    /**
+     * Putuskan koneksi dari thread lain (terminal diambil alih)
+     */
+    void putuskan() {
+        aktif = false;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.warn("Gagal menutup koneksi terminal {}: {}", terminalId, e.getMessage());
+        }
+    }
+    
+    /**
+     * Baca satu baris tanpa batas baris baru; berhenti setelah SERVER_MAKS_BARIS + 1
+     * karakter supaya baris yang terlalu panjang tidak ditampung seluruhnya
+     * @return baris tanpa akhir baris, atau null jika koneksi ditutup
+     */
+    private static String bacaBaris(BufferedReader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                int panjang = sb.length();
+                if (panjang > 0 && sb.charAt(panjang - 1) == '\r') {
+                    sb.setLength(panjang - 1);
+                }
+                return sb.toString();
+            }
+            sb.append((char) c);
+            if (sb.length() > AppConfig.SERVER_MAKS_BARIS) {
+                return sb.toString();
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+    
+    /**
+     * Proses satu baris perintah
+     * @return baris-baris jawaban
+     */
+    List<String> proses(String baris) {
+        String[] bagian = baris.trim().split("\\s+", 2);
+        String perintah = bagian[0].toUpperCase();
+        String sisa = bagian.length > 1 ? bagian[1].trim() : "";
+        
+        try {
+            switch (perintah) {
+                case "PING":
+                    return ok("PONG");
+                case "LOGIN":
+                    return login(argumen(sisa, 2));
+                case "QUIT":
+                    aktif = false;
+                    return ok("BYE");
+                default:
+                    break;
+            }
+            
+            if (kasir == null) {
+                return err("Belum login");
+            }
+            if (!server.isPemegang(terminalId, this)) {
+                aktif = false;
+                return err("Terminal " + terminalId + " sudah diambil alih koneksi lain");
+            }
+            
+            switch (perintah) {
+                case "MULAI":
+                    return ok(transaksiService.mulaiTransaksiBaru(terminalId, kasir).getNomorTransaksi());
+                case "SCAN":
+                    return scan(argumen(sisa, 1));
+                case "QTY": {
+                    String[] arg = argumen(sisa, 2);
+                    transaksiService.updateQtyKeranjang(terminalId, nomorItem(arg[0]), angka(arg[1]));
+                    return ok(grandTotal());
+                }
+                case "HAPUS":
+                    transaksiService.hapusDariKeranjang(terminalId, nomorItem(argumen(sisa, 1)[0]));
+                    return ok(grandTotal());
+                case "MEMBER":
+                    return member(argumen(sisa, 1)[0]);
+                case "DISKON":
+                    transaksiService.setDiskon(terminalId, nominal(argumen(sisa, 1)[0]), BigDecimal.ZERO);
+                    return ok(grandTotal());
+                case "KERANJANG":
+                    return keranjang();
+                case "BAYAR":
+                    return bayar(argumen(sisa, 2));
+                case "BATAL":
+                    transaksiService.batalkanTransaksiAktif(terminalId);
+                    return ok();
+                case "PRODUK": {
+                    Optional<Produk> produk = produkService.getProdukByKodeOrBarcode(argumen(sisa, 1)[0]);
+                    return produk.isPresent() ? ok(kolom(produk.get())) : err("Produk tidak ditemukan");
+                }
+                case "CARI":
+                    return daftarProduk(produkService.cariProduk(wajib(sisa)));
+                case "SARAN":
+                    return daftarProduk(produkService.autocompleteProduk(wajib(sisa)));
+                case "TERLARIS":
+                    return daftarProduk(produkService.getProdukTerlaris(
+                            sisa.isEmpty() ? AppConfig.DEFAULT_PAGE_SIZE : angka(sisa)));
+                case "PELANGGAN":
+                    return daftarPelanggan(pelangganService.cariPelanggan(wajib(sisa)));
+                default:
+                    return err("Perintah tidak dikenal: " + perintah);
+            }
+        } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException e) {
+            return err(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error perintah {} di terminal {}: {}", perintah, terminalId, e.getMessage(), e);
+            return err(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+    
+    private List<String> login(String[] arg) {
+        User user = authService.login(arg[0], arg[1]);
+        if (user == null) {
+            return err("Username atau password salah");
+        }
+        String terminalBaru = arg.length > 2 ? arg[2] : terminalId;
+        boolean ambilAlih = arg.length > 3 && "AMBIL".equalsIgnoreCase(arg[3]);
+        
+        // Pegang terminal baru dulu; jika ditolak koneksi tetap di terminal lama
+        User kasirSebelumnya = server.pegangTerminal(terminalBaru, this, user, ambilAlih);
+        if (kasirSebelumnya != null) {
+            logger.warn("Keranjang {} di terminal {} dibatalkan, terminal diambil alih {}",
+                    kasirSebelumnya.getUsername(), terminalBaru, user.getUsername());
+            transaksiService.tutupSession(terminalBaru);
+        }
+        if (kasir != null && !terminalBaru.equals(terminalId)
+                && server.lepasTerminal(terminalId, this, terminalTetap) && !terminalTetap) {
+            transaksiService.tutupSession(terminalId);
+        }
+        terminalTetap = arg.length > 2 || terminalTetap;
+        terminalId = terminalBaru;
+        kasir = user;
+        return ok(terminalId, user.getNamaLengkap());
+    }
+    
+    private List<String> scan(String[] arg) {
+        int qty = arg.length > 1 ? angka(arg[1]) : 1;
+        DetailTransaksi detail = transaksiService.tambahKeKeranjang(terminalId, arg[0], qty);
+        return ok(detail.getKodeProduk(), detail.getNamaProduk(), String.valueOf(detail.getQty()),
+                detail.getSubtotal().toPlainString(), grandTotal());
+    }
+    
+    private List<String> member(String kodeOrTelepon) {
+        transaksiService.setPelangganByKode(terminalId, kodeOrTelepon);
+        Pelanggan pelanggan = transaksiService.getTransaksiAktif(terminalId).getPelanggan();
+        return ok(pelanggan.getKodeMember(), pelanggan.getNama(), pelanggan.getTipeMember(), grandTotal());
+    }
+    
+    private List<String> keranjang() {
+        List<DetailTransaksi> items = transaksiService.getKeranjang(terminalId);
+        List<String> jawaban = ok(String.valueOf(items.size()));
+        int no = 1;
+        for (DetailTransaksi detail : items) {
+            jawaban.add(gabung(String.valueOf(no++), detail.getKodeProduk(), detail.getNamaProduk(),
+                    String.valueOf(detail.getQty()), detail.getHargaSatuan().toPlainString(),
+                    detail.getSubtotal().toPlainString()));
+        }
+        return jawaban;
+    }
+    
+    private List<String> bayar(String[] arg) {
+        String noReferensi = arg.length > 2 ? arg[2] : null;
+        Transaksi transaksi = transaksiService.prosesPembayaran(terminalId, arg[0].toUpperCase(),
+                nominal(arg[1]), noReferensi);
+        return ok(transaksi.getNomorTransaksi(), transaksi.getGrandTotal().toPlainString(),
+                transaksi.getKembalian().toPlainString());
+    }
+    
+    private List<String> daftarProduk(List<Produk> produkList) {
+        List<String> jawaban = ok(String.valueOf(produkList.size()));
+        for (Produk produk : produkList) {
+            jawaban.add(gabung(kolom(produk)));
+        }
+        return jawaban;
+    }
+    
+    private List<String> daftarPelanggan(List<Pelanggan> pelangganList) {
+        List<String> jawaban = ok(String.valueOf(pelangganList.size()));
+        for (Pelanggan p : pelangganList) {
+            jawaban.add(gabung(p.getKodeMember(), p.getNama(), p.getNoTelepon(),
+                    p.getTipeMember(), String.valueOf(p.getPoin())));
+        }
+        return jawaban;
+    }
+    
+    private String grandTotal() {
+        Transaksi transaksi = transaksiService.getTransaksiAktif(terminalId);
+        return transaksi != null ? transaksi.getGrandTotal().toPlainString() : "0";
+    }
+    
+    private static String[] kolom(Produk produk) {
+        return new String[] {produk.getKode(), produk.getNama(), produk.getHargaJual().toPlainString(),
+                String.valueOf(produk.getStok())};
+    }
+    
+    private static String[] argumen(String sisa, int minimal) {
+        String[] arg = sisa.isEmpty() ? new String[0] : sisa.split("\\s+");
+        if (arg.length < minimal) {
+            throw new IllegalArgumentException("Argumen kurang, butuh " + minimal);
+        }
+        return arg;
+    }
+    
+    private static String wajib(String sisa) {
+        if (sisa.isEmpty()) {
+            throw new IllegalArgumentException("Kata kunci tidak boleh kosong");
+        }
+        return sisa;
+    }
+    
+    private static int angka(String teks) {
+        try {
+            return Integer.parseInt(teks);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bukan angka: " + teks);
+        }
+    }
+    
+    private static int nomorItem(String teks) {
+        return angka(teks) - 1;
+    }
+    
+    private static BigDecimal nominal(String teks) {
+        try {
+            return new BigDecimal(teks);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bukan nominal: " + teks);
+        }
+    }
+    
+    private static List<String> ok(String... kolom) {
+        List<String> jawaban = new ArrayList<>();
+        jawaban.add(kolom.length == 0 ? "OK" : "OK " + gabung(kolom));
+        return jawaban;
+    }
+    
+    private static List<String> err(String pesan) {
+        List<String> jawaban = new ArrayList<>(1);
+        jawaban.add("ERR " + bersihkan(pesan));
+        return jawaban;
+    }
+    
+    private static String gabung(String... kolom) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < kolom.length; i++) {
+            if (i > 0) {
+                sb.append('\t');
+            }
+            sb.append(bersihkan(kolom[i]));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Tab dan baris baru di data diganti spasi agar tidak merusak framing
+     */
+    private static String bersihkan(String teks) {
+        if (teks == null) {
+            return "";
+        }
+        return teks.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+}
@@ -0,0 +1,69 @@
+package com.joko.aplikasijava.services;
+
+import com.joko.aplikasijava.models.DetailTransaksi;
+import com.joko.aplikasijava.models.Transaksi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keranjang dan transaksi aktif milik satu terminal (lajur kasir).
+ * Setiap terminal punya session sendiri sehingga beberapa kasir bisa
+ * dilayani satu proses tanpa berbagi state keranjang. Perubahan isi
+ * session dilakukan oleh TransaksiService sambil memegang kunci session.
+ * Kunci memakai ReentrantLock, bukan synchronized, karena di dalamnya ada
+ * akses database dan thread virtual tidak boleh tertahan di carrier-nya.
+ */
+public class CheckoutSession {
+    
+    private final String terminalId;
+    private final List<DetailTransaksi> keranjang = new ArrayList<>();
+    private Transaksi transaksiAktif;
+    private volatile long terakhirAktif;
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    CheckoutSession(String terminalId) {
+        this.terminalId = terminalId;
+        sentuh();
+    }
+    
+    public String getTerminalId() { return terminalId; }
+    
+    public long getTerakhirAktif() { return terakhirAktif; }
+    
+    Transaksi getTransaksiAktif() { return transaksiAktif; }
+    void setTransaksiAktif(Transaksi transaksiAktif) { this.transaksiAktif = transaksiAktif; }
+    
+    List<DetailTransaksi> getKeranjang() { return keranjang; }
+    
+    /**
+     * Lepas reservasi stok semua item lalu kosongkan keranjang
+     */
+    void kosongkanKeranjang() {
+        ReservasiStok reservasi = ReservasiStok.getInstance();
+        for (DetailTransaksi detail : keranjang) {
+            reservasi.lepas(detail.getProduk().getId(), detail.getQty());
+        }
+        keranjang.clear();
+    }
+    
+    void kunci() {
+        lock.lock();
+    }
+    
+    void lepas() {
+        lock.unlock();
+    }
+    
+    /**
+     * Tandai session baru saja dipakai
+     */
+    void sentuh() {
+        terakhirAktif = System.currentTimeMillis();
+    }
+    
+    boolean isIdle(long sekarang, long batasMillis) {
+        return sekarang - terakhirAktif >= batasMillis;
+    }
+}
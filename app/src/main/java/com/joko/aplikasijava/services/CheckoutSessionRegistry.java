@@ -0,0 +1,133 @@
+package com.joko.aplikasijava.services;
+
+import com.joko.aplikasijava.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daftar CheckoutSession per terminal.
+ * Session yang tidak dipakai lebih lama dari AppConfig.SESSION_TIMEOUT_MINUTES
+ * dikeluarkan oleh thread pembersih, beserta keranjang yang belum dibayar
+ * (reservasi stoknya dilepas).
+ */
+public class CheckoutSessionRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutSessionRegistry.class);
+    private static final CheckoutSessionRegistry INSTANCE =
+            new CheckoutSessionRegistry(TimeUnit.MINUTES.toMillis(AppConfig.SESSION_TIMEOUT_MINUTES));
+    
+    private final ConcurrentHashMap<String, CheckoutSession> sessions = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+    private ScheduledExecutorService pembersih;
+    
+    CheckoutSessionRegistry(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+    
+    public static CheckoutSessionRegistry getInstance() {
+        INSTANCE.mulaiPembersih();
+        return INSTANCE;
+    }
+    
+    /**
+     * Ambil session terminal, buat baru jika belum ada
+     */
+    public CheckoutSession ambil(String terminalId) {
+        CheckoutSession session = sessions.computeIfAbsent(terminalId, CheckoutSession::new);
+        session.sentuh();
+        return session;
+    }
+    
+    /**
+     * Cari session terminal tanpa membuat yang baru
+     */
+    public Optional<CheckoutSession> cari(String terminalId) {
+        return Optional.ofNullable(sessions.get(terminalId));
+    }
+    
+    /**
+     * Tutup session terminal (misalnya saat kasir logout)
+     */
+    public void tutup(String terminalId) {
+        CheckoutSession session = sessions.remove(terminalId);
+        if (session != null) {
+            lepasKeranjang(session);
+        }
+    }
+    
+    /**
+     * Reservasi stok keranjang session yang ditutup dikembalikan
+     */
+    private void lepasKeranjang(CheckoutSession session) {
+        session.kunci();
+        try {
+            session.setTransaksiAktif(null);
+            session.kosongkanKeranjang();
+        } finally {
+            session.lepas();
+        }
+    }
+    
+    /**
+     * Keluarkan session yang sudah idle melewati batas waktu
+     * @return jumlah session yang dikeluarkan
+     */
+    public int bersihkanIdle() {
+        return bersihkanIdle(System.currentTimeMillis());
+    }
+    
+    int bersihkanIdle(long sekarang) {
+        int jumlah = 0;
+        for (String terminalId : new ArrayList<>(sessions.keySet())) {
+            // computeIfPresent atomik terhadap ambil() pada terminal yang sama
+            CheckoutSession[] dikeluarkan = new CheckoutSession[1];
+            sessions.computeIfPresent(terminalId, (id, session) -> {
+                if (session.isIdle(sekarang, timeoutMillis)) {
+                    dikeluarkan[0] = session;
+                    return null;
+                }
+                return session;
+            });
+            if (dikeluarkan[0] != null) {
+                lepasKeranjang(dikeluarkan[0]);
+                jumlah++;
+                logger.info("Session terminal {} ditutup karena idle", terminalId);
+            }
+        }
+        return jumlah;
+    }
+    
+    public List<String> getTerminalAktif() {
+        return new ArrayList<>(sessions.keySet());
+    }
+    
+    public int size() {
+        return sessions.size();
+    }
+    
+    private synchronized void mulaiPembersih() {
+        if (pembersih != null) {
+            return;
+        }
+        pembersih = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkout-session-pembersih");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pembersih.scheduleWithFixedDelay(() -> {
+            try {
+                bersihkanIdle();
+            } catch (Exception e) {
+                logger.error("Error membersihkan session: {}", e.getMessage(), e);
+            }
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+}
@@ -1,14 +1,33 @@
 package com.joko.aplikasijava.services;
 
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.metrics.LaporanEvent;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.metrics.MetrikOperasi;
 import com.joko.aplikasijava.models.*;
 import com.joko.aplikasijava.repositories.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /**
  * Service untuk laporan dan analisis
@@ -16,14 +35,20 @@ import java.util.List;
 public class LaporanService {
     
     private static final Logger logger = LoggerFactory.getLogger(LaporanService.class);
+    private static final MetrikOperasi metrik = MetricsRegistry.getInstance()
+            .operasi("kasirpro_service", "service", "LaporanService");
     private final TransaksiRepository transaksiRepository;
     private final ProdukRepository produkRepository;
     private final PelangganRepository pelangganRepository;
+    private final LaporanHarianRepository laporanHarianRepository;
+    private final StokHistoryRepository stokHistoryRepository;
     
     public LaporanService() {
         this.transaksiRepository = new TransaksiRepository();
+        this.stokHistoryRepository = new StokHistoryRepository();
         this.produkRepository = new ProdukRepository();
         this.pelangganRepository = new PelangganRepository();
+        this.laporanHarianRepository = new LaporanHarianRepository();
     }
     
     // ==================== LAPORAN PENJUALAN ====================
@@ -39,22 +64,22 @@ public class LaporanService {
      * Ringkasan penjualan per tanggal
      */
     public RingkasanPenjualan getRingkasanByTanggal(LocalDate tanggal) {
-        List<Transaksi> transaksiList = transaksiRepository.findByTanggal(tanggal);
-        return hitungRingkasan(transaksiList, tanggal, tanggal);
+        return rekamLaporan("RINGKASAN", tanggal, tanggal, RingkasanPenjualan::getJumlahTransaksi,
+                () -> hitungRingkasan(tanggal, tanggal));
     }
     
     /**
      * Ringkasan penjualan per periode
      */
     public RingkasanPenjualan getRingkasanByPeriode(LocalDate startDate, LocalDate endDate) {
-        List<Transaksi> transaksiList = transaksiRepository.findByDateRange(startDate, endDate);
-        return hitungRingkasan(transaksiList, startDate, endDate);
+        return rekamLaporan("RINGKASAN", startDate, endDate, RingkasanPenjualan::getJumlahTransaksi,
+                () -> hitungRingkasan(startDate, endDate));
     }
     
     /**
-     * Hitung ringkasan dari list transaksi
+     * Hitung ringkasan periode dari rollup laporan harian (satu baris per hari)
      */
-    private RingkasanPenjualan hitungRingkasan(List<Transaksi> transaksiList, LocalDate startDate, LocalDate endDate) {
+    private RingkasanPenjualan hitungRingkasan(LocalDate startDate, LocalDate endDate) {
         RingkasanPenjualan ringkasan = new RingkasanPenjualan();
         ringkasan.setTanggalMulai(startDate);
         ringkasan.setTanggalSelesai(endDate);
@@ -63,35 +88,30 @@ public class LaporanService {
         BigDecimal totalDiskon = BigDecimal.ZERO;
         BigDecimal totalPPN = BigDecimal.ZERO;
         BigDecimal tunai = BigDecimal.ZERO;
-        BigDecimal nonTunai = BigDecimal.ZERO;
+        BigDecimal debit = BigDecimal.ZERO;
+        BigDecimal kredit = BigDecimal.ZERO;
+        BigDecimal qris = BigDecimal.ZERO;
+        BigDecimal transfer = BigDecimal.ZERO;
         int jumlahTransaksi = 0;
         int jumlahItem = 0;
         int transaksiMember = 0;
         int transaksiUmum = 0;
+        int transaksiDibatalkan = 0;
         
-        for (Transaksi trx : transaksiList) {
-            if ("SELESAI".equals(trx.getStatus())) {
-                totalPenjualan = totalPenjualan.add(trx.getGrandTotal());
-                totalDiskon = totalDiskon.add(trx.getDiskonNominal());
-                totalPPN = totalPPN.add(trx.getPpnNominal());
-                jumlahTransaksi++;
-                jumlahItem += trx.getTotalQty();
-                
-                if (trx.getPelanggan() != null && trx.getPelanggan().isMember()) {
-                    transaksiMember++;
-                } else {
-                    transaksiUmum++;
-                }
-                
-                // Hitung per metode pembayaran
-                for (Pembayaran pembayaran : trx.getPembayaranList()) {
-                    if ("TUNAI".equals(pembayaran.getMetodePembayaran())) {
-                        tunai = tunai.add(pembayaran.getJumlah());
-                    } else {
-                        nonTunai = nonTunai.add(pembayaran.getJumlah());
-                    }
-                }
-            }
+        for (LaporanHarian laporan : getLaporanHarian(startDate, endDate)) {
+            totalPenjualan = totalPenjualan.add(laporan.getTotalPenjualan());
+            totalDiskon = totalDiskon.add(laporan.getTotalDiskon());
+            totalPPN = totalPPN.add(laporan.getTotalPpn());
+            tunai = tunai.add(laporan.getTunai());
+            debit = debit.add(laporan.getDebit());
+            kredit = kredit.add(laporan.getKredit());
+            qris = qris.add(laporan.getQris());
+            transfer = transfer.add(laporan.getTransfer());
+            jumlahTransaksi += laporan.getJumlahTransaksi();
+            jumlahItem += laporan.getJumlahItemTerjual();
+            transaksiMember += laporan.getPelangganMember();
+            transaksiUmum += laporan.getPelangganUmum();
+            transaksiDibatalkan += laporan.getJumlahPembatalan();
         }
         
         ringkasan.setTotalPenjualan(totalPenjualan);
@@ -100,9 +120,18 @@ public class LaporanService {
         ringkasan.setJumlahTransaksi(jumlahTransaksi);
         ringkasan.setJumlahItem(jumlahItem);
         ringkasan.setTunai(tunai);
-        ringkasan.setNonTunai(nonTunai);
+        ringkasan.setNonTunai(debit.add(kredit).add(qris).add(transfer));
         ringkasan.setTransaksiMember(transaksiMember);
         ringkasan.setTransaksiUmum(transaksiUmum);
+        ringkasan.setTransaksiDibatalkan(transaksiDibatalkan);
+        
+        // Hitung per metode pembayaran
+        Map<String, BigDecimal> perMetode = ringkasan.getTotalPerMetode();
+        tambahJikaAda(perMetode, AppConfig.PAYMENT_CASH, tunai);
+        tambahJikaAda(perMetode, AppConfig.PAYMENT_DEBIT, debit);
+        tambahJikaAda(perMetode, AppConfig.PAYMENT_CREDIT, kredit);
+        tambahJikaAda(perMetode, AppConfig.PAYMENT_QRIS, qris);
+        tambahJikaAda(perMetode, AppConfig.PAYMENT_TRANSFER, transfer);
         
         // Rata-rata per transaksi
         if (jumlahTransaksi > 0) {
@@ -112,6 +141,59 @@ public class LaporanService {
         return ringkasan;
     }
     
+    private void tambahJikaAda(Map<String, BigDecimal> perMetode, String metode, BigDecimal nilai) {
+        if (nilai.signum() != 0) {
+            perMetode.put(metode, nilai);
+        }
+    }
+    
+    /**
+     * Ambil rollup laporan harian dalam periode.
+     * Hari yang belum punya baris rollup (data sebelum rollup ada) dihitung sekali dari transaksi;
+     * hari tanpa transaksi langsung dibuat kosong dengan satu statement.
+     */
+    public List<LaporanHarian> getLaporanHarian(LocalDate startDate, LocalDate endDate) {
+        List<LaporanHarian> laporanList = laporanHarianRepository.findByPeriode(startDate, endDate);
+        LocalDate akhir = endDate.isAfter(LocalDate.now()) ? LocalDate.now() : endDate;
+        if (laporanList.size() >= ChronoUnit.DAYS.between(startDate, akhir) + 1) {
+            return laporanList;
+        }
+        
+        // Hari tanpa transaksi cukup diisi baris kosong sekaligus, bukan rebuild per hari
+        if (laporanHarianRepository.buatKosongTanpaTransaksi(startDate, akhir) > 0) {
+            laporanList = laporanHarianRepository.findByPeriode(startDate, endDate);
+        }
+        
+        Set<LocalDate> sudahAda = new HashSet<>();
+        for (LaporanHarian laporan : laporanList) {
+            sudahAda.add(laporan.getTanggal());
+        }
+        List<LaporanHarian> hasil = new ArrayList<>(laporanList);
+        for (LocalDate tanggal = startDate; !tanggal.isAfter(akhir); tanggal = tanggal.plusDays(1)) {
+            if (!sudahAda.contains(tanggal)) {
+                hasil.add(laporanHarianRepository.rebuild(tanggal, transaksiRepository));
+            }
+        }
+        hasil.sort(Comparator.comparing(LaporanHarian::getTanggal));
+        return hasil;
+    }
+    
+    /**
+     * Hitung ulang rollup laporan harian dari data transaksi untuk periode tertentu
+     * @return jumlah hari yang dihitung ulang
+     */
+    public int rebuildLaporanHarian(LocalDate startDate, LocalDate endDate) {
+        return rekamLaporan("REBUILD_HARIAN", startDate, endDate, Integer::longValue, () -> {
+            int jumlahHari = 0;
+            for (LocalDate tanggal = startDate; !tanggal.isAfter(endDate); tanggal = tanggal.plusDays(1)) {
+                laporanHarianRepository.rebuild(tanggal, transaksiRepository);
+                jumlahHari++;
+            }
+            logger.info("Rebuild laporan harian {} - {}: {} hari", startDate, endDate, jumlahHari);
+            return jumlahHari;
+        });
+    }
+    
     // ==================== LAPORAN PRODUK ====================
     
     /**
@@ -172,17 +254,115 @@ public class LaporanService {
         return pelangganRepository.countMembers();
     }
     
+    // ==================== EXPORT ====================
+    
+    /**
+     * Export transaksi per periode ke file CSV.
+     * Data dibaca secara streaming sehingga periode panjang tidak memuat semua transaksi ke memori.
+     * @return jumlah baris yang ditulis
+     */
+    public long exportTransaksiCsv(LocalDate startDate, LocalDate endDate, Path file) {
+        return tulisCsv("EXPORT_TRANSAKSI", startDate, endDate, file, "nomor_transaksi,tanggal,kasir,pelanggan,total_item,subtotal,diskon,ppn,grand_total,status",
+                writer -> transaksiRepository.scrollByDateRange(startDate, endDate, t -> tulisBaris(writer,
+                        t.getNomorTransaksi(),
+                        t.getTanggalTransaksi(),
+                        t.getKasir().getUsername(),
+                        t.getPelanggan() != null ? t.getPelanggan().getNama() : "",
+                        t.getTotalItem(),
+                        t.getSubtotal(),
+                        t.getDiskonNominal(),
+                        t.getPpnNominal(),
+                        t.getGrandTotal(),
+                        t.getStatus())));
+    }
+    
+    /**
+     * Export riwayat stok per periode ke file CSV (streaming)
+     * @return jumlah baris yang ditulis
+     */
+    public long exportStokHistoryCsv(LocalDate startDate, LocalDate endDate, Path file) {
+        return tulisCsv("EXPORT_STOK_HISTORY", startDate, endDate, file, "tanggal,kode_produk,nama_produk,tipe,qty,stok_sebelum,stok_sesudah,referensi,user,keterangan",
+                writer -> stokHistoryRepository.scrollByDateRange(startDate, endDate, h -> tulisBaris(writer,
+                        h.getTanggal(),
+                        h.getProduk().getKode(),
+                        h.getProduk().getNama(),
+                        h.getTipe(),
+                        h.getQty(),
+                        h.getStokSebelum(),
+                        h.getStokSesudah(),
+                        h.getReferensiNomor(),
+                        h.getUser() != null ? h.getUser().getUsername() : "",
+                        h.getKeterangan())));
+    }
+    
+    private long tulisCsv(String jenis, LocalDate startDate, LocalDate endDate,
+                          Path file, String header, ToLongFunction<BufferedWriter> isi) {
+        return rekamLaporan(jenis, startDate, endDate, Long::longValue, () -> tulisCsv(file, header, isi));
+    }
+    
+    private long tulisCsv(Path file, String header, ToLongFunction<BufferedWriter> isi) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(header);
+                writer.newLine();
+                long jumlah = isi.applyAsLong(writer);
+                logger.info("Export {} baris ke {}", jumlah, file);
+                return jumlah;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error export CSV: {}", e.getMessage(), e);
+            throw new RuntimeException("Gagal export ke " + file + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private void tulisBaris(BufferedWriter writer, Object... kolom) {
+        try {
+            for (int i = 0; i < kolom.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escapeCsv(kolom[i]));
+            }
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static String escapeCsv(Object nilai) {
+        if (nilai == null) {
+            return "";
+        }
+        String teks = nilai.toString();
+        if (teks.indexOf(',') >= 0 || teks.indexOf('"') >= 0 || teks.indexOf('\n') >= 0) {
+            return '"' + teks.replace("\"", "\"\"") + '"';
+        }
+        return teks;
+    }
+    
     // ==================== DASHBOARD ====================
     
     /**
      * Data untuk dashboard
      */
     public DashboardData getDashboardData() {
+        LocalDate hariIni = LocalDate.now();
+        return rekamLaporan("DASHBOARD", hariIni, hariIni, DashboardData::getTransaksiHariIni,
+                this::buatDashboardData);
+    }
+    
+    private DashboardData buatDashboardData() {
         DashboardData data = new DashboardData();
         
-        // Penjualan hari ini
-        data.setPenjualanHariIni(transaksiRepository.getTotalPenjualanHariIni());
-        data.setTransaksiHariIni(transaksiRepository.countTransaksiHariIni());
+        // Penjualan hari ini dari rollup
+        LocalDate hariIni = LocalDate.now();
+        for (LaporanHarian laporan : getLaporanHarian(hariIni, hariIni)) {
+            data.setPenjualanHariIni(laporan.getTotalPenjualan());
+            data.setTransaksiHariIni(laporan.getJumlahTransaksi());
+        }
         
         // Produk
         data.setTotalProduk(produkRepository.countActive());
@@ -201,6 +381,30 @@ public class LaporanService {
         return data;
     }
     
+    /**
+     * Jalankan pembuatan laporan dan catat sebagai event JFR (LaporanEvent)
+     * @param jumlahBaris jumlah data yang diproses, diambil dari hasil laporan
+     */
+    private <R> R rekamLaporan(String jenis, LocalDate startDate, LocalDate endDate,
+                               ToLongFunction<R> jumlahBaris, Supplier<R> aksi) {
+        LaporanEvent event = new LaporanEvent();
+        event.begin();
+        R hasil = null;
+        try {
+            hasil = metrik.ukur(jenis, aksi);
+            return hasil;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.setJenis(jenis);
+                event.setPeriode(startDate + " s/d " + endDate);
+                event.setJumlahBaris(hasil != null ? jumlahBaris.applyAsLong(hasil) : 0);
+                event.setBerhasil(hasil != null);
+                event.commit();
+            }
+        }
+    }
+    
     // ==================== INNER CLASSES ====================
     
     /**
@@ -218,7 +422,9 @@ public class LaporanService {
         private BigDecimal nonTunai = BigDecimal.ZERO;
         private int transaksiMember;
         private int transaksiUmum;
+        private int transaksiDibatalkan;
         private BigDecimal rataRataTransaksi = BigDecimal.ZERO;
+        private Map<String, BigDecimal> totalPerMetode = new LinkedHashMap<>();
         
         // Getters and Setters
         public LocalDate getTanggalMulai() { return tanggalMulai; }
@@ -254,6 +460,12 @@ public class LaporanService {
         public int getTransaksiUmum() { return transaksiUmum; }
         public void setTransaksiUmum(int transaksiUmum) { this.transaksiUmum = transaksiUmum; }
         
+        public int getTransaksiDibatalkan() { return transaksiDibatalkan; }
+        public void setTransaksiDibatalkan(int transaksiDibatalkan) { this.transaksiDibatalkan = transaksiDibatalkan; }
+        
+        public Map<String, BigDecimal> getTotalPerMetode() { return totalPerMetode; }
+        public void setTotalPerMetode(Map<String, BigDecimal> totalPerMetode) { this.totalPerMetode = totalPerMetode; }
+        
         public BigDecimal getRataRataTransaksi() { return rataRataTransaksi; }
         public void setRataRataTransaksi(BigDecimal rataRataTransaksi) { this.rataRataTransaksi = rataRataTransaksi; }
     }
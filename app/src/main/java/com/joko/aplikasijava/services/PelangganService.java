@@ -102,6 +102,13 @@ public class PelangganService {
         return pelangganRepository.findAllActive();
     }
     
+    /**
+     * Halaman pelanggan aktif setelah id tertentu (null untuk halaman pertama)
+     */
+    public List<Pelanggan> getPelangganAktifSetelah(Long afterId, int size) {
+        return pelangganRepository.findActiveAfter(afterId, size);
+    }
+    
     /**
      * Dapatkan semua member
      */
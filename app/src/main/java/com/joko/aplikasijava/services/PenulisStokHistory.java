@@ -0,0 +1,317 @@
+package com.joko.aplikasijava.services;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.config.HibernateUtil;
+import com.joko.aplikasijava.jurnal.JurnalPenjualan;
+import com.joko.aplikasijava.jurnal.PemutarJurnal;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.metrics.MetrikOperasi;
+import com.joko.aplikasijava.models.StokHistory;
+import com.joko.aplikasijava.repositories.StokHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Penulis history stok asinkron untuk perubahan stok dari menu inventori
+ * (tambah, kurangi, adjustment, stok awal). Pemanggil hanya memasukkan history
+ * ke antrian lock-free; satu thread penulis menyimpan sampai
+ * AppConfig.STOK_HISTORY_BATCH history per commit dengan JDBC batch insert.
+ *
+ * History penjualan dan void tidak lewat sini: history itu ditulis di transaction
+ * yang sama dengan perubahan stoknya (lihat TransaksiRepository).
+ *
+ * Antrian ditulis habis sebelum SessionFactory ditutup (HibernateUtil.sebelumShutdown).
+ * Saat database tidak bisa dihubungi history ditahan dan dicoba lagi; yang masih
+ * tertahan saat aplikasi ditutup, atau yang dicatat setelah penulis berhenti,
+ * disimpan ke JurnalPenjualan dan ditulis ke database saat penulis berjalan lagi.
+ */
+public class PenulisStokHistory {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PenulisStokHistory.class);
+    private static final MetrikOperasi metrik = MetricsRegistry.getInstance()
+            .operasi("kasirpro_stok_history", "komponen", "PenulisStokHistory");
+    private static final PenulisStokHistory INSTANCE = new PenulisStokHistory(new StokHistoryRepository(),
+            JurnalPenjualan.getInstance(), AppConfig.STOK_HISTORY_BATCH);
+    
+    private final StokHistoryRepository stokHistoryRepository;
+    private final JurnalPenjualan jurnal;
+    private final int maksBatch;
+    private final ConcurrentLinkedQueue<StokHistory> antrian = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger jumlahAntrian = new AtomicInteger();
+    private final AtomicLong diterima = new AtomicLong();
+    private final AtomicLong selesai = new AtomicLong();
+    // Hanya disentuh thread penulis: history yang gagal karena koneksi, ditulis lebih dulu
+    private final Deque<StokHistory> ditahan = new ArrayDeque<>();
+    private volatile Thread thread;
+    private volatile boolean berjalan;
+    // Diset berhenti(): history baru langsung disimpan ke jurnal, thread tidak dijalankan lagi
+    private volatile boolean ditutup;
+    private boolean terdaftar;
+    
+    public PenulisStokHistory(StokHistoryRepository stokHistoryRepository, JurnalPenjualan jurnal, int maksBatch) {
+        if (maksBatch < 1) {
+            throw new IllegalArgumentException("Ukuran batch minimal 1");
+        }
+        this.stokHistoryRepository = stokHistoryRepository;
+        this.jurnal = jurnal;
+        this.maksBatch = maksBatch;
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.keterangan("kasirpro_stok_history_antrian", "History stok yang menunggu ditulis ke database");
+        metrics.gauge("kasirpro_stok_history_antrian", jumlahAntrian::get);
+    }
+    
+    public static PenulisStokHistory getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Masukkan history ke antrian tanpa menunggu database
+     */
+    public void catat(StokHistory history) {
+        if (thread == null && !ditutup) {
+            jalankan();
+        }
+        antrian.add(history);
+        jumlahAntrian.incrementAndGet();
+        diterima.incrementAndGet();
+        // Dibaca setelah add: jika berhenti() sudah menyapu antrian, history ini disapu di sini
+        if (ditutup) {
+            sapuKeJurnal();
+        } else {
+            LockSupport.unpark(thread);
+        }
+    }
+    
+    /**
+     * Tunggu sampai semua history yang sudah dicatat ditulis (misalnya sebelum
+     * menampilkan history stok), paling lama batasMs
+     * @return true jika antrian sudah tertulis
+     */
+    public boolean tunggu(long batasMs) {
+        long target = diterima.get();
+        long batas = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batasMs);
+        while (selesai.get() < target) {
+            if (System.nanoTime() - batas >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+    
+    /**
+     * Jalankan thread penulis; dipanggil saat aplikasi siap (supaya history dari
+     * jurnal langsung ditulis) atau otomatis saat history pertama masuk
+     */
+    public synchronized void mulai() {
+        ditutup = false;
+        jalankan();
+    }
+    
+    /**
+     * Jalankan thread jika belum berjalan dan penulis belum dihentikan
+     */
+    private synchronized void jalankan() {
+        if (thread != null || ditutup) {
+            return;
+        }
+        if (!terdaftar) {
+            HibernateUtil.sebelumShutdown(this::berhenti);
+            terdaftar = true;
+        }
+        berjalan = true;
+        thread = Thread.ofPlatform().name("penulis-stok-history").daemon().start(this::loop);
+    }
+    
+    /**
+     * Hentikan penulis dan tunggu sampai thread-nya benar-benar selesai: antrian
+     * ditulis ke database, atau ke jurnal jika database tidak bisa dihubungi
+     */
+    public void berhenti() {
+        Thread t;
+        synchronized (this) {
+            ditutup = true;
+            berjalan = false;
+            t = thread;
+            thread = null;
+        }
+        if (t != null) {
+            LockSupport.unpark(t);
+            boolean diinterupsi = false;
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    diinterupsi = true;
+                }
+            }
+            if (diinterupsi) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // History yang masuk setelah penulis terakhir memeriksa antrian
+        sapuKeJurnal();
+    }
+    
+    private void loop() {
+        boolean jurnalBersih = false;
+        while (true) {
+            if (!jurnalBersih && berjalan) {
+                jurnalBersih = tulisDariJurnal();
+            }
+            if (ditahan.isEmpty() && antrian.isEmpty()) {
+                if (!berjalan) {
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(jurnalBersih ? 100 : AppConfig.JURNAL_INTERVAL_MS));
+                continue;
+            }
+            if (!tulis()) {
+                if (!berjalan) {
+                    simpanKeJurnal();
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(AppConfig.JURNAL_INTERVAL_MS));
+            }
+        }
+    }
+    
+    /**
+     * Tulis history yang disimpan ke jurnal oleh proses sebelumnya
+     * @return false jika database tidak bisa dihubungi
+     */
+    private boolean tulisDariJurnal() {
+        for (Map.Entry<String, List<StokHistory>> rekaman : jurnal.getStokHistoryTertunda().entrySet()) {
+            if (simpan(rekaman.getValue()) >= 0) {
+                return false;
+            }
+            jurnal.selesaiStokHistory(rekaman.getKey());
+            logger.info("{} history stok dari jurnal tersimpan ke database", rekaman.getValue().size());
+        }
+        return true;
+    }
+    
+    /**
+     * Tulis satu batch
+     * @return false jika database tidak bisa dihubungi (batch ditahan untuk dicoba lagi)
+     */
+    private boolean tulis() {
+        List<StokHistory> batch = new ArrayList<>(maksBatch);
+        while (batch.size() < maksBatch && !ditahan.isEmpty()) {
+            batch.add(ditahan.pollFirst());
+        }
+        StokHistory history;
+        while (batch.size() < maksBatch && (history = antrian.poll()) != null) {
+            jumlahAntrian.decrementAndGet();
+            batch.add(history);
+        }
+        
+        int gagal = simpan(batch);
+        if (gagal < 0) {
+            selesai.addAndGet(batch.size());
+            return true;
+        }
+        selesai.addAndGet(gagal);
+        for (int i = batch.size() - 1; i >= gagal; i--) {
+            ditahan.addFirst(batch.get(i));
+        }
+        logger.warn("{} history stok ditahan, database tidak bisa dihubungi", ditahan.size());
+        return false;
+    }
+    
+    /**
+     * Simpan batch dalam satu commit; jika ditolak database, simpan satu per satu
+     * dan history yang tetap ditolak dicatat di log
+     * @return -1 jika semua sudah diproses, atau indeks history pertama yang belum
+     *         tersimpan karena database tidak bisa dihubungi
+     */
+    private int simpan(List<StokHistory> batch) {
+        try {
+            metrik.jalankan("tulis", () -> stokHistoryRepository.simpanBatch(batch));
+            return -1;
+        } catch (RuntimeException e) {
+            if (PemutarJurnal.isKoneksiGagal(e)) {
+                return 0;
+            }
+            if (batch.size() == 1) {
+                tolak(batch.get(0), e);
+                return -1;
+            }
+            logger.warn("Batch {} history stok gagal, disimpan ulang satu per satu: {}", batch.size(), e.getMessage());
+        }
+        
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                stokHistoryRepository.simpanBatch(List.of(batch.get(i)));
+            } catch (RuntimeException e) {
+                if (PemutarJurnal.isKoneksiGagal(e)) {
+                    return i;
+                }
+                tolak(batch.get(i), e);
+            }
+        }
+        return -1;
+    }
+    
+    private void tolak(StokHistory history, RuntimeException e) {
+        logger.error("History stok ditolak database: produk {} {} {} ({} -> {}), {}: {}",
+                history.getProduk() != null ? history.getProduk().getId() : null, history.getTipe(), history.getQty(),
+                history.getStokSebelum(), history.getStokSesudah(), history.getKeterangan(), e.getMessage());
+    }
+    
+    /**
+     * Database tidak bisa dihubungi saat aplikasi ditutup: history yang ditahan
+     * dan sisa antrian disimpan ke jurnal (hanya dari thread penulis)
+     */
+    private void simpanKeJurnal() {
+        StokHistory history;
+        while ((history = antrian.poll()) != null) {
+            jumlahAntrian.decrementAndGet();
+            ditahan.addLast(history);
+        }
+        List<StokHistory> daftar = new ArrayList<>(ditahan);
+        ditahan.clear();
+        tundaKeJurnal(daftar);
+    }
+    
+    /**
+     * Simpan history yang masuk antrian setelah penulis berhenti ke jurnal
+     */
+    private synchronized void sapuKeJurnal() {
+        List<StokHistory> daftar = new ArrayList<>();
+        StokHistory history;
+        while ((history = antrian.poll()) != null) {
+            jumlahAntrian.decrementAndGet();
+            daftar.add(history);
+        }
+        tundaKeJurnal(daftar);
+    }
+    
+    private void tundaKeJurnal(List<StokHistory> daftar) {
+        if (daftar.isEmpty()) {
+            return;
+        }
+        try {
+            jurnal.tundaStokHistory(daftar);
+            logger.warn("{} history stok disimpan ke jurnal {}, ditulis ke database saat aplikasi berjalan lagi",
+                    daftar.size(), jurnal.getFile());
+        } catch (RuntimeException e) {
+            logger.error("{} history stok tidak tersimpan: {}", daftar.size(), e.getMessage());
+            for (StokHistory h : daftar) {
+                tolak(h, e);
+            }
+        }
+        selesai.addAndGet(daftar.size());
+    }
+}
@@ -0,0 +1,273 @@
+package com.joko.aplikasijava.services;
+
+import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.models.Produk;
+import com.joko.aplikasijava.utils.OpenLongMap;
+import com.joko.aplikasijava.utils.OpenStringMap;
+import com.joko.aplikasijava.utils.RadixTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index produk aktif di memori untuk scan kasir (kode dan barcode)
+ * dan autocomplete nama/kode yang diurutkan berdasarkan jumlah terjual.
+ * Dimuat sekali saat aplikasi start lalu diperbarui per produk setiap kali
+ * ProdukService atau checkout mengubah data produk.
+ * Stok di index menjadi stok awal ReservasiStok saat produk pertama kali
+ * di-scan; pengurangan stok yang sebenarnya tetap dijaga oleh UPDATE
+ * bersyarat saat checkout.
+ *
+ * Index menyimpan salinan sendiri dan setiap pencarian mengembalikan salinan
+ * baru, sehingga pemanggil (menu edit, keranjang, penulis penjualan) bebas
+ * mengubah produk yang didapat tanpa menyentuh isi index atau urutan autocomplete.
+ * Perubahan masuk ke index hanya lewat simpan, updateStok dan hapus setelah
+ * perubahan di database ter-commit.
+ */
+public class ProdukIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProdukIndex.class);
+    
+    /**
+     * Terlaris dulu, lalu nama dan id agar urutan selalu tetap
+     */
+    private static final Comparator<Produk> URUTAN_TERLARIS = Comparator
+            .comparingInt((Produk p) -> p.getTerjual() != null ? -p.getTerjual() : 0)
+            .thenComparing(Produk::getNama)
+            .thenComparing(Produk::getId);
+    
+    private static final Pattern SPASI = Pattern.compile("\\s+");
+    private static final ProdukIndex INSTANCE = new ProdukIndex();
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OpenStringMap<Produk> byKode = new OpenStringMap<>();
+    private final OpenStringMap<Produk> byBarcode = new OpenStringMap<>();
+    private final OpenLongMap<Entri> byId = new OpenLongMap<>();
+    private final RadixTrie<Produk> autocomplete = new RadixTrie<>(URUTAN_TERLARIS, AppConfig.AUTOCOMPLETE_LIMIT);
+    private volatile boolean dimuat;
+    
+    ProdukIndex() {}
+    
+    public static ProdukIndex getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Muat ulang seluruh index dari daftar produk aktif
+     */
+    public void muat(List<Produk> produkList) {
+        lock.writeLock().lock();
+        try {
+            byKode.clear();
+            byBarcode.clear();
+            byId.clear();
+            autocomplete.clear();
+            autocomplete.mulaiMuatMassal();
+            try {
+                for (Produk produk : produkList) {
+                    tambahTanpaLock(produk);
+                }
+            } finally {
+                autocomplete.selesaiMuatMassal();
+            }
+            dimuat = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Index produk dimuat: {} produk", produkList.size());
+    }
+    
+    /**
+     * Cari produk berdasarkan kode, lalu barcode
+     */
+    public Optional<Produk> cari(String kodeOrBarcode) {
+        lock.readLock().lock();
+        try {
+            Produk produk = byKode.get(kodeOrBarcode);
+            if (produk == null) {
+                produk = byBarcode.get(kodeOrBarcode);
+            }
+            return Optional.ofNullable(produk != null ? produk.salin() : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Cari produk berdasarkan ID
+     */
+    public Optional<Produk> cariById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Entri entri = byId.get(id);
+            return Optional.ofNullable(entri != null ? entri.produk.salin() : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Tambah atau perbarui produk di index. Produk nonaktif dikeluarkan.
+     */
+    public void simpan(Produk produk) {
+        if (produk == null || produk.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            hapusTanpaLock(produk.getId());
+            if (Boolean.TRUE.equals(produk.getAktif())) {
+                tambahTanpaLock(produk);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Perbarui stok dan jumlah terjual produk di index
+     */
+    public void updateStok(Long produkId, int stok, int terjual) {
+        lock.writeLock().lock();
+        try {
+            Entri entri = byId.get(produkId);
+            if (entri != null) {
+                Produk produk = entri.produk;
+                produk.setStok(stok);
+                if (!Integer.valueOf(terjual).equals(produk.getTerjual())) {
+                    produk.setTerjual(terjual);
+                    for (String kunci : entri.kunciAutocomplete) {
+                        autocomplete.perbarui(kunci);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Keluarkan produk dari index
+     */
+    public void hapus(Long produkId) {
+        if (produkId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            hapusTanpaLock(produkId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Produk aktif yang kode, nama, atau salah satu kata pada namanya
+     * diawali prefix (tidak peka huruf besar/kecil), terlaris dulu
+     */
+    public List<Produk> autocomplete(String prefix, int limit) {
+        String kunci = normalisasi(prefix);
+        if (kunci.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            List<Produk> hasil = autocomplete.cari(kunci, limit);
+            hasil.replaceAll(Produk::salin);
+            return hasil;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean isDimuat() {
+        return dimuat;
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void tambahTanpaLock(Produk asli) {
+        Produk produk = asli.salin();
+        Entri entri = new Entri(produk);
+        byId.put(produk.getId(), entri);
+        byKode.put(entri.kode, produk);
+        if (entri.barcode != null) {
+            byBarcode.put(entri.barcode, produk);
+        }
+        for (String kunci : entri.kunciAutocomplete) {
+            autocomplete.put(kunci, produk);
+        }
+    }
+    
+    private void hapusTanpaLock(long produkId) {
+        // Hapus berdasarkan key saat didaftarkan
+        Entri lama = byId.remove(produkId);
+        if (lama != null) {
+            if (byKode.get(lama.kode) == lama.produk) {
+                byKode.remove(lama.kode);
+            }
+            if (lama.barcode != null && byBarcode.get(lama.barcode) == lama.produk) {
+                byBarcode.remove(lama.barcode);
+            }
+            for (String kunci : lama.kunciAutocomplete) {
+                autocomplete.remove(kunci, lama.produk);
+            }
+        }
+    }
+    
+    private static String normalisasi(String teks) {
+        return SPASI.matcher(teks.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Key autocomplete: kode, nama lengkap, dan nama mulai dari setiap kata berikutnya
+     */
+    private static String[] kunciAutocomplete(Produk produk) {
+        List<String> kunci = new ArrayList<>();
+        kunci.add(normalisasi(produk.getKode()));
+        String nama = normalisasi(produk.getNama());
+        if (!nama.isEmpty()) {
+            kunci.add(nama);
+            for (int i = nama.indexOf(' '); i >= 0; i = nama.indexOf(' ', i + 1)) {
+                kunci.add(nama.substring(i + 1));
+            }
+        }
+        return kunci.toArray(new String[0]);
+    }
+    
+    /**
+     * Produk di index beserta key yang dipakai saat didaftarkan
+     */
+    private static final class Entri {
+        final Produk produk;
+        final String kode;
+        final String barcode;
+        final String[] kunciAutocomplete;
+        
+        Entri(Produk produk) {
+            this.produk = produk;
+            this.kode = produk.getKode();
+            this.barcode = produk.getBarcode() != null && !produk.getBarcode().isEmpty() ? produk.getBarcode() : null;
+            this.kunciAutocomplete = kunciAutocomplete(produk);
+        }
+    }
+}
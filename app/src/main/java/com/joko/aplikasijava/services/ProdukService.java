@@ -1,7 +1,9 @@
 package com.joko.aplikasijava.services;
 
+import com.joko.aplikasijava.config.AppConfig;
 import com.joko.aplikasijava.models.*;
 import com.joko.aplikasijava.repositories.*;
+import com.joko.aplikasijava.repositories.ProdukRepository.StokBerubah;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +21,9 @@ public class ProdukService {
     private final KategoriRepository kategoriRepository;
     private final SupplierRepository supplierRepository;
     private final StokHistoryRepository stokHistoryRepository;
+    private final ProdukIndex produkIndex = ProdukIndex.getInstance();
+    private final PenulisStokHistory penulisStokHistory = PenulisStokHistory.getInstance();
+    private final ReservasiStok reservasiStok = ReservasiStok.getInstance();
     
     public ProdukService() {
         this.produkRepository = new ProdukRepository();
@@ -49,6 +54,7 @@ public class ProdukService {
         }
         
         Produk saved = produkRepository.save(produk);
+        produkIndex.simpan(saved);
         logger.info("Produk berhasil ditambahkan: {}", saved.getKode());
         
         // Catat stok awal jika ada
@@ -81,7 +87,11 @@ public class ProdukService {
             throw new IllegalArgumentException("Barcode sudah digunakan");
         }
         
-        return produkRepository.update(produk);
+        // Stok dan terjual tidak ikut disimpan; index diperbarui setelah commit dengan stok dari database
+        Produk updated = produkRepository.updateData(produk);
+        produkIndex.simpan(updated);
+        reservasiStok.setStok(updated.getId(), updated.getStok());
+        return updated;
     }
     
     /**
@@ -92,11 +102,35 @@ public class ProdukService {
         if (produkOpt.isPresent()) {
             Produk produk = produkOpt.get();
             produk.setAktif(false);
-            produkRepository.update(produk);
+            produkRepository.updateData(produk);
+            produkIndex.hapus(produkId);
             logger.info("Produk berhasil dinonaktifkan: {}", produk.getKode());
         }
     }
     
+    /**
+     * Muat index produk aktif ke memori untuk scan kasir
+     */
+    public void muatIndexProduk() {
+        List<Produk> produkList = produkRepository.findAllActive();
+        produkIndex.muat(produkList);
+        reservasiStok.muat(produkList);
+    }
+    
+    /**
+     * Cek kode/barcode persis ada di index produk aktif (tanpa query database)
+     */
+    public boolean isProdukTerindeks(String kodeOrBarcode) {
+        return produkIndex.cari(kodeOrBarcode).isPresent();
+    }
+    
+    /**
+     * Saran produk untuk input kasir berdasarkan awalan kode atau nama, terlaris dulu
+     */
+    public List<Produk> autocompleteProduk(String prefix) {
+        return produkIndex.autocomplete(prefix, AppConfig.AUTOCOMPLETE_LIMIT);
+    }
+    
     /**
      * Cari produk berdasarkan ID
      */
@@ -108,7 +142,11 @@ public class ProdukService {
      * Cari produk berdasarkan kode atau barcode
      */
     public Optional<Produk> getProdukByKodeOrBarcode(String kodeOrBarcode) {
-        Optional<Produk> produk = produkRepository.findByKode(kodeOrBarcode);
+        Optional<Produk> produk = produkIndex.cari(kodeOrBarcode);
+        if (produk.isPresent()) {
+            return produk;
+        }
+        produk = produkRepository.findByKode(kodeOrBarcode);
         if (produk.isEmpty()) {
             produk = produkRepository.findByBarcode(kodeOrBarcode);
         }
@@ -122,6 +160,13 @@ public class ProdukService {
         return produkRepository.findAllActive();
     }
     
+    /**
+     * Halaman produk aktif setelah id tertentu (null untuk halaman pertama)
+     */
+    public List<Produk> getProdukAktifSetelah(Long afterId, int size) {
+        return produkRepository.findActiveAfter(afterId, size);
+    }
+    
     /**
      * Cari produk
      */
@@ -172,80 +217,75 @@ public class ProdukService {
         if (produkOpt.isPresent()) {
             Produk produk = produkOpt.get();
             produk.setFavorit(!produk.getFavorit());
-            produkRepository.update(produk);
+            produkIndex.simpan(produkRepository.updateData(produk));
         }
     }
     
     // ==================== STOK ====================
     
     /**
-     * Tambah stok produk
+     * Tambah stok produk. Stok diubah dengan UPDATE atomik di database, bukan
+     * menyimpan ulang produk yang dibaca, supaya checkout yang berjalan bersamaan
+     * tidak tertimpa.
      */
     public void tambahStok(Long produkId, int qty, String keterangan, User user) {
-        Optional<Produk> produkOpt = produkRepository.findById(produkId);
-        if (produkOpt.isEmpty()) {
+        Produk produk = cariProdukStok(produkId);
+        StokBerubah hasil = produkRepository.stokMasuk(produkId, qty);
+        if (hasil == null) {
             throw new IllegalArgumentException("Produk tidak ditemukan");
         }
+        produkIndex.updateStok(produkId, hasil.getStokSesudah(), hasil.getTerjual());
+        reservasiStok.tambahStok(produkId, hasil.getStokSesudah() - hasil.getStokSebelum());
         
-        Produk produk = produkOpt.get();
-        int stokSebelum = produk.getStok();
-        int stokSesudah = stokSebelum + qty;
-        
-        produk.setStok(stokSesudah);
-        produkRepository.update(produk);
-        
-        catatStokHistory(produk, "MASUK", qty, stokSebelum, stokSesudah, keterangan, user);
+        catatStokHistory(produk, "MASUK", qty, hasil.getStokSebelum(), hasil.getStokSesudah(), keterangan, user);
         logger.info("Stok ditambahkan untuk produk {}: +{}", produk.getKode(), qty);
     }
     
     /**
-     * Kurangi stok produk
+     * Kurangi stok produk; ditolak database jika stok terkini tidak mencukupi
      */
     public boolean kurangiStok(Long produkId, int qty, String keterangan, User user) {
-        Optional<Produk> produkOpt = produkRepository.findById(produkId);
-        if (produkOpt.isEmpty()) {
-            throw new IllegalArgumentException("Produk tidak ditemukan");
-        }
-        
-        Produk produk = produkOpt.get();
-        if (produk.getStok() < qty) {
-            logger.warn("Stok tidak mencukupi untuk produk {}: {}/{}", produk.getKode(), produk.getStok(), qty);
+        Produk produk = cariProdukStok(produkId);
+        StokBerubah hasil = produkRepository.stokKeluar(produkId, qty);
+        if (hasil == null) {
+            logger.warn("Stok tidak mencukupi untuk produk {}: kurang dari {}", produk.getKode(), qty);
             return false;
         }
+        produkIndex.updateStok(produkId, hasil.getStokSesudah(), hasil.getTerjual());
+        reservasiStok.tambahStok(produkId, hasil.getStokSesudah() - hasil.getStokSebelum());
         
-        int stokSebelum = produk.getStok();
-        int stokSesudah = stokSebelum - qty;
-        
-        produk.setStok(stokSesudah);
-        produkRepository.update(produk);
-        
-        catatStokHistory(produk, "KELUAR", qty, stokSebelum, stokSesudah, keterangan, user);
+        catatStokHistory(produk, "KELUAR", qty, hasil.getStokSebelum(), hasil.getStokSesudah(), keterangan, user);
         logger.info("Stok dikurangi untuk produk {}: -{}", produk.getKode(), qty);
         return true;
     }
     
     /**
-     * Adjustment stok (koreksi stok)
+     * Adjustment stok (koreksi stok); stok sebelum dibaca dari baris yang dikunci
      */
     public void adjustmentStok(Long produkId, int stokBaru, String keterangan, User user) {
-        Optional<Produk> produkOpt = produkRepository.findById(produkId);
-        if (produkOpt.isEmpty()) {
+        Produk produk = cariProdukStok(produkId);
+        StokBerubah hasil = produkRepository.setStok(produkId, stokBaru);
+        if (hasil == null) {
             throw new IllegalArgumentException("Produk tidak ditemukan");
         }
+        produkIndex.updateStok(produkId, hasil.getStokSesudah(), hasil.getTerjual());
+        reservasiStok.setStok(produkId, hasil.getStokSesudah());
         
-        Produk produk = produkOpt.get();
-        int stokSebelum = produk.getStok();
-        int selisih = stokBaru - stokSebelum;
-        
-        produk.setStok(stokBaru);
-        produkRepository.update(produk);
-        
-        catatStokHistory(produk, "ADJUSTMENT", Math.abs(selisih), stokSebelum, stokBaru, keterangan, user);
-        logger.info("Adjustment stok untuk produk {}: {} -> {}", produk.getKode(), stokSebelum, stokBaru);
+        int selisih = hasil.getStokSesudah() - hasil.getStokSebelum();
+        catatStokHistory(produk, "ADJUSTMENT", Math.abs(selisih), hasil.getStokSebelum(), hasil.getStokSesudah(), keterangan, user);
+        logger.info("Adjustment stok untuk produk {}: {} -> {}", produk.getKode(), hasil.getStokSebelum(), hasil.getStokSesudah());
+    }
+    
+    /**
+     * Produk untuk history dan log perubahan stok; nilai stoknya tidak dipakai
+     */
+    private Produk cariProdukStok(Long produkId) {
+        return produkRepository.findById(produkId)
+                .orElseThrow(() -> new IllegalArgumentException("Produk tidak ditemukan"));
     }
     
     /**
-     * Catat history stok
+     * Catat history stok lewat penulis asinkron (ditulis per batch)
      */
     private void catatStokHistory(Produk produk, String tipe, int qty, int stokSebelum, int stokSesudah, String keterangan) {
         catatStokHistory(produk, tipe, qty, stokSebelum, stokSesudah, keterangan, null);
@@ -255,13 +295,15 @@ public class ProdukService {
         StokHistory history = new StokHistory(produk, tipe, qty, stokSebelum, stokSesudah);
         history.setKeterangan(keterangan);
         history.setUser(user);
-        stokHistoryRepository.save(history);
+        penulisStokHistory.catat(history);
     }
     
     /**
      * Dapatkan history stok produk
      */
     public List<StokHistory> getStokHistory(Long produkId) {
+        // History yang baru dicatat ditulis dulu supaya ikut tampil
+        penulisStokHistory.tunggu(2000);
         return stokHistoryRepository.findByProduk(produkId);
     }
     
@@ -369,6 +411,13 @@ public class ProdukService {
         return supplierRepository.generateKode();
     }
     
+    /**
+     * Generate nomor purchase order baru
+     */
+    public String generateNomorPembelian() {
+        return supplierRepository.generateNomorPembelian();
+    }
+    
     /**
      * Hitung total produk aktif
      */
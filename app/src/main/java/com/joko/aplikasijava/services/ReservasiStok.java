@@ -0,0 +1,151 @@
+package com.joko.aplikasijava.services;
+
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.models.Produk;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buku reservasi stok di memori untuk semua lajur kasir dalam satu proses.
+ * Setiap produk punya satu AtomicLong berisi stok (32 bit atas) dan qty yang
+ * sedang dipesan keranjang (32 bit bawah), sehingga cek "stok - dipesan >= qty"
+ * dan penambahan pesanan terjadi dalam satu compare-and-set tanpa kunci.
+ *
+ * Keranjang memesan saat scan, melepas saat item dihapus, keranjang dikosongkan,
+ * transaksi dibatalkan atau session idle ditutup, dan mengonversi pesanan menjadi
+ * pengurangan stok saat checkout. Perubahan stok lain (inventori, void) diterapkan
+ * sebagai selisih. Entri produk dibuat saat scan pertama dari stok di ProdukIndex.
+ *
+ * Antar proses (beberapa node) UPDATE bersyarat saat checkout tetap menjadi penjaga
+ * terakhir terhadap oversell.
+ */
+public class ReservasiStok {
+    
+    private static final ReservasiStok INSTANCE = new ReservasiStok();
+    
+    private final ConcurrentHashMap<Long, AtomicLong> perProduk = new ConcurrentHashMap<>();
+    private final LongAdder jumlahDitolak;
+    
+    ReservasiStok() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.keterangan("kasirpro_reservasi_stok_ditolak_total", "Scan yang ditolak karena stok sudah dipesan lajur lain");
+        this.jumlahDitolak = metrics.counter("kasirpro_reservasi_stok_ditolak_total");
+    }
+    
+    public static ReservasiStok getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Pesan qty produk untuk keranjang
+     * @return true jika stok yang belum dipesan mencukupi
+     */
+    public boolean pesan(Produk produk, int qty) {
+        if (qty <= 0) {
+            throw new IllegalArgumentException("Qty harus lebih dari 0");
+        }
+        AtomicLong nilai = entri(produk);
+        while (true) {
+            long lama = nilai.get();
+            int stok = stok(lama);
+            int dipesan = dipesan(lama);
+            if (stok - dipesan < qty) {
+                jumlahDitolak.increment();
+                return false;
+            }
+            if (nilai.compareAndSet(lama, kemas(stok, dipesan + qty))) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Lepas pesanan keranjang (item dihapus atau keranjang dibatalkan)
+     */
+    public void lepas(Long produkId, int qty) {
+        ubah(produkId, 0, -qty);
+    }
+    
+    /**
+     * Pesanan menjadi penjualan: stok dan qty dipesan sama-sama berkurang
+     */
+    public void konversi(Long produkId, int qty) {
+        ubah(produkId, -qty, -qty);
+    }
+    
+    /**
+     * Terapkan perubahan stok di luar checkout (stok masuk, keluar, void)
+     */
+    public void tambahStok(Long produkId, int selisih) {
+        ubah(produkId, selisih, 0);
+    }
+    
+    /**
+     * Samakan stok dengan nilai baru dari database (adjustment, muat ulang index);
+     * pesanan keranjang tetap
+     */
+    public void setStok(Long produkId, int stok) {
+        AtomicLong nilai = perProduk.get(produkId);
+        if (nilai == null) {
+            return;
+        }
+        long lama;
+        do {
+            lama = nilai.get();
+        } while (!nilai.compareAndSet(lama, kemas(stok, dipesan(lama))));
+    }
+    
+    /**
+     * Samakan stok semua produk yang sudah punya entri
+     */
+    public void muat(List<Produk> produkList) {
+        for (Produk produk : produkList) {
+            setStok(produk.getId(), produk.getStok());
+        }
+    }
+    
+    /**
+     * Stok yang belum dipesan keranjang mana pun
+     */
+    public int getTersedia(Produk produk) {
+        long nilai = entri(produk).get();
+        return stok(nilai) - dipesan(nilai);
+    }
+    
+    public int getDipesan(Long produkId) {
+        AtomicLong nilai = perProduk.get(produkId);
+        return nilai != null ? dipesan(nilai.get()) : 0;
+    }
+    
+    private AtomicLong entri(Produk produk) {
+        return perProduk.computeIfAbsent(produk.getId(),
+                id -> new AtomicLong(kemas(produk.getStok() != null ? produk.getStok() : 0, 0)));
+    }
+    
+    private void ubah(Long produkId, int selisihStok, int selisihDipesan) {
+        AtomicLong nilai = perProduk.get(produkId);
+        if (nilai == null) {
+            return;
+        }
+        long lama;
+        do {
+            lama = nilai.get();
+        } while (!nilai.compareAndSet(lama,
+                kemas(stok(lama) + selisihStok, Math.max(0, dipesan(lama) + selisihDipesan))));
+    }
+    
+    private static long kemas(int stok, int dipesan) {
+        return ((long) stok << 32) | (dipesan & 0xFFFFFFFFL);
+    }
+    
+    private static int stok(long nilai) {
+        return (int) (nilai >> 32);
+    }
+    
+    private static int dipesan(long nilai) {
+        return (int) nilai;
+    }
+}
@@ -1,6 +1,12 @@
 package com.joko.aplikasijava.services;
 
 import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.jurnal.JurnalPenjualan;
+import com.joko.aplikasijava.jurnal.PemutarJurnal;
+import com.joko.aplikasijava.jurnal.PenulisPenjualan;
+import com.joko.aplikasijava.metrics.CheckoutEvent;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.metrics.MetrikOperasi;
 import com.joko.aplikasijava.models.*;
 import com.joko.aplikasijava.repositories.*;
 import org.hibernate.Session;
@@ -13,7 +19,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service untuk mengelola transaksi penjualan
@@ -22,20 +30,41 @@ import java.util.Optional;
 public class TransaksiService {
     
     private static final Logger logger = LoggerFactory.getLogger(TransaksiService.class);
+    private static final AtomicInteger nomorTerminalLokal = new AtomicInteger();
+    private static final MetrikOperasi metrik = MetricsRegistry.getInstance()
+            .operasi("kasirpro_service", "service", "TransaksiService");
     private final TransaksiRepository transaksiRepository;
     private final ProdukRepository produkRepository;
     private final PelangganRepository pelangganRepository;
-    private final StokHistoryRepository stokHistoryRepository;
+    private final ProdukIndex produkIndex = ProdukIndex.getInstance();
+    private final CheckoutSessionRegistry sessionRegistry = CheckoutSessionRegistry.getInstance();
+    private final JurnalPenjualan jurnal = JurnalPenjualan.getInstance();
+    private final PemutarJurnal pemutarJurnal = PemutarJurnal.getInstance();
+    private final PenulisPenjualan penulisPenjualan = PenulisPenjualan.getInstance();
+    private final ReservasiStok reservasiStok = ReservasiStok.getInstance();
     
-    // Transaksi saat ini (keranjang belanja)
-    private Transaksi transaksiAktif;
-    private final List<DetailTransaksi> keranjang = new ArrayList<>();
+    // Terminal default untuk method tanpa terminalId
+    private final String terminalId;
     
+    /**
+     * Service dengan terminal lokal sendiri (satu instance = satu lajur kasir)
+     */
     public TransaksiService() {
+        this("LOKAL-" + nomorTerminalLokal.incrementAndGet());
+    }
+    
+    /**
+     * Service dengan terminal default tertentu
+     */
+    public TransaksiService(String terminalId) {
         this.transaksiRepository = new TransaksiRepository();
         this.produkRepository = new ProdukRepository();
         this.pelangganRepository = new PelangganRepository();
-        this.stokHistoryRepository = new StokHistoryRepository();
+        this.terminalId = terminalId;
+    }
+    
+    public String getTerminalId() {
+        return terminalId;
     }
     
     // ==================== KERANJANG ====================
@@ -44,61 +73,99 @@ public class TransaksiService {
      * Mulai transaksi baru
      */
     public Transaksi mulaiTransaksiBaru(User kasir) {
-        if (transaksiAktif != null && !keranjang.isEmpty()) {
-            logger.warn("Ada transaksi yang belum selesai");
-        }
-        
-        String nomorTransaksi = transaksiRepository.generateNomorTransaksi();
-        transaksiAktif = new Transaksi(nomorTransaksi, kasir);
-        keranjang.clear();
-        
-        logger.info("Transaksi baru dimulai: {}", nomorTransaksi);
-        return transaksiAktif;
+        return mulaiTransaksiBaru(terminalId, kasir);
+    }
+    
+    /**
+     * Mulai transaksi baru di terminal tertentu
+     */
+    public Transaksi mulaiTransaksiBaru(String terminalId, User kasir) {
+        return metrik.ukur("mulaiTransaksiBaru", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                if (session.getTransaksiAktif() != null && !session.getKeranjang().isEmpty()) {
+                    logger.warn("Ada transaksi yang belum selesai di terminal {}", terminalId);
+                }
+                
+                String nomorTransaksi = transaksiRepository.generateNomorTransaksi();
+                Transaksi transaksi = new Transaksi(nomorTransaksi, kasir);
+                session.setTransaksiAktif(transaksi);
+                session.kosongkanKeranjang();
+                
+                logger.info("Transaksi baru dimulai: {} (terminal {})", nomorTransaksi, terminalId);
+                return transaksi;
+            } finally {
+                session.lepas();
+            }
+        });
     }
     
     /**
      * Tambah item ke keranjang
      */
     public DetailTransaksi tambahKeKeranjang(String kodeOrBarcode, int qty) {
-        if (transaksiAktif == null) {
-            throw new IllegalStateException("Belum ada transaksi aktif. Mulai transaksi baru terlebih dahulu.");
-        }
-        
-        // Cari produk
-        Optional<Produk> produkOpt = produkRepository.findByKode(kodeOrBarcode);
-        if (produkOpt.isEmpty()) {
-            produkOpt = produkRepository.findByBarcode(kodeOrBarcode);
-        }
-        
-        if (produkOpt.isEmpty()) {
-            throw new IllegalArgumentException("Produk tidak ditemukan: " + kodeOrBarcode);
-        }
-        
-        Produk produk = produkOpt.get();
-        
-        // Cek stok
-        int qtyDiKeranjang = getQtyDiKeranjang(produk.getId());
-        if (produk.getStok() < (qtyDiKeranjang + qty)) {
-            throw new IllegalStateException("Stok tidak mencukupi. Tersedia: " + produk.getStok() + ", Di keranjang: " + qtyDiKeranjang);
-        }
-        
-        // Cek apakah produk sudah ada di keranjang
-        for (DetailTransaksi detail : keranjang) {
-            if (detail.getProduk().getId().equals(produk.getId())) {
-                detail.setQty(detail.getQty() + qty);
-                detail.calculateSubtotal();
-                hitungUlangTransaksi();
+        return tambahKeKeranjang(terminalId, kodeOrBarcode, qty);
+    }
+    
+    /**
+     * Tambah item ke keranjang terminal tertentu
+     */
+    public DetailTransaksi tambahKeKeranjang(String terminalId, String kodeOrBarcode, int qty) {
+        return metrik.ukur("tambahKeKeranjang", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                Transaksi transaksiAktif = session.getTransaksiAktif();
+                List<DetailTransaksi> keranjang = session.getKeranjang();
+                if (transaksiAktif == null) {
+                    throw new IllegalStateException("Belum ada transaksi aktif. Mulai transaksi baru terlebih dahulu.");
+                }
+                
+                // Cari produk di index memori, fallback ke database
+                Optional<Produk> produkOpt = produkIndex.cari(kodeOrBarcode);
+                if (produkOpt.isEmpty()) {
+                    produkOpt = produkRepository.findByKode(kodeOrBarcode);
+                    if (produkOpt.isEmpty()) {
+                        produkOpt = produkRepository.findByBarcode(kodeOrBarcode);
+                    }
+                    produkOpt.ifPresent(produkIndex::simpan);
+                }
+                
+                if (produkOpt.isEmpty()) {
+                    throw new IllegalArgumentException("Produk tidak ditemukan: " + kodeOrBarcode);
+                }
+                
+                Produk produk = produkOpt.get();
+                
+                // Pesan stok untuk keranjang ini; stok yang dipesan lajur lain tidak bisa diambil
+                if (!reservasiStok.pesan(produk, qty)) {
+                    int qtyDiKeranjang = getQtyDiKeranjang(keranjang, produk.getId());
+                    throw new IllegalStateException("Stok tidak mencukupi. Tersedia: " + reservasiStok.getTersedia(produk)
+                            + ", Di keranjang: " + qtyDiKeranjang);
+                }
+                
+                // Cek apakah produk sudah ada di keranjang
+                for (DetailTransaksi detail : keranjang) {
+                    if (detail.getProduk().getId().equals(produk.getId())) {
+                        detail.setQty(detail.getQty() + qty);
+                        detail.calculateSubtotal();
+                        hitungUlangTransaksi(session);
+                        return detail;
+                    }
+                }
+                
+                // Tambah item baru
+                DetailTransaksi detail = new DetailTransaksi(produk, qty);
+                keranjang.add(detail);
+                hitungUlangTransaksi(session);
+                
+                logger.info("Item ditambahkan ke keranjang: {} x{}", produk.getNama(), qty);
                 return detail;
+            } finally {
+                session.lepas();
             }
-        }
-        
-        // Tambah item baru
-        DetailTransaksi detail = new DetailTransaksi(produk, qty);
-        keranjang.add(detail);
-        hitungUlangTransaksi();
-        
-        logger.info("Item ditambahkan ke keranjang: {} x{}", produk.getNama(), qty);
-        return detail;
+        });
     }
     
     /**
@@ -112,73 +179,155 @@ public class TransaksiService {
      * Update qty item di keranjang
      */
     public void updateQtyKeranjang(int index, int qty) {
-        if (index < 0 || index >= keranjang.size()) {
-            throw new IndexOutOfBoundsException("Index tidak valid");
-        }
-        
-        DetailTransaksi detail = keranjang.get(index);
-        Produk produk = detail.getProduk();
-        
-        // Refresh produk untuk cek stok terbaru
-        Optional<Produk> produkOpt = produkRepository.findById(produk.getId());
-        if (produkOpt.isPresent() && produkOpt.get().getStok() < qty) {
-            throw new IllegalStateException("Stok tidak mencukupi. Tersedia: " + produkOpt.get().getStok());
-        }
-        
-        if (qty <= 0) {
-            hapusDariKeranjang(index);
-        } else {
-            detail.setQty(qty);
-            detail.calculateSubtotal();
-            hitungUlangTransaksi();
-        }
+        updateQtyKeranjang(terminalId, index, qty);
+    }
+    
+    /**
+     * Update qty item di keranjang terminal tertentu
+     */
+    public void updateQtyKeranjang(String terminalId, int index, int qty) {
+        metrik.jalankan("updateQtyKeranjang", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                List<DetailTransaksi> keranjang = session.getKeranjang();
+                if (index < 0 || index >= keranjang.size()) {
+                    throw new IndexOutOfBoundsException("Index tidak valid");
+                }
+                
+                DetailTransaksi detail = keranjang.get(index);
+                Produk produk = detail.getProduk();
+                
+                // Pesan tambahan qty atau lepas kelebihannya
+                if (qty > detail.getQty() && !reservasiStok.pesan(produk, qty - detail.getQty())) {
+                    throw new IllegalStateException("Stok tidak mencukupi. Tersedia: "
+                            + (reservasiStok.getTersedia(produk) + detail.getQty()));
+                }
+                if (qty > 0 && qty < detail.getQty()) {
+                    reservasiStok.lepas(produk.getId(), detail.getQty() - qty);
+                }
+                
+                if (qty <= 0) {
+                    hapusDariKeranjang(terminalId, index);
+                } else {
+                    detail.setQty(qty);
+                    detail.calculateSubtotal();
+                    hitungUlangTransaksi(session);
+                }
+            } finally {
+                session.lepas();
+            }
+        });
     }
     
     /**
      * Hapus item dari keranjang
      */
     public void hapusDariKeranjang(int index) {
-        if (index < 0 || index >= keranjang.size()) {
-            throw new IndexOutOfBoundsException("Index tidak valid");
-        }
-        
-        DetailTransaksi removed = keranjang.remove(index);
-        hitungUlangTransaksi();
-        logger.info("Item dihapus dari keranjang: {}", removed.getNamaProduk());
+        hapusDariKeranjang(terminalId, index);
+    }
+    
+    /**
+     * Hapus item dari keranjang terminal tertentu
+     */
+    public void hapusDariKeranjang(String terminalId, int index) {
+        metrik.jalankan("hapusDariKeranjang", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                List<DetailTransaksi> keranjang = session.getKeranjang();
+                if (index < 0 || index >= keranjang.size()) {
+                    throw new IndexOutOfBoundsException("Index tidak valid");
+                }
+                
+                DetailTransaksi removed = keranjang.remove(index);
+                reservasiStok.lepas(removed.getProduk().getId(), removed.getQty());
+                hitungUlangTransaksi(session);
+                logger.info("Item dihapus dari keranjang: {}", removed.getNamaProduk());
+            } finally {
+                session.lepas();
+            }
+        });
     }
     
     /**
      * Kosongkan keranjang
      */
     public void kosongkanKeranjang() {
-        keranjang.clear();
-        if (transaksiAktif != null) {
-            transaksiAktif.setSubtotal(BigDecimal.ZERO);
-            transaksiAktif.setGrandTotal(BigDecimal.ZERO);
-            transaksiAktif.setTotalItem(0);
-            transaksiAktif.setTotalQty(0);
-        }
-        logger.info("Keranjang dikosongkan");
+        kosongkanKeranjang(terminalId);
+    }
+    
+    /**
+     * Kosongkan keranjang terminal tertentu
+     */
+    public void kosongkanKeranjang(String terminalId) {
+        metrik.jalankan("kosongkanKeranjang", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                session.kosongkanKeranjang();
+                Transaksi transaksiAktif = session.getTransaksiAktif();
+                if (transaksiAktif != null) {
+                    transaksiAktif.setSubtotal(BigDecimal.ZERO);
+                    transaksiAktif.setGrandTotal(BigDecimal.ZERO);
+                    transaksiAktif.setTotalItem(0);
+                    transaksiAktif.setTotalQty(0);
+                }
+                logger.info("Keranjang dikosongkan");
+            } finally {
+                session.lepas();
+            }
+        });
     }
     
     /**
      * Dapatkan item di keranjang
      */
     public List<DetailTransaksi> getKeranjang() {
-        return new ArrayList<>(keranjang);
+        return getKeranjang(terminalId);
+    }
+    
+    /**
+     * Dapatkan item di keranjang terminal tertentu
+     */
+    public List<DetailTransaksi> getKeranjang(String terminalId) {
+        return metrik.ukur("getKeranjang", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                return new ArrayList<>(session.getKeranjang());
+            } finally {
+                session.lepas();
+            }
+        });
     }
     
     /**
      * Dapatkan jumlah item di keranjang
      */
     public int getJumlahItemKeranjang() {
-        return keranjang.size();
+        return getJumlahItemKeranjang(terminalId);
+    }
+    
+    /**
+     * Dapatkan jumlah item di keranjang terminal tertentu
+     */
+    public int getJumlahItemKeranjang(String terminalId) {
+        return metrik.ukur("getJumlahItemKeranjang", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                return session.getKeranjang().size();
+            } finally {
+                session.lepas();
+            }
+        });
     }
     
     /**
      * Dapatkan qty produk di keranjang
      */
-    private int getQtyDiKeranjang(Long produkId) {
+    private int getQtyDiKeranjang(List<DetailTransaksi> keranjang, Long produkId) {
         return keranjang.stream()
                 .filter(d -> d.getProduk().getId().equals(produkId))
                 .mapToInt(DetailTransaksi::getQty)
@@ -188,14 +337,15 @@ public class TransaksiService {
     /**
      * Hitung ulang transaksi
      */
-    private void hitungUlangTransaksi() {
+    private void hitungUlangTransaksi(CheckoutSession session) {
+        Transaksi transaksiAktif = session.getTransaksiAktif();
         if (transaksiAktif == null) return;
         
         BigDecimal subtotal = BigDecimal.ZERO;
         int totalItem = 0;
         int totalQty = 0;
         
-        for (DetailTransaksi detail : keranjang) {
+        for (DetailTransaksi detail : session.getKeranjang()) {
             subtotal = subtotal.add(detail.getSubtotal());
             totalItem++;
             totalQty += detail.getQty();
@@ -204,7 +354,18 @@ public class TransaksiService {
         transaksiAktif.setSubtotal(subtotal);
         transaksiAktif.setTotalItem(totalItem);
         transaksiAktif.setTotalQty(totalQty);
-        transaksiAktif.recalculate();
+        transaksiAktif.hitungTotal();
+    }
+    
+    /**
+     * Ambil transaksi aktif terminal, gagal jika belum ada
+     */
+    private Transaksi getTransaksiAktifWajib(CheckoutSession session) {
+        Transaksi transaksiAktif = session.getTransaksiAktif();
+        if (transaksiAktif == null) {
+            throw new IllegalStateException("Belum ada transaksi aktif");
+        }
+        return transaksiAktif;
     }
     
     // ==================== DISKON & PELANGGAN ====================
@@ -213,68 +374,113 @@ public class TransaksiService {
      * Set pelanggan untuk transaksi
      */
     public void setPelanggan(Long pelangganId) {
-        if (transaksiAktif == null) {
-            throw new IllegalStateException("Belum ada transaksi aktif");
-        }
-        
-        Optional<Pelanggan> pelangganOpt = pelangganRepository.findById(pelangganId);
-        if (pelangganOpt.isPresent()) {
-            Pelanggan pelanggan = pelangganOpt.get();
-            transaksiAktif.setPelanggan(pelanggan);
-            
-            // Apply diskon member jika ada
-            if (pelanggan.getDiskonMember() != null && pelanggan.getDiskonMember().compareTo(BigDecimal.ZERO) > 0) {
-                transaksiAktif.setDiskonPersen(pelanggan.getDiskonMember());
-                hitungUlangTransaksi();
+        setPelanggan(terminalId, pelangganId);
+    }
+    
+    /**
+     * Set pelanggan untuk transaksi di terminal tertentu
+     */
+    public void setPelanggan(String terminalId, Long pelangganId) {
+        metrik.jalankan("setPelanggan", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                Transaksi transaksiAktif = getTransaksiAktifWajib(session);
+                
+                Optional<Pelanggan> pelangganOpt = pelangganRepository.findById(pelangganId);
+                if (pelangganOpt.isPresent()) {
+                    Pelanggan pelanggan = pelangganOpt.get();
+                    transaksiAktif.setPelanggan(pelanggan);
+                    
+                    // Apply diskon member jika ada
+                    if (pelanggan.getDiskonMember() != null && pelanggan.getDiskonMember().compareTo(BigDecimal.ZERO) > 0) {
+                        transaksiAktif.setDiskonPersen(pelanggan.getDiskonMember());
+                        hitungUlangTransaksi(session);
+                    }
+                    
+                    logger.info("Pelanggan diset: {}", pelanggan.getNama());
+                }
+            } finally {
+                session.lepas();
             }
-            
-            logger.info("Pelanggan diset: {}", pelanggan.getNama());
-        }
+        });
     }
     
     /**
      * Set pelanggan berdasarkan kode member atau no telepon
      */
     public void setPelanggan(String kodeOrTelepon) {
-        Optional<Pelanggan> pelangganOpt = pelangganRepository.findByKodeMember(kodeOrTelepon);
-        if (pelangganOpt.isEmpty()) {
-            pelangganOpt = pelangganRepository.findByNoTelepon(kodeOrTelepon);
-        }
-        
-        if (pelangganOpt.isPresent()) {
-            setPelanggan(pelangganOpt.get().getId());
-        } else {
-            throw new IllegalArgumentException("Pelanggan tidak ditemukan: " + kodeOrTelepon);
-        }
+        setPelangganByKode(terminalId, kodeOrTelepon);
+    }
+    
+    /**
+     * Set pelanggan berdasarkan kode member atau no telepon di terminal tertentu
+     */
+    public void setPelangganByKode(String terminalId, String kodeOrTelepon) {
+        metrik.jalankan("setPelangganByKode", () -> {
+            Optional<Pelanggan> pelangganOpt = pelangganRepository.findByKodeMember(kodeOrTelepon);
+            if (pelangganOpt.isEmpty()) {
+                pelangganOpt = pelangganRepository.findByNoTelepon(kodeOrTelepon);
+            }
+            
+            if (pelangganOpt.isPresent()) {
+                setPelanggan(terminalId, pelangganOpt.get().getId());
+            } else {
+                throw new IllegalArgumentException("Pelanggan tidak ditemukan: " + kodeOrTelepon);
+            }
+        });
     }
     
     /**
      * Set diskon untuk transaksi
      */
     public void setDiskon(BigDecimal diskonPersen, BigDecimal diskonNominal) {
-        if (transaksiAktif == null) {
-            throw new IllegalStateException("Belum ada transaksi aktif");
-        }
-        
-        if (diskonPersen != null && diskonPersen.compareTo(new BigDecimal(AppConfig.MAX_DISCOUNT_PERCENTAGE)) > 0) {
-            throw new IllegalArgumentException("Diskon maksimal " + AppConfig.MAX_DISCOUNT_PERCENTAGE + "%");
-        }
-        
-        transaksiAktif.setDiskonPersen(diskonPersen != null ? diskonPersen : BigDecimal.ZERO);
-        transaksiAktif.setDiskonNominal(diskonNominal != null ? diskonNominal : BigDecimal.ZERO);
-        hitungUlangTransaksi();
+        setDiskon(terminalId, diskonPersen, diskonNominal);
+    }
+    
+    /**
+     * Set diskon untuk transaksi di terminal tertentu
+     */
+    public void setDiskon(String terminalId, BigDecimal diskonPersen, BigDecimal diskonNominal) {
+        metrik.jalankan("setDiskon", () -> {
+            if (diskonPersen != null && diskonPersen.compareTo(new BigDecimal(AppConfig.MAX_DISCOUNT_PERCENTAGE)) > 0) {
+                throw new IllegalArgumentException("Diskon maksimal " + AppConfig.MAX_DISCOUNT_PERCENTAGE + "%");
+            }
+            
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                Transaksi transaksiAktif = getTransaksiAktifWajib(session);
+                transaksiAktif.setDiskonPersen(diskonPersen != null ? diskonPersen : BigDecimal.ZERO);
+                transaksiAktif.setDiskonNominal(diskonNominal != null ? diskonNominal : BigDecimal.ZERO);
+                hitungUlangTransaksi(session);
+            } finally {
+                session.lepas();
+            }
+        });
     }
     
     /**
      * Set PPN untuk transaksi
      */
     public void setPPN(BigDecimal ppnPersen) {
-        if (transaksiAktif == null) {
-            throw new IllegalStateException("Belum ada transaksi aktif");
-        }
-        
-        transaksiAktif.setPpnPersen(ppnPersen);
-        hitungUlangTransaksi();
+        setPPN(terminalId, ppnPersen);
+    }
+    
+    /**
+     * Set PPN untuk transaksi di terminal tertentu
+     */
+    public void setPPN(String terminalId, BigDecimal ppnPersen) {
+        metrik.jalankan("setPPN", () -> {
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            session.kunci();
+            try {
+                getTransaksiAktifWajib(session).setPpnPersen(ppnPersen);
+                hitungUlangTransaksi(session);
+            } finally {
+                session.lepas();
+            }
+        });
     }
     
     // ==================== PEMBAYARAN ====================
@@ -290,89 +496,209 @@ public class TransaksiService {
      * Proses pembayaran dengan referensi
      */
     public Transaksi prosesPembayaran(String metodePembayaran, BigDecimal jumlahBayar, String noReferensi) {
-        if (transaksiAktif == null) {
-            throw new IllegalStateException("Belum ada transaksi aktif");
-        }
-        
-        if (keranjang.isEmpty()) {
-            throw new IllegalStateException("Keranjang kosong");
-        }
-        
-        // Validasi jumlah bayar
-        if (jumlahBayar.compareTo(transaksiAktif.getGrandTotal()) < 0) {
-            throw new IllegalArgumentException("Jumlah bayar kurang. Total: " + transaksiAktif.getGrandTotal());
+        return prosesPembayaran(terminalId, metodePembayaran, jumlahBayar, noReferensi);
+    }
+    
+    /**
+     * Proses pembayaran di terminal tertentu
+     */
+    public Transaksi prosesPembayaran(String terminalId, String metodePembayaran, BigDecimal jumlahBayar, String noReferensi) {
+        return metrik.ukur("prosesPembayaran", () -> {
+            CheckoutEvent event = new CheckoutEvent();
+            event.begin();
+            CheckoutSession session = sessionRegistry.ambil(terminalId);
+            long mulaiKunci = System.nanoTime();
+            session.kunci();
+            event.setTungguKunci(System.nanoTime() - mulaiKunci);
+            try {
+                Transaksi transaksiAktif = getTransaksiAktifWajib(session);
+                List<DetailTransaksi> keranjang = session.getKeranjang();
+                event.setNomorTransaksi(transaksiAktif.getNomorTransaksi());
+                event.setJumlahItem(keranjang.size());
+                event.setGrandTotal(transaksiAktif.getGrandTotal().doubleValue());
+                
+                if (keranjang.isEmpty()) {
+                    throw new IllegalStateException("Keranjang kosong");
+                }
+                
+                // Validasi jumlah bayar
+                if (jumlahBayar.compareTo(transaksiAktif.getGrandTotal()) < 0) {
+                    throw new IllegalArgumentException("Jumlah bayar kurang. Total: " + transaksiAktif.getGrandTotal());
+                }
+                
+                // Nomor invoice dialokasikan sebelum transaksi diubah: jika gagal keranjang tetap utuh,
+                // dan nomor yang sudah didapat dipakai lagi saat pembayaran diulang
+                if (transaksiAktif.getNomorInvoice() == null) {
+                    transaksiAktif.setNomorInvoice(transaksiRepository.generateNomorInvoice());
+                }
+                
+                // Buat pembayaran
+                Pembayaran pembayaran = new Pembayaran(metodePembayaran, jumlahBayar);
+                pembayaran.setNoReferensi(noReferensi);
+                
+                // Hitung kembalian
+                BigDecimal kembalian = jumlahBayar.subtract(transaksiAktif.getGrandTotal());
+                transaksiAktif.setTotalBayar(jumlahBayar);
+                transaksiAktif.setKembalian(kembalian);
+                
+                // Tambahkan detail transaksi
+                for (DetailTransaksi detail : keranjang) {
+                    transaksiAktif.addDetail(detail);
+                }
+                
+                // Tambahkan pembayaran
+                transaksiAktif.addPembayaran(pembayaran);
+                transaksiAktif.setStatus(AppConfig.STATUS_COMPLETED);
+                
+                // Hitung poin pelanggan jika member
+                if (transaksiAktif.getPelanggan() != null && transaksiAktif.getPelanggan().isMember()) {
+                    int poin = transaksiAktif.getGrandTotal().divide(new BigDecimal("10000"), 0, java.math.RoundingMode.DOWN).intValue();
+                    transaksiAktif.setPoinDidapat(poin);
+                }
+                
+                // Catat di jurnal lokal dulu supaya penjualan tidak hilang jika database bermasalah
+                try {
+                    jurnal.catat(transaksiAktif);
+                } catch (RuntimeException e) {
+                    kembalikanKeKeranjang(session);
+                    throw e;
+                }
+                
+                // Simpan transaksi, stok, history stok dan poin dalam satu commit
+                Transaksi saved = simpanPenjualan(session, transaksiAktif);
+                
+                // Pesanan keranjang menjadi penjualan; sinkronkan stok hasil checkout ke index produk
+                for (DetailTransaksi detail : keranjang) {
+                    Produk produk = detail.getProduk();
+                    reservasiStok.konversi(produk.getId(), detail.getQty());
+                    produkIndex.updateStok(produk.getId(), produk.getStok(), produk.getTerjual());
+                }
+                
+                MetricsRegistry.getInstance()
+                        .counter("kasirpro_transaksi_selesai_total", "metode", metodePembayaran).increment();
+                
+                logger.info("Transaksi berhasil: {} - Total: {} - Bayar: {} - Kembalian: {}", 
+                        saved.getNomorTransaksi(), saved.getGrandTotal(), jumlahBayar, kembalian);
+                
+                // Reset transaksi aktif
+                session.setTransaksiAktif(null);
+                keranjang.clear();
+                
+                event.setBerhasil(true);
+                return transaksiAktif;
+            } finally {
+                session.lepas();
+                event.end();
+                if (event.shouldCommit()) {
+                    event.setTerminal(terminalId);
+                    event.setMetodePembayaran(metodePembayaran);
+                    event.commit();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Simpan penjualan yang sudah tercatat di jurnal lewat group commit dan tunggu
+     * sampai ter-commit sebelum struk dicetak. Jika database tidak bisa
+     * dihubungi penjualan tetap selesai: stok di index dikurangi lokal dan
+     * PemutarJurnal menyimpannya setelah database kembali. Kegagalan lain
+     * membatalkan penjualan dan mengembalikan keranjang.
+     */
+    private Transaksi simpanPenjualan(CheckoutSession session, Transaksi transaksi) {
+        String nomor = transaksi.getNomorTransaksi();
+        List<DetailTransaksi> keranjang = session.getKeranjang();
+        int[] stokAwal = new int[keranjang.size()];
+        for (int i = 0; i < stokAwal.length; i++) {
+            stokAwal[i] = keranjang.get(i).getProduk().getStok();
         }
         
-        // Buat pembayaran
-        Pembayaran pembayaran = new Pembayaran(metodePembayaran, jumlahBayar);
-        pembayaran.setNoReferensi(noReferensi);
-        
-        // Hitung kembalian
-        BigDecimal kembalian = jumlahBayar.subtract(transaksiAktif.getGrandTotal());
-        transaksiAktif.setTotalBayar(jumlahBayar);
-        transaksiAktif.setKembalian(kembalian);
-        
-        // Tambahkan detail transaksi
-        for (DetailTransaksi detail : keranjang) {
-            transaksiAktif.addDetail(detail);
+        if (pemutarJurnal.isDatabaseTersedia()) {
+            try {
+                Transaksi saved = penulisPenjualan.simpan(transaksi);
+                jurnal.selesai(nomor);
+                return saved;
+            } catch (RuntimeException e) {
+                if (!PemutarJurnal.isKoneksiGagal(e)) {
+                    jurnal.batal(nomor);
+                    kembalikanKeKeranjang(session);
+                    throw e;
+                }
+                pemutarJurnal.tandaiOffline(e);
+            }
         }
         
-        // Tambahkan pembayaran
-        transaksiAktif.addPembayaran(pembayaran);
-        transaksiAktif.setStatus(AppConfig.STATUS_COMPLETED);
-        
-        // Simpan transaksi
-        Transaksi saved = transaksiRepository.save(transaksiAktif);
-        
-        // Update stok dan catat history
-        for (DetailTransaksi detail : keranjang) {
+        // Offline: id dari persist yang gagal tidak berlaku, stok dihitung dari nilai sebelum checkout
+        jurnal.tunda(nomor);
+        transaksi.setId(null);
+        transaksi.getPembayaranList().forEach(p -> p.setId(null));
+        for (int i = 0; i < stokAwal.length; i++) {
+            DetailTransaksi detail = keranjang.get(i);
             Produk produk = detail.getProduk();
-            int stokSebelum = produk.getStok();
-            int stokSesudah = stokSebelum - detail.getQty();
-            
-            produk.setStok(stokSesudah);
-            produk.setTerjual(produk.getTerjual() + detail.getQty());
-            produkRepository.update(produk);
-            
-            // Catat history stok
-            StokHistory history = new StokHistory(produk, "KELUAR", detail.getQty(), stokSebelum, stokSesudah);
-            history.setReferensiTipe("TRANSAKSI");
-            history.setReferensiId(saved.getId());
-            history.setReferensiNomor(saved.getNomorTransaksi());
-            history.setKeterangan("Penjualan");
-            history.setUser(transaksiAktif.getKasir());
-            stokHistoryRepository.save(history);
+            detail.setId(null);
+            produk.setStok(Math.max(0, stokAwal[i] - detail.getQty()));
+            produk.setTerjual((produk.getTerjual() != null ? produk.getTerjual() : 0) + detail.getQty());
         }
-        
-        // Update poin pelanggan jika member
-        if (saved.getPelanggan() != null && saved.getPelanggan().isMember()) {
-            int poin = saved.getGrandTotal().divide(new BigDecimal("10000"), 0, java.math.RoundingMode.DOWN).intValue();
-            saved.setPoinDidapat(poin);
-            saved.getPelanggan().tambahPoin(poin);
-            saved.getPelanggan().tambahTransaksi(saved.getGrandTotal());
-            pelangganRepository.update(saved.getPelanggan());
+        MetricsRegistry.getInstance().counter("kasirpro_transaksi_offline_total").increment();
+        logger.warn("Transaksi {} disimpan di jurnal offline ({} tertunda)", nomor, jurnal.getJumlahTertunda());
+        return transaksi;
+    }
+    
+    /**
+     * Kembalikan transaksi aktif ke kondisi keranjang jika penyimpanan gagal,
+     * agar pembayaran dapat diulang tanpa item ganda
+     */
+    private void kembalikanKeKeranjang(CheckoutSession session) {
+        Transaksi transaksiAktif = session.getTransaksiAktif();
+        transaksiAktif.setId(null);
+        transaksiAktif.getDetailTransaksiList().clear();
+        transaksiAktif.getPembayaranList().clear();
+        transaksiAktif.setStatus(AppConfig.STATUS_PENDING);
+        transaksiAktif.setTotalBayar(BigDecimal.ZERO);
+        transaksiAktif.setKembalian(BigDecimal.ZERO);
+        transaksiAktif.setPoinDidapat(0);
+        for (DetailTransaksi detail : session.getKeranjang()) {
+            detail.setId(null);
+            detail.setTransaksi(null);
         }
-        
-        logger.info("Transaksi berhasil: {} - Total: {} - Bayar: {} - Kembalian: {}", 
-                saved.getNomorTransaksi(), saved.getGrandTotal(), jumlahBayar, kembalian);
-        
-        // Reset transaksi aktif
-        Transaksi completedTransaction = transaksiAktif;
-        transaksiAktif = null;
-        keranjang.clear();
-        
-        return completedTransaction;
+        hitungUlangTransaksi(session);
     }
     
     /**
      * Batalkan transaksi aktif
      */
     public void batalkanTransaksiAktif() {
-        if (transaksiAktif != null) {
-            logger.info("Transaksi dibatalkan: {}", transaksiAktif.getNomorTransaksi());
-        }
-        transaksiAktif = null;
-        keranjang.clear();
+        batalkanTransaksiAktif(terminalId);
+    }
+    
+    /**
+     * Batalkan transaksi aktif di terminal tertentu
+     */
+    public void batalkanTransaksiAktif(String terminalId) {
+        metrik.jalankan("batalkanTransaksiAktif", () -> {
+            sessionRegistry.cari(terminalId).ifPresent(session -> {
+                session.kunci();
+                try {
+                    if (session.getTransaksiAktif() != null) {
+                        logger.info("Transaksi dibatalkan: {}", session.getTransaksiAktif().getNomorTransaksi());
+                    }
+                    session.setTransaksiAktif(null);
+                    session.kosongkanKeranjang();
+                } finally {
+                    session.lepas();
+                }
+            });
+        });
+    }
+    
+    /**
+     * Tutup session terminal beserta keranjangnya (misalnya saat logout)
+     */
+    public void tutupSession(String terminalId) {
+        metrik.jalankan("tutupSession", () -> {
+            batalkanTransaksiAktif(terminalId);
+            sessionRegistry.tutup(terminalId);
+        });
     }
     
     // ==================== QUERY TRANSAKSI ====================
@@ -381,96 +707,118 @@ public class TransaksiService {
      * Dapatkan transaksi aktif
      */
     public Transaksi getTransaksiAktif() {
-        return transaksiAktif;
+        return getTransaksiAktif(terminalId);
+    }
+    
+    /**
+     * Dapatkan transaksi aktif terminal tertentu
+     */
+    public Transaksi getTransaksiAktif(String terminalId) {
+        return metrik.ukur("getTransaksiAktif", () -> {
+            return sessionRegistry.cari(terminalId).map(session -> {
+                session.kunci();
+                try {
+                    return session.getTransaksiAktif();
+                } finally {
+                    session.lepas();
+                }
+            }).orElse(null);
+        });
     }
     
     /**
      * Cari transaksi berdasarkan nomor
      */
     public Optional<Transaksi> getTransaksiByNomor(String nomorTransaksi) {
-        return transaksiRepository.findByNomorTransaksi(nomorTransaksi);
+        return metrik.ukur("getTransaksiByNomor", () -> {
+            return transaksiRepository.findByNomorTransaksi(nomorTransaksi);
+        });
     }
     
     /**
      * Dapatkan transaksi hari ini
      */
     public List<Transaksi> getTransaksiHariIni() {
-        return transaksiRepository.findByTanggal(LocalDate.now());
+        return metrik.ukur("getTransaksiHariIni", () -> {
+            return transaksiRepository.findByTanggal(LocalDate.now());
+        });
+    }
+    
+    /**
+     * Halaman riwayat transaksi (terbaru dulu) setelah transaksi terakhir halaman sebelumnya
+     * @param terakhir transaksi terakhir yang sudah ditampilkan, null untuk halaman pertama
+     */
+    public List<Transaksi> getRiwayatTransaksi(Transaksi terakhir, int size) {
+        return metrik.ukur("getRiwayatTransaksi", () -> {
+            if (terakhir == null) {
+                return transaksiRepository.findRiwayatSebelum(null, null, size);
+            }
+            return transaksiRepository.findRiwayatSebelum(terakhir.getTanggalTransaksi(), terakhir.getId(), size);
+        });
     }
     
     /**
      * Dapatkan transaksi berdasarkan tanggal
      */
     public List<Transaksi> getTransaksiByTanggal(LocalDate tanggal) {
-        return transaksiRepository.findByTanggal(tanggal);
+        return metrik.ukur("getTransaksiByTanggal", () -> {
+            return transaksiRepository.findByTanggal(tanggal);
+        });
     }
     
     /**
      * Dapatkan transaksi berdasarkan range tanggal
      */
     public List<Transaksi> getTransaksiByDateRange(LocalDate startDate, LocalDate endDate) {
-        return transaksiRepository.findByDateRange(startDate, endDate);
+        return metrik.ukur("getTransaksiByDateRange", () -> {
+            return transaksiRepository.findByDateRange(startDate, endDate);
+        });
     }
     
     /**
      * Dapatkan transaksi berdasarkan kasir
      */
     public List<Transaksi> getTransaksiByKasir(Long kasirId) {
-        return transaksiRepository.findByKasir(kasirId);
+        return metrik.ukur("getTransaksiByKasir", () -> {
+            return transaksiRepository.findByKasir(kasirId);
+        });
     }
     
     /**
      * Dapatkan transaksi terakhir
      */
     public List<Transaksi> getTransaksiTerakhir(int limit) {
-        return transaksiRepository.findRecent(limit);
+        return metrik.ukur("getTransaksiTerakhir", () -> {
+            return transaksiRepository.findRecent(limit);
+        });
     }
     
     /**
      * Batalkan transaksi yang sudah selesai (void)
      */
     public void voidTransaksi(Long transaksiId, String alasan, User supervisor) {
-        Optional<Transaksi> transaksiOpt = transaksiRepository.findById(transaksiId);
-        if (transaksiOpt.isEmpty()) {
-            throw new IllegalArgumentException("Transaksi tidak ditemukan");
-        }
-        
-        Transaksi transaksi = transaksiOpt.get();
-        
-        if (!AppConfig.STATUS_COMPLETED.equals(transaksi.getStatus())) {
-            throw new IllegalStateException("Hanya transaksi yang sudah selesai yang dapat di-void");
-        }
-        
-        // Kembalikan stok
-        for (DetailTransaksi detail : transaksi.getDetailTransaksiList()) {
-            Produk produk = detail.getProduk();
-            int stokSebelum = produk.getStok();
-            int stokSesudah = stokSebelum + detail.getQty();
+        metrik.jalankan("voidTransaksi", () -> {
+            Optional<Transaksi> transaksiOpt = transaksiRepository.findById(transaksiId);
+            if (transaksiOpt.isEmpty()) {
+                throw new IllegalArgumentException("Transaksi tidak ditemukan");
+            }
             
-            produk.setStok(stokSesudah);
-            produk.setTerjual(produk.getTerjual() - detail.getQty());
-            produkRepository.update(produk);
+            Transaksi transaksi = transaksiOpt.get();
             
-            // Catat history stok
-            StokHistory history = new StokHistory(produk, "RETUR", detail.getQty(), stokSebelum, stokSesudah);
-            history.setReferensiTipe("VOID_TRANSAKSI");
-            history.setReferensiId(transaksi.getId());
-            history.setReferensiNomor(transaksi.getNomorTransaksi());
-            history.setKeterangan("Void transaksi: " + alasan);
-            history.setUser(supervisor);
-            stokHistoryRepository.save(history);
-        }
-        
-        // Update status transaksi
-        transaksiRepository.batalkanTransaksi(transaksiId, supervisor.getId(), alasan);
-        
-        // Kurangi poin pelanggan jika ada
-        if (transaksi.getPelanggan() != null && transaksi.getPoinDidapat() > 0) {
-            transaksi.getPelanggan().kurangiPoin(transaksi.getPoinDidapat());
-            pelangganRepository.update(transaksi.getPelanggan());
-        }
-        
-        logger.info("Transaksi di-void: {} - Alasan: {}", transaksi.getNomorTransaksi(), alasan);
+            if (!AppConfig.STATUS_COMPLETED.equals(transaksi.getStatus())) {
+                throw new IllegalStateException("Hanya transaksi yang sudah selesai yang dapat di-void");
+            }
+            
+            // Status, stok, history stok, poin dan laporan harian dalam satu commit
+            Map<Long, ProdukRepository.StokBerubah> stokBerubah =
+                    transaksiRepository.batalkanPenjualan(transaksiId, alasan, supervisor);
+            for (Map.Entry<Long, ProdukRepository.StokBerubah> entry : stokBerubah.entrySet()) {
+                reservasiStok.tambahStok(entry.getKey(), entry.getValue().getStokSesudah() - entry.getValue().getStokSebelum());
+                produkIndex.updateStok(entry.getKey(), entry.getValue().getStokSesudah(), entry.getValue().getTerjual());
+            }
+            
+            logger.info("Transaksi di-void: {} - Alasan: {}", transaksi.getNomorTransaksi(), alasan);
+        });
     }
     
     // ==================== LAPORAN ====================
@@ -479,20 +827,26 @@ public class TransaksiService {
      * Dapatkan total penjualan hari ini
      */
     public BigDecimal getTotalPenjualanHariIni() {
-        return transaksiRepository.getTotalPenjualanHariIni();
+        return metrik.ukur("getTotalPenjualanHariIni", () -> {
+            return transaksiRepository.getTotalPenjualanHariIni();
+        });
     }
     
     /**
      * Dapatkan jumlah transaksi hari ini
      */
     public long getJumlahTransaksiHariIni() {
-        return transaksiRepository.countTransaksiHariIni();
+        return metrik.ukur("getJumlahTransaksiHariIni", () -> {
+            return transaksiRepository.countTransaksiHariIni();
+        });
     }
     
     /**
      * Dapatkan total penjualan per tanggal
      */
     public BigDecimal getTotalPenjualanByDate(LocalDate tanggal) {
-        return transaksiRepository.getTotalPenjualanByDate(tanggal);
+        return metrik.ukur("getTotalPenjualanByDate", () -> {
+            return transaksiRepository.getTotalPenjualanByDate(tanggal);
+        });
     }
 }
@@ -0,0 +1,122 @@
+package com.joko.aplikasijava.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram latensi log-linear (gaya HdrHistogram) tanpa lock.
+ * Nilai kecil (di bawah 2^SUB_BITS) dicatat persis, nilai di atasnya
+ * dikelompokkan per pangkat dua yang dibagi lagi menjadi 64 sub-bucket,
+ * sehingga galat relatif persentil paling besar sekitar 1,6%.
+ * Nilai di atas batas maksimum (sekitar 18 menit dalam nanodetik)
+ * dicatat di bucket terakhir.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BITS = 7;
+    private static final int LINEAR = 1 << SUB_BITS;
+    private static final int HALF = LINEAR >> 1;
+    private static final int MAX_BITS = 40;
+    private static final int JUMLAH_BUCKET = LINEAR + (MAX_BITS - SUB_BITS) * HALF;
+    
+    private final AtomicLongArray bucket = new AtomicLongArray(JUMLAH_BUCKET);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong maks = new AtomicLong();
+    
+    /**
+     * Catat satu nilai (misalnya durasi dalam nanodetik)
+     */
+    public void rekam(long nilai) {
+        if (nilai < 0) {
+            nilai = 0;
+        }
+        bucket.incrementAndGet(indeks(nilai));
+        total.add(nilai);
+        if (nilai > maks.get()) {
+            maks.accumulateAndGet(nilai, Math::max);
+        }
+    }
+    
+    /**
+     * Jumlah nilai yang tercatat
+     */
+    public long getJumlah() {
+        long jumlah = 0;
+        for (int i = 0; i < JUMLAH_BUCKET; i++) {
+            jumlah += bucket.get(i);
+        }
+        return jumlah;
+    }
+    
+    public long getTotal() {
+        return total.sum();
+    }
+    
+    public long getMaks() {
+        return maks.get();
+    }
+    
+    public double getRataRata() {
+        long jumlah = getJumlah();
+        return jumlah == 0 ? 0 : (double) total.sum() / jumlah;
+    }
+    
+    /**
+     * Nilai pada persentil tertentu
+     * @param persen 0-100, misalnya 99.0 untuk p99
+     * @return batas atas bucket persentil (tidak melebihi nilai maksimum tercatat), 0 jika kosong
+     */
+    public long persentil(double persen) {
+        long[] salinan = new long[JUMLAH_BUCKET];
+        long jumlah = 0;
+        for (int i = 0; i < JUMLAH_BUCKET; i++) {
+            salinan[i] = bucket.get(i);
+            jumlah += salinan[i];
+        }
+        if (jumlah == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(jumlah * Math.min(persen, 100.0) / 100.0));
+        long kumulatif = 0;
+        for (int i = 0; i < JUMLAH_BUCKET; i++) {
+            kumulatif += salinan[i];
+            if (kumulatif >= target) {
+                return Math.min(batasAtas(i), maks.get());
+            }
+        }
+        return maks.get();
+    }
+    
+    public void reset() {
+        for (int i = 0; i < JUMLAH_BUCKET; i++) {
+            bucket.set(i, 0);
+        }
+        total.reset();
+        maks.set(0);
+    }
+    
+    static int indeks(long nilai) {
+        if (nilai < LINEAR) {
+            return (int) nilai;
+        }
+        int pangkat = 63 - Long.numberOfLeadingZeros(nilai);
+        if (pangkat >= MAX_BITS) {
+            return JUMLAH_BUCKET - 1;
+        }
+        // Ambil SUB_BITS bit teratas: mantissa selalu di [HALF, LINEAR)
+        int geser = pangkat - SUB_BITS + 1;
+        long mantissa = nilai >>> geser;
+        return LINEAR + (geser - 1) * HALF + (int) (mantissa - HALF);
+    }
+    
+    static long batasAtas(int indeks) {
+        if (indeks < LINEAR) {
+            return indeks;
+        }
+        int j = indeks - LINEAR;
+        int geser = j / HALF + 1;
+        long mantissa = HALF + j % HALF;
+        return ((mantissa + 1) << geser) - 1;
+    }
+}
@@ -0,0 +1,165 @@
+package com.joko.aplikasijava.utils;
+
+import java.util.Arrays;
+
+/**
+ * Map long ke objek dengan open addressing (linear probing).
+ * Key disimpan sebagai long primitif sehingga tidak ada boxing ke Long.
+ * Nilai 0 dipakai sebagai penanda slot kosong, jadi key 0 tidak didukung
+ * (id entity selalu dimulai dari 1).
+ * Tidak thread-safe, sinkronisasi diatur oleh pemakai.
+ */
+public class OpenLongMap<V> {
+    
+    private static final float LOAD_FACTOR = 0.5f;
+    
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    
+    public OpenLongMap() {
+        this(16);
+    }
+    
+    public OpenLongMap(int kapasitasAwal) {
+        int kapasitas = 16;
+        while (kapasitas * LOAD_FACTOR < kapasitasAwal) {
+            kapasitas <<= 1;
+        }
+        alokasi(kapasitas);
+    }
+    
+    /**
+     * Ambil value untuk key, atau null jika tidak ada
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return null;
+        }
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+    
+    /**
+     * Simpan value untuk key
+     * @return value lama, atau null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 tidak didukung");
+        }
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                V lama = (V) values[i];
+                values[i] = value;
+                return lama;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+    
+    /**
+     * Hapus key
+     * @return value yang dihapus, atau null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            return null;
+        }
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                V lama = (V) values[i];
+                hapusSlot(i);
+                return lama;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+    
+    /**
+     * Hapus slot lalu geser entry berikutnya agar rantai probing tetap utuh
+     */
+    private void hapusSlot(int kosong) {
+        int i = kosong;
+        while (true) {
+            i = (i + 1) & mask;
+            long k = keys[i];
+            if (k == 0) {
+                break;
+            }
+            int ideal = slot(k);
+            if (((i - ideal) & mask) >= ((i - kosong) & mask)) {
+                keys[kosong] = k;
+                values[kosong] = values[i];
+                kosong = i;
+            }
+        }
+        keys[kosong] = 0;
+        values[kosong] = null;
+        size--;
+    }
+    
+    private void rehash(int kapasitasBaru) {
+        long[] keysLama = keys;
+        Object[] valuesLama = values;
+        alokasi(kapasitasBaru);
+        for (int j = 0; j < keysLama.length; j++) {
+            long k = keysLama[j];
+            if (k != 0) {
+                int i = slot(k);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = valuesLama[j];
+            }
+        }
+    }
+    
+    private void alokasi(int kapasitas) {
+        keys = new long[kapasitas];
+        values = new Object[kapasitas];
+        mask = kapasitas - 1;
+    }
+    
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,170 @@
+package com.joko.aplikasijava.utils;
+
+import java.util.Arrays;
+
+/**
+ * Map String ke objek dengan open addressing (linear probing).
+ * Key dan value disimpan di array paralel tanpa objek Entry per item,
+ * sehingga lookup hanya berupa beberapa akses array.
+ * Tidak thread-safe, sinkronisasi diatur oleh pemakai.
+ */
+public class OpenStringMap<V> {
+    
+    private static final float LOAD_FACTOR = 0.5f;
+    
+    private String[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    
+    public OpenStringMap() {
+        this(16);
+    }
+    
+    public OpenStringMap(int kapasitasAwal) {
+        alokasi(kapasitasUntuk(kapasitasAwal));
+    }
+    
+    /**
+     * Ambil value untuk key, atau null jika tidak ada
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String key) {
+        if (key == null) {
+            return null;
+        }
+        int i = slot(key);
+        String k;
+        while ((k = keys[i]) != null) {
+            if (k.equals(key)) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+    
+    /**
+     * Simpan value untuk key
+     * @return value lama, atau null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(String key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key tidak boleh null");
+        }
+        int i = slot(key);
+        String k;
+        while ((k = keys[i]) != null) {
+            if (k.equals(key)) {
+                V lama = (V) values[i];
+                values[i] = value;
+                return lama;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+    
+    /**
+     * Hapus key
+     * @return value yang dihapus, atau null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(String key) {
+        if (key == null) {
+            return null;
+        }
+        int i = slot(key);
+        String k;
+        while ((k = keys[i]) != null) {
+            if (k.equals(key)) {
+                V lama = (V) values[i];
+                hapusSlot(i);
+                return lama;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+    
+    /**
+     * Hapus slot lalu geser entry berikutnya agar rantai probing tetap utuh
+     * (tanpa tombstone)
+     */
+    private void hapusSlot(int kosong) {
+        int i = kosong;
+        while (true) {
+            i = (i + 1) & mask;
+            String k = keys[i];
+            if (k == null) {
+                break;
+            }
+            int ideal = slot(k);
+            // Pindahkan jika slot ideal entry ini tidak berada di antara (kosong, i]
+            if (((i - ideal) & mask) >= ((i - kosong) & mask)) {
+                keys[kosong] = k;
+                values[kosong] = values[i];
+                kosong = i;
+            }
+        }
+        keys[kosong] = null;
+        values[kosong] = null;
+        size--;
+    }
+    
+    private void rehash(int kapasitasBaru) {
+        String[] keysLama = keys;
+        Object[] valuesLama = values;
+        alokasi(kapasitasBaru);
+        for (int j = 0; j < keysLama.length; j++) {
+            String k = keysLama[j];
+            if (k != null) {
+                int i = slot(k);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = valuesLama[j];
+            }
+        }
+    }
+    
+    private void alokasi(int kapasitas) {
+        keys = new String[kapasitas];
+        values = new Object[kapasitas];
+        mask = kapasitas - 1;
+    }
+    
+    private int slot(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    
+    private static int kapasitasUntuk(int jumlah) {
+        int kapasitas = 16;
+        while (kapasitas * LOAD_FACTOR < jumlah) {
+            kapasitas <<= 1;
+        }
+        return kapasitas;
+    }
+}
@@ -0,0 +1,332 @@
+package com.joko.aplikasijava.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compressed trie (radix tree) untuk autocomplete berdasarkan prefix.
+ * Setiap node menyimpan k value teratas di subtree-nya (menurut comparator),
+ * sehingga pencarian prefix hanya berjalan sepanjang prefix tanpa menelusuri
+ * seluruh subtree. Daftar teratas dihitung ulang di sepanjang jalur key
+ * setiap kali ada perubahan, atau lewat perbarui() jika urutan value berubah.
+ * Satu value boleh didaftarkan di beberapa key; hasil tidak mengandung duplikat.
+ * Tidak thread-safe, sinkronisasi diatur oleh pemakai.
+ */
+public class RadixTrie<V> {
+    
+    private final Comparator<? super V> urutan;
+    private final int k;
+    private final Node<V> root = new Node<>("");
+    private int size;
+    private boolean muatMassal;
+    
+    /**
+     * @param urutan urutan ranking, value "terkecil" tampil paling atas
+     * @param k jumlah value teratas yang disimpan per node
+     */
+    public RadixTrie(Comparator<? super V> urutan, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k harus lebih dari 0");
+        }
+        this.urutan = urutan;
+        this.k = k;
+    }
+    
+    /**
+     * Daftarkan value pada key
+     */
+    public void put(String key, V value) {
+        List<Node<V>> jalur = muatMassal ? null : new ArrayList<>();
+        Node<V> node = root;
+        int pos = 0;
+        tambahJalur(jalur, node);
+        
+        while (pos < key.length()) {
+            Node<V> anak = node.anak(key.charAt(pos));
+            if (anak == null) {
+                anak = new Node<>(key.substring(pos));
+                node.tambahAnak(anak);
+                node = anak;
+                tambahJalur(jalur, node);
+                break;
+            }
+            int sama = prefixSama(anak.label, key, pos);
+            if (sama < anak.label.length()) {
+                anak = pecah(node, anak, sama);
+            }
+            node = anak;
+            tambahJalur(jalur, node);
+            pos += sama;
+        }
+        
+        if (node.nilai == null) {
+            node.nilai = new ArrayList<>(1);
+        }
+        for (V v : node.nilai) {
+            if (v == value) {
+                return;
+            }
+        }
+        node.nilai.add(value);
+        size++;
+        if (jalur != null) {
+            hitungUlang(jalur);
+        }
+    }
+    
+    /**
+     * Mulai pengisian massal: put() tidak menghitung ranking sampai selesaiMuatMassal()
+     */
+    public void mulaiMuatMassal() {
+        muatMassal = true;
+    }
+    
+    /**
+     * Akhiri pengisian massal dan hitung ranking seluruh node sekali jalan
+     */
+    public void selesaiMuatMassal() {
+        muatMassal = false;
+        hitungSemua(root);
+    }
+    
+    /**
+     * Hapus value dari key
+     * @return true jika value sebelumnya terdaftar pada key
+     */
+    public boolean remove(String key, V value) {
+        List<Node<V>> jalur = cariJalur(key);
+        if (jalur == null) {
+            return false;
+        }
+        Node<V> node = jalur.get(jalur.size() - 1);
+        if (node.nilai == null || !hapusIdentitas(node.nilai, value)) {
+            return false;
+        }
+        if (node.nilai.isEmpty()) {
+            node.nilai = null;
+        }
+        size--;
+        
+        // Rapikan node yang tidak lagi dibutuhkan
+        if (node != root && node.nilai == null) {
+            Node<V> parent = jalur.get(jalur.size() - 2);
+            if (node.anak.isEmpty()) {
+                parent.anak.remove(node);
+                jalur.remove(jalur.size() - 1);
+                if (parent != root && parent.nilai == null && parent.anak.size() == 1) {
+                    gabung(parent);
+                }
+            } else if (node.anak.size() == 1) {
+                gabung(node);
+            }
+        }
+        hitungUlang(jalur);
+        return true;
+    }
+    
+    /**
+     * Hitung ulang ranking di sepanjang key setelah urutan value berubah
+     */
+    public void perbarui(String key) {
+        List<Node<V>> jalur = cariJalur(key);
+        if (jalur != null) {
+            hitungUlang(jalur);
+        }
+    }
+    
+    /**
+     * Ambil value teratas yang key-nya diawali prefix
+     */
+    public List<V> cari(String prefix, int limit) {
+        Node<V> node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            Node<V> anak = node.anak(prefix.charAt(pos));
+            if (anak == null) {
+                return Collections.emptyList();
+            }
+            int sama = prefixSama(anak.label, prefix, pos);
+            if (sama < anak.label.length() && pos + sama < prefix.length()) {
+                return Collections.emptyList();
+            }
+            node = anak;
+            pos += sama;
+        }
+        List<V> top = node.top;
+        return new ArrayList<>(top.subList(0, Math.min(limit, top.size())));
+    }
+    
+    /**
+     * Jumlah pasangan key-value yang terdaftar
+     */
+    public int size() {
+        return size;
+    }
+    
+    public void clear() {
+        root.anak.clear();
+        root.nilai = null;
+        root.top = Collections.emptyList();
+        size = 0;
+    }
+    
+    private static <V> void tambahJalur(List<Node<V>> jalur, Node<V> node) {
+        if (jalur != null) {
+            jalur.add(node);
+        }
+    }
+    
+    private List<Node<V>> cariJalur(String key) {
+        List<Node<V>> jalur = new ArrayList<>();
+        Node<V> node = root;
+        int pos = 0;
+        jalur.add(node);
+        while (pos < key.length()) {
+            Node<V> anak = node.anak(key.charAt(pos));
+            if (anak == null || !key.startsWith(anak.label, pos)) {
+                return null;
+            }
+            node = anak;
+            jalur.add(node);
+            pos += anak.label.length();
+        }
+        return jalur;
+    }
+    
+    /**
+     * Pecah edge anak pada posisi tertentu, kembalikan node tengah yang baru
+     */
+    private Node<V> pecah(Node<V> parent, Node<V> anak, int posisi) {
+        Node<V> tengah = new Node<>(anak.label.substring(0, posisi));
+        parent.anak.set(parent.anak.indexOf(anak), tengah);
+        anak.label = anak.label.substring(posisi);
+        tengah.tambahAnak(anak);
+        tengah.top = anak.top;
+        return tengah;
+    }
+    
+    /**
+     * Gabungkan node dengan satu-satunya anak (node mengambil isi anak)
+     */
+    private void gabung(Node<V> node) {
+        Node<V> anak = node.anak.get(0);
+        node.label = node.label + anak.label;
+        node.anak = anak.anak;
+        node.nilai = anak.nilai;
+        node.top = anak.top;
+    }
+    
+    private void hitungSemua(Node<V> node) {
+        for (Node<V> anak : node.anak) {
+            hitungSemua(anak);
+        }
+        hitungTop(node);
+    }
+    
+    private void hitungUlang(List<Node<V>> jalur) {
+        for (int i = jalur.size() - 1; i >= 0; i--) {
+            hitungTop(jalur.get(i));
+        }
+    }
+    
+    /**
+     * Top-k node = top-k dari gabungan value node sendiri dan top-k setiap anak.
+     * Top anak sudah terurut, jadi pembacaan anak berhenti di value pertama yang ditolak.
+     */
+    private void hitungTop(Node<V> node) {
+        if (node.anak.isEmpty() && node.nilai != null && node.nilai.size() == 1) {
+            node.top = Collections.singletonList(node.nilai.get(0));
+            return;
+        }
+        List<V> top = new ArrayList<>(k);
+        if (node.nilai != null) {
+            for (V v : node.nilai) {
+                sisipkan(top, v);
+            }
+        }
+        for (Node<V> anak : node.anak) {
+            for (V v : anak.top) {
+                if (!sisipkan(top, v)) {
+                    break;
+                }
+            }
+        }
+        node.top = top.isEmpty() ? Collections.emptyList() : top;
+    }
+    
+    /**
+     * Sisipkan value ke daftar top secara terurut
+     * @return false jika value ditolak karena tidak masuk k teratas
+     */
+    private boolean sisipkan(List<V> top, V value) {
+        if (top.size() == k && urutan.compare(value, top.get(k - 1)) >= 0) {
+            return false;
+        }
+        int i = top.size();
+        while (i > 0 && urutan.compare(value, top.get(i - 1)) < 0) {
+            i--;
+        }
+        if (mengandungIdentitas(top, value)) {
+            return true;
+        }
+        top.add(i, value);
+        if (top.size() > k) {
+            top.remove(k);
+        }
+        return true;
+    }
+    
+    private static int prefixSama(String label, String key, int pos) {
+        int max = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+    
+    private static <V> boolean mengandungIdentitas(List<V> list, V value) {
+        for (V v : list) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static <V> boolean hapusIdentitas(List<V> list, V value) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == value) {
+                list.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static final class Node<V> {
+        String label;
+        List<Node<V>> anak = new ArrayList<>(2);
+        List<V> nilai;
+        List<V> top = Collections.emptyList();
+        
+        Node(String label) {
+            this.label = label;
+        }
+        
+        Node<V> anak(char c) {
+            for (Node<V> n : anak) {
+                if (n.label.charAt(0) == c) {
+                    return n;
+                }
+            }
+            return null;
+        }
+        
+        void tambahAnak(Node<V> node) {
+            anak.add(node);
+        }
+    }
+}
@@ -4,13 +4,51 @@
 package com.joko.aplikasijava;
 
 import com.joko.aplikasijava.config.AppConfig;
+import com.joko.aplikasijava.config.DatabaseInitializer;
+import com.joko.aplikasijava.jurnal.JurnalPenjualan;
+import com.joko.aplikasijava.metrics.MetricsRegistry;
+import com.joko.aplikasijava.metrics.MetrikOperasi;
+import com.joko.aplikasijava.metrics.PenghitungStatement;
+import com.joko.aplikasijava.metrics.StatementBudget;
 import com.joko.aplikasijava.models.*;
+import com.joko.aplikasijava.repositories.BlokNomorAllocator;
+import com.joko.aplikasijava.repositories.NomorLokal;
+import com.joko.aplikasijava.repositories.StokHistoryRepository;
+import com.joko.aplikasijava.services.AuthService;
+import com.joko.aplikasijava.services.LaporanService;
+import com.joko.aplikasijava.services.PenulisStokHistory;
+import com.joko.aplikasijava.services.ProdukIndex;
+import com.joko.aplikasijava.services.ProdukService;
+import com.joko.aplikasijava.services.ReservasiStok;
+import com.joko.aplikasijava.services.TransaksiService;
 import com.joko.aplikasijava.utils.FormatUtils;
+import com.joko.aplikasijava.utils.LatencyHistogram;
+import com.joko.aplikasijava.utils.OpenLongMap;
+import com.joko.aplikasijava.utils.OpenStringMap;
+import com.joko.aplikasijava.utils.RadixTrie;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.net.ConnectException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Unit tests untuk aplikasi sistem kasir
@@ -201,4 +239,515 @@ class AppTest {
         String result = FormatUtils.padRight("ABC", 6, ' ');
         assertEquals("ABC   ", result);
     }
+    
+    @Test
+    void testBlokNomorAllocator() throws InterruptedException {
+        // Test nomor unik dari blok yang disewa, seed hanya dipakai sekali
+        Map<String, Long> counter = new HashMap<>();
+        AtomicInteger jumlahSewa = new AtomicInteger();
+        BlokNomorAllocator allocator = new BlokNomorAllocator((kunci, nilaiAwal, ukuran) -> {
+            jumlahSewa.incrementAndGet();
+            return counter.merge(kunci, nilaiAwal + ukuran, (lama, awal) -> lama + ukuran);
+        }, 10);
+        
+        assertEquals(6, allocator.next("TRX", () -> 5));
+        assertEquals(1, allocator.next("MBR", () -> 0));
+        
+        Set<Long> nomor = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    nomor.add(allocator.next("TRX", () -> { throw new IllegalStateException(); }));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(100, nomor.size());
+        assertEquals(7L, nomor.stream().min(Long::compare).orElseThrow());
+        assertEquals(106L, nomor.stream().max(Long::compare).orElseThrow());
+        assertEquals(12, jumlahSewa.get());
+    }
+    
+    @Test
+    void testBlokNomorAllocatorOffline(@TempDir Path direktori) {
+        // Test nomor dari rentang node saat database mati, tidak terulang setelah restart
+        AtomicBoolean offline = new AtomicBoolean(true);
+        BlokNomorAllocator.SumberBlok database = (kunci, nilaiAwal, ukuran) -> {
+            if (offline.get()) {
+                throw new RuntimeException("Gagal mengambil nomor urut", new ConnectException("Connection refused"));
+            }
+            return nilaiAwal + ukuran;
+        };
+        BlokNomorAllocator allocator = new BlokNomorAllocator(database, new NomorLokal(direktori, 1), 10);
+        
+        for (long i = 1; i <= 11; i++) {
+            assertEquals(910_000 + i, allocator.next("TRX", () -> { throw new RuntimeException(new ConnectException()); }));
+        }
+        
+        // Restart: sisa blok offline dilewati
+        allocator = new BlokNomorAllocator(database, new NomorLokal(direktori, 1), 10);
+        assertEquals(910_021, allocator.next("TRX", () -> 0));
+        
+        // Database kembali; nomor offline tidak menjadi nilai awal counter
+        offline.set(false);
+        allocator = new BlokNomorAllocator(database, new NomorLokal(direktori, 1), 10);
+        assertEquals(1, allocator.next("TRX", () -> 910_021));
+        
+        // Kesalahan selain koneksi tetap diteruskan
+        BlokNomorAllocator gagal = new BlokNomorAllocator((kunci, nilaiAwal, ukuran) -> {
+            throw new RuntimeException("Gagal mengambil nomor urut: constraint");
+        }, new NomorLokal(direktori, 1), 10);
+        assertThrows(RuntimeException.class, () -> gagal.next("INV", () -> 0));
+    }
+    
+    @Test
+    void testOpenAddressingMap() {
+        // Test put, get, remove dan rehash pada map open addressing
+        OpenStringMap<Integer> kodeMap = new OpenStringMap<>();
+        OpenLongMap<String> idMap = new OpenLongMap<>();
+        for (int i = 1; i <= 1000; i++) {
+            kodeMap.put("PRD" + i, i);
+            idMap.put(i, "PRD" + i);
+        }
+        assertEquals(1000, kodeMap.size());
+        assertEquals(1000, idMap.size());
+        
+        for (int i = 1; i <= 1000; i += 2) {
+            assertEquals(i, kodeMap.remove("PRD" + i));
+            assertEquals("PRD" + i, idMap.remove(i));
+        }
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(i % 2 == 0 ? Integer.valueOf(i) : null, kodeMap.get("PRD" + i));
+            assertEquals(i % 2 == 0 ? "PRD" + i : null, idMap.get(i));
+        }
+        assertEquals(500, kodeMap.size());
+        assertEquals(4, kodeMap.put("PRD4", 40));
+        assertEquals(40, kodeMap.get("PRD4"));
+        assertNull(kodeMap.get("TIDAK_ADA"));
+    }
+    
+    @Test
+    void testRadixTrieAutocomplete() {
+        // Test autocomplete prefix dengan ranking terlaris dan penghapusan
+        Map<String, Integer> terjual = new HashMap<>();
+        RadixTrie<String> trie = new RadixTrie<>(
+                Comparator.comparing((String s) -> -terjual.get(s)).thenComparing(s -> s), 3);
+        String[] nama = {"indomie goreng", "indomie soto", "indomilk", "teh botol", "teh pucuk", "gula"};
+        for (int i = 0; i < nama.length; i++) {
+            terjual.put(nama[i], i * 10);
+            trie.put(nama[i], nama[i]);
+        }
+        trie.put("goreng", "indomie goreng");
+        
+        assertEquals(List.of("indomilk", "indomie soto", "indomie goreng"), trie.cari("indom", 10));
+        assertEquals(List.of("indomie soto", "indomie goreng"), trie.cari("indomie", 10));
+        assertEquals(List.of("teh pucuk", "teh botol"), trie.cari("teh", 10));
+        assertEquals(List.of("indomie goreng"), trie.cari("gor", 10));
+        assertEquals(List.of("gula", "teh pucuk"), trie.cari("", 2));
+        assertTrue(trie.cari("indomix", 10).isEmpty());
+        
+        // Ranking berubah setelah perbarui
+        terjual.put("indomie goreng", 100);
+        trie.perbarui("indomie goreng");
+        trie.perbarui("goreng");
+        assertEquals("indomie goreng", trie.cari("ind", 1).get(0));
+        assertEquals(List.of("indomie goreng", "gula", "teh pucuk"), trie.cari("", 10));
+        
+        // Hapus dan pastikan node dirapikan tanpa merusak key lain
+        assertTrue(trie.remove("indomie soto", "indomie soto"));
+        assertFalse(trie.remove("indomie soto", "indomie soto"));
+        trie.remove("indomilk", "indomilk");
+        assertEquals(List.of("indomie goreng"), trie.cari("in", 10));
+        trie.remove("indomie goreng", "indomie goreng");
+        assertEquals(List.of("indomie goreng"), trie.cari("g", 1));
+        assertTrue(trie.cari("in", 10).isEmpty());
+        assertEquals(4, trie.size());
+    }
+    
+    @Test
+    void testProdukIndexMengembalikanSalinan() {
+        // Produk dari index boleh diubah pemanggil tanpa mengubah index atau urutan autocomplete
+        ProdukIndex index = ProdukIndex.getInstance();
+        Produk kopi = new Produk("PRD040", "Kopi Susu", new BigDecimal("4000"), new BigDecimal("5000"), 20, "PCS");
+        kopi.setId(900_040L);
+        kopi.setTerjual(10);
+        Produk kopiHitam = new Produk("PRD041", "Kopi Hitam", new BigDecimal("3000"), new BigDecimal("4000"), 20, "PCS");
+        kopiHitam.setId(900_041L);
+        kopiHitam.setTerjual(5);
+        index.muat(List.of(kopi, kopiHitam));
+        
+        kopi.setNama("Diubah setelah dimuat");
+        Produk hasil = index.cari("PRD040").orElseThrow();
+        assertEquals("Kopi Susu", hasil.getNama());
+        hasil.setNama("Diubah pemanggil");
+        hasil.setStok(0);
+        index.autocomplete("kopi", 10).get(1).setTerjual(1_000);
+        assertEquals("Kopi Susu", index.cariById(900_040L).orElseThrow().getNama());
+        assertEquals(20, index.cari("PRD040").orElseThrow().getStok());
+        assertEquals(List.of("PRD040", "PRD041"), index.autocomplete("kopi", 10).stream().map(Produk::getKode).toList());
+        
+        // Perubahan setelah commit masuk lewat updateStok
+        index.updateStok(900_041L, 15, 30);
+        assertEquals(List.of("PRD041", "PRD040"), index.autocomplete("kopi", 10).stream().map(Produk::getKode).toList());
+        assertEquals(15, index.cari("PRD041").orElseThrow().getStok());
+    }
+    
+    @Test
+    void testLatencyHistogram() {
+        // Test persentil histogram log-linear (galat relatif maksimal ~1,6%)
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.persentil(99));
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.rekam(i * 1_000);
+        }
+        assertEquals(10_000, histogram.getJumlah());
+        assertEquals(10_000_000, histogram.getMaks());
+        assertEquals(5_000_500.0, histogram.getRataRata(), 0.001);
+        assertEquals(5_000_000, histogram.persentil(50), 5_000_000 * 0.016);
+        assertEquals(9_900_000, histogram.persentil(99), 9_900_000 * 0.016);
+        assertEquals(10_000_000, histogram.persentil(100));
+        
+        // Nilai kecil dicatat persis
+        histogram.reset();
+        histogram.rekam(3);
+        histogram.rekam(7);
+        assertEquals(3, histogram.persentil(50));
+        assertEquals(7, histogram.persentil(99));
+    }
+    
+    @Test
+    void testMetricsRegistryPrometheus() {
+        // Test counter, gauge dan durasi operasi dalam format Prometheus
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.counter("uji_counter_total", "metode", "TUNAI").add(3);
+        registry.gauge("uji_gauge", () -> 2.5);
+        MetrikOperasi metrik = registry.operasi("uji_repository", "entity", "Produk");
+        assertEquals("ok", metrik.ukur("save", () -> "ok"));
+        assertThrows(IllegalStateException.class, () -> metrik.jalankan("save", () -> {
+            throw new IllegalStateException("gagal");
+        }));
+        
+        String teks = registry.prometheus();
+        assertTrue(teks.contains("# TYPE uji_counter_total counter\nuji_counter_total{metode=\"TUNAI\"} 3\n"));
+        assertTrue(teks.contains("uji_gauge 2.5\n"));
+        assertTrue(teks.contains("uji_repository_error_total{entity=\"Produk\",operasi=\"save\"} 1\n"));
+        assertTrue(teks.contains("uji_repository_durasi_detik_count{entity=\"Produk\",operasi=\"save\"} 2\n"));
+        assertTrue(teks.contains("uji_repository_durasi_detik{entity=\"Produk\",operasi=\"save\",quantile=\"0.99\"} "));
+        assertEquals(1, teks.split("# TYPE uji_repository_durasi_detik summary", -1).length - 1);
+    }
+    
+    @Test
+    void testStatementBudgetDeteksiNPlusSatu() {
+        // Statement dari operasi bersarang dihitung ke operasi terluar
+        StatementBudget budget = StatementBudget.getInstance();
+        assertTrue(budget.isKetat());
+        budget.setBatas("UjiService.checkout", 3, 60_000);
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        MetrikOperasi service = registry.operasi("uji_service", "service", "UjiService");
+        MetrikOperasi repository = registry.operasi("uji_repository", "entity", "Produk");
+        PenghitungStatement inspector = new PenghitungStatement();
+        
+        service.jalankan("checkout", () -> {
+            inspector.inspect("insert into transaksi");
+            repository.jalankan("findById", () -> inspector.inspect("select p from produk p where id=?"));
+            inspector.inspect("update produk");
+        });
+        
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> service.jalankan("checkout", () -> {
+            for (int i = 0; i < 4; i++) {
+                repository.jalankan("findById", () -> inspector.inspect("select p from produk p where id=?"));
+            }
+        }));
+        assertTrue(e.getMessage().contains("4x select p from produk p where id=?"));
+        assertTrue(registry.prometheus().contains(
+                "kasirpro_budget_terlampaui_total{operasi=\"UjiService.checkout\",jenis=\"statement\"} 1\n"));
+        assertTrue(registry.prometheus().contains("uji_service_statement_total{service=\"UjiService\",operasi=\"checkout\"} 7\n"));
+    }
+    
+    /**
+     * Budget statement operasi sungguhan terhadap database uji (mode ketat menggagalkan
+     * operasi yang melewati batas). Hanya jalan jika database uji diberikan, contoh:
+     * gradle test -Pdb.url=jdbc:postgresql://localhost:5432/kasir_uji
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "kasirpro.db.url", matches = ".+")
+    void testStatementBudgetOperasiDatabase() {
+        User admin = siapkanDatabaseUji();
+        ProdukService produkService = new ProdukService();
+        List<Produk> produkUji = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            String kode = "UJIBGT" + i;
+            Produk produk = produkService.getProdukByKodeOrBarcode(kode).orElseGet(() -> produkService.tambahProduk(
+                    new Produk(kode, "Produk Uji Budget " + kode, new BigDecimal("800"), new BigDecimal("1000"), 0, "PCS")));
+            produkService.adjustmentStok(produk.getId(), 100, "Reset stok uji budget", admin);
+            produkUji.add(produk);
+        }
+        produkService.muatIndexProduk();
+        assertTrue(PenulisStokHistory.getInstance().tunggu(10_000));
+        
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        LongAdder statementCheckout = registry.counter("kasirpro_service_statement_total",
+                "service", "TransaksiService", "operasi", "prosesPembayaran");
+        long sebelum = statementCheckout.sum();
+        
+        // Insert penjualan berjalan di thread group commit tetapi dihitung ke checkout
+        TransaksiService transaksiService = new TransaksiService("UJI-BUDGET");
+        transaksiService.mulaiTransaksiBaru(admin);
+        for (Produk produk : produkUji) {
+            transaksiService.tambahKeKeranjang(produk.getKode(), 2);
+        }
+        BigDecimal total = transaksiService.getTransaksiAktif().getGrandTotal();
+        Transaksi transaksi = transaksiService.prosesPembayaran(AppConfig.PAYMENT_CASH, total, null);
+        long jumlahStatement = statementCheckout.sum() - sebelum;
+        assertTrue(jumlahStatement >= 6, "insert penjualan tidak terhitung: " + jumlahStatement);
+        assertTrue(jumlahStatement <= StatementBudget.getInstance().getBatasStatement("TransaksiService.prosesPembayaran"));
+        
+        transaksiService.voidTransaksi(transaksi.getId(), "Uji budget", admin);
+        LaporanService laporanService = new LaporanService();
+        laporanService.getRingkasanByPeriode(LocalDate.now().minusDays(30), LocalDate.now());
+        laporanService.getDashboardData();
+        
+        // Penulis history stok melapor pelanggaran di thread sendiri
+        produkService.tambahStok(produkUji.get(0).getId(), 1, "Uji budget", admin);
+        assertTrue(PenulisStokHistory.getInstance().tunggu(10_000));
+        assertFalse(registry.prometheus().contains("kasirpro_budget_terlampaui_total{operasi=\"PenulisStokHistory.tulis\",jenis=\"statement\"}"));
+        assertFalse(registry.prometheus().contains("kasirpro_budget_terlampaui_total{operasi=\"PenulisPenjualan."));
+    }
+    
+    @Test
+    @EnabledIfSystemProperty(named = "kasirpro.db.url", matches = ".+")
+    void testUpdateProdukTidakMenimpaStok() {
+        // Edit data produk dari salinan lama tidak mengembalikan stok yang sudah terjual
+        User admin = siapkanDatabaseUji();
+        ProdukService produkService = new ProdukService();
+        Produk produk = produkService.getProdukByKodeOrBarcode("UJIEDT1").orElseGet(() -> produkService.tambahProduk(
+                new Produk("UJIEDT1", "Produk Uji Edit", new BigDecimal("800"), new BigDecimal("1000"), 0, "PCS")));
+        produkService.adjustmentStok(produk.getId(), 50, "Reset stok uji edit", admin);
+        produkService.muatIndexProduk();
+        Produk salinanLama = produkService.getProdukByKodeOrBarcode("UJIEDT1").orElseThrow();
+        
+        TransaksiService transaksiService = new TransaksiService("UJI-EDIT");
+        transaksiService.mulaiTransaksiBaru(admin);
+        transaksiService.tambahKeKeranjang("UJIEDT1", 3);
+        transaksiService.prosesPembayaran(AppConfig.PAYMENT_CASH, new BigDecimal("100000"), null);
+        
+        salinanLama.setHargaJual(new BigDecimal("1200"));
+        Produk hasil = produkService.updateProduk(salinanLama);
+        assertEquals(47, hasil.getStok());
+        assertEquals(47, produkService.getProdukById(produk.getId()).orElseThrow().getStok());
+        Produk diIndex = produkService.getProdukByKodeOrBarcode("UJIEDT1").orElseThrow();
+        assertEquals(47, diIndex.getStok());
+        assertEquals(0, new BigDecimal("1200").compareTo(diIndex.getHargaJual()));
+    }
+    
+    @Test
+    @EnabledIfSystemProperty(named = "kasirpro.db.url", matches = ".+")
+    void testStokInventoriTidakMenimpaCheckout() throws InterruptedException {
+        // Stok masuk dari menu inventori bersamaan dengan checkout: kedua perubahan tetap ada
+        User admin = siapkanDatabaseUji();
+        ProdukService produkService = new ProdukService();
+        Produk produk = produkService.getProdukByKodeOrBarcode("UJISTK1").orElseGet(() -> produkService.tambahProduk(
+                new Produk("UJISTK1", "Produk Uji Stok", new BigDecimal("800"), new BigDecimal("1000"), 0, "PCS")));
+        produkService.adjustmentStok(produk.getId(), 100, "Reset stok uji inventori", admin);
+        produkService.muatIndexProduk();
+        int terjualAwal = produkService.getProdukById(produk.getId()).orElseThrow().getTerjual();
+        
+        Thread checkout = Thread.ofPlatform().start(() -> {
+            TransaksiService transaksiService = new TransaksiService("UJI-STOK");
+            for (int i = 0; i < 15; i++) {
+                transaksiService.mulaiTransaksiBaru(admin);
+                transaksiService.tambahKeKeranjang("UJISTK1", 2);
+                transaksiService.prosesPembayaran(AppConfig.PAYMENT_CASH, new BigDecimal("100000"), null);
+            }
+        });
+        for (int i = 0; i < 30; i++) {
+            produkService.tambahStok(produk.getId(), 1, "Uji stok masuk", admin);
+        }
+        checkout.join();
+        
+        Produk hasil = produkService.getProdukById(produk.getId()).orElseThrow();
+        assertEquals(100, hasil.getStok());
+        assertEquals(terjualAwal + 30, hasil.getTerjual());
+        assertEquals(100, produkService.getProdukByKodeOrBarcode("UJISTK1").orElseThrow().getStok());
+        assertFalse(produkService.kurangiStok(produk.getId(), 101, "Uji stok keluar", admin));
+        assertTrue(produkService.kurangiStok(produk.getId(), 100, "Uji stok keluar", admin));
+        assertEquals(0, produkService.getProdukById(produk.getId()).orElseThrow().getStok());
+    }
+    
+    /**
+     * Migrasi database uji dan login admin default
+     */
+    private static User siapkanDatabaseUji() {
+        System.setProperty("kasirpro.db.schema", "update");
+        DatabaseInitializer.migrasi();
+        AuthService authService = new AuthService();
+        authService.initDefaultAdmin();
+        User admin = authService.login("admin", "admin123");
+        assertNotNull(admin);
+        return admin;
+    }
+    
+    @Test
+    void testJurnalPenjualanPulihSetelahCrash(@TempDir Path direktori) throws IOException {
+        User kasir = new User("kasir", "rahasia", "Kasir", AppConfig.ROLE_KASIR);
+        kasir.setId(7L);
+        Produk produk = new Produk("PRD010", "Kopi", new BigDecimal("5000"), new BigDecimal("7500"), 100, "PCS");
+        produk.setId(3L);
+        Transaksi transaksi = new Transaksi("TRX202601010001", kasir);
+        transaksi.addDetail(new DetailTransaksi(produk, 2));
+        transaksi.addPembayaran(new Pembayaran(AppConfig.PAYMENT_CASH, new BigDecimal("20000")));
+        Transaksi batal = new Transaksi("TRX202601010002", kasir);
+        batal.addDetail(new DetailTransaksi(produk, 1));
+        
+        JurnalPenjualan jurnal = new JurnalPenjualan(direktori);
+        jurnal.catat(transaksi);
+        jurnal.catat(batal);
+        jurnal.batal(batal.getNomorTransaksi());
+        jurnal.close();
+        
+        // Crash di tengah menulis frame berikutnya
+        Files.write(jurnal.getFile(), new byte[] {0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+        
+        jurnal = new JurnalPenjualan(direktori);
+        List<Transaksi> tertunda = jurnal.getTertunda();
+        assertEquals(1, tertunda.size());
+        Transaksi pulih = tertunda.get(0);
+        assertEquals("TRX202601010001", pulih.getNomorTransaksi());
+        assertEquals(7L, pulih.getKasir().getId());
+        assertEquals(0, transaksi.getGrandTotal().compareTo(pulih.getGrandTotal()));
+        assertEquals(3L, pulih.getDetailTransaksiList().get(0).getProduk().getId());
+        assertEquals(2, pulih.getDetailTransaksiList().get(0).getQty());
+        assertEquals(0, new BigDecimal("20000").compareTo(pulih.getPembayaranList().get(0).getJumlah()));
+        assertSame(pulih, pulih.getPembayaranList().get(0).getTransaksi());
+        
+        jurnal.selesai(pulih.getNomorTransaksi());
+        jurnal.close();
+        jurnal = new JurnalPenjualan(direktori);
+        assertEquals(0, jurnal.getJumlahTertunda());
+        jurnal.close();
+    }
+    
+    @Test
+    void testJurnalPenjualanHanyaDipakaiSatuProses(@TempDir Path direktori) throws IOException {
+        JurnalPenjualan jurnal = new JurnalPenjualan(direktori);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new JurnalPenjualan(direktori));
+        assertTrue(e.getMessage().contains("sedang dipakai"));
+        jurnal.close();
+        
+        jurnal = new JurnalPenjualan(direktori);
+        jurnal.close();
+    }
+    
+    @Test
+    void testPenulisStokHistoryMenolakHanyaBarisYangGagal(@TempDir Path direktori) throws IOException {
+        List<String> tersimpan = new CopyOnWriteArrayList<>();
+        StokHistoryRepository repository = new StokHistoryRepository() {
+            @Override
+            public void simpanBatch(List<StokHistory> daftar) {
+                if (daftar.stream().anyMatch(h -> h.getQty() < 0)) {
+                    throw new RuntimeException("Gagal menyimpan history stok: qty negatif");
+                }
+                daftar.forEach(h -> tersimpan.add(h.getKeterangan()));
+            }
+        };
+        JurnalPenjualan jurnal = new JurnalPenjualan(direktori);
+        PenulisStokHistory penulis = new PenulisStokHistory(repository, jurnal, 10);
+        Produk produk = new Produk("PRD020", "Gula", new BigDecimal("12000"), new BigDecimal("14000"), 10, "KG");
+        for (int i = 1; i <= 5; i++) {
+            StokHistory history = new StokHistory(produk, "MASUK", i == 3 ? -1 : i, 10, 10 + i);
+            history.setKeterangan("H" + i);
+            penulis.catat(history);
+        }
+        
+        assertTrue(penulis.tunggu(5000));
+        penulis.berhenti();
+        assertEquals(List.of("H1", "H2", "H4", "H5"), tersimpan);
+        assertTrue(jurnal.getStokHistoryTertunda().isEmpty());
+        jurnal.close();
+    }
+    
+    @Test
+    void testPenulisStokHistoryMenyimpanKeJurnalSaatDatabaseMati(@TempDir Path direktori) throws IOException, InterruptedException {
+        AtomicBoolean offline = new AtomicBoolean(true);
+        List<String> tersimpan = new CopyOnWriteArrayList<>();
+        StokHistoryRepository repository = new StokHistoryRepository() {
+            @Override
+            public void simpanBatch(List<StokHistory> daftar) {
+                if (offline.get()) {
+                    throw new RuntimeException("Gagal menyimpan history stok", new ConnectException("Connection refused"));
+                }
+                daftar.forEach(h -> tersimpan.add(h.getKeterangan()));
+            }
+        };
+        Produk produk = new Produk("PRD021", "Garam", new BigDecimal("3000"), new BigDecimal("4000"), 10, "PCS");
+        produk.setId(21L);
+        
+        JurnalPenjualan jurnal = new JurnalPenjualan(direktori);
+        PenulisStokHistory penulis = new PenulisStokHistory(repository, jurnal, 10);
+        for (int i = 1; i <= 3; i++) {
+            StokHistory history = new StokHistory(produk, "MASUK", i, 10, 10 + i);
+            history.setKeterangan("H" + i);
+            penulis.catat(history);
+        }
+        penulis.berhenti();
+        // Dicatat setelah penulis berhenti: langsung ke jurnal
+        StokHistory terlambat = new StokHistory(produk, "KELUAR", 1, 13, 12);
+        terlambat.setKeterangan("H4");
+        penulis.catat(terlambat);
+        assertTrue(tersimpan.isEmpty());
+        assertEquals(4, jurnal.getStokHistoryTertunda().values().stream().mapToInt(List::size).sum());
+        jurnal.close();
+        
+        // Aplikasi dijalankan lagi dengan database tersedia
+        offline.set(false);
+        jurnal = new JurnalPenjualan(direktori);
+        penulis = new PenulisStokHistory(repository, jurnal, 10);
+        penulis.mulai();
+        long batas = System.currentTimeMillis() + 5000;
+        while (tersimpan.size() < 4 && System.currentTimeMillis() < batas) {
+            Thread.sleep(10);
+        }
+        penulis.berhenti();
+        assertEquals(List.of("H1", "H2", "H3", "H4"), tersimpan);
+        assertTrue(jurnal.getStokHistoryTertunda().isEmpty());
+        jurnal.close();
+    }
+    
+    @Test
+    void testReservasiStokTidakOversellAntarLajur() throws InterruptedException {
+        ReservasiStok reservasi = ReservasiStok.getInstance();
+        Produk produk = new Produk("PRD030", "Teh", new BigDecimal("3000"), new BigDecimal("4000"), 100, "PCS");
+        produk.setId(900_030L);
+        AtomicInteger berhasil = new AtomicInteger();
+        Thread[] lajur = new Thread[8];
+        for (int i = 0; i < lajur.length; i++) {
+            lajur[i] = Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 50; j++) {
+                    if (reservasi.pesan(produk, 1)) {
+                        berhasil.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Thread t : lajur) {
+            t.join();
+        }
+        assertEquals(100, berhasil.get());
+        assertEquals(0, reservasi.getTersedia(produk));
+        
+        // Satu lajur batal, sisanya terjual, lalu stok masuk
+        reservasi.lepas(produk.getId(), 10);
+        assertEquals(10, reservasi.getTersedia(produk));
+        reservasi.konversi(produk.getId(), 90);
+        assertEquals(10, reservasi.getTersedia(produk));
+        assertEquals(0, reservasi.getDipesan(produk.getId()));
+        reservasi.tambahStok(produk.getId(), 5);
+        assertTrue(reservasi.pesan(produk, 15));
+        assertFalse(reservasi.pesan(produk, 1));
+    }
 }
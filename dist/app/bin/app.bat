@@ -74,7 +74,7 @@ set CLASSPATH=%APP_HOME%\lib\app.jar;%APP_HOME%\lib\hibernate-hikaricp-6.4.1.Fin
 
 
 @rem Execute app
-"%JAVA_EXE%" %DEFAULT_JVM_OPTS% %JAVA_OPTS% %APP_OPTS%  -classpath "%CLASSPATH%" com.joko.aplikasijava.App %*
+"%JAVA_EXE%" %DEFAULT_JVM_OPTS% %JAVA_OPTS% %APP_OPTS%  -XX:SharedArchiveFile="%APP_HOME%\lib\kasirpro.jsa" -XX:+AutoCreateSharedArchive -classpath "%CLASSPATH%" com.joko.aplikasijava.App %*
 
 :end
 @rem End local scope for the variables with windows NT shell